@@ -13,6 +13,7 @@ import java.util.Set;
  * @see AbstractBag
  * @see ArrayBag
  * @see HashBag
+ * @see OpenHashBag
  * @see ConcurrentHashBag
  * @see CopyOnWriteArrayBag
  * @see ImmutableBag
@@ -3,6 +3,8 @@ package com.ryan.collection;
 import com.ryan.util.Parameters;
 
 import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -16,13 +18,61 @@ import java.util.Set;
  * underlying {@code Map}s. Note that only references to the input {@code Map}s
  * are stored, so, if one of these {@code Map}s gets updated, those changes will
  * also be reflected in the {@code ChainMap}. Not thread safe.
+ * <p>
+ * {@linkplain #cached(Map[]) Cached} {@code ChainMap}s keep a flattened
+ * snapshot of their {@code Map}s, built on the first read and patched by
+ * every write made through the {@code ChainMap}: lookups, hits and misses
+ * alike, then cost a single probe whatever the depth of the chain, and the
+ * collection views don't re-merge the {@code Map}s. {@link #containsValue}
+ * still walks all the {@code Map}s though, so that it reports the values
+ * shadowed by an earlier {@code Map}, as for uncached {@code ChainMap}s.
+ * The snapshot can't see the changes made directly to the underlying
+ * {@code Map}s, so {@link #invalidate()} must be called after such changes.
+ * The iteration order of cached {@code ChainMap}s is unspecified.
  *
  * @param <K> the type of the {@code Map}'s keys.
  * @param <V> the type of the {@code Map}'s values.
  * @author Osman KOCAK
  */
 public final class ChainMap<K, V> extends AbstractMap<K, V> {
+    /**
+     * Creates a new cached {@code ChainMap} from the given {@code Map}s.
+     *
+     * @param <K>  the type of the {@code Map}'s keys.
+     * @param <V>  the type of the {@code Map}'s values.
+     * @param maps the input {@code Map}s.
+     * @return the created {@code ChainMap}.
+     * @throws NullPointerException     if {@code maps} is {@code null} or if it
+     *                                  contains a {@code null} reference.
+     * @throws IllegalArgumentException if {@code maps} is empty.
+     */
+    @SafeVarargs
+    public static <K, V> ChainMap<K, V> cached(Map<K, V>... maps) {
+        List<Map<K, V>> list = new ArrayList<Map<K, V>>(maps.length);
+        for (Map<K, V> map : maps) {
+            list.add(map);
+        }
+        return cached(list);
+    }
+
+    /**
+     * Creates a new cached {@code ChainMap} from the given {@code Map}s.
+     *
+     * @param <K>  the type of the {@code Map}'s keys.
+     * @param <V>  the type of the {@code Map}'s values.
+     * @param maps the input {@code Map}s.
+     * @return the created {@code ChainMap}.
+     * @throws NullPointerException     if {@code maps} is {@code null} or if it
+     *                                  contains a {@code null} reference.
+     * @throws IllegalArgumentException if {@code maps} is empty.
+     */
+    public static <K, V> ChainMap<K, V> cached(Iterable<? extends Map<K, V>> maps) {
+        return new ChainMap<K, V>(maps, true);
+    }
+
     private final List<Map<K, V>> maps;
+    private final boolean cached;
+    private PersistentMap<K, V> snapshot;
 
     /**
      * Creates a new {@code ChainMap} from the given {@code Map}s.
@@ -33,11 +83,7 @@ public final class ChainMap<K, V> extends AbstractMap<K, V> {
      * @throws IllegalArgumentException if {@code maps} is empty.
      */
     public ChainMap(Map<K, V>... maps) {
-        Parameters.checkCondition(maps.length > 0);
-        this.maps = ImmutableList.copyOf(maps);
-        for (Map<K, V> map : this.maps) {
-            Parameters.checkNotNull(map);
-        }
+        this(Arrays.asList(maps), false);
     }
 
     /**
@@ -49,20 +95,58 @@ public final class ChainMap<K, V> extends AbstractMap<K, V> {
      * @throws IllegalArgumentException if {@code maps} is empty.
      */
     public ChainMap(Iterable<? extends Map<K, V>> maps) {
+        this(maps, false);
+    }
+
+    private ChainMap(Iterable<? extends Map<K, V>> maps, boolean cached) {
         this.maps = ImmutableList.copyOf(maps);
         for (Map<K, V> map : this.maps) {
             Parameters.checkNotNull(map);
         }
         Parameters.checkCondition(!this.maps.isEmpty());
+        this.cached = cached;
+    }
+
+    /**
+     * Returns an immutable, flattened copy of this {@code ChainMap}. For
+     * cached {@code ChainMap}s, this is the current snapshot, and this
+     * method runs in constant time once the snapshot is built.
+     *
+     * @return a flattened copy of this {@code ChainMap}.
+     */
+    public Map<K, V> snapshot() {
+        if (!cached) {
+            return flatten();
+        }
+        if (snapshot == null) {
+            snapshot = flatten();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Discards the snapshot of this {@code ChainMap}, which will be rebuilt
+     * on the next read. This must be called after any change made directly
+     * to the underlying {@code Map}s of a cached {@code ChainMap}. This
+     * method has no effect on {@code ChainMap}s that aren't cached.
+     */
+    public void invalidate() {
+        snapshot = null;
     }
 
     @Override
     public int size() {
+        if (cached) {
+            return snapshot().size();
+        }
         return keySet().size();
     }
 
     @Override
     public boolean isEmpty() {
+        if (cached) {
+            return snapshot().isEmpty();
+        }
         for (Map<K, V> map : maps) {
             if (!map.isEmpty()) {
                 return false;
@@ -73,6 +157,9 @@ public final class ChainMap<K, V> extends AbstractMap<K, V> {
 
     @Override
     public boolean containsKey(Object key) {
+        if (cached) {
+            return snapshot().containsKey(key);
+        }
         for (Map<K, V> map : maps) {
             if (map.containsKey(key)) {
                 return true;
@@ -93,6 +180,9 @@ public final class ChainMap<K, V> extends AbstractMap<K, V> {
 
     @Override
     public V get(Object key) {
+        if (cached) {
+            return snapshot().get(key);
+        }
         for (Map<K, V> map : maps) {
             if (map.containsKey(key)) {
                 return map.get(key);
@@ -103,7 +193,11 @@ public final class ChainMap<K, V> extends AbstractMap<K, V> {
 
     @Override
     public V put(K key, V value) {
-        return maps.get(0).put(key, value);
+        V old = maps.get(0).put(key, value);
+        if (snapshot != null) {
+            snapshot = snapshot.with(key, value);
+        }
+        return old;
     }
 
     @Override
@@ -112,12 +206,18 @@ public final class ChainMap<K, V> extends AbstractMap<K, V> {
         for (Map<K, V> map : maps) {
             map.remove(key);
         }
+        if (snapshot != null) {
+            snapshot = snapshot.without(key);
+        }
         return value;
     }
 
     @Override
     public void putAll(Map<? extends K, ? extends V> m) {
         maps.get(0).putAll(m);
+        if (snapshot != null) {
+            snapshot = snapshot.asTransient().putAll(m).persistent();
+        }
     }
 
     @Override
@@ -125,10 +225,16 @@ public final class ChainMap<K, V> extends AbstractMap<K, V> {
         for (Map<K, V> map : maps) {
             map.clear();
         }
+        if (snapshot != null) {
+            snapshot = PersistentMap.empty();
+        }
     }
 
     @Override
     public Set<K> keySet() {
+        if (cached) {
+            return snapshot().keySet();
+        }
         ImmutableSet.Builder<K> keys = new ImmutableSet.Builder<K>();
         for (Map<K, V> map : maps) {
             keys.add(map.keySet());
@@ -138,6 +244,9 @@ public final class ChainMap<K, V> extends AbstractMap<K, V> {
 
     @Override
     public Collection<V> values() {
+        if (cached) {
+            return snapshot().values();
+        }
         ImmutableList.Builder<V> values = new ImmutableList.Builder<V>();
         for (K key : keySet()) {
             values.add(get(key));
@@ -147,6 +256,9 @@ public final class ChainMap<K, V> extends AbstractMap<K, V> {
 
     @Override
     public Set<Entry<K, V>> entrySet() {
+        if (cached) {
+            return snapshot().entrySet();
+        }
         ImmutableSet.Builder<Entry<K, V>> entries =
                 new ImmutableSet.Builder<Entry<K, V>>();
         for (K key : keySet()) {
@@ -154,4 +266,12 @@ public final class ChainMap<K, V> extends AbstractMap<K, V> {
         }
         return entries.build();
     }
+
+    private PersistentMap<K, V> flatten() {
+        PersistentMap.Transient<K, V> flat = PersistentMap.<K, V>empty().asTransient();
+        for (int i = maps.size() - 1; i >= 0; i--) {
+            flat.putAll(maps.get(i));
+        }
+        return flat.persistent();
+    }
 }
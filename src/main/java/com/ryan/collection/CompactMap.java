@@ -0,0 +1,203 @@
+package com.ryan.collection;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Skeleton of the immutable, array-backed {@code Map}s: subclasses only
+ * provide positional access to their entries (in iteration order) and key
+ * lookup; the collection views are backed by the map, without copy.
+ *
+ * @param <K> the type of the {@code Map}'s keys.
+ * @param <V> the type of the {@code Map}'s values.
+ * @author Ryan Tao
+ */
+abstract class CompactMap<K, V> extends AbstractMap<K, V> {
+    /**
+     * Returns the key at the given position.
+     */
+    abstract K keyAt(int index);
+
+    /**
+     * Returns the value at the given position.
+     */
+    abstract V valueAt(int index);
+
+    /**
+     * Returns the position of the given key, or {@code -1}.
+     */
+    abstract int indexOf(Object key);
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (int i = 0; i < size(); i++) {
+            V v = valueAt(i);
+            if (value == null ? v == null : value.equals(v)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(Object key) {
+        int i = indexOf(key);
+        return i < 0 ? null : valueAt(i);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return new AbstractSet<K>() {
+            @Override
+            public Iterator<K> iterator() {
+                return new Itr<K>(size()) {
+                    @Override
+                    K get(int index) {
+                        return keyAt(index);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CompactMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+        };
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Itr<V>(size()) {
+                    @Override
+                    V get(int index) {
+                        return valueAt(index);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CompactMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new Itr<Entry<K, V>>(size()) {
+                    @Override
+                    Entry<K, V> get(int index) {
+                        return new SimpleImmutableEntry<K, V>(keyAt(index),
+                                valueAt(index));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CompactMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Entry)) {
+                    return false;
+                }
+                Entry<?, ?> entry = (Entry<?, ?>) o;
+                int i = indexOf(entry.getKey());
+                if (i < 0) {
+                    return false;
+                }
+                V v = valueAt(i);
+                return v == null ? entry.getValue() == null : v.equals(entry.getValue());
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = 0; i < size(); i++) {
+            K k = keyAt(i);
+            V v = valueAt(i);
+            hash += (k == null ? 0 : k.hashCode()) ^ (v == null ? 0 : v.hashCode());
+        }
+        return hash;
+    }
+
+    private abstract static class Itr<E> implements Iterator<E> {
+        private final int size;
+        private int next;
+
+        Itr(int size) {
+            this.size = size;
+        }
+
+        abstract E get(int index);
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public E next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            return get(next++);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.ryan.collection;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Skeleton of the immutable, array-backed {@code Set}s: subclasses only
+ * provide positional access to their elements (in iteration order) and
+ * element lookup.
+ *
+ * @param <E> the type of the {@code Set}'s elements.
+ * @author Ryan Tao
+ */
+abstract class CompactSet<E> extends AbstractSet<E> {
+    /**
+     * Returns the element at the given position.
+     */
+    abstract E elementAt(int index);
+
+    /**
+     * Returns the position of the given element, or {@code -1}.
+     */
+    abstract int indexOf(Object o);
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private final int size = size();
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public E next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return elementAt(next++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public boolean add(E e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = 0; i < size(); i++) {
+            E e = elementAt(i);
+            hash += e == null ? 0 : e.hashCode();
+        }
+        return hash;
+    }
+}
@@ -3,26 +3,39 @@ package com.ryan.collection;
 import com.ryan.util.Parameters;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * A thread-safe variant of {@link HashBag} based on {@link ConcurrentHashMap}.
- * This implementation does not accept {@code null} elements.
+ * Each distinct element is mapped to a counter; counters start as a single
+ * atomic cell and switch to a small table of cache-line padded cells,
+ * indexed by thread and grown on repeated collisions, as soon as concurrent
+ * increments collide, so that {@code add}s of
+ * the same element by different threads scale instead of contending on a
+ * single memory location. Removals of a given element are serialized.
+ * {@link #count}, {@link #contains} and {@link #size} are not atomic
+ * snapshots when the bag is concurrently modified, and iterators iterate
+ * over a snapshot of the bag taken when they are created. This implementation
+ * does not accept {@code null} elements.
  *
  * @param <E> the type of the elements in the bag.
  * @author Osman KOCAK
  */
 public final class ConcurrentHashBag<E>
         extends AbstractBag<E> implements ConcurrentBag<E>, Serializable {
-    private static final long serialVersionUID = 7336345430492192446L;
+    private static final long serialVersionUID = 4910437581035867223L;
 
-    private final ConcurrentMap<E, CopyOnWriteArrayList<E>> entries;
+    private final ConcurrentMap<E, Counter> entries;
 
     /**
      * Creates a new empty {@code ConcurrentHashBag}.
@@ -40,7 +53,7 @@ public final class ConcurrentHashBag<E>
      */
     public ConcurrentHashBag(int initialCapacity) {
         Parameters.checkCondition(initialCapacity >= 0);
-        this.entries = new ConcurrentHashMap<E, CopyOnWriteArrayList<E>>(initialCapacity);
+        this.entries = new ConcurrentHashMap<E, Counter>(initialCapacity);
     }
 
     /**
@@ -100,7 +113,8 @@ public final class ConcurrentHashBag<E>
 
     @Override
     public boolean add(E e) {
-        return getEntry(e).add(e);
+        add(e, 1L);
+        return true;
     }
 
     @Override
@@ -116,42 +130,87 @@ public final class ConcurrentHashBag<E>
 
     @Override
     public boolean addIfAbsent(E e) {
-        return getEntry(e).addIfAbsent(e);
+        while (true) {
+            Counter counter = entries.get(e);
+            if (counter == null) {
+                if (entries.putIfAbsent(e, new Counter(1L)) == null) {
+                    return true;
+                }
+                continue;
+            }
+            synchronized (counter) {
+                if (!counter.isDead()) {
+                    if (counter.sum() > 0) {
+                        return false;
+                    }
+                    counter.adjust(1L);
+                    return true;
+                }
+            }
+            entries.remove(e, counter);
+        }
     }
 
     @Override
     public void clear() {
-        entries.clear();
+        for (E e : entries.keySet()) {
+            removeOccurrences(e);
+        }
     }
 
     @Override
     public boolean contains(Object o) {
-        List<E> entry = entries.get(o);
-        return entry == null ? false : !entry.isEmpty();
+        Counter counter = entries.get(o);
+        return counter != null && counter.sum() > 0;
     }
 
     @Override
     public int count(E e) {
-        List<E> entry = entries.get(e);
-        return entry == null ? 0 : entry.size();
+        Counter counter = entries.get(e);
+        return counter == null ? 0 : (int) Math.min(counter.sum(), Integer.MAX_VALUE);
     }
 
     @Override
     public Iterator<E> iterator() {
-        return Iterables.concat(entries.values()).iterator();
+        return new SnapshotItr();
     }
 
     @Override
     public boolean remove(Object o) {
-        List<E> entry = entries.get(o);
-        return entry == null ? false : entry.remove(o);
+        while (true) {
+            Counter counter = entries.get(o);
+            if (counter == null) {
+                return false;
+            }
+            long residual;
+            synchronized (counter) {
+                if (counter.isDead()) {
+                    residual = -1L;
+                } else if (counter.sum() <= 0) {
+                    return false;
+                } else {
+                    counter.adjust(-1L);
+                    if (counter.sum() > 0) {
+                        return true;
+                    }
+                    residual = counter.kill();
+                }
+            }
+            entries.remove(o, counter);
+            if (residual >= 0) {
+                if (residual > 0) {
+                    add(cast(o), residual);
+                }
+                return true;
+            }
+        }
     }
 
     @Override
     public boolean removeAll(Collection<?> c) {
         boolean removed = false;
         for (Object o : c) {
-            removed |= entries.remove(o) != null;
+            removed |= removeOccurrences(o) > 0;
         }
         return removed;
     }
@@ -159,23 +218,275 @@ public final class ConcurrentHashBag<E>
     @Override
     public boolean retainAll(Collection<?> c) {
         boolean updated = false;
-        for (List<E> entry : entries.values()) {
-            updated |= entry.retainAll(c);
+        for (E e : entries.keySet()) {
+            if (!c.contains(e)) {
+                updated |= removeOccurrences(e) > 0;
+            }
         }
         return updated;
     }
 
     @Override
     public int size() {
-        int size = 0;
-        for (List<E> value : entries.values()) {
-            size += value.size();
+        long size = 0;
+        for (Counter counter : entries.values()) {
+            size += counter.sum();
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private void add(E e, long n) {
+        Parameters.checkNotNull(e);
+        while (true) {
+            Counter counter = entries.get(e);
+            if (counter == null) {
+                counter = entries.putIfAbsent(e, new Counter(n));
+                if (counter == null) {
+                    return;
+                }
+            }
+            if (counter.add(n)) {
+                return;
+            }
+            entries.remove(e, counter);
+        }
+    }
+
+    private long removeOccurrences(Object o) {
+        while (true) {
+            Counter counter = entries.get(o);
+            if (counter == null) {
+                return 0L;
+            }
+            long removed;
+            synchronized (counter) {
+                removed = counter.isDead() ? -1L : counter.kill();
+            }
+            entries.remove(o, counter);
+            if (removed >= 0) {
+                return removed;
+            }
         }
-        return size;
     }
 
-    private CopyOnWriteArrayList<E> getEntry(E e) {
-        entries.putIfAbsent(e, new CopyOnWriteArrayList<E>());
-        return entries.get(e);
+    @SuppressWarnings("unchecked")
+    private E cast(Object o) {
+        return (E) o;
+    }
+
+    /**
+     * Striped counter, in the manner of {@code Striped64}. Increments are
+     * lock-free: they go to the base cell until they collide, and then to a
+     * table of padded cells, indexed by thread, which starts with 2 slots,
+     * creates its cells on demand and doubles (up to {@code STRIPES} slots)
+     * when increments keep colliding. Creating or adding cells, adjusting
+     * the base cell and killing must be done while holding the counter's
+     * monitor. Once killed, a counter rejects all increments, which are then
+     * retried on a new counter.
+     */
+    private static final class Counter implements Serializable {
+        private static final long serialVersionUID = 6027836191650437158L;
+
+        private static final long DEAD = Long.MIN_VALUE;
+        private static final int STRIPES = Integer.highestOneBit(Math.min(64,
+                Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        private static final Cell[] KILLED = new Cell[0];
+        private static final ThreadLocal<int[]> PROBE = new ThreadLocal<int[]>() {
+            @Override
+            protected int[] initialValue() {
+                int seed = (int) Thread.currentThread().getId() * 0x9E3779B9;
+                return new int[]{seed == 0 ? 1 : seed};
+            }
+        };
+
+        private final AtomicLong base;
+        private volatile Cell[] cells;
+
+        Counter(long initial) {
+            this.base = new AtomicLong(initial);
+        }
+
+        boolean add(long n) {
+            if (cells == null) {
+                long v = base.get();
+                if (v == DEAD) {
+                    return false;
+                }
+                if (base.compareAndSet(v, v + n)) {
+                    return true;
+                }
+            }
+            int[] probe = PROBE.get();
+            boolean collided = false;
+            while (true) {
+                Cell[] cs = cells;
+                if (cs == null) {
+                    synchronized (this) {
+                        if (cells == null) {
+                            cells = new Cell[Math.min(2, STRIPES)];
+                        }
+                    }
+                    continue;
+                }
+                if (cs.length == 0) {
+                    return false;
+                }
+                int i = probe[0] & (cs.length - 1);
+                Cell c = cs[i];
+                if (c == null) {
+                    synchronized (this) {
+                        if (cells == cs && cs[i] == null) {
+                            cs[i] = new Cell(n);
+                            return true;
+                        }
+                    }
+                    continue;
+                }
+                long v = c.value;
+                if (v == DEAD) {
+                    return false;
+                }
+                if (c.compareAndSet(v, v + n)) {
+                    return true;
+                }
+                if (collided && cs.length < STRIPES) {
+                    synchronized (this) {
+                        if (cells == cs) {
+                            cells = Arrays.copyOf(cs, cs.length * 2);
+                        }
+                    }
+                    collided = false;
+                    continue;
+                }
+                collided = true;
+                int h = probe[0];
+                h ^= h << 13;
+                h ^= h >>> 17;
+                h ^= h << 5;
+                probe[0] = h;
+            }
+        }
+
+        void adjust(long delta) {
+            long v;
+            do {
+                v = base.get();
+            } while (!base.compareAndSet(v, v + delta));
+        }
+
+        long sum() {
+            long sum = base.get();
+            if (sum == DEAD) {
+                return 0L;
+            }
+            Cell[] cs = cells;
+            if (cs != null) {
+                for (Cell c : cs) {
+                    long v = c == null ? 0L : c.value;
+                    if (v != DEAD) {
+                        sum += v;
+                    }
+                }
+            }
+            return Math.max(0L, sum);
+        }
+
+        boolean isDead() {
+            return base.get() == DEAD;
+        }
+
+        long kill() {
+            long sum = base.getAndSet(DEAD);
+            Cell[] cs;
+            synchronized (this) {
+                cs = cells;
+                cells = KILLED;
+            }
+            if (cs != null) {
+                for (Cell c : cs) {
+                    if (c != null) {
+                        sum += c.getAndSet(DEAD);
+                    }
+                }
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Counter cell, padded so that two cells never share a cache line.
+     */
+    @SuppressWarnings("unused")
+    private static final class Cell implements Serializable {
+        private static final long serialVersionUID = -3207925638817472380L;
+
+        private static final AtomicLongFieldUpdater<Cell> VALUE =
+                AtomicLongFieldUpdater.newUpdater(Cell.class, "value");
+
+        private long p0, p1, p2, p3, p4, p5, p6;
+        private volatile long value;
+        private long q0, q1, q2, q3, q4, q5, q6;
+
+        Cell(long value) {
+            this.value = value;
+        }
+
+        boolean compareAndSet(long expect, long update) {
+            return VALUE.compareAndSet(this, expect, update);
+        }
+
+        long getAndSet(long update) {
+            return VALUE.getAndSet(this, update);
+        }
+    }
+
+    private final class SnapshotItr implements Iterator<E> {
+        private final List<E> elements;
+        private final List<Long> counts;
+        private int index;
+        private long remaining;
+        private E last;
+        private boolean removable;
+
+        SnapshotItr() {
+            this.elements = new ArrayList<E>(entries.size());
+            this.counts = new ArrayList<Long>(entries.size());
+            for (Map.Entry<E, Counter> entry : entries.entrySet()) {
+                long count = entry.getValue().sum();
+                if (count > 0) {
+                    elements.add(entry.getKey());
+                    counts.add(count);
+                }
+            }
+            this.remaining = counts.isEmpty() ? 0L : counts.get(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < elements.size();
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = elements.get(index);
+            removable = true;
+            if (--remaining == 0) {
+                index++;
+                remaining = index < counts.size() ? counts.get(index) : 0L;
+            }
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (!removable) {
+                throw new IllegalStateException();
+            }
+            removable = false;
+            ConcurrentHashBag.this.remove(last);
+        }
     }
 }
@@ -0,0 +1,213 @@
+package com.ryan.collection;
+
+import com.ryan.util.Parameters;
+import com.ryan.util.XObjects;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Approximate, bounded-memory counter of element occurrences, based on a
+ * Count-Min Sketch with conservative update. Counts are never
+ * underestimated; with probability at least {@code 1 - delta}, the estimated
+ * count of an element exceeds its actual count by at most
+ * {@code epsilon * size()}. The memory footprint is
+ * {@code ceil(e / epsilon) * ceil(ln(1 / delta))} counters, independent of
+ * the number of distinct elements. Unlike a {@link Bag}, a sketch can't
+ * enumerate nor remove its elements. Sketches built with the same parameters
+ * can be merged, so that per-thread or per-node sketches can be combined. This
+ * implementation accepts {@code null} elements. Instances of this class are
+ * not thread-safe.
+ *
+ * @param <E> the type of the counted elements.
+ * @author Ryan Tao
+ * @see SpaceSaving
+ */
+public final class CountMinSketch<E> implements Serializable {
+    private static final long serialVersionUID = 1520318752607481391L;
+
+    private final double epsilon;
+    private final double delta;
+    private final int width;
+    private final int depth;
+    private final long[] counters;
+    private long size;
+
+    /**
+     * Creates a new empty {@code CountMinSketch}.
+     *
+     * @param epsilon the maximum overestimation, relative to the total
+     *                number of counted occurrences.
+     * @param delta   the probability that an estimate exceeds the above
+     *                bound.
+     * @throws IllegalArgumentException if {@code epsilon} or {@code delta}
+     *                                  is not in the ]0, 1[ range, or if the resulting sketch is too big.
+     */
+    public CountMinSketch(double epsilon, double delta) {
+        Parameters.checkCondition(epsilon > 0 && epsilon < 1);
+        Parameters.checkCondition(delta > 0 && delta < 1);
+        long w = (long) Math.ceil(Math.E / epsilon);
+        long d = (long) Math.ceil(Math.log(1 / delta));
+        Parameters.checkCondition(w * d <= Integer.MAX_VALUE - 8);
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.width = (int) w;
+        this.depth = (int) d;
+        this.counters = new long[width * depth];
+    }
+
+    private CountMinSketch(CountMinSketch<E> sketch) {
+        this.epsilon = sketch.epsilon;
+        this.delta = sketch.delta;
+        this.width = sketch.width;
+        this.depth = sketch.depth;
+        this.counters = sketch.counters.clone();
+        this.size = sketch.size;
+    }
+
+    /**
+     * Counts one occurrence of the given element.
+     *
+     * @param e the element to count.
+     */
+    public void add(E e) {
+        add(e, 1L);
+    }
+
+    /**
+     * Counts the given number of occurrences of the given element.
+     *
+     * @param e the element to count.
+     * @param n the number of occurrences.
+     * @throws IllegalArgumentException if {@code n < 0}.
+     */
+    public void add(E e, long n) {
+        Parameters.checkCondition(n >= 0);
+        if (n == 0) {
+            return;
+        }
+        int hash = e == null ? 0 : e.hashCode();
+        long target = estimate(hash) + n;
+        for (int i = 0; i < depth; i++) {
+            int j = index(i, hash);
+            if (counters[j] < target) {
+                counters[j] = target;
+            }
+        }
+        size += n;
+    }
+
+    /**
+     * Returns the estimated count of the given element, which is never
+     * lower than its actual count.
+     *
+     * @param e the element.
+     * @return the estimated number of occurrences of {@code e}.
+     */
+    public long count(E e) {
+        return estimate(e == null ? 0 : e.hashCode());
+    }
+
+    /**
+     * Returns the total number of occurrences counted by this sketch.
+     *
+     * @return the total number of occurrences.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the relative error bound of this sketch.
+     *
+     * @return this sketch's epsilon.
+     */
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    /**
+     * Returns the probability that an estimate exceeds the error bound.
+     *
+     * @return this sketch's delta.
+     */
+    public double getDelta() {
+        return delta;
+    }
+
+    /**
+     * Returns the number of counters used by this sketch.
+     *
+     * @return the number of counters of this sketch.
+     */
+    public int counters() {
+        return counters.length;
+    }
+
+    /**
+     * Adds the counts of the given sketch to this one. The merged sketch
+     * provides the same guarantees as a single sketch having counted both
+     * streams.
+     *
+     * @param sketch the sketch to merge into this one.
+     * @throws NullPointerException     if {@code sketch} is {@code null}.
+     * @throws IllegalArgumentException if {@code sketch} hasn't been built
+     *                                  with the same parameters as this sketch.
+     */
+    public void merge(CountMinSketch<? extends E> sketch) {
+        Parameters.checkCondition(width == sketch.width && depth == sketch.depth);
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += sketch.counters[i];
+        }
+        size += sketch.size;
+    }
+
+    /**
+     * Returns a copy of this sketch.
+     *
+     * @return a copy of this sketch.
+     */
+    public CountMinSketch<E> copy() {
+        return new CountMinSketch<E>(this);
+    }
+
+    /**
+     * Resets all the counts of this sketch.
+     */
+    public void clear() {
+        Arrays.fill(counters, 0L);
+        size = 0L;
+    }
+
+    @Override
+    public String toString() {
+        return XObjects.toStringBuilder("CountMinSketch")
+                .append("epsilon", epsilon)
+                .append("delta", delta)
+                .append("width", width)
+                .append("depth", depth)
+                .append("size", size)
+                .toString();
+    }
+
+    private long estimate(int hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            estimate = Math.min(estimate, counters[index(i, hash)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Each row uses its own, independently mixed, hash function: deriving
+     * the rows' hashes from two base hashes makes full collisions far more
+     * likely when the width is small.
+     */
+    private int index(int row, int hash) {
+        long h = (hash + (row + 1) * 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 31;
+        h *= 0x94D049BB133111EBL;
+        h ^= h >>> 29;
+        return row * width + (int) ((h >>> 1) % width);
+    }
+}
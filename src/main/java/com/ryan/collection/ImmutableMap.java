@@ -1,11 +1,8 @@
 package com.ryan.collection;
 
 import java.io.Serializable;
-import java.util.AbstractMap;
-import java.util.Collection;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Immutable {@link Map}. This implementation provides a predictable iteration
@@ -13,15 +10,25 @@ import java.util.Set;
  * {@code Map} (insertion-order). Note that insertion order is not affected if
  * a key is re-inserted into the {@code Map}. Accepts {@code null} values and
  * the {@code null} key.
+ * <p>
+ * Keys and values are stored in two flat arrays, in insertion order, indexed
+ * by an open-addressing table of {@code int}s: no entry object is allocated.
+ * Maps of up to 8 entries are stored in a single array which is scanned
+ * linearly, without any index; the views ({@link #keySet()},
+ * {@link #values()}, {@link #entrySet()}) are backed by the map.
  *
  * @param <K> the type of the {@code Map}'s keys.
  * @param <V> the type of the {@code Map}'s values.
  *
  * @author Osman KOCAK
  */
-public final class ImmutableMap<K, V> extends AbstractMap<K, V> implements Serializable
+public final class ImmutableMap<K, V> extends CompactMap<K, V> implements Serializable
 {
-	private static final long serialVersionUID = 458645004066047051L;
+	private static final long serialVersionUID = 2914627405721360598L;
+
+	private static final int SMALL_SIZE = 8;
+
+	private static final Map<Object, Object> EMPTY = new SmallMap<Object, Object>(new Object[0]);
 
 	/**
 	 * {@code ImmutableMap} builder. Not thread-safe.
@@ -31,7 +38,10 @@ public final class ImmutableMap<K, V> extends AbstractMap<K, V> implements Seria
 	 */
 	public static final class Builder<K, V>
 	{
-		private final Map<K, V> inner = new LinkedHashMap<K, V>();
+		private Object[] keys = new Object[SMALL_SIZE];
+		private Object[] values = new Object[SMALL_SIZE];
+		private int[] table = new int[OpenIndex.tableSize(SMALL_SIZE)];
+		private int size;
 
 		/**
 		 * Associates the specified value with the specified key in the
@@ -44,7 +54,19 @@ public final class ImmutableMap<K, V> extends AbstractMap<K, V> implements Seria
 		 */
 		public Builder<K, V> put(K key, V value)
 		{
-			inner.put(key, value);
+			int i = OpenIndex.indexOf(table, keys, key);
+			if (i >= 0) {
+				values[i] = value;
+				return this;
+			}
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2);
+				values = Arrays.copyOf(values, size * 2);
+				table = OpenIndex.build(keys, size);
+			}
+			keys[size] = key;
+			values[size] = value;
+			OpenIndex.insert(table, key, size++);
 			return this;
 		}
 
@@ -60,7 +82,9 @@ public final class ImmutableMap<K, V> extends AbstractMap<K, V> implements Seria
 		 */
 		public Builder<K, V> put(Map<? extends K, ? extends V> map)
 		{
-			inner.putAll(map);
+			for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+				put(entry.getKey(), entry.getValue());
+			}
 			return this;
 		}
 
@@ -71,102 +95,273 @@ public final class ImmutableMap<K, V> extends AbstractMap<K, V> implements Seria
 		 */
 		public Map<K, V> build()
 		{
-			return new ImmutableMap<K, V>(inner);
+			return create(keys, values, size,
+				table.length == OpenIndex.tableSize(size) ? table : null);
 		}
 	}
 
 	/**
-	 * Creates a new {@code ImmutableSet} from the given {@code Iterable}.
+	 * Returns an empty {@code ImmutableMap}.
 	 *
 	 * @param <K> the type of the {@code Map}'s keys.
 	 * @param <V> the type of the {@code Map}'s values.
-	 * @param map the source {@code Map}.
 	 *
-	 * @return the created {@code ImmutableMap}.
-	 *
-	 * @throws NullPointerException if {@code map} is {@code null}.
+	 * @return the empty {@code ImmutableMap}.
 	 */
-	public static <K, V> Map<K, V> copyOf(Map<? extends K, ? extends V> map)
+	@SuppressWarnings("unchecked")
+	public static <K, V> Map<K, V> of()
 	{
-		return new ImmutableMap<K, V>(new LinkedHashMap<K, V>(map));
+		return (Map<K, V>) EMPTY;
 	}
 
-	private final Map<K, V> inner;
+	/**
+	 * Creates a new {@code ImmutableMap} containing the given mapping.
+	 *
+	 * @param <K> the type of the {@code Map}'s keys.
+	 * @param <V> the type of the {@code Map}'s values.
+	 * @param k1 the key.
+	 * @param v1 the value.
+	 *
+	 * @return the created {@code ImmutableMap}.
+	 */
+	public static <K, V> Map<K, V> of(K k1, V v1)
+	{
+		return new SingletonMap<K, V>(k1, v1);
+	}
 
-	private ImmutableMap(Map<K, V> inner)
+	/**
+	 * Creates a new {@code ImmutableMap} containing the given mappings. If
+	 * a key is repeated, the last value wins.
+	 *
+	 * @param <K> the type of the {@code Map}'s keys.
+	 * @param <V> the type of the {@code Map}'s values.
+	 * @param k1 the first key.
+	 * @param v1 the first value.
+	 * @param k2 the second key.
+	 * @param v2 the second value.
+	 *
+	 * @return the created {@code ImmutableMap}.
+	 */
+	public static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2)
 	{
-		this.inner = inner;
+		return new Builder<K, V>().put(k1, v1).put(k2, v2).build();
 	}
 
-	@Override
-	public int size()
+	/**
+	 * Creates a new {@code ImmutableMap} containing the given mappings. If
+	 * a key is repeated, the last value wins.
+	 *
+	 * @param <K> the type of the {@code Map}'s keys.
+	 * @param <V> the type of the {@code Map}'s values.
+	 * @param k1 the first key.
+	 * @param v1 the first value.
+	 * @param k2 the second key.
+	 * @param v2 the second value.
+	 * @param k3 the third key.
+	 * @param v3 the third value.
+	 *
+	 * @return the created {@code ImmutableMap}.
+	 */
+	public static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3)
 	{
-		return inner.size();
+		return new Builder<K, V>().put(k1, v1).put(k2, v2).put(k3, v3)
+			.build();
 	}
 
-	@Override
-	public boolean isEmpty()
+	/**
+	 * Creates a new {@code ImmutableMap} containing the given mappings. If
+	 * a key is repeated, the last value wins.
+	 *
+	 * @param <K> the type of the {@code Map}'s keys.
+	 * @param <V> the type of the {@code Map}'s values.
+	 * @param k1 the first key.
+	 * @param v1 the first value.
+	 * @param k2 the second key.
+	 * @param v2 the second value.
+	 * @param k3 the third key.
+	 * @param v3 the third value.
+	 * @param k4 the fourth key.
+	 * @param v4 the fourth value.
+	 *
+	 * @return the created {@code ImmutableMap}.
+	 */
+	public static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3,
+		K k4, V v4)
 	{
-		return inner.isEmpty();
+		return new Builder<K, V>().put(k1, v1).put(k2, v2).put(k3, v3)
+			.put(k4, v4).build();
 	}
 
-	@Override
-	public boolean containsKey(Object key)
+	/**
+	 * Creates a new {@code ImmutableMap} from the given {@code Map}.
+	 *
+	 * @param <K> the type of the {@code Map}'s keys.
+	 * @param <V> the type of the {@code Map}'s values.
+	 * @param map the source {@code Map}.
+	 *
+	 * @return the created {@code ImmutableMap}.
+	 *
+	 * @throws NullPointerException if {@code map} is {@code null}.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> Map<K, V> copyOf(Map<? extends K, ? extends V> map)
 	{
-		return inner.containsKey(key);
+		if (map instanceof CompactMap) {
+			return (Map<K, V>) map;
+		}
+		return new Builder<K, V>().put(map).build();
 	}
 
-	@Override
-	public boolean containsValue(Object value)
+	private static <K, V> Map<K, V> create(Object[] keys, Object[] values,
+		int size, int[] table)
 	{
-		return inner.containsValue(value);
+		if (size == 0) {
+			return of();
+		}
+		if (size == 1) {
+			return new SingletonMap<K, V>(ImmutableMap.<K>cast(keys[0]),
+				ImmutableMap.<V>cast(values[0]));
+		}
+		if (size <= SMALL_SIZE) {
+			Object[] entries = new Object[2 * size];
+			for (int i = 0; i < size; i++) {
+				entries[2 * i] = keys[i];
+				entries[2 * i + 1] = values[i];
+			}
+			return new SmallMap<K, V>(entries);
+		}
+		Object[] k = Arrays.copyOf(keys, size);
+		return new ImmutableMap<K, V>(k, Arrays.copyOf(values, size),
+			table == null ? OpenIndex.build(k, size) : table.clone());
 	}
 
-	@Override
-	public V get(Object key)
+	@SuppressWarnings("unchecked")
+	private static <T> T cast(Object o)
 	{
-		return inner.get(key);
+		return (T) o;
 	}
 
-	@Override
-	public V put(K key, V value)
+	private final Object[] keys;
+	private final Object[] values;
+	private final int[] table;
+
+	private ImmutableMap(Object[] keys, Object[] values, int[] table)
 	{
-		throw new UnsupportedOperationException();
+		this.keys = keys;
+		this.values = values;
+		this.table = table;
 	}
 
 	@Override
-	public V remove(Object key)
+	public int size()
 	{
-		throw new UnsupportedOperationException();
+		return keys.length;
 	}
 
 	@Override
-	public void putAll(Map<? extends K, ? extends V> m)
+	K keyAt(int index)
 	{
-		throw new UnsupportedOperationException();
+		return cast(keys[index]);
 	}
 
 	@Override
-	public void clear()
+	V valueAt(int index)
 	{
-		throw new UnsupportedOperationException();
+		return cast(values[index]);
 	}
 
 	@Override
-	public Set<K> keySet()
+	int indexOf(Object key)
 	{
-		return ImmutableSet.copyOf(inner.keySet());
+		return OpenIndex.indexOf(table, keys, key);
 	}
 
-	@Override
-	public Collection<V> values()
+	/**
+	 * Single mapping, stored in two fields.
+	 */
+	private static final class SingletonMap<K, V> extends CompactMap<K, V>
+		implements Serializable
 	{
-		return ImmutableList.copyOf(inner.values());
+		private static final long serialVersionUID = 6210936715492016524L;
+
+		private final K key;
+		private final V value;
+
+		SingletonMap(K key, V value)
+		{
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public int size()
+		{
+			return 1;
+		}
+
+		@Override
+		K keyAt(int index)
+		{
+			return key;
+		}
+
+		@Override
+		V valueAt(int index)
+		{
+			return value;
+		}
+
+		@Override
+		int indexOf(Object k)
+		{
+			return k == key || (k != null && k.equals(key)) ? 0 : -1;
+		}
 	}
 
-	@Override
-	public Set<Entry<K, V>> entrySet()
+	/**
+	 * Up to {@code SMALL_SIZE} mappings, stored as alternating keys and
+	 * values in a single array that is scanned linearly.
+	 */
+	private static final class SmallMap<K, V> extends CompactMap<K, V>
+		implements Serializable
 	{
-		return ImmutableSet.copyOf(inner.entrySet());
+		private static final long serialVersionUID = 8057201493314286211L;
+
+		private final Object[] entries;
+
+		SmallMap(Object[] entries)
+		{
+			this.entries = entries;
+		}
+
+		@Override
+		public int size()
+		{
+			return entries.length >>> 1;
+		}
+
+		@Override
+		K keyAt(int index)
+		{
+			return cast(entries[2 * index]);
+		}
+
+		@Override
+		V valueAt(int index)
+		{
+			return cast(entries[2 * index + 1]);
+		}
+
+		@Override
+		int indexOf(Object key)
+		{
+			for (int i = 0; i < entries.length; i += 2) {
+				Object k = entries[i];
+				if (k == key || (key != null && key.equals(k))) {
+					return i >>> 1;
+				}
+			}
+			return -1;
+		}
 	}
 }
@@ -1,11 +1,9 @@
 package com.ryan.collection;
 
 import java.io.Serializable;
-import java.util.AbstractSet;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -13,12 +11,20 @@ import java.util.Set;
  * order by remembering the order in which elements were inserted into the
  * {@code Set} (insertion-order). Note that insertion order is not affected if
  * an element is re-inserted into the {@code Set}. Accepts {@code null} values.
+ * <p>
+ * Elements are stored in a flat array, in insertion order, indexed by an
+ * open-addressing table of {@code int}s. Sets of up to 8 elements have no
+ * index and are scanned linearly.
  *
  * @param <E> the type of the {@code Set}'s elements.
  * @author Osman KOCAK
  */
-public final class ImmutableSet<E> extends AbstractSet<E> implements Serializable {
-    private static final long serialVersionUID = 6744093868687684286L;
+public final class ImmutableSet<E> extends CompactSet<E> implements Serializable {
+    private static final long serialVersionUID = 3029748131584170947L;
+
+    private static final int SMALL_SIZE = 8;
+
+    private static final Set<Object> EMPTY = new SmallSet<Object>(new Object[0]);
 
     /**
      * {@code ImmutableSet} builder. Not thread-safe.
@@ -26,7 +32,9 @@ public final class ImmutableSet<E> extends AbstractSet<E> implements Serializabl
      * @param <E> the type of the {@code Set}'s elements.
      */
     public static final class Builder<E> {
-        private final Set<E> inner = new LinkedHashSet<E>();
+        private Object[] elements = new Object[SMALL_SIZE];
+        private int[] table = new int[OpenIndex.tableSize(SMALL_SIZE)];
+        private int size;
 
         /**
          * Adds the given values to the {@code Set} being built.
@@ -36,7 +44,9 @@ public final class ImmutableSet<E> extends AbstractSet<E> implements Serializabl
          * @throws NullPointerException if {@code values} is {@code null}.
          */
         public Builder<E> add(E... values) {
-            inner.addAll(Arrays.asList(values));
+            for (E value : values) {
+                addOne(value);
+            }
             return this;
         }
 
@@ -50,7 +60,7 @@ public final class ImmutableSet<E> extends AbstractSet<E> implements Serializabl
          */
         public Builder<E> add(Iterable<? extends E> values) {
             for (E value : values) {
-                inner.add(value);
+                addOne(value);
             }
             return this;
         }
@@ -65,7 +75,7 @@ public final class ImmutableSet<E> extends AbstractSet<E> implements Serializabl
          */
         public Builder<E> add(Iterator<? extends E> values) {
             while (values.hasNext()) {
-                inner.add(values.next());
+                addOne(values.next());
             }
             return this;
         }
@@ -76,7 +86,20 @@ public final class ImmutableSet<E> extends AbstractSet<E> implements Serializabl
          * @return an instance of {@code ImmutableSet}.
          */
         public Set<E> build() {
-            return new ImmutableSet<E>(inner);
+            return create(elements, size,
+                    table.length == OpenIndex.tableSize(size) ? table : null);
+        }
+
+        private void addOne(E value) {
+            if (OpenIndex.indexOf(table, elements, value) >= 0) {
+                return;
+            }
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+                table = OpenIndex.build(elements, size);
+            }
+            elements[size] = value;
+            OpenIndex.insert(table, value, size++);
         }
     }
 
@@ -88,8 +111,12 @@ public final class ImmutableSet<E> extends AbstractSet<E> implements Serializabl
      * @return the created {@code ImmutableSet}.
      * @throws NullPointerException if {@code c} is {@code null}.
      */
+    @SuppressWarnings("unchecked")
     public static <E> Set<E> copyOf(Collection<? extends E> c) {
-        return new ImmutableSet<E>(new LinkedHashSet<E>(c));
+        if (c instanceof CompactSet) {
+            return (Set<E>) c;
+        }
+        return new Builder<E>().add(c).build();
     }
 
     /**
@@ -100,8 +127,12 @@ public final class ImmutableSet<E> extends AbstractSet<E> implements Serializabl
      * @return the created {@code ImmutableSet}.
      * @throws NullPointerException if {@code i} is {@code null}.
      */
+    @SuppressWarnings("unchecked")
     public static <E> Set<E> copyOf(Iterable<? extends E> i) {
-        return new ImmutableSet<E>(Iterables.toSet(i));
+        if (i instanceof CompactSet) {
+            return (Set<E>) i;
+        }
+        return new Builder<E>().add(i).build();
     }
 
     /**
@@ -113,7 +144,7 @@ public final class ImmutableSet<E> extends AbstractSet<E> implements Serializabl
      * @throws NullPointerException if {@code i} is {@code null}.
      */
     public static <E> Set<E> copyOf(Iterator<? extends E> i) {
-        return new ImmutableSet<E>(Iterators.toSet(i));
+        return new Builder<E>().add(i).build();
     }
 
     /**
@@ -125,7 +156,7 @@ public final class ImmutableSet<E> extends AbstractSet<E> implements Serializabl
      * @throws NullPointerException if {@code values} is {@code null}.
      */
     public static <E> Set<E> copyOf(E[] values) {
-        return new ImmutableSet<E>(new LinkedHashSet<E>(Arrays.asList(values)));
+        return new Builder<E>().add(values).build();
     }
 
     /**
@@ -137,77 +168,122 @@ public final class ImmutableSet<E> extends AbstractSet<E> implements Serializabl
      * @throws NullPointerException if {@code values} is {@code null}.
      */
     public static <E> Set<E> of(E... values) {
-        return new ImmutableSet<E>(new LinkedHashSet<E>(Arrays.asList(values)));
+        return new Builder<E>().add(values).build();
     }
 
-    private final Set<E> inner;
-
-    private ImmutableSet(Set<E> inner) {
-        this.inner = inner;
+    @SuppressWarnings("unchecked")
+    private static <E> Set<E> create(Object[] elements, int size, int[] table) {
+        if (size == 0) {
+            return (Set<E>) EMPTY;
+        }
+        if (size == 1) {
+            return new SingletonSet<E>((E) elements[0]);
+        }
+        if (size <= SMALL_SIZE) {
+            return new SmallSet<E>(Arrays.copyOf(elements, size));
+        }
+        Object[] e = Arrays.copyOf(elements, size);
+        return new ImmutableSet<E>(e,
+                table == null ? OpenIndex.build(e, size) : table.clone());
     }
 
-    @Override
-    public int size() {
-        return inner.size();
+    private final Object[] elements;
+    private final int[] table;
+
+    private ImmutableSet(Object[] elements, int[] table) {
+        this.elements = elements;
+        this.table = table;
     }
 
     @Override
-    public boolean isEmpty() {
-        return inner.isEmpty();
+    public int size() {
+        return elements.length;
     }
 
     @Override
-    public boolean contains(Object o) {
-        return inner.contains(o);
+    @SuppressWarnings("unchecked")
+    E elementAt(int index) {
+        return (E) elements[index];
     }
 
     @Override
-    public Iterator<E> iterator() {
-        return new UnmodifiableIterator<E>(inner.iterator());
+    int indexOf(Object o) {
+        return OpenIndex.indexOf(table, elements, o);
     }
 
     @Override
     public Object[] toArray() {
-        return inner.toArray();
+        return elements.clone();
     }
 
-    @Override
-    public <T> T[] toArray(T[] a) {
-        return inner.toArray(a);
-    }
+    /**
+     * Single element, stored in a field.
+     */
+    private static final class SingletonSet<E> extends CompactSet<E>
+            implements Serializable {
+        private static final long serialVersionUID = 1460385262290935723L;
 
-    @Override
-    public boolean add(E e) {
-        throw new UnsupportedOperationException();
-    }
+        private final E element;
 
-    @Override
-    public boolean remove(Object o) {
-        throw new UnsupportedOperationException();
-    }
+        SingletonSet(E element) {
+            this.element = element;
+        }
 
-    @Override
-    public boolean containsAll(Collection<?> c) {
-        return inner.containsAll(c);
-    }
+        @Override
+        public int size() {
+            return 1;
+        }
 
-    @Override
-    public boolean addAll(Collection<? extends E> c) {
-        throw new UnsupportedOperationException();
-    }
+        @Override
+        E elementAt(int index) {
+            return element;
+        }
 
-    @Override
-    public boolean retainAll(Collection<?> c) {
-        throw new UnsupportedOperationException();
+        @Override
+        int indexOf(Object o) {
+            return o == element || (o != null && o.equals(element)) ? 0 : -1;
+        }
     }
 
-    @Override
-    public boolean removeAll(Collection<?> c) {
-        throw new UnsupportedOperationException();
-    }
+    /**
+     * Up to {@code SMALL_SIZE} elements, stored in an array that is scanned
+     * linearly.
+     */
+    private static final class SmallSet<E> extends CompactSet<E>
+            implements Serializable {
+        private static final long serialVersionUID = 5712960438521390876L;
 
-    @Override
-    public void clear() {
-        throw new UnsupportedOperationException();
+        private final Object[] elements;
+
+        SmallSet(Object[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        E elementAt(int index) {
+            return (E) elements[index];
+        }
+
+        @Override
+        int indexOf(Object o) {
+            for (int i = 0; i < elements.length; i++) {
+                Object e = elements[i];
+                if (e == o || (o != null && o.equals(e))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Object[] toArray() {
+            return elements.clone();
+        }
     }
 }
@@ -0,0 +1,461 @@
+package com.ryan.collection;
+
+import com.ryan.util.Parameters;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * Count-based bag of {@code int}s, stored in an open-addressing (linear
+ * probing) hash table of primitive keys and counts: elements are never boxed.
+ * This class has the same semantics as {@link OpenHashBag}, but doesn't
+ * implement the {@link Bag} interface. Instances of this class are not
+ * thread-safe.
+ *
+ * @author Ryan Tao
+ * @see LongHashBag
+ */
+public final class IntHashBag implements Serializable {
+    private static final long serialVersionUID = 8305217439621708734L;
+
+    private static final int FREE = 0;
+    private static final int DELETED = -1;
+
+    private int[] keys;
+    private int[] counts;
+    private int shift;
+    private int distinct;
+    private int used;
+    private long size;
+    private transient int modCount;
+
+    /**
+     * Creates a new empty {@code IntHashBag}.
+     */
+    public IntHashBag() {
+        this(10);
+    }
+
+    /**
+     * Creates a new empty {@code IntHashBag} able to hold the given number
+     * of distinct elements without resizing.
+     *
+     * @param initialCapacity the bag's initial capacity.
+     * @throws IllegalArgumentException if {@code initialCapacity < 0}.
+     */
+    public IntHashBag(int initialCapacity) {
+        Parameters.checkCondition(initialCapacity >= 0);
+        allocate(tableSize(initialCapacity));
+    }
+
+    /**
+     * Creates a new {@code IntHashBag} using the given elements.
+     *
+     * @param elements the elements to use to populate the created bag.
+     * @throws NullPointerException if {@code elements} is {@code null}.
+     */
+    public IntHashBag(int... elements) {
+        this(elements.length);
+        for (int e : elements) {
+            add(e);
+        }
+    }
+
+    /**
+     * Adds one occurrence of the given element to this bag.
+     *
+     * @param e the element to add.
+     * @return the count of {@code e} before this call.
+     * @throws IllegalArgumentException if the resulting count would
+     *                                  overflow.
+     */
+    public int add(int e) {
+        return add(e, 1);
+    }
+
+    /**
+     * Adds the given number of occurrences of the given element to this bag.
+     *
+     * @param e the element to add.
+     * @param n the number of occurrences to add.
+     * @return the count of {@code e} before this call.
+     * @throws IllegalArgumentException if {@code n < 0} or if the resulting
+     *                                  count would overflow.
+     */
+    public int add(int e, int n) {
+        Parameters.checkCondition(n >= 0);
+        int i = indexOf(e);
+        if (i >= 0) {
+            int count = counts[i];
+            Parameters.checkCondition(count <= Integer.MAX_VALUE - n);
+            counts[i] = count + n;
+            size += n;
+            modCount++;
+            return count;
+        }
+        if (n > 0) {
+            insert(e, n);
+        }
+        return 0;
+    }
+
+    /**
+     * Sets the count of the given element in this bag.
+     *
+     * @param e the element.
+     * @param n the element's new count.
+     * @return the count of {@code e} before this call.
+     * @throws IllegalArgumentException if {@code n < 0}.
+     */
+    public int setCount(int e, int n) {
+        Parameters.checkCondition(n >= 0);
+        int i = indexOf(e);
+        if (i < 0) {
+            if (n > 0) {
+                insert(e, n);
+            }
+            return 0;
+        }
+        int count = counts[i];
+        if (n == 0) {
+            delete(i);
+        } else {
+            counts[i] = n;
+            size += n - count;
+            modCount++;
+        }
+        return count;
+    }
+
+    /**
+     * Removes one occurrence of the given element from this bag.
+     *
+     * @param e the element to remove.
+     * @return whether {@code e} was in this bag.
+     */
+    public boolean remove(int e) {
+        return remove(e, 1) > 0;
+    }
+
+    /**
+     * Removes up to the given number of occurrences of the given element
+     * from this bag.
+     *
+     * @param e the element to remove.
+     * @param n the number of occurrences to remove.
+     * @return the count of {@code e} before this call.
+     * @throws IllegalArgumentException if {@code n < 0}.
+     */
+    public int remove(int e, int n) {
+        Parameters.checkCondition(n >= 0);
+        int i = indexOf(e);
+        if (i < 0) {
+            return 0;
+        }
+        int count = counts[i];
+        if (n >= count) {
+            delete(i);
+        } else {
+            counts[i] = count - n;
+            size -= n;
+            modCount++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the count of the given element in this bag.
+     *
+     * @param e the element to count.
+     * @return the number of occurrences of {@code e} in this bag.
+     */
+    public int count(int e) {
+        int i = indexOf(e);
+        return i < 0 ? 0 : counts[i];
+    }
+
+    /**
+     * Returns whether this bag contains at least one occurrence of the given
+     * element.
+     *
+     * @param e the element to look for.
+     * @return whether {@code e} is in this bag.
+     */
+    public boolean contains(int e) {
+        return indexOf(e) >= 0;
+    }
+
+    /**
+     * Removes all the elements from this bag.
+     */
+    public void clear() {
+        Arrays.fill(counts, FREE);
+        distinct = 0;
+        used = 0;
+        size = 0L;
+        modCount++;
+    }
+
+    /**
+     * Returns the number of elements in this bag (occurrences included).
+     *
+     * @return the size of this bag.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns whether this bag is empty.
+     *
+     * @return whether this bag is empty.
+     */
+    public boolean isEmpty() {
+        return distinct == 0;
+    }
+
+    /**
+     * Returns the number of distinct elements in this bag.
+     *
+     * @return the number of distinct elements in this bag.
+     */
+    public int elementCount() {
+        return distinct;
+    }
+
+    /**
+     * Returns the distinct elements of this bag, in no particular order.
+     *
+     * @return the distinct elements of this bag.
+     */
+    public int[] elements() {
+        int[] elements = new int[distinct];
+        int j = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                elements[j++] = keys[i];
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Returns a cursor over the distinct elements of this bag and their
+     * counts.
+     *
+     * @return a cursor over the content of this bag.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof IntHashBag)) {
+            return false;
+        }
+        IntHashBag bag = (IntHashBag) o;
+        if (size != bag.size || distinct != bag.distinct) {
+            return false;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0 && bag.count(keys[i]) != counts[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                hash += keys[i] ^ counts[i];
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(keys[i]).append('x').append(counts[i]);
+            }
+        }
+        return sb.append(']').toString();
+    }
+
+    private int indexOf(int e) {
+        int mask = keys.length - 1;
+        for (int i = hash(e); ; i = (i + 1) & mask) {
+            int count = counts[i];
+            if (count == FREE) {
+                return -1;
+            }
+            if (count != DELETED && keys[i] == e) {
+                return i;
+            }
+        }
+    }
+
+    private void insert(int e, int n) {
+        if (used >= threshold()) {
+            rehash(tableSize(distinct + 1));
+        }
+        int mask = keys.length - 1;
+        int i = hash(e);
+        while (counts[i] > 0) {
+            i = (i + 1) & mask;
+        }
+        if (counts[i] == FREE) {
+            used++;
+        }
+        keys[i] = e;
+        counts[i] = n;
+        distinct++;
+        size += n;
+        modCount++;
+    }
+
+    private void delete(int i) {
+        size -= counts[i];
+        counts[i] = DELETED;
+        distinct--;
+        modCount++;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldCounts[j] > 0) {
+                int i = hash(oldKeys[j]);
+                while (counts[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                counts[i] = oldCounts[j];
+            }
+        }
+        used = distinct;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        counts = new int[capacity];
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private int threshold() {
+        return keys.length - (keys.length >>> 2);
+    }
+
+    private int hash(int e) {
+        return (e * 0x9E3779B9) >>> shift;
+    }
+
+    private static int tableSize(int elements) {
+        long capacity = Math.max(2L, (long) elements * 4 / 3 + 1);
+        Parameters.checkCondition(capacity <= 1 << 30);
+        return Integer.highestOneBit((int) capacity - 1) << 1;
+    }
+
+    /**
+     * Cursor over the distinct elements of an {@code IntHashBag} and their
+     * counts. Typical usage:
+     * <pre>
+     * IntHashBag.Cursor cursor = bag.cursor();
+     * while (cursor.next()) {
+     *     process(cursor.element(), cursor.count());
+     * }
+     * </pre>
+     * The bag must not be modified while a cursor is in use, except through
+     * the cursor's {@link #remove()} method.
+     */
+    public final class Cursor {
+        private int slot;
+        private boolean current;
+        private int expectedModCount;
+
+        private Cursor() {
+            this.slot = -1;
+            this.expectedModCount = modCount;
+        }
+
+        /**
+         * Moves this cursor to the next element.
+         *
+         * @return {@code false} if there are no more elements.
+         * @throws ConcurrentModificationException if the bag has been
+         *                                         modified.
+         */
+        public boolean next() {
+            checkForComodification();
+            do {
+                slot++;
+            } while (slot < counts.length && counts[slot] <= 0);
+            current = slot < counts.length;
+            return current;
+        }
+
+        /**
+         * Returns the current element.
+         *
+         * @return the current element.
+         * @throws NoSuchElementException if there is no current element.
+         */
+        public int element() {
+            checkCurrent();
+            return keys[slot];
+        }
+
+        /**
+         * Returns the count of the current element.
+         *
+         * @return the count of the current element.
+         * @throws NoSuchElementException if there is no current element.
+         */
+        public int count() {
+            checkCurrent();
+            return counts[slot];
+        }
+
+        /**
+         * Removes all the occurrences of the current element from the bag.
+         *
+         * @throws NoSuchElementException if there is no current element.
+         */
+        public void remove() {
+            checkCurrent();
+            delete(slot);
+            current = false;
+            expectedModCount = modCount;
+        }
+
+        private void checkCurrent() {
+            checkForComodification();
+            if (!current) {
+                throw new NoSuchElementException();
+            }
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
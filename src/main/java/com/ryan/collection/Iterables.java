@@ -1,12 +1,16 @@
 package com.ryan.collection;
 
+import com.ryan.util.Function;
 import com.ryan.util.Parameters;
+import com.ryan.util.Predicate;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -149,6 +153,234 @@ public final class Iterables {
         return new SkipIterable<T>(iterable, n);
     }
 
+    /**
+     * Returns an {@code Iterable} view applying the given function to each
+     * element of the given {@code Iterable}. The returned view's
+     * {@code Iterator}s support {@link Iterator#remove()} if the original
+     * {@code Iterator} does.
+     *
+     * @param <F>      the type of the source {@code Iterable}'s elements.
+     * @param <T>      the type of the returned {@code Iterable}'s elements.
+     * @param iterable the source {@code Iterable}.
+     * @param function the function to apply.
+     * @return the transformed {@code Iterable}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     * @see Iterators#map(Iterator, Function)
+     */
+    public static <F, T> Iterable<T> map(final Iterable<? extends F> iterable,
+                                         final Function<? super F, ? extends T> function) {
+        Parameters.checkNotNull(iterable);
+        Parameters.checkNotNull(function);
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return Iterators.map(iterable.iterator(), function);
+            }
+        };
+    }
+
+    /**
+     * Returns an {@code Iterable} view of the elements of the given
+     * {@code Iterable} that satisfy the given predicate.
+     *
+     * @param <T>       the type of the {@code Iterable}'s elements.
+     * @param iterable  the source {@code Iterable}.
+     * @param predicate the predicate to satisfy.
+     * @return the filtered {@code Iterable}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     * @see Iterators#filter(Iterator, Predicate)
+     */
+    public static <T> Iterable<T> filter(final Iterable<? extends T> iterable,
+                                         final Predicate<? super T> predicate) {
+        Parameters.checkNotNull(iterable);
+        Parameters.checkNotNull(predicate);
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return Iterators.filter(iterable.iterator(), predicate);
+            }
+        };
+    }
+
+    /**
+     * Returns an {@code Iterable} view concatenating the {@code Iterable}s
+     * obtained by applying the given function to each element of the given
+     * {@code Iterable}.
+     *
+     * @param <F>      the type of the source {@code Iterable}'s elements.
+     * @param <T>      the type of the returned {@code Iterable}'s elements.
+     * @param iterable the source {@code Iterable}.
+     * @param function the function to apply.
+     * @return the flattened {@code Iterable}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     * @see Iterators#flatMap(Iterator, Function)
+     */
+    public static <F, T> Iterable<T> flatMap(final Iterable<? extends F> iterable,
+                                             final Function<? super F, ? extends Iterable<? extends T>> function) {
+        Parameters.checkNotNull(iterable);
+        Parameters.checkNotNull(function);
+        final Function<F, Iterator<? extends T>> iterators =
+                new Function<F, Iterator<? extends T>>() {
+                    @Override
+                    public Iterator<? extends T> apply(F input) {
+                        return function.apply(input).iterator();
+                    }
+                };
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return Iterators.flatMap(iterable.iterator(), iterators);
+            }
+        };
+    }
+
+    /**
+     * Returns an {@code Iterable} view dividing the given {@code Iterable}
+     * into consecutive {@code List}s of the given size (the last one may be
+     * smaller).
+     *
+     * @param <T>      the type of the source {@code Iterable}'s elements.
+     * @param iterable the source {@code Iterable}.
+     * @param size     the size of the {@code List}s.
+     * @return the partitioned {@code Iterable}.
+     * @throws NullPointerException     if {@code iterable} is {@code null}.
+     * @throws IllegalArgumentException if {@code size} is not positive.
+     * @see Iterators#partition(Iterator, int)
+     */
+    public static <T> Iterable<List<T>> partition(final Iterable<? extends T> iterable,
+                                                  final int size) {
+        Parameters.checkNotNull(iterable);
+        Parameters.checkCondition(size > 0);
+        return new Iterable<List<T>>() {
+            @Override
+            public Iterator<List<T>> iterator() {
+                return Iterators.partition(iterable.iterator(), size);
+            }
+        };
+    }
+
+    /**
+     * Returns an {@code Iterable} view of the sliding windows of the given
+     * size of the given {@code Iterable}.
+     *
+     * @param <T>      the type of the source {@code Iterable}'s elements.
+     * @param iterable the source {@code Iterable}.
+     * @param size     the size of the windows.
+     * @return the windowed {@code Iterable}.
+     * @throws NullPointerException     if {@code iterable} is {@code null}.
+     * @throws IllegalArgumentException if {@code size} is not positive.
+     * @see Iterators#window(Iterator, int)
+     */
+    public static <T> Iterable<List<T>> window(final Iterable<? extends T> iterable,
+                                               final int size) {
+        Parameters.checkNotNull(iterable);
+        Parameters.checkCondition(size > 0);
+        return new Iterable<List<T>>() {
+            @Override
+            public Iterator<List<T>> iterator() {
+                return Iterators.window(iterable.iterator(), size);
+            }
+        };
+    }
+
+    /**
+     * Returns an {@code Iterable} view of the distinct elements of the
+     * given {@code Iterable}, in encounter order.
+     *
+     * @param <T>      the type of the {@code Iterable}'s elements.
+     * @param iterable the source {@code Iterable}.
+     * @return the {@code Iterable} without duplicates.
+     * @throws NullPointerException if {@code iterable} is {@code null}.
+     * @see Iterators#distinct(Iterator)
+     */
+    public static <T> Iterable<T> distinct(final Iterable<? extends T> iterable) {
+        Parameters.checkNotNull(iterable);
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return Iterators.distinct(iterable.iterator());
+            }
+        };
+    }
+
+    /**
+     * Returns an {@code Iterable} view of the first elements of the given
+     * {@code Iterable}, up to (and excluding) the first one that doesn't
+     * satisfy the given predicate.
+     *
+     * @param <T>       the type of the {@code Iterable}'s elements.
+     * @param iterable  the source {@code Iterable}.
+     * @param predicate the predicate to satisfy.
+     * @return the truncated {@code Iterable}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     * @see Iterators#takeWhile(Iterator, Predicate)
+     */
+    public static <T> Iterable<T> takeWhile(final Iterable<? extends T> iterable,
+                                            final Predicate<? super T> predicate) {
+        Parameters.checkNotNull(iterable);
+        Parameters.checkNotNull(predicate);
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return Iterators.takeWhile(iterable.iterator(), predicate);
+            }
+        };
+    }
+
+    /**
+     * Returns an {@code Iterable} view of the pairs formed by the elements
+     * of the given {@code Iterable}s having the same position, up to the
+     * end of the shortest one.
+     *
+     * @param <A>    the type of the first {@code Iterable}'s elements.
+     * @param <B>    the type of the second {@code Iterable}'s elements.
+     * @param first  the first {@code Iterable}.
+     * @param second the second {@code Iterable}.
+     * @return the zipped {@code Iterable}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     * @see Iterators#zip(Iterator, Iterator)
+     */
+    public static <A, B> Iterable<Map.Entry<A, B>> zip(final Iterable<? extends A> first,
+                                                       final Iterable<? extends B> second) {
+        Parameters.checkNotNull(first);
+        Parameters.checkNotNull(second);
+        return new Iterable<Map.Entry<A, B>>() {
+            @Override
+            public Iterator<Map.Entry<A, B>> iterator() {
+                return Iterators.zip(first.iterator(), second.iterator());
+            }
+        };
+    }
+
+    /**
+     * Returns an {@code Iterable} view merging the given sorted
+     * {@code Iterable}s into a single sorted one.
+     *
+     * @param <T>        the type of the {@code Iterable}s' elements.
+     * @param iterables  the sorted {@code Iterable}s to merge.
+     * @param comparator the comparator the {@code Iterable}s are sorted with.
+     * @return the merged {@code Iterable}.
+     * @throws NullPointerException if one of the arguments is {@code null}
+     *                              or if {@code iterables} contains a
+     *                              {@code null} reference.
+     * @see Iterators#mergeSorted(Iterable, Comparator)
+     */
+    public static <T> Iterable<T> mergeSorted(final Iterable<? extends Iterable<? extends T>> iterables,
+                                              final Comparator<? super T> comparator) {
+        Parameters.checkNotNull(iterables);
+        Parameters.checkNotNull(comparator);
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                List<Iterator<? extends T>> iterators = new ArrayList<Iterator<? extends T>>();
+                for (Iterable<? extends T> iterable : iterables) {
+                    iterators.add(iterable.iterator());
+                }
+                return Iterators.mergeSorted(iterators, comparator);
+            }
+        };
+    }
+
     /**
      * Returns a {@code List} containing all the given {@code Iterable}'s
      * elements.
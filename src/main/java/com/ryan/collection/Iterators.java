@@ -1,14 +1,21 @@
 package com.ryan.collection;
 
+import com.ryan.util.Function;
 import com.ryan.util.Parameters;
+import com.ryan.util.Predicate;
 import com.ryan.util.XObjects;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 /**
@@ -155,6 +162,197 @@ public final class Iterators {
         return skipped;
     }
 
+    /**
+     * Returns an {@code Iterator} applying the given function to each
+     * element of the given {@code Iterator}. The source {@code Iterator} is
+     * not polled until necessary. Successive {@code map} stages are fused
+     * into a single one. The returned {@code Iterator} supports
+     * {@link Iterator#remove()} if the source {@code Iterator} supports it.
+     *
+     * @param <F>      the type of the source {@code Iterator}'s elements.
+     * @param <T>      the type of the returned {@code Iterator}'s elements.
+     * @param iterator the source {@code Iterator}.
+     * @param function the function to apply.
+     * @return the transformed {@code Iterator}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <F, T> Iterator<T> map(Iterator<? extends F> iterator,
+                                         Function<? super F, ? extends T> function) {
+        Parameters.checkNotNull(iterator);
+        Parameters.checkNotNull(function);
+        if (iterator instanceof MapIterator) {
+            MapIterator<Object, F> inner = (MapIterator<Object, F>) iterator;
+            return new MapIterator<Object, T>(inner.iterator,
+                    new Composition<Object, F, T>(inner.function, function));
+        }
+        return new MapIterator<F, T>(iterator, function);
+    }
+
+    /**
+     * Returns an {@code Iterator} over the elements of the given
+     * {@code Iterator} that satisfy the given predicate. The source
+     * {@code Iterator} is not polled until necessary. Successive
+     * {@code filter} stages are fused into a single one, unless the inner
+     * stage has already read an element ahead (through
+     * {@link Iterator#hasNext()}). The returned
+     * {@code Iterator} doesn't support {@link Iterator#remove()}.
+     *
+     * @param <E>       the type of the {@code Iterator}'s elements.
+     * @param iterator  the source {@code Iterator}.
+     * @param predicate the predicate to satisfy.
+     * @return the filtered {@code Iterator}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> Iterator<E> filter(Iterator<? extends E> iterator,
+                                         Predicate<? super E> predicate) {
+        Parameters.checkNotNull(iterator);
+        Parameters.checkNotNull(predicate);
+        if (iterator instanceof FilterIterator
+                && !((FilterIterator<E>) iterator).isReady()) {
+            FilterIterator<E> inner = (FilterIterator<E>) iterator;
+            return new FilterIterator<E>(inner.iterator,
+                    new Conjunction<E>(inner.predicate, predicate));
+        }
+        return new FilterIterator<E>(iterator, predicate);
+    }
+
+    /**
+     * Returns an {@code Iterator} concatenating the {@code Iterator}s
+     * obtained by applying the given function to each element of the given
+     * {@code Iterator}. The source {@code Iterator} is not polled until
+     * necessary. The returned {@code Iterator} doesn't support
+     * {@link Iterator#remove()}.
+     *
+     * @param <F>      the type of the source {@code Iterator}'s elements.
+     * @param <T>      the type of the returned {@code Iterator}'s elements.
+     * @param iterator the source {@code Iterator}.
+     * @param function the function to apply.
+     * @return the flattened {@code Iterator}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    public static <F, T> Iterator<T> flatMap(Iterator<? extends F> iterator,
+                                             Function<? super F, ? extends Iterator<? extends T>> function) {
+        return new FlatMapIterator<F, T>(iterator, function);
+    }
+
+    /**
+     * Divides the given {@code Iterator} into consecutive {@code List}s of
+     * the given size (the last one may be smaller). The source
+     * {@code Iterator} is not polled until necessary. The returned
+     * {@code Iterator} doesn't support {@link Iterator#remove()}.
+     *
+     * @param <E>      the type of the source {@code Iterator}'s elements.
+     * @param iterator the source {@code Iterator}.
+     * @param size     the size of the {@code List}s.
+     * @return the partitioned {@code Iterator}.
+     * @throws NullPointerException     if {@code iterator} is {@code null}.
+     * @throws IllegalArgumentException if {@code size} is not positive.
+     */
+    public static <E> Iterator<List<E>> partition(Iterator<? extends E> iterator,
+                                                  int size) {
+        return new PartitionIterator<E>(iterator, size);
+    }
+
+    /**
+     * Returns an {@code Iterator} over the sliding windows of the given
+     * size of the given {@code Iterator}: the first window contains the
+     * elements {@code 0} to {@code size - 1}, the second one the elements
+     * {@code 1} to {@code size}, and so on. There's no window at all if the
+     * source {@code Iterator} has less than {@code size} elements. The
+     * source {@code Iterator} is not polled until necessary. The returned
+     * {@code Iterator} doesn't support {@link Iterator#remove()}.
+     *
+     * @param <E>      the type of the source {@code Iterator}'s elements.
+     * @param iterator the source {@code Iterator}.
+     * @param size     the size of the windows.
+     * @return the windowed {@code Iterator}.
+     * @throws NullPointerException     if {@code iterator} is {@code null}.
+     * @throws IllegalArgumentException if {@code size} is not positive.
+     */
+    public static <E> Iterator<List<E>> window(Iterator<? extends E> iterator,
+                                               int size) {
+        return new WindowIterator<E>(iterator, size);
+    }
+
+    /**
+     * Returns an {@code Iterator} over the distinct elements of the given
+     * {@code Iterator}, in encounter order. The source {@code Iterator} is
+     * not polled until necessary; note that the returned {@code Iterator}
+     * remembers all the elements it has returned. The returned
+     * {@code Iterator} doesn't support {@link Iterator#remove()}.
+     *
+     * @param <E>      the type of the {@code Iterator}'s elements.
+     * @param iterator the source {@code Iterator}.
+     * @return the {@code Iterator} without duplicates.
+     * @throws NullPointerException if {@code iterator} is {@code null}.
+     */
+    public static <E> Iterator<E> distinct(Iterator<? extends E> iterator) {
+        return new DistinctIterator<E>(iterator);
+    }
+
+    /**
+     * Returns an {@code Iterator} over the first elements of the given
+     * {@code Iterator}, up to (and excluding) the first one that doesn't
+     * satisfy the given predicate. The source {@code Iterator} is not
+     * polled until necessary. The returned {@code Iterator} doesn't support
+     * {@link Iterator#remove()}.
+     *
+     * @param <E>       the type of the {@code Iterator}'s elements.
+     * @param iterator  the source {@code Iterator}.
+     * @param predicate the predicate to satisfy.
+     * @return the truncated {@code Iterator}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    public static <E> Iterator<E> takeWhile(Iterator<? extends E> iterator,
+                                            Predicate<? super E> predicate) {
+        return new TakeWhileIterator<E>(iterator, predicate);
+    }
+
+    /**
+     * Returns an {@code Iterator} over the pairs formed by the elements of
+     * the given {@code Iterator}s having the same position. The returned
+     * {@code Iterator} stops as soon as one of the source {@code Iterator}s
+     * is exhausted. The source {@code Iterator}s are not polled until
+     * necessary. The returned {@code Iterator} doesn't support
+     * {@link Iterator#remove()}.
+     *
+     * @param <A>    the type of the first {@code Iterator}'s elements.
+     * @param <B>    the type of the second {@code Iterator}'s elements.
+     * @param first  the first {@code Iterator}.
+     * @param second the second {@code Iterator}.
+     * @return the zipped {@code Iterator}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    public static <A, B> Iterator<Map.Entry<A, B>> zip(Iterator<? extends A> first,
+                                                       Iterator<? extends B> second) {
+        return new ZipIterator<A, B>(first, second);
+    }
+
+    /**
+     * Merges the given sorted {@code Iterator}s into a single sorted
+     * {@code Iterator}. Equal elements are returned in the order of their
+     * source {@code Iterator}s. The source {@code Iterator}s are not polled
+     * until necessary: the first element of each of them is read on the
+     * first call to {@code hasNext()} or {@code next()}, and the element
+     * following the one returned by {@code next()} on the next call. The
+     * returned {@code Iterator} doesn't support
+     * {@link Iterator#remove()}.
+     *
+     * @param <E>        the type of the {@code Iterator}s' elements.
+     * @param iterators  the sorted {@code Iterator}s to merge.
+     * @param comparator the comparator the {@code Iterator}s are sorted with.
+     * @return the merged {@code Iterator}.
+     * @throws NullPointerException if one of the arguments is {@code null}
+     *                              or if {@code iterators} contains a
+     *                              {@code null} reference.
+     */
+    public static <E> Iterator<E> mergeSorted(Iterable<? extends Iterator<? extends E>> iterators,
+                                              Comparator<? super E> comparator) {
+        return new MergeSortedIterator<E>(iterators, comparator);
+    }
+
     /**
      * Returns a {@code List} containing all the given {@code Iterator}'s
      * elements. This method consumes entirely the input {@code Iterator}.
@@ -394,6 +592,378 @@ public final class Iterators {
         }
     }
 
+    /**
+     * Base class of the {@code Iterator}s that need to look ahead: the next
+     * element is computed by {@link #computeNext()} and kept in a field.
+     */
+    private abstract static class LookaheadIterator<E> implements Iterator<E> {
+        private E next;
+        private boolean ready;
+        private boolean done;
+
+        /**
+         * Returns the next element, or the value of {@link #done()} if
+         * there's none.
+         */
+        abstract E computeNext();
+
+        final E done() {
+            done = true;
+            return null;
+        }
+
+        /**
+         * Returns whether an element has been read ahead by
+         * {@link #hasNext()} and not returned by {@link #next()} yet.
+         */
+        final boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public final boolean hasNext() {
+            if (!ready && !done) {
+                next = computeNext();
+                ready = !done;
+            }
+            return ready;
+        }
+
+        @Override
+        public final E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            E e = next;
+            next = null;
+            ready = false;
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class MapIterator<F, T> implements Iterator<T> {
+        final Iterator<? extends F> iterator;
+        final Function<? super F, ? extends T> function;
+
+        MapIterator(Iterator<? extends F> iterator,
+                    Function<? super F, ? extends T> function) {
+            this.iterator = iterator;
+            this.function = function;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            return function.apply(iterator.next());
+        }
+
+        @Override
+        public void remove() {
+            iterator.remove();
+        }
+    }
+
+    private static final class Composition<A, B, C> implements Function<A, C> {
+        private final Function<? super A, ? extends B> f;
+        private final Function<? super B, ? extends C> g;
+
+        Composition(Function<? super A, ? extends B> f,
+                    Function<? super B, ? extends C> g) {
+            this.f = f;
+            this.g = g;
+        }
+
+        @Override
+        public C apply(A input) {
+            return g.apply(f.apply(input));
+        }
+    }
+
+    private static final class FilterIterator<E> extends LookaheadIterator<E> {
+        final Iterator<? extends E> iterator;
+        final Predicate<? super E> predicate;
+
+        FilterIterator(Iterator<? extends E> iterator,
+                       Predicate<? super E> predicate) {
+            this.iterator = iterator;
+            this.predicate = predicate;
+        }
+
+        @Override
+        E computeNext() {
+            while (iterator.hasNext()) {
+                E e = iterator.next();
+                if (predicate.apply(e)) {
+                    return e;
+                }
+            }
+            return done();
+        }
+    }
+
+    private static final class Conjunction<E> implements Predicate<E> {
+        private final Predicate<? super E> p1;
+        private final Predicate<? super E> p2;
+
+        Conjunction(Predicate<? super E> p1, Predicate<? super E> p2) {
+            this.p1 = p1;
+            this.p2 = p2;
+        }
+
+        @Override
+        public boolean apply(E input) {
+            return p1.apply(input) && p2.apply(input);
+        }
+    }
+
+    private static final class FlatMapIterator<F, T> extends LookaheadIterator<T> {
+        private final Iterator<? extends F> iterator;
+        private final Function<? super F, ? extends Iterator<? extends T>> function;
+        private Iterator<? extends T> current = emptyIterator();
+
+        FlatMapIterator(Iterator<? extends F> iterator,
+                        Function<? super F, ? extends Iterator<? extends T>> function) {
+            this.iterator = Parameters.checkNotNull(iterator);
+            this.function = Parameters.checkNotNull(function);
+        }
+
+        @Override
+        T computeNext() {
+            while (!current.hasNext()) {
+                if (!iterator.hasNext()) {
+                    return done();
+                }
+                current = function.apply(iterator.next());
+            }
+            return current.next();
+        }
+    }
+
+    private static final class PartitionIterator<E> extends LookaheadIterator<List<E>> {
+        private final Iterator<? extends E> iterator;
+        private final int size;
+
+        PartitionIterator(Iterator<? extends E> iterator, int size) {
+            Parameters.checkCondition(size > 0);
+            this.iterator = Parameters.checkNotNull(iterator);
+            this.size = size;
+        }
+
+        @Override
+        List<E> computeNext() {
+            if (!iterator.hasNext()) {
+                return done();
+            }
+            List<E> partition = new ArrayList<E>(size);
+            while (partition.size() < size && iterator.hasNext()) {
+                partition.add(iterator.next());
+            }
+            return partition;
+        }
+    }
+
+    private static final class WindowIterator<E> extends LookaheadIterator<List<E>> {
+        private final Iterator<? extends E> iterator;
+        private final Object[] ring;
+        private int start;
+        private int count;
+
+        WindowIterator(Iterator<? extends E> iterator, int size) {
+            Parameters.checkCondition(size > 0);
+            this.iterator = Parameters.checkNotNull(iterator);
+            this.ring = new Object[size];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        List<E> computeNext() {
+            while (count < ring.length && iterator.hasNext()) {
+                ring[(start + count++) % ring.length] = iterator.next();
+            }
+            if (count < ring.length) {
+                return done();
+            }
+            List<E> window = new ArrayList<E>(ring.length);
+            for (int i = 0; i < ring.length; i++) {
+                window.add((E) ring[(start + i) % ring.length]);
+            }
+            ring[start] = null;
+            start = (start + 1) % ring.length;
+            count--;
+            return window;
+        }
+    }
+
+    private static final class DistinctIterator<E> extends LookaheadIterator<E> {
+        private final Iterator<? extends E> iterator;
+        private final Set<E> seen = new HashSet<E>();
+
+        DistinctIterator(Iterator<? extends E> iterator) {
+            this.iterator = Parameters.checkNotNull(iterator);
+        }
+
+        @Override
+        E computeNext() {
+            while (iterator.hasNext()) {
+                E e = iterator.next();
+                if (seen.add(e)) {
+                    return e;
+                }
+            }
+            return done();
+        }
+    }
+
+    private static final class TakeWhileIterator<E> extends LookaheadIterator<E> {
+        private final Iterator<? extends E> iterator;
+        private final Predicate<? super E> predicate;
+
+        TakeWhileIterator(Iterator<? extends E> iterator,
+                          Predicate<? super E> predicate) {
+            this.iterator = Parameters.checkNotNull(iterator);
+            this.predicate = Parameters.checkNotNull(predicate);
+        }
+
+        @Override
+        E computeNext() {
+            if (iterator.hasNext()) {
+                E e = iterator.next();
+                if (predicate.apply(e)) {
+                    return e;
+                }
+            }
+            return done();
+        }
+    }
+
+    private static final class ZipIterator<A, B> implements Iterator<Map.Entry<A, B>> {
+        private final Iterator<? extends A> first;
+        private final Iterator<? extends B> second;
+
+        ZipIterator(Iterator<? extends A> first, Iterator<? extends B> second) {
+            this.first = Parameters.checkNotNull(first);
+            this.second = Parameters.checkNotNull(second);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return first.hasNext() && second.hasNext();
+        }
+
+        @Override
+        public Map.Entry<A, B> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return new AbstractMap.SimpleImmutableEntry<A, B>(first.next(),
+                    second.next());
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class MergeSortedIterator<E> implements Iterator<E> {
+        private final PriorityQueue<Head<E>> heads;
+        private List<Head<E>> sources;
+        private Head<E> last;
+
+        MergeSortedIterator(Iterable<? extends Iterator<? extends E>> iterators,
+                            final Comparator<? super E> comparator) {
+            Parameters.checkNotNull(comparator);
+            this.heads = new PriorityQueue<Head<E>>(11, new Comparator<Head<E>>() {
+                @Override
+                public int compare(Head<E> h1, Head<E> h2) {
+                    int c = comparator.compare(h1.element, h2.element);
+                    return c != 0 ? c : h1.rank < h2.rank ? -1 : 1;
+                }
+            });
+            this.sources = new ArrayList<Head<E>>();
+            int rank = 0;
+            for (Iterator<? extends E> iterator : iterators) {
+                sources.add(new Head<E>(Parameters.checkNotNull(iterator), rank++));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            fill();
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            fill();
+            Head<E> head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            last = head;
+            return head.element;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /*
+         * Reads the first element of every source on the first call, and
+         * afterwards the element following the last one returned.
+         */
+        private void fill() {
+            if (sources != null) {
+                List<Head<E>> s = sources;
+                sources = null;
+                for (Head<E> head : s) {
+                    if (head.advance()) {
+                        heads.add(head);
+                    }
+                }
+            } else if (last != null) {
+                Head<E> head = last;
+                last = null;
+                if (head.advance()) {
+                    heads.add(head);
+                }
+            }
+        }
+    }
+
+    /**
+     * The current element of one of the merged {@code Iterator}s.
+     */
+    private static final class Head<E> {
+        final Iterator<? extends E> iterator;
+        final int rank;
+        E element;
+
+        Head(Iterator<? extends E> iterator, int rank) {
+            this.iterator = iterator;
+            this.rank = rank;
+        }
+
+        boolean advance() {
+            if (!iterator.hasNext()) {
+                element = null;
+                return false;
+            }
+            element = iterator.next();
+            return true;
+        }
+    }
+
     private Iterators() {
         /* ... */
     }
@@ -0,0 +1,471 @@
+package com.ryan.collection;
+
+import com.ryan.util.Parameters;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Count-based {@link Bag} implementation: each distinct element is stored once,
+ * along with its number of occurrences, in an open-addressing (linear probing)
+ * hash table. Unlike {@link HashBag}, the memory footprint only depends on the
+ * number of distinct elements, and {@link #size()} runs in constant time. This
+ * implementation accepts {@code null} elements. Instances of this class are not
+ * thread-safe.
+ *
+ * @param <E> the type of the elements in the bag.
+ * @author Ryan Tao
+ * @see IntHashBag
+ * @see LongHashBag
+ */
+public final class OpenHashBag<E> extends AbstractBag<E> implements Serializable {
+    private static final long serialVersionUID = 5712368021739102848L;
+
+    private static final int FREE = 0;
+    private static final int DELETED = -1;
+
+    private Object[] keys;
+    private int[] counts;
+    private int shift;
+    private int distinct;
+    private int used;
+    private long size;
+    private transient int modCount;
+
+    /**
+     * Creates a new empty {@code OpenHashBag}.
+     */
+    public OpenHashBag() {
+        this(10);
+    }
+
+    /**
+     * Creates a new empty {@code OpenHashBag} able to hold the given number
+     * of distinct elements without resizing.
+     *
+     * @param initialCapacity the bag's initial capacity.
+     * @throws IllegalArgumentException if {@code initialCapacity < 0}.
+     */
+    public OpenHashBag(int initialCapacity) {
+        Parameters.checkCondition(initialCapacity >= 0);
+        allocate(tableSize(initialCapacity));
+    }
+
+    /**
+     * Creates a new {@code OpenHashBag} using the elements contained in the
+     * given {@code Collection}.
+     *
+     * @param c the collection to use to populate the created bag.
+     * @throws NullPointerException if {@code c} is {@code null}.
+     */
+    public OpenHashBag(Collection<? extends E> c) {
+        this(c.size());
+        addAll(c);
+    }
+
+    /**
+     * Creates a new {@code OpenHashBag} using the elements contained in the
+     * given {@code Iterable}.
+     *
+     * @param i the iterable to use to populate the created bag.
+     * @throws NullPointerException if {@code i} is {@code null}.
+     */
+    public OpenHashBag(Iterable<? extends E> i) {
+        this();
+        for (E e : i) {
+            add(e);
+        }
+    }
+
+    /**
+     * Creates a new {@code OpenHashBag} using the elements contained in the
+     * given {@code Iterator}.
+     *
+     * @param i the iterator to use to populate the created bag.
+     * @throws NullPointerException if {@code i} is {@code null}.
+     */
+    public OpenHashBag(Iterator<? extends E> i) {
+        this();
+        while (i.hasNext()) {
+            add(i.next());
+        }
+    }
+
+    /**
+     * Creates a new {@code OpenHashBag} using the elements contained in the
+     * given array.
+     *
+     * @param elements the elements to use to populate the created bag.
+     * @throws NullPointerException if {@code elements} is {@code null}.
+     */
+    @SafeVarargs
+    public OpenHashBag(E... elements) {
+        this(elements.length);
+        for (E e : elements) {
+            add(e);
+        }
+    }
+
+    @Override
+    public boolean add(E e) {
+        add(e, 1);
+        return true;
+    }
+
+    /**
+     * Adds the given number of occurrences of the given element to this bag.
+     *
+     * @param e the element to add.
+     * @param n the number of occurrences to add.
+     * @return the count of {@code e} before this call.
+     * @throws IllegalArgumentException if {@code n < 0} or if the resulting
+     *                                  count would overflow.
+     */
+    public int add(E e, int n) {
+        Parameters.checkCondition(n >= 0);
+        int i = indexOf(e);
+        if (i >= 0) {
+            int count = counts[i];
+            Parameters.checkCondition(count <= Integer.MAX_VALUE - n);
+            counts[i] = count + n;
+            size += n;
+            modCount++;
+            return count;
+        }
+        if (n > 0) {
+            insert(e, n);
+        }
+        return 0;
+    }
+
+    /**
+     * Sets the count of the given element in this bag.
+     *
+     * @param e the element.
+     * @param n the element's new count.
+     * @return the count of {@code e} before this call.
+     * @throws IllegalArgumentException if {@code n < 0}.
+     */
+    public int setCount(E e, int n) {
+        Parameters.checkCondition(n >= 0);
+        int i = indexOf(e);
+        if (i < 0) {
+            if (n > 0) {
+                insert(e, n);
+            }
+            return 0;
+        }
+        int count = counts[i];
+        if (n == 0) {
+            delete(i);
+        } else {
+            counts[i] = n;
+            size += n - count;
+            modCount++;
+        }
+        return count;
+    }
+
+    /**
+     * Removes up to the given number of occurrences of the given element
+     * from this bag.
+     *
+     * @param o the element to remove.
+     * @param n the number of occurrences to remove.
+     * @return the count of {@code o} before this call.
+     * @throws IllegalArgumentException if {@code n < 0}.
+     */
+    public int remove(Object o, int n) {
+        Parameters.checkCondition(n >= 0);
+        int i = indexOf(o);
+        if (i < 0) {
+            return 0;
+        }
+        int count = counts[i];
+        if (n >= count) {
+            delete(i);
+        } else {
+            counts[i] = count - n;
+            size -= n;
+            modCount++;
+        }
+        return count;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return remove(o, 1) > 0;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        boolean removed = false;
+        for (Object o : c) {
+            int i = indexOf(o);
+            if (i >= 0) {
+                delete(i);
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public int count(E e) {
+        int i = indexOf(e);
+        return i < 0 ? 0 : counts[i];
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(counts, FREE);
+        distinct = 0;
+        used = 0;
+        size = 0L;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return distinct == 0;
+    }
+
+    /**
+     * Returns the number of distinct elements in this bag.
+     *
+     * @return the number of distinct elements in this bag.
+     */
+    public int elementCount() {
+        return distinct;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Returns a view of the distinct elements of this bag along with their
+     * count. The returned entries are immutable, but the set supports
+     * removal (which removes all the occurrences of the entry's element).
+     *
+     * @return the (element, count) entries of this bag.
+     */
+    public Set<Map.Entry<E, Integer>> entrySet() {
+        return new AbstractSet<Map.Entry<E, Integer>>() {
+            @Override
+            public Iterator<Map.Entry<E, Integer>> iterator() {
+                return new EntryItr();
+            }
+
+            @Override
+            public int size() {
+                return distinct;
+            }
+
+            @Override
+            public void clear() {
+                OpenHashBag.this.clear();
+            }
+        };
+    }
+
+    private int indexOf(Object o) {
+        int mask = keys.length - 1;
+        for (int i = hash(o); ; i = (i + 1) & mask) {
+            int count = counts[i];
+            if (count == FREE) {
+                return -1;
+            }
+            if (count != DELETED && (o == null ? keys[i] == null : o.equals(keys[i]))) {
+                return i;
+            }
+        }
+    }
+
+    private void insert(Object e, int n) {
+        if (used >= threshold()) {
+            rehash(tableSize(distinct + 1));
+        }
+        int mask = keys.length - 1;
+        int i = hash(e);
+        while (counts[i] > 0) {
+            i = (i + 1) & mask;
+        }
+        if (counts[i] == FREE) {
+            used++;
+        }
+        keys[i] = e;
+        counts[i] = n;
+        distinct++;
+        size += n;
+        modCount++;
+    }
+
+    private void delete(int i) {
+        size -= counts[i];
+        keys[i] = null;
+        counts[i] = DELETED;
+        distinct--;
+        modCount++;
+    }
+
+    private void rehash(int capacity) {
+        Object[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldCounts[j] > 0) {
+                int i = hash(oldKeys[j]);
+                while (counts[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                counts[i] = oldCounts[j];
+            }
+        }
+        used = distinct;
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        counts = new int[capacity];
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private int threshold() {
+        return keys.length - (keys.length >>> 2);
+    }
+
+    private int hash(Object o) {
+        return o == null ? 0 : (o.hashCode() * 0x9E3779B9) >>> shift;
+    }
+
+    private static int tableSize(int elements) {
+        long capacity = Math.max(2L, (long) elements * 4 / 3 + 1);
+        Parameters.checkCondition(capacity <= 1 << 30);
+        return Integer.highestOneBit((int) capacity - 1) << 1;
+    }
+
+    private abstract class SlotItr {
+        int next;
+        int last;
+        int expectedModCount;
+
+        SlotItr() {
+            this.next = advance(0);
+            this.last = -1;
+            this.expectedModCount = modCount;
+        }
+
+        final int advance(int i) {
+            while (i < counts.length && counts[i] <= 0) {
+                i++;
+            }
+            return i;
+        }
+
+        final void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    private final class Itr extends SlotItr implements Iterator<E> {
+        private int remaining;
+
+        Itr() {
+            this.remaining = next < counts.length ? counts[next] : 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < counts.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            checkForComodification();
+            if (next >= counts.length) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            if (--remaining == 0) {
+                next = advance(next + 1);
+                remaining = next < counts.length ? counts[next] : 0;
+            }
+            return (E) keys[last];
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            if (counts[last] == 1) {
+                delete(last);
+            } else {
+                counts[last]--;
+                size--;
+                modCount++;
+            }
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    private final class EntryItr extends SlotItr
+            implements Iterator<Map.Entry<E, Integer>> {
+        @Override
+        public boolean hasNext() {
+            return next < counts.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<E, Integer> next() {
+            checkForComodification();
+            if (next >= counts.length) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = advance(next + 1);
+            return new AbstractMap.SimpleImmutableEntry<E, Integer>(
+                    (E) keys[last], counts[last]);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            delete(last);
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+}
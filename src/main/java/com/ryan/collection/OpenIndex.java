@@ -0,0 +1,86 @@
+package com.ryan.collection;
+
+import com.ryan.util.Parameters;
+
+/**
+ * Open-addressing (linear probing) hash index over an array of keys: each
+ * slot of the table is a pair of {@code int}s, the key's hash code and the
+ * position of the key in the array plus one ({@code 0} marks a free slot).
+ * The keys themselves stay in their array, in insertion order; thanks to the
+ * stored hash codes, a probe only reads a key when its hash code matches.
+ * Tables are at most half full. Supports the {@code null} key.
+ *
+ * @author Ryan Tao
+ */
+final class OpenIndex {
+    private static final int MAX_SLOTS = 1 << 29;
+
+    /**
+     * Returns the table length suitable for the given number of keys.
+     */
+    static int tableSize(int size) {
+        Parameters.checkCondition(size <= MAX_SLOTS / 2);
+        return Integer.highestOneBit(Math.max(1, size) * 2 - 1) << 2;
+    }
+
+    /**
+     * Builds the index of the first {@code size} keys of the given array,
+     * which must be distinct. The table is sized for the whole array, so that
+     * the remaining slots can be filled with {@link #insert}.
+     */
+    static int[] build(Object[] keys, int size) {
+        int[] table = new int[tableSize(keys.length)];
+        for (int i = 0; i < size; i++) {
+            insert(table, keys[i], i);
+        }
+        return table;
+    }
+
+    /**
+     * Records that {@code key}, which must not already be in the table, is
+     * at the given position.
+     */
+    static void insert(int[] table, Object key, int index) {
+        int hash = hash(key);
+        int mask = table.length - 1;
+        int i = slot(table, hash);
+        while (table[i + 1] != 0) {
+            i = (i + 2) & mask;
+        }
+        table[i] = hash;
+        table[i + 1] = index + 1;
+    }
+
+    /**
+     * Returns the position of the given key in {@code keys}, or {@code -1}
+     * if it isn't there.
+     */
+    static int indexOf(int[] table, Object[] keys, Object key) {
+        int hash = hash(key);
+        int mask = table.length - 1;
+        for (int i = slot(table, hash); ; i = (i + 2) & mask) {
+            int index = table[i + 1] - 1;
+            if (index < 0) {
+                return -1;
+            }
+            if (table[i] == hash) {
+                Object k = keys[index];
+                if (k == key || (key != null && key.equals(k))) {
+                    return index;
+                }
+            }
+        }
+    }
+
+    private static int hash(Object key) {
+        return key == null ? 0 : key.hashCode();
+    }
+
+    private static int slot(int[] table, int hash) {
+        return ((hash * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(table.length - 1)) & ~1;
+    }
+
+    private OpenIndex() {
+        /* ... */
+    }
+}
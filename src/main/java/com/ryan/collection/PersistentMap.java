@@ -0,0 +1,726 @@
+package com.ryan.collection;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Persistent {@link Map}: an immutable {@code Map} whose "modifications"
+ * ({@link #with(Object, Object)}, {@link #without(Object)}) return a new
+ * instance sharing most of its structure with the original one, in
+ * {@code O(log32 n)} time and space, instead of copying the whole
+ * {@code Map}. Batched updates are best done through a {@link Transient},
+ * which updates its nodes in place. The iteration order is unspecified.
+ * Accepts {@code null} keys and values.
+ * <p>
+ * This implementation is a compressed hash-array mapped prefix-tree (CHAMP):
+ * each node has two 32-bit bitmaps, one for its key/value pairs and one for
+ * its sub-nodes, and stores both in a single array, without any entry
+ * object. Nodes are kept in canonical form, so that removals shrink the
+ * tree back.
+ *
+ * @param <K> the type of the {@code Map}'s keys.
+ * @param <V> the type of the {@code Map}'s values.
+ * @author Ryan Tao
+ * @see PersistentSet
+ * @see PersistentVector
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V>
+        implements Serializable {
+    private static final long serialVersionUID = 7410873264906143521L;
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int MAX_SHIFT = 30;
+
+    private static final Object NOT_FOUND = new Object();
+
+    private static final PersistentMap<Object, Object> EMPTY =
+            new PersistentMap<Object, Object>(
+                    new BitmapNode(null, 0, 0, new Object[0]), 0);
+
+    /**
+     * Mutable view of a {@code PersistentMap}, for batched updates. Nodes
+     * created by a {@code Transient} are updated in place until
+     * {@link #persistent()} is called; the original {@code PersistentMap}
+     * is never affected. Not thread-safe.
+     *
+     * @param <K> the type of the {@code Map}'s keys.
+     * @param <V> the type of the {@code Map}'s values.
+     */
+    public static final class Transient<K, V> {
+        private Object owner = new Object();
+        private Node root;
+        private int size;
+
+        private Transient(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        /**
+         * Associates the specified value with the specified key.
+         *
+         * @param key   the key.
+         * @param value the value.
+         * @return this object.
+         * @throws IllegalStateException if {@link #persistent()} has
+         *                               already been called.
+         */
+        public Transient<K, V> put(K key, V value) {
+            Change change = new Change();
+            root = root.put(owner(), key, hash(key), value, 0, change);
+            size += change.delta;
+            return this;
+        }
+
+        /**
+         * Copies all of the mappings from the specified {@code Map}.
+         *
+         * @param map mappings to be copied.
+         * @return this object.
+         * @throws NullPointerException  if {@code map} is {@code null}.
+         * @throws IllegalStateException if {@link #persistent()} has
+         *                               already been called.
+         */
+        public Transient<K, V> putAll(Map<? extends K, ? extends V> map) {
+            for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+            return this;
+        }
+
+        /**
+         * Removes the mapping for the given key, if any.
+         *
+         * @param key the key.
+         * @return this object.
+         * @throws IllegalStateException if {@link #persistent()} has
+         *                               already been called.
+         */
+        public Transient<K, V> remove(Object key) {
+            Change change = new Change();
+            root = root.remove(owner(), key, hash(key), 0, change);
+            size += change.delta;
+            return this;
+        }
+
+        /**
+         * Returns the value to which the given key is mapped, or
+         * {@code null}.
+         *
+         * @param key the key.
+         * @return the value associated to {@code key}.
+         * @throws IllegalStateException if {@link #persistent()} has
+         *                               already been called.
+         */
+        public V get(Object key) {
+            owner();
+            return value(root.find(key, hash(key), 0));
+        }
+
+        /**
+         * Returns the number of mappings.
+         *
+         * @return the number of mappings.
+         * @throws IllegalStateException if {@link #persistent()} has
+         *                               already been called.
+         */
+        public int size() {
+            owner();
+            return size;
+        }
+
+        /**
+         * Returns a {@code PersistentMap} containing the current mappings.
+         * This {@code Transient} can't be used anymore afterwards.
+         *
+         * @return the created {@code PersistentMap}.
+         * @throws IllegalStateException if {@link #persistent()} has
+         *                               already been called.
+         */
+        public PersistentMap<K, V> persistent() {
+            owner();
+            owner = null;
+            return size == 0 ? PersistentMap.<K, V>empty()
+                    : new PersistentMap<K, V>(root, size);
+        }
+
+        private Object owner() {
+            if (owner == null) {
+                throw new IllegalStateException();
+            }
+            return owner;
+        }
+    }
+
+    /**
+     * Returns the empty {@code PersistentMap}.
+     *
+     * @param <K> the type of the {@code Map}'s keys.
+     * @param <V> the type of the {@code Map}'s values.
+     * @return the empty {@code PersistentMap}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Creates a new {@code PersistentMap} from the given {@code Map}.
+     *
+     * @param <K> the type of the {@code Map}'s keys.
+     * @param <V> the type of the {@code Map}'s values.
+     * @param map the source {@code Map}.
+     * @return the created {@code PersistentMap}.
+     * @throws NullPointerException if {@code map} is {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> copyOf(
+            Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentMap) {
+            return (PersistentMap<K, V>) map;
+        }
+        return PersistentMap.<K, V>empty().asTransient().putAll(map)
+                .persistent();
+    }
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns a {@code PersistentMap} in which the given key is mapped to
+     * the given value. Returns this {@code PersistentMap} if it already
+     * contains this exact mapping.
+     *
+     * @param key   the key.
+     * @param value the value.
+     * @return the updated {@code PersistentMap}.
+     */
+    public PersistentMap<K, V> with(K key, V value) {
+        Change change = new Change();
+        Node r = root.put(null, key, hash(key), value, 0, change);
+        return r == root ? this : new PersistentMap<K, V>(r, size + change.delta);
+    }
+
+    /**
+     * Returns a {@code PersistentMap} without any mapping for the given
+     * key. Returns this {@code PersistentMap} if it doesn't contain
+     * {@code key}.
+     *
+     * @param key the key.
+     * @return the updated {@code PersistentMap}.
+     */
+    public PersistentMap<K, V> without(Object key) {
+        Change change = new Change();
+        Node r = root.remove(null, key, hash(key), 0, change);
+        if (change.delta == 0) {
+            return this;
+        }
+        return size == 1 ? PersistentMap.<K, V>empty()
+                : new PersistentMap<K, V>(r, size - 1);
+    }
+
+    /**
+     * Returns a {@code Transient} initially containing the mappings of this
+     * {@code PersistentMap}. This operation runs in constant time.
+     *
+     * @return a new {@code Transient}.
+     */
+    public Transient<K, V> asTransient() {
+        return new Transient<K, V>(root, size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return root.find(key, hash(key), 0) != NOT_FOUND;
+    }
+
+    @Override
+    public V get(Object key) {
+        return value(root.find(key, hash(key), 0));
+    }
+
+    @Override
+    public V put(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator<K, V>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Entry)) {
+                    return false;
+                }
+                Entry<?, ?> entry = (Entry<?, ?>) o;
+                Object v = root.find(entry.getKey(), hash(entry.getKey()), 0);
+                return v != NOT_FOUND && (v == null ? entry.getValue() == null
+                        : v.equals(entry.getValue()));
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        return key == null ? 0 : key.hashCode();
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static int index(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    private static boolean eq(Object o1, Object o2) {
+        return o1 == o2 || (o1 != null && o1.equals(o2));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V value(Object v) {
+        return v == NOT_FOUND ? null : (V) v;
+    }
+
+    private static Node merge(Object owner, Object k1, int h1, Object v1,
+                              Object k2, int h2, Object v2, int shift) {
+        if (shift > MAX_SHIFT) {
+            return new CollisionNode(owner, h1, new Object[]{k1, v1, k2, v2});
+        }
+        int m1 = (h1 >>> shift) & MASK;
+        int m2 = (h2 >>> shift) & MASK;
+        if (m1 != m2) {
+            Object[] array = m1 < m2 ? new Object[]{k1, v1, k2, v2}
+                    : new Object[]{k2, v2, k1, v1};
+            return new BitmapNode(owner, (1 << m1) | (1 << m2), 0, array);
+        }
+        return new BitmapNode(owner, 0, 1 << m1, new Object[]{
+                merge(owner, k1, h1, v1, k2, h2, v2, shift + BITS)});
+    }
+
+    /**
+     * Outcome of a node update: the change in the number of mappings.
+     */
+    private static final class Change {
+        int delta;
+    }
+
+    private abstract static class Node implements Serializable {
+        private static final long serialVersionUID = 2601740987632108432L;
+
+        transient Object owner;
+
+        Node(Object owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * Whether this node may be updated in place by the given owner.
+         */
+        final boolean isEditable(Object owner) {
+            return owner != null && this.owner == owner;
+        }
+
+        final boolean isSingleEntry() {
+            return nodeArity() == 0 && payloadArity() == 1;
+        }
+
+        abstract Object find(Object key, int hash, int shift);
+
+        abstract Node put(Object owner, Object key, int hash, Object value,
+                          int shift, Change change);
+
+        abstract Node remove(Object owner, Object key, int hash, int shift,
+                             Change change);
+
+        abstract int payloadArity();
+
+        abstract Object keyAt(int index);
+
+        abstract Object valueAt(int index);
+
+        abstract int nodeArity();
+
+        abstract Node nodeAt(int index);
+    }
+
+    /**
+     * Key/value pairs first, then the sub-nodes in reverse order.
+     */
+    private static final class BitmapNode extends Node {
+        private static final long serialVersionUID = 5519620482941025707L;
+
+        private int dataMap;
+        private int nodeMap;
+        private Object[] array;
+
+        BitmapNode(Object owner, int dataMap, int nodeMap, Object[] array) {
+            super(owner);
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.array = array;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = 2 * index(dataMap, bit);
+                return eq(key, array[i]) ? array[i + 1] : NOT_FOUND;
+            }
+            if ((nodeMap & bit) != 0) {
+                Node node = (Node) array[array.length - 1 - index(nodeMap, bit)];
+                return node.find(key, hash, shift + BITS);
+            }
+            return NOT_FOUND;
+        }
+
+        @Override
+        Node put(Object owner, Object key, int hash, Object value, int shift,
+                 Change change) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = 2 * index(dataMap, bit);
+                Object k = array[i];
+                if (eq(key, k)) {
+                    return array[i + 1] == value ? this : set(owner, i + 1, value);
+                }
+                Node node = merge(owner, k, hash(k), array[i + 1],
+                        key, hash, value, shift + BITS);
+                change.delta = 1;
+                return migrateToNode(owner, bit, node);
+            }
+            if ((nodeMap & bit) != 0) {
+                int i = array.length - 1 - index(nodeMap, bit);
+                Node node = (Node) array[i];
+                Node updated = node.put(owner, key, hash, value, shift + BITS, change);
+                return updated == node ? this : set(owner, i, updated);
+            }
+            change.delta = 1;
+            return insert(owner, bit, key, value);
+        }
+
+        @Override
+        Node remove(Object owner, Object key, int hash, int shift,
+                    Change change) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = 2 * index(dataMap, bit);
+                if (!eq(key, array[i])) {
+                    return this;
+                }
+                change.delta = -1;
+                return removeData(owner, bit);
+            }
+            if ((nodeMap & bit) != 0) {
+                int i = array.length - 1 - index(nodeMap, bit);
+                Node node = (Node) array[i];
+                Node updated = node.remove(owner, key, hash, shift + BITS, change);
+                if (change.delta == 0) {
+                    return this;
+                }
+                if (updated.isSingleEntry()) {
+                    if (shift > 0 && dataMap == 0 && Integer.bitCount(nodeMap) == 1) {
+                        /* The parent will inline the remaining entry. */
+                        return updated;
+                    }
+                    return migrateToData(owner, bit, updated.keyAt(0),
+                            updated.valueAt(0));
+                }
+                return updated == node ? this : set(owner, i, updated);
+            }
+            return this;
+        }
+
+        @Override
+        int payloadArity() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        Object keyAt(int index) {
+            return array[2 * index];
+        }
+
+        @Override
+        Object valueAt(int index) {
+            return array[2 * index + 1];
+        }
+
+        @Override
+        int nodeArity() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        Node nodeAt(int index) {
+            return (Node) array[array.length - 1 - index];
+        }
+
+        private Node set(Object owner, int i, Object o) {
+            if (isEditable(owner)) {
+                array[i] = o;
+                return this;
+            }
+            Object[] a = array.clone();
+            a[i] = o;
+            return new BitmapNode(owner, dataMap, nodeMap, a);
+        }
+
+        private Node insert(Object owner, int bit, Object key, Object value) {
+            int i = 2 * index(dataMap, bit);
+            Object[] a = new Object[array.length + 2];
+            System.arraycopy(array, 0, a, 0, i);
+            a[i] = key;
+            a[i + 1] = value;
+            System.arraycopy(array, i, a, i + 2, array.length - i);
+            return update(owner, dataMap | bit, nodeMap, a);
+        }
+
+        private Node removeData(Object owner, int bit) {
+            int i = 2 * index(dataMap, bit);
+            Object[] a = new Object[array.length - 2];
+            System.arraycopy(array, 0, a, 0, i);
+            System.arraycopy(array, i + 2, a, i, array.length - i - 2);
+            return update(owner, dataMap ^ bit, nodeMap, a);
+        }
+
+        private Node migrateToNode(Object owner, int bit, Node node) {
+            int from = 2 * index(dataMap, bit);
+            int to = array.length - 2 - index(nodeMap, bit);
+            Object[] a = new Object[array.length - 1];
+            System.arraycopy(array, 0, a, 0, from);
+            System.arraycopy(array, from + 2, a, from, to - from);
+            a[to] = node;
+            System.arraycopy(array, to + 2, a, to + 1, array.length - to - 2);
+            return update(owner, dataMap ^ bit, nodeMap | bit, a);
+        }
+
+        private Node migrateToData(Object owner, int bit, Object key,
+                                   Object value) {
+            int from = array.length - 1 - index(nodeMap, bit);
+            int to = 2 * index(dataMap, bit);
+            Object[] a = new Object[array.length + 1];
+            System.arraycopy(array, 0, a, 0, to);
+            a[to] = key;
+            a[to + 1] = value;
+            System.arraycopy(array, to, a, to + 2, from - to);
+            System.arraycopy(array, from + 1, a, from + 2, array.length - from - 1);
+            return update(owner, dataMap | bit, nodeMap ^ bit, a);
+        }
+
+        private Node update(Object owner, int dataMap, int nodeMap, Object[] a) {
+            if (isEditable(owner)) {
+                this.dataMap = dataMap;
+                this.nodeMap = nodeMap;
+                this.array = a;
+                return this;
+            }
+            return new BitmapNode(owner, dataMap, nodeMap, a);
+        }
+    }
+
+    /**
+     * Key/value pairs whose keys have the same hash code.
+     */
+    private static final class CollisionNode extends Node {
+        private static final long serialVersionUID = 8364297104715532982L;
+
+        private final int hash;
+        private Object[] array;
+
+        CollisionNode(Object owner, int hash, Object[] array) {
+            super(owner);
+            this.hash = hash;
+            this.array = array;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            int i = indexOf(key);
+            return i < 0 ? NOT_FOUND : array[i + 1];
+        }
+
+        @Override
+        Node put(Object owner, Object key, int hash, Object value, int shift,
+                 Change change) {
+            int i = indexOf(key);
+            if (i >= 0) {
+                if (array[i + 1] == value) {
+                    return this;
+                }
+                if (isEditable(owner)) {
+                    array[i + 1] = value;
+                    return this;
+                }
+                Object[] a = array.clone();
+                a[i + 1] = value;
+                return new CollisionNode(owner, hash, a);
+            }
+            Object[] a = new Object[array.length + 2];
+            System.arraycopy(array, 0, a, 0, array.length);
+            a[array.length] = key;
+            a[array.length + 1] = value;
+            change.delta = 1;
+            return update(owner, a);
+        }
+
+        @Override
+        Node remove(Object owner, Object key, int hash, int shift,
+                    Change change) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return this;
+            }
+            change.delta = -1;
+            if (array.length == 4) {
+                int j = i == 0 ? 2 : 0;
+                return new BitmapNode(owner, 1, 0,
+                        new Object[]{array[j], array[j + 1]});
+            }
+            Object[] a = new Object[array.length - 2];
+            System.arraycopy(array, 0, a, 0, i);
+            System.arraycopy(array, i + 2, a, i, array.length - i - 2);
+            return update(owner, a);
+        }
+
+        @Override
+        int payloadArity() {
+            return array.length >>> 1;
+        }
+
+        @Override
+        Object keyAt(int index) {
+            return array[2 * index];
+        }
+
+        @Override
+        Object valueAt(int index) {
+            return array[2 * index + 1];
+        }
+
+        @Override
+        int nodeArity() {
+            return 0;
+        }
+
+        @Override
+        Node nodeAt(int index) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (eq(key, array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private Node update(Object owner, Object[] a) {
+            if (isEditable(owner)) {
+                array = a;
+                return this;
+            }
+            return new CollisionNode(owner, hash, a);
+        }
+    }
+
+    /**
+     * Depth-first traversal: the pairs of a node, then its sub-nodes.
+     */
+    private static final class EntryIterator<K, V>
+            implements Iterator<Entry<K, V>> {
+        private final Node[] nodes = new Node[(MAX_SHIFT / BITS) + 2];
+        private final int[] cursors = new int[nodes.length];
+        private int depth;
+        private Node current;
+        private int next;
+
+        EntryIterator(Node root) {
+            nodes[0] = root;
+            current = root;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next >= current.payloadArity()) {
+                if (depth < 0) {
+                    return false;
+                }
+                Node node = nodes[depth];
+                if (cursors[depth] < node.nodeArity()) {
+                    current = node.nodeAt(cursors[depth]++);
+                    nodes[++depth] = current;
+                    cursors[depth] = 0;
+                    next = 0;
+                } else {
+                    nodes[depth--] = null;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int i = next++;
+            return new SimpleImmutableEntry<K, V>((K) current.keyAt(i),
+                    (V) current.valueAt(i));
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.ryan.collection;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Persistent {@link java.util.Set}: an immutable {@code Set} whose
+ * "modifications" ({@link #with(Object)}, {@link #without(Object)}) return a
+ * new instance sharing most of its structure with the original one, in
+ * {@code O(log32 n)} time and space. Batched updates are best done through
+ * a {@link Transient}. The iteration order is unspecified. Accepts
+ * {@code null} values.
+ *
+ * @param <E> the type of the {@code Set}'s elements.
+ * @author Ryan Tao
+ * @see PersistentMap
+ */
+public final class PersistentSet<E> extends AbstractSet<E>
+        implements Serializable {
+    private static final long serialVersionUID = 4460914258130761953L;
+
+    private static final PersistentSet<Object> EMPTY =
+            new PersistentSet<Object>(PersistentMap.<Object, Boolean>empty());
+
+    /**
+     * Mutable view of a {@code PersistentSet}, for batched updates. The
+     * original {@code PersistentSet} is never affected. Not thread-safe.
+     *
+     * @param <E> the type of the {@code Set}'s elements.
+     */
+    public static final class Transient<E> {
+        private final PersistentMap.Transient<E, Boolean> map;
+
+        private Transient(PersistentMap.Transient<E, Boolean> map) {
+            this.map = map;
+        }
+
+        /**
+         * Adds the given element.
+         *
+         * @param e the element to add.
+         * @return this object.
+         * @throws IllegalStateException if {@link #persistent()} has
+         *                               already been called.
+         */
+        public Transient<E> add(E e) {
+            map.put(e, Boolean.TRUE);
+            return this;
+        }
+
+        /**
+         * Adds all the elements contained in the given {@code Iterable}.
+         *
+         * @param values the elements to add.
+         * @return this object.
+         * @throws NullPointerException  if {@code values} is {@code null}.
+         * @throws IllegalStateException if {@link #persistent()} has
+         *                               already been called.
+         */
+        public Transient<E> addAll(Iterable<? extends E> values) {
+            for (E e : values) {
+                map.put(e, Boolean.TRUE);
+            }
+            return this;
+        }
+
+        /**
+         * Removes the given element, if present.
+         *
+         * @param o the element to remove.
+         * @return this object.
+         * @throws IllegalStateException if {@link #persistent()} has
+         *                               already been called.
+         */
+        public Transient<E> remove(Object o) {
+            map.remove(o);
+            return this;
+        }
+
+        /**
+         * Returns whether the given element is present.
+         *
+         * @param o the element.
+         * @return whether {@code o} is present.
+         * @throws IllegalStateException if {@link #persistent()} has
+         *                               already been called.
+         */
+        public boolean contains(Object o) {
+            return map.get(o) != null;
+        }
+
+        /**
+         * Returns the number of elements.
+         *
+         * @return the number of elements.
+         * @throws IllegalStateException if {@link #persistent()} has
+         *                               already been called.
+         */
+        public int size() {
+            return map.size();
+        }
+
+        /**
+         * Returns a {@code PersistentSet} containing the current elements.
+         * This {@code Transient} can't be used anymore afterwards.
+         *
+         * @return the created {@code PersistentSet}.
+         * @throws IllegalStateException if {@link #persistent()} has
+         *                               already been called.
+         */
+        public PersistentSet<E> persistent() {
+            PersistentMap<E, Boolean> m = map.persistent();
+            return m.isEmpty() ? PersistentSet.<E>empty() : new PersistentSet<E>(m);
+        }
+    }
+
+    /**
+     * Returns the empty {@code PersistentSet}.
+     *
+     * @param <E> the type of the {@code Set}'s elements.
+     * @return the empty {@code PersistentSet}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentSet<E> empty() {
+        return (PersistentSet<E>) EMPTY;
+    }
+
+    /**
+     * Creates a new {@code PersistentSet} from the given {@code Iterable}.
+     *
+     * @param <E>    the type of the {@code Set}'s elements.
+     * @param values the source {@code Iterable}.
+     * @return the created {@code PersistentSet}.
+     * @throws NullPointerException if {@code values} is {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentSet<E> copyOf(Iterable<? extends E> values) {
+        if (values instanceof PersistentSet) {
+            return (PersistentSet<E>) values;
+        }
+        return PersistentSet.<E>empty().asTransient().addAll(values)
+                .persistent();
+    }
+
+    /**
+     * Creates a new {@code PersistentSet} containing the given elements.
+     *
+     * @param <E>    the type of the {@code Set}'s elements.
+     * @param values the {@code Set}'s elements.
+     * @return the created {@code PersistentSet}.
+     * @throws NullPointerException if {@code values} is {@code null}.
+     */
+    @SafeVarargs
+    public static <E> PersistentSet<E> of(E... values) {
+        Transient<E> t = PersistentSet.<E>empty().asTransient();
+        for (E e : values) {
+            t.add(e);
+        }
+        return t.persistent();
+    }
+
+    private final PersistentMap<E, Boolean> map;
+
+    private PersistentSet(PersistentMap<E, Boolean> map) {
+        this.map = map;
+    }
+
+    /**
+     * Returns a {@code PersistentSet} containing the given element in
+     * addition to the elements of this one. Returns this
+     * {@code PersistentSet} if it already contains {@code e}.
+     *
+     * @param e the element to add.
+     * @return the updated {@code PersistentSet}.
+     */
+    public PersistentSet<E> with(E e) {
+        PersistentMap<E, Boolean> m = map.with(e, Boolean.TRUE);
+        return m == map ? this : new PersistentSet<E>(m);
+    }
+
+    /**
+     * Returns a {@code PersistentSet} containing the elements of this one,
+     * except the given one. Returns this {@code PersistentSet} if it
+     * doesn't contain {@code o}.
+     *
+     * @param o the element to remove.
+     * @return the updated {@code PersistentSet}.
+     */
+    public PersistentSet<E> without(Object o) {
+        PersistentMap<E, Boolean> m = map.without(o);
+        if (m == map) {
+            return this;
+        }
+        return m.isEmpty() ? PersistentSet.<E>empty() : new PersistentSet<E>(m);
+    }
+
+    /**
+     * Returns a {@code Transient} initially containing the elements of this
+     * {@code PersistentSet}. This operation runs in constant time.
+     *
+     * @return a new {@code Transient}.
+     */
+    public Transient<E> asTransient() {
+        return new Transient<E>(map.asTransient());
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return map.containsKey(o);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return map.keySet().iterator();
+    }
+
+    @Override
+    public boolean add(E e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,518 @@
+package com.ryan.collection;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Persistent random access {@link java.util.List}: an immutable {@code List}
+ * whose "modifications" ({@link #plus(Object)}, {@link #with(int, Object)},
+ * {@link #withoutLast()}) return a new instance sharing most of its
+ * structure with the original one, in {@code O(log32 n)} time and space.
+ * Batched updates are best done through a {@link Transient}, which updates
+ * its nodes in place. Accepts {@code null} values.
+ * <p>
+ * This implementation is a bit-partitioned vector trie of 32-way nodes,
+ * whose last (incomplete) leaf is kept aside as a "tail", so that appending
+ * to the vector usually only copies that tail.
+ *
+ * @param <E> the type of the {@code List}'s elements.
+ * @author Ryan Tao
+ * @see PersistentMap
+ */
+public final class PersistentVector<E> extends AbstractList<E>
+        implements RandomAccess, Serializable {
+    private static final long serialVersionUID = 2147760397210435062L;
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Node EMPTY_NODE = new Node(null, new Object[WIDTH]);
+
+    private static final PersistentVector<Object> EMPTY =
+            new PersistentVector<Object>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    /**
+     * Mutable view of a {@code PersistentVector}, for batched updates. Nodes
+     * created by a {@code Transient} are updated in place until
+     * {@link #persistent()} is called; the original
+     * {@code PersistentVector} is never affected. Not thread-safe.
+     *
+     * @param <E> the type of the {@code List}'s elements.
+     */
+    public static final class Transient<E> {
+        private Object owner = new Object();
+        private int size;
+        private int shift;
+        private Node root;
+        private Object[] tail;
+
+        private Transient(PersistentVector<E> vector) {
+            this.size = vector.size;
+            this.shift = vector.shift;
+            this.root = vector.root;
+            this.tail = Arrays.copyOf(vector.tail, WIDTH);
+        }
+
+        /**
+         * Appends the given element.
+         *
+         * @param e the element to append.
+         * @return this object.
+         * @throws IllegalStateException if {@link #persistent()} has
+         *                               already been called.
+         */
+        public Transient<E> add(E e) {
+            Object owner = owner();
+            if (size - tailOffset(size) < WIDTH) {
+                tail[size & MASK] = e;
+                size++;
+                return this;
+            }
+            Node node = new Node(owner, tail);
+            tail = new Object[WIDTH];
+            tail[0] = e;
+            if ((size >>> BITS) > (1 << shift)) {
+                Node r = new Node(owner, new Object[WIDTH]);
+                r.array[0] = root;
+                r.array[1] = newPath(owner, shift, node);
+                root = r;
+                shift += BITS;
+            } else {
+                root = pushTail(owner, size, shift, root, node);
+            }
+            size++;
+            return this;
+        }
+
+        /**
+         * Appends all the elements contained in the given {@code Iterable}.
+         *
+         * @param values the elements to append.
+         * @return this object.
+         * @throws NullPointerException  if {@code values} is {@code null}.
+         * @throws IllegalStateException if {@link #persistent()} has
+         *                               already been called.
+         */
+        public Transient<E> addAll(Iterable<? extends E> values) {
+            for (E e : values) {
+                add(e);
+            }
+            return this;
+        }
+
+        /**
+         * Replaces the element at the given position, or appends it if
+         * {@code index} is the current size.
+         *
+         * @param index the position of the element to replace.
+         * @param e     the new element.
+         * @return this object.
+         * @throws IndexOutOfBoundsException if {@code index} is out of range.
+         * @throws IllegalStateException     if {@link #persistent()} has
+         *                                   already been called.
+         */
+        public Transient<E> set(int index, E e) {
+            Object owner = owner();
+            if (index == size) {
+                return add(e);
+            }
+            checkIndex(index, size);
+            if (index >= tailOffset(size)) {
+                tail[index & MASK] = e;
+            } else {
+                root = replace(owner, shift, root, index, e);
+            }
+            return this;
+        }
+
+        /**
+         * Removes the last element.
+         *
+         * @return this object.
+         * @throws NoSuchElementException if there's no element to remove.
+         * @throws IllegalStateException  if {@link #persistent()} has
+         *                                already been called.
+         */
+        public Transient<E> removeLast() {
+            Object owner = owner();
+            if (size == 0) {
+                throw new NoSuchElementException();
+            }
+            if (((size - 1) & MASK) > 0 || size == 1) {
+                tail[--size & MASK] = null;
+                return this;
+            }
+            tail = Arrays.copyOf(leaf(root, shift, size - 2), WIDTH);
+            Node r = popTail(owner, size, shift, root);
+            if (r == null) {
+                r = EMPTY_NODE;
+            }
+            if (shift > BITS && r.array[1] == null) {
+                r = (Node) r.array[0];
+                shift -= BITS;
+            }
+            root = r;
+            size--;
+            return this;
+        }
+
+        /**
+         * Returns the element at the given position.
+         *
+         * @param index the position of the element.
+         * @return the element at {@code index}.
+         * @throws IndexOutOfBoundsException if {@code index} is out of range.
+         * @throws IllegalStateException     if {@link #persistent()} has
+         *                                   already been called.
+         */
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            owner();
+            checkIndex(index, size);
+            Object[] array = index >= tailOffset(size) ? tail
+                    : leaf(root, shift, index);
+            return (E) array[index & MASK];
+        }
+
+        /**
+         * Returns the number of elements.
+         *
+         * @return the number of elements.
+         * @throws IllegalStateException if {@link #persistent()} has
+         *                               already been called.
+         */
+        public int size() {
+            owner();
+            return size;
+        }
+
+        /**
+         * Returns a {@code PersistentVector} containing the current
+         * elements. This {@code Transient} can't be used anymore afterwards.
+         *
+         * @return the created {@code PersistentVector}.
+         * @throws IllegalStateException if {@link #persistent()} has
+         *                               already been called.
+         */
+        public PersistentVector<E> persistent() {
+            owner();
+            owner = null;
+            if (size == 0) {
+                return empty();
+            }
+            return new PersistentVector<E>(size, shift, root,
+                    Arrays.copyOf(tail, size - tailOffset(size)));
+        }
+
+        private Object owner() {
+            if (owner == null) {
+                throw new IllegalStateException();
+            }
+            return owner;
+        }
+    }
+
+    /**
+     * Returns the empty {@code PersistentVector}.
+     *
+     * @param <E> the type of the {@code List}'s elements.
+     * @return the empty {@code PersistentVector}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    /**
+     * Creates a new {@code PersistentVector} from the given
+     * {@code Iterable}.
+     *
+     * @param <E>    the type of the {@code List}'s elements.
+     * @param values the source {@code Iterable}.
+     * @return the created {@code PersistentVector}.
+     * @throws NullPointerException if {@code values} is {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> copyOf(Iterable<? extends E> values) {
+        if (values instanceof PersistentVector) {
+            return (PersistentVector<E>) values;
+        }
+        return PersistentVector.<E>empty().asTransient().addAll(values)
+                .persistent();
+    }
+
+    /**
+     * Creates a new {@code PersistentVector} containing the given elements.
+     *
+     * @param <E>    the type of the {@code List}'s elements.
+     * @param values the {@code List}'s elements.
+     * @return the created {@code PersistentVector}.
+     * @throws NullPointerException if {@code values} is {@code null}.
+     */
+    @SafeVarargs
+    public static <E> PersistentVector<E> of(E... values) {
+        Transient<E> t = PersistentVector.<E>empty().asTransient();
+        for (E e : values) {
+            t.add(e);
+        }
+        return t.persistent();
+    }
+
+    private final int size;
+    private final int shift;
+    private final Node root;
+    private final Object[] tail;
+
+    private PersistentVector(int size, int shift, Node root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Returns a {@code PersistentVector} containing the elements of this
+     * one followed by the given element.
+     *
+     * @param e the element to append.
+     * @return the updated {@code PersistentVector}.
+     */
+    public PersistentVector<E> plus(E e) {
+        if (size - tailOffset(size) < WIDTH) {
+            Object[] t = Arrays.copyOf(tail, tail.length + 1);
+            t[tail.length] = e;
+            return new PersistentVector<E>(size + 1, shift, root, t);
+        }
+        Node node = new Node(null, tail);
+        if ((size >>> BITS) > (1 << shift)) {
+            Node r = new Node(null, new Object[WIDTH]);
+            r.array[0] = root;
+            r.array[1] = newPath(null, shift, node);
+            return new PersistentVector<E>(size + 1, shift + BITS, r,
+                    new Object[]{e});
+        }
+        return new PersistentVector<E>(size + 1, shift,
+                pushTail(null, size, shift, root, node), new Object[]{e});
+    }
+
+    /**
+     * Returns a {@code PersistentVector} in which the element at the given
+     * position is replaced with the given one. If {@code index} is equal
+     * to this vector's size, this is the same as {@link #plus(Object)}.
+     *
+     * @param index the position of the element to replace.
+     * @param e     the new element.
+     * @return the updated {@code PersistentVector}.
+     * @throws IndexOutOfBoundsException if {@code index} is out of range.
+     */
+    public PersistentVector<E> with(int index, E e) {
+        if (index == size) {
+            return plus(e);
+        }
+        checkIndex(index, size);
+        if (index >= tailOffset(size)) {
+            Object[] t = tail.clone();
+            t[index & MASK] = e;
+            return new PersistentVector<E>(size, shift, root, t);
+        }
+        return new PersistentVector<E>(size, shift,
+                replace(null, shift, root, index, e), tail);
+    }
+
+    /**
+     * Returns a {@code PersistentVector} containing the elements of this
+     * one, except the last one.
+     *
+     * @return the updated {@code PersistentVector}.
+     * @throws NoSuchElementException if this vector is empty.
+     */
+    public PersistentVector<E> withoutLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        if (size == 1) {
+            return empty();
+        }
+        if (size - tailOffset(size) > 1) {
+            return new PersistentVector<E>(size - 1, shift, root,
+                    Arrays.copyOf(tail, tail.length - 1));
+        }
+        Object[] t = leaf(root, shift, size - 2);
+        Node r = popTail(null, size, shift, root);
+        int s = shift;
+        if (r == null) {
+            r = EMPTY_NODE;
+        }
+        if (s > BITS && r.array[1] == null) {
+            r = (Node) r.array[0];
+            s -= BITS;
+        }
+        return new PersistentVector<E>(size - 1, s, r, t);
+    }
+
+    /**
+     * Returns a {@code Transient} initially containing the elements of this
+     * {@code PersistentVector}. This operation runs in constant time.
+     *
+     * @return a new {@code Transient}.
+     */
+    public Transient<E> asTransient() {
+        return new Transient<E>(this);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index, size);
+        return (E) arrayFor(index)[index & MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int next;
+            private Object[] array;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                if ((next & MASK) == 0) {
+                    array = arrayFor(next);
+                }
+                return (E) array[next++ & MASK];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private Object[] arrayFor(int index) {
+        return index >= tailOffset(size) ? tail : leaf(root, shift, index);
+    }
+
+    private static int tailOffset(int size) {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private static Object[] leaf(Node root, int shift, int index) {
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.array[(index >>> level) & MASK];
+        }
+        return node.array;
+    }
+
+    private static Node newPath(Object owner, int level, Node node) {
+        if (level == 0) {
+            return node;
+        }
+        Node path = new Node(owner, new Object[WIDTH]);
+        path.array[0] = newPath(owner, level - BITS, node);
+        return path;
+    }
+
+    /**
+     * Inserts the full tail of a vector of the given size in the tree.
+     */
+    private static Node pushTail(Object owner, int size, int level,
+                                 Node parent, Node tail) {
+        int i = ((size - 1) >>> level) & MASK;
+        Node node = parent.editable(owner);
+        if (level == BITS) {
+            node.array[i] = tail;
+        } else {
+            Node child = (Node) parent.array[i];
+            node.array[i] = child == null ? newPath(owner, level - BITS, tail)
+                    : pushTail(owner, size, level - BITS, child, tail);
+        }
+        return node;
+    }
+
+    /**
+     * Removes the last leaf of the tree of a vector of the given size.
+     * Returns {@code null} if the node becomes empty.
+     */
+    private static Node popTail(Object owner, int size, int level, Node parent) {
+        int i = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Node child = popTail(owner, size, level - BITS,
+                    (Node) parent.array[i]);
+            if (child == null && i == 0) {
+                return null;
+            }
+            Node node = parent.editable(owner);
+            node.array[i] = child;
+            return node;
+        }
+        if (i == 0) {
+            return null;
+        }
+        Node node = parent.editable(owner);
+        node.array[i] = null;
+        return node;
+    }
+
+    private static Node replace(Object owner, int level, Node parent, int index,
+                            Object e) {
+        Node node = parent.editable(owner);
+        int i = (index >>> level) & MASK;
+        if (level == 0) {
+            node.array[i] = e;
+        } else {
+            node.array[i] = replace(owner, level - BITS, (Node) parent.array[i],
+                    index, e);
+        }
+        return node;
+    }
+
+    private static final class Node implements Serializable {
+        private static final long serialVersionUID = 3805126197423154896L;
+
+        private transient Object owner;
+        private final Object[] array;
+
+        Node(Object owner, Object[] array) {
+            this.owner = owner;
+            this.array = array;
+        }
+
+        /**
+         * Returns this node if it may be updated in place by the given
+         * owner, or a copy of it otherwise.
+         */
+        Node editable(Object owner) {
+            if (owner != null && this.owner == owner) {
+                return this;
+            }
+            return new Node(owner, array.clone());
+        }
+    }
+}
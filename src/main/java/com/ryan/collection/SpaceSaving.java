@@ -0,0 +1,293 @@
+package com.ryan.collection;
+
+import com.ryan.util.Parameters;
+import com.ryan.util.XObjects;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate, bounded-memory tracker of the most frequent elements of a
+ * stream (heavy hitters), based on the Space-Saving algorithm: at most
+ * {@code capacity} elements are monitored; when a new element comes and all
+ * the slots are taken, it replaces the least frequent monitored element and
+ * inherits its count. Every element occurring more than
+ * {@code size() / capacity} times is guaranteed to be monitored, and the
+ * estimated count of a monitored element exceeds its actual count by at most
+ * its {@linkplain #error(Object) error}. Updates run in {@code O(log capacity)}
+ * time. Trackers can be merged (mergeable summaries), so that per-thread or
+ * per-node trackers can be combined. This implementation accepts {@code null}
+ * elements. Instances of this class are not thread-safe.
+ *
+ * @param <E> the type of the tracked elements.
+ * @author Ryan Tao
+ * @see CountMinSketch
+ */
+public final class SpaceSaving<E> implements Serializable {
+    private static final long serialVersionUID = 3398120975417240356L;
+
+    private final int capacity;
+    private final Map<E, Counter<E>> index;
+    private final Counter<E>[] heap;
+    private int monitored;
+    private long size;
+
+    /**
+     * Creates a new empty {@code SpaceSaving} tracker.
+     *
+     * @param capacity the maximum number of monitored elements.
+     * @throws IllegalArgumentException if {@code capacity} is not positive.
+     */
+    @SuppressWarnings("unchecked")
+    public SpaceSaving(int capacity) {
+        Parameters.checkCondition(capacity > 0);
+        this.capacity = capacity;
+        this.index = new HashMap<E, Counter<E>>(capacity * 4 / 3 + 1);
+        this.heap = (Counter<E>[]) new Counter<?>[capacity];
+    }
+
+    /**
+     * Counts one occurrence of the given element.
+     *
+     * @param e the element to count.
+     */
+    public void add(E e) {
+        add(e, 1L);
+    }
+
+    /**
+     * Counts the given number of occurrences of the given element.
+     *
+     * @param e the element to count.
+     * @param n the number of occurrences.
+     * @throws IllegalArgumentException if {@code n < 0}.
+     */
+    public void add(E e, long n) {
+        Parameters.checkCondition(n >= 0);
+        if (n == 0) {
+            return;
+        }
+        Counter<E> counter = index.get(e);
+        if (counter != null) {
+            counter.count += n;
+            siftDown(counter.pos);
+        } else if (monitored < capacity) {
+            counter = new Counter<E>(e, n, 0L);
+            index.put(e, counter);
+            heap[monitored] = counter;
+            counter.pos = monitored++;
+            siftUp(counter.pos);
+        } else {
+            counter = heap[0];
+            index.remove(counter.element);
+            counter.element = e;
+            counter.error = counter.count;
+            counter.count += n;
+            index.put(e, counter);
+            siftDown(0);
+        }
+        size += n;
+    }
+
+    /**
+     * Returns an upper bound of the count of the given element. For
+     * elements that aren't monitored, this is the smallest monitored count
+     * (or {@code 0} if the tracker isn't full).
+     *
+     * @param e the element.
+     * @return the estimated number of occurrences of {@code e}.
+     */
+    public long count(E e) {
+        Counter<E> counter = index.get(e);
+        if (counter != null) {
+            return counter.count;
+        }
+        return minCount();
+    }
+
+    /**
+     * Returns the maximum overestimation of the count of the given element,
+     * that is, {@code count(e) - error(e)} is a lower bound of its actual
+     * count.
+     *
+     * @param e the element.
+     * @return the error bound of {@code e}'s estimated count.
+     */
+    public long error(E e) {
+        Counter<E> counter = index.get(e);
+        return counter != null ? counter.error : minCount();
+    }
+
+    /**
+     * Returns the total number of occurrences counted by this tracker.
+     *
+     * @return the total number of occurrences.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of monitored elements.
+     *
+     * @return this tracker's capacity.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the (at most {@code n}) most frequent monitored elements with
+     * their estimated count, most frequent first.
+     *
+     * @param n the maximum number of elements to return.
+     * @return the top {@code n} elements.
+     * @throws IllegalArgumentException if {@code n < 0}.
+     */
+    public List<Map.Entry<E, Long>> top(int n) {
+        Parameters.checkCondition(n >= 0);
+        List<Counter<E>> counters = sortedCounters(Arrays.asList(heap).subList(0, monitored));
+        List<Map.Entry<E, Long>> top = new ArrayList<Map.Entry<E, Long>>();
+        for (Counter<E> counter : counters.subList(0, Math.min(n, counters.size()))) {
+            top.add(new AbstractMap.SimpleImmutableEntry<E, Long>(
+                    counter.element, counter.count));
+        }
+        return top;
+    }
+
+    /**
+     * Merges the given tracker into this one. The merged tracker monitors
+     * the {@code capacity} most frequent elements of the union of both
+     * trackers, with the same guarantees as a single tracker having counted
+     * both streams.
+     *
+     * @param tracker the tracker to merge into this one.
+     * @throws NullPointerException if {@code tracker} is {@code null}.
+     */
+    public void merge(SpaceSaving<? extends E> tracker) {
+        long min1 = minCount();
+        long min2 = tracker.minCount();
+        Map<E, Counter<E>> merged = new HashMap<E, Counter<E>>(index.size()
+                + tracker.index.size());
+        for (int i = 0; i < monitored; i++) {
+            Counter<E> c = heap[i];
+            merged.put(c.element, new Counter<E>(c.element, c.count + min2,
+                    c.error + min2));
+        }
+        for (int i = 0; i < tracker.monitored; i++) {
+            Counter<? extends E> c = tracker.heap[i];
+            Counter<E> m = merged.get(c.element);
+            if (m == null) {
+                merged.put(c.element, new Counter<E>(c.element, c.count + min1,
+                        c.error + min1));
+            } else {
+                m.count += c.count - min2;
+                m.error += c.error - min2;
+            }
+        }
+        List<Counter<E>> counters = sortedCounters(merged.values());
+        index.clear();
+        Arrays.fill(heap, null);
+        monitored = 0;
+        for (Counter<E> counter : counters.subList(0, Math.min(capacity, counters.size()))) {
+            index.put(counter.element, counter);
+            heap[monitored] = counter;
+            counter.pos = monitored++;
+            siftUp(counter.pos);
+        }
+        size += tracker.size;
+    }
+
+    /**
+     * Removes all the monitored elements.
+     */
+    public void clear() {
+        index.clear();
+        Arrays.fill(heap, null);
+        monitored = 0;
+        size = 0L;
+    }
+
+    @Override
+    public String toString() {
+        return XObjects.toStringBuilder("SpaceSaving")
+                .append("capacity", capacity)
+                .append("size", size)
+                .append("top", top(10))
+                .toString();
+    }
+
+    private long minCount() {
+        return monitored < capacity ? 0L : heap[0].count;
+    }
+
+    private static <E> List<Counter<E>> sortedCounters(Collection<Counter<E>> counters) {
+        List<Counter<E>> sorted = new ArrayList<Counter<E>>(counters);
+        Collections.sort(sorted, new Comparator<Counter<E>>() {
+            @Override
+            public int compare(Counter<E> c1, Counter<E> c2) {
+                return c1.count < c2.count ? 1 : c1.count > c2.count ? -1 : 0;
+            }
+        });
+        return sorted;
+    }
+
+    private void siftUp(int i) {
+        Counter<E> counter = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(counter, i);
+    }
+
+    private void siftDown(int i) {
+        Counter<E> counter = heap[i];
+        int half = monitored >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < monitored && heap[right].count < heap[child].count) {
+                child = right;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], i);
+            i = child;
+        }
+        place(counter, i);
+    }
+
+    private void place(Counter<E> counter, int i) {
+        heap[i] = counter;
+        counter.pos = i;
+    }
+
+    private static final class Counter<E> implements Serializable {
+        private static final long serialVersionUID = 7851409227763130658L;
+
+        E element;
+        long count;
+        long error;
+        int pos;
+
+        Counter(E element, long count, long error) {
+            this.element = element;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
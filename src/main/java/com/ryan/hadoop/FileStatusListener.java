@@ -0,0 +1,23 @@
+package com.ryan.hadoop;
+
+import org.apache.hadoop.fs.FileStatus;
+
+import java.io.IOException;
+
+/**
+ * Receives the entries found by {@link HdfsClient#list}. Directories are
+ * listed concurrently, so this listener is called from several threads at
+ * once and must therefore be thread-safe; entries come in no particular
+ * order.
+ *
+ * @author Ryan Tao
+ */
+public interface FileStatusListener {
+    /**
+     * Called for each file or directory of the listed tree.
+     *
+     * @param status the entry's status.
+     * @throws IOException to abort the listing.
+     */
+    void onFileStatus(FileStatus status) throws IOException;
+}
@@ -0,0 +1,678 @@
+package com.ryan.hadoop;
+
+import com.ryan.time.LatencyHistogram;
+import com.ryan.util.Parameters;
+import com.ryan.util.Throwables;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.HTableFactory;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.HTableInterfaceFactory;
+import org.apache.hadoop.hbase.client.HTablePool;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Row;
+import org.apache.hadoop.hbase.util.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Instance-based HBase client. All the tables are accessed through a pool of
+ * table handles sharing the same connection, instead of building a new
+ * {@code HTable} on every call.
+ * <p>
+ * Puts and deletes go through an asynchronous write buffer: they are
+ * coalesced and sent as batches either when the buffered mutations reach the
+ * configured size, or periodically (every flush interval). The relative order
+ * of puts and deletes is preserved. Writers are throttled (they flush
+ * synchronously) when the buffer reaches twice its configured size. An error
+ * that occurs during a background flush is rethrown by the next call to
+ * {@link #put}, {@link #delete} or {@link #flush}. The mutations that a
+ * flush failed to send stay buffered, ahead of the newer ones, and are sent
+ * again by the next flush (a failed batch may thus be partially applied
+ * twice).
+ * <p>
+ * Scans are either consumed lazily ({@link #scanner(String, ScanOptions)}) or
+ * pushed to a {@link RowListener} ({@link #scan(String, ScanOptions,
+ * RowListener)}), in which case the key range can be split along region
+ * boundaries and the regions scanned concurrently.
+ * <p>
+ * Per-operation latency histograms are available through
+ * {@link #getLatency(Operation)}. Instances of this class are thread-safe.
+ *
+ * @author Ryan Tao
+ */
+public class HBaseClient implements Closeable {
+    private static Logger logger = LoggerFactory.getLogger(HBaseClient.class);
+
+    private static final int DEFAULT_POOL_SIZE = 16;
+    private static final long DEFAULT_WRITE_BUFFER_SIZE = 2L << 20;
+    private static final long DEFAULT_FLUSH_INTERVAL = 1000L;
+    private static final long DELETE_SIZE = 64L;
+
+    /**
+     * The operations for which latencies are recorded.
+     */
+    public enum Operation {
+        GET, MULTI_GET, FLUSH, SCAN
+    }
+
+    private final Configuration conf;
+    private final HTablePool pool;
+    private final long writeBufferSize;
+    private final Map<Operation, LatencyHistogram> latencies;
+    private final ScheduledExecutorService flusher;
+    private final ExecutorService scanners;
+    private final Lock flushLock;
+    private final Object bufferLock;
+    private Map<String, List<Row>> buffer;
+    private long bufferedSize;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new {@code HBaseClient} with a pool of 16 handles per table,
+     * a 2 MB write buffer and a 1 second flush interval.
+     *
+     * @param conf the HBase configuration.
+     * @throws NullPointerException if {@code conf} is {@code null}.
+     */
+    public HBaseClient(Configuration conf) {
+        this(conf, DEFAULT_POOL_SIZE, DEFAULT_WRITE_BUFFER_SIZE,
+                DEFAULT_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new {@code HBaseClient}.
+     *
+     * @param conf            the HBase configuration.
+     * @param poolSize        the maximum number of pooled handles per table.
+     * @param writeBufferSize the write buffer size, in bytes.
+     * @param flushInterval   the maximum time mutations stay buffered.
+     * @param unit            the time unit of {@code flushInterval}.
+     * @throws NullPointerException     if {@code conf} or {@code unit} is
+     *                                  {@code null}.
+     * @throws IllegalArgumentException if one of the numeric arguments is
+     *                                  not positive.
+     */
+    public HBaseClient(Configuration conf, int poolSize, long writeBufferSize,
+                       long flushInterval, TimeUnit unit) {
+        this(conf, new HTableFactory(), poolSize, writeBufferSize,
+                flushInterval, unit);
+    }
+
+    /**
+     * Creates a new {@code HBaseClient} obtaining its table handles from the
+     * given factory (this allows to run against an in-process stand-in
+     * instead of a real cluster).
+     *
+     * @param conf            the HBase configuration.
+     * @param factory         the factory of table handles.
+     * @param poolSize        the maximum number of pooled handles per table.
+     * @param writeBufferSize the write buffer size, in bytes.
+     * @param flushInterval   the maximum time mutations stay buffered.
+     * @param unit            the time unit of {@code flushInterval}.
+     * @throws NullPointerException     if {@code conf}, {@code factory} or
+     *                                  {@code unit} is {@code null}.
+     * @throws IllegalArgumentException if one of the numeric arguments is
+     *                                  not positive.
+     */
+    public HBaseClient(Configuration conf, HTableInterfaceFactory factory,
+                       int poolSize, long writeBufferSize, long flushInterval, TimeUnit unit) {
+        Parameters.checkNotNull(factory);
+        Parameters.checkCondition(poolSize > 0 && writeBufferSize > 0);
+        Parameters.checkCondition(flushInterval > 0);
+        this.conf = HBaseConfiguration.create(conf);
+        this.pool = new HTablePool(this.conf, poolSize, factory);
+        this.writeBufferSize = writeBufferSize;
+        this.latencies = new EnumMap<Operation, LatencyHistogram>(Operation.class);
+        for (Operation op : Operation.values()) {
+            latencies.put(op, new LatencyHistogram());
+        }
+        this.flushLock = new ReentrantLock();
+        this.bufferLock = new Object();
+        this.buffer = new LinkedHashMap<String, List<Row>>();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "hbase-client-flusher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.scanners = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "hbase-client-scanner-"
+                        + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        flusher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                backgroundFlush();
+            }
+        }, flushInterval, flushInterval, unit);
+    }
+
+    /**
+     * Returns the configuration used by this client.
+     *
+     * @return the configuration used by this client.
+     */
+    public Configuration getConfiguration() {
+        return conf;
+    }
+
+    /**
+     * Returns a pooled handle on the given table. The returned handle must
+     * be closed once done, which gives it back to the pool.
+     *
+     * @param tableName the table name.
+     * @return a handle on the given table.
+     * @throws NullPointerException  if {@code tableName} is {@code null}.
+     * @throws IllegalStateException if this client is closed.
+     */
+    public HTableInterface getTable(String tableName) {
+        checkOpen();
+        return pool.getTable(Parameters.checkNotNull(tableName));
+    }
+
+    /**
+     * Reads a row.
+     *
+     * @param tableName the table name.
+     * @param get       the row to read.
+     * @return the row's content.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     * @throws IOException          if an I/O error occurs.
+     */
+    public Result get(String tableName, Get get) throws IOException {
+        Parameters.checkNotNull(get);
+        long start = System.nanoTime();
+        HTableInterface table = getTable(tableName);
+        try {
+            return table.get(get);
+        } finally {
+            table.close();
+            latencies.get(Operation.GET).recordSince(start);
+        }
+    }
+
+    /**
+     * Reads many rows in a single call (HBase groups the requests per
+     * region server).
+     *
+     * @param tableName the table name.
+     * @param gets      the rows to read.
+     * @return the rows' content, in the same order as {@code gets}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     * @throws IOException          if an I/O error occurs.
+     */
+    public Result[] get(String tableName, List<Get> gets) throws IOException {
+        Parameters.checkNotNull(gets);
+        long start = System.nanoTime();
+        HTableInterface table = getTable(tableName);
+        try {
+            return table.get(gets);
+        } finally {
+            table.close();
+            latencies.get(Operation.MULTI_GET).recordSince(start);
+        }
+    }
+
+    /**
+     * Reads the given rows (all their columns) in a single call.
+     *
+     * @param tableName the table name.
+     * @param rowKeys   the keys of the rows to read.
+     * @return the rows' content, in the same order as {@code rowKeys}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     * @throws IOException          if an I/O error occurs.
+     */
+    public Result[] multiGet(String tableName, List<byte[]> rowKeys)
+            throws IOException {
+        List<Get> gets = new ArrayList<Get>(rowKeys.size());
+        for (byte[] rowKey : rowKeys) {
+            gets.add(new Get(rowKey));
+        }
+        return get(tableName, gets);
+    }
+
+    /**
+     * Opens a lazily consumed scanner over the given table. The returned
+     * scanner must be closed once done.
+     *
+     * @param tableName the table name.
+     * @param options   the scan options (the parallelism is ignored).
+     * @return the scanner.
+     * @throws NullPointerException  if one of the arguments is {@code null}.
+     * @throws IOException           if the scanner can't be opened.
+     * @throws IllegalStateException if this client is closed.
+     */
+    public TableScanner scanner(String tableName, ScanOptions options)
+            throws IOException {
+        Parameters.checkNotNull(options);
+        final long start = System.nanoTime();
+        HTableInterface table = getTable(tableName);
+        ResultScanner scanner;
+        try {
+            scanner = table.getScanner(options.toScan(options.getStartRow(),
+                    options.getStopRow()));
+        } catch (IOException ex) {
+            table.close();
+            throw ex;
+        }
+        return new TableScanner(table, scanner, new Runnable() {
+            @Override
+            public void run() {
+                latencies.get(Operation.SCAN).recordSince(start);
+            }
+        });
+    }
+
+    /**
+     * Scans the given table, passing every row to the given listener. If
+     * the options' parallelism is greater than 1, the key range is split
+     * along region boundaries and up to {@code parallelism} regions are
+     * scanned concurrently (the listener is then called from several
+     * threads). The first error, either from HBase or from the listener,
+     * aborts the whole scan.
+     *
+     * @param tableName the table name.
+     * @param options   the scan options.
+     * @param listener  the listener receiving the rows.
+     * @return the scan's statistics.
+     * @throws NullPointerException  if one of the arguments is {@code null}.
+     * @throws IOException           if an I/O error occurs.
+     * @throws IllegalStateException if this client is closed.
+     */
+    public ScanStats scan(final String tableName, final ScanOptions options,
+                          final RowListener listener) throws IOException {
+        Parameters.checkNotNull(tableName);
+        Parameters.checkNotNull(options);
+        Parameters.checkNotNull(listener);
+        checkOpen();
+        long start = System.nanoTime();
+        final ScanStats stats = new ScanStats();
+        final Queue<byte[][]> ranges = new ConcurrentLinkedQueue<byte[][]>();
+        if (options.getParallelism() > 1) {
+            Pair<byte[][], byte[][]> regions = getStartEndKeys(tableName);
+            ranges.addAll(options.split(regions.getFirst(), regions.getSecond()));
+        } else {
+            ranges.add(new byte[][]{options.getStartRow(), options.getStopRow()});
+        }
+        final AtomicBoolean aborted = new AtomicBoolean();
+        int workers = Math.min(options.getParallelism(), ranges.size());
+        List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(workers);
+        for (int i = 1; i < workers; i++) {
+            FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    scanRanges(tableName, options, ranges, listener, stats,
+                            aborted);
+                    return null;
+                }
+            });
+            try {
+                scanners.execute(task);
+                tasks.add(task);
+            } catch (RejectedExecutionException ex) {
+                break;
+            }
+        }
+        try {
+            scanRanges(tableName, options, ranges, listener, stats, aborted);
+            for (FutureTask<Void> task : tasks) {
+                awaitScan(task);
+            }
+        } catch (IOException ex) {
+            aborted.set(true);
+            throw ex;
+        } catch (RuntimeException ex) {
+            aborted.set(true);
+            throw ex;
+        } finally {
+            if (aborted.get()) {
+                for (FutureTask<Void> task : tasks) {
+                    try {
+                        awaitScan(task);
+                    } catch (Exception ex) {
+                        // ignored: the first error is the one reported.
+                    }
+                }
+            }
+            stats.finish();
+            latencies.get(Operation.SCAN).recordSince(start);
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the start and end keys of the regions of the given table.
+     * Subclasses may override this method, for instance to run against an
+     * in-process stand-in instead of a real cluster.
+     *
+     * @param tableName the table name.
+     * @return the start and end keys of the table's regions.
+     * @throws IOException if the regions can't be located.
+     */
+    protected Pair<byte[][], byte[][]> getStartEndKeys(String tableName)
+            throws IOException {
+        HTable table = new HTable(conf, tableName);
+        try {
+            return table.getStartEndKeys();
+        } finally {
+            table.close();
+        }
+    }
+
+    /**
+     * Buffers the given put.
+     *
+     * @param tableName the table name.
+     * @param put       the put to buffer.
+     * @throws NullPointerException  if one of the arguments is {@code null}.
+     * @throws IOException           if a previous background flush failed, or
+     *                               if a synchronous flush was needed and failed.
+     * @throws IllegalStateException if this client is closed.
+     */
+    public void put(String tableName, Put put) throws IOException {
+        buffer(tableName, put);
+    }
+
+    /**
+     * Buffers the given delete.
+     *
+     * @param tableName the table name.
+     * @param delete    the delete to buffer.
+     * @throws NullPointerException  if one of the arguments is {@code null}.
+     * @throws IOException           if a previous background flush failed, or
+     *                               if a synchronous flush was needed and failed.
+     * @throws IllegalStateException if this client is closed.
+     */
+    public void delete(String tableName, Delete delete) throws IOException {
+        buffer(tableName, delete);
+    }
+
+    /**
+     * Sends all the buffered mutations and waits for their completion.
+     *
+     * @throws IOException if a previous background flush failed or if the
+     *                     buffered mutations can't be sent.
+     */
+    public void flush() throws IOException {
+        rethrowFailure();
+        doFlush();
+    }
+
+    /**
+     * Returns the number of bytes currently buffered.
+     *
+     * @return the write buffer's current size.
+     */
+    public long getBufferedSize() {
+        synchronized (bufferLock) {
+            return bufferedSize;
+        }
+    }
+
+    /**
+     * Returns the latency histogram of the given operation.
+     *
+     * @param operation the operation.
+     * @return the operation's latency histogram.
+     * @throws NullPointerException if {@code operation} is {@code null}.
+     */
+    public LatencyHistogram getLatency(Operation operation) {
+        return Parameters.checkNotNull(latencies.get(operation));
+    }
+
+    /**
+     * Flushes the buffered mutations and releases all the resources held by
+     * this client.
+     *
+     * @throws IOException if the buffered mutations can't be sent.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flusher.shutdownNow();
+        scanners.shutdown();
+        try {
+            doFlush();
+        } finally {
+            pool.close();
+        }
+    }
+
+    private void buffer(String tableName, Row mutation) throws IOException {
+        Parameters.checkNotNull(tableName);
+        long size = sizeOf(mutation);
+        checkOpen();
+        rethrowFailure();
+        boolean flushNow = false;
+        boolean flushSoon = false;
+        synchronized (bufferLock) {
+            List<Row> rows = buffer.get(tableName);
+            if (rows == null) {
+                rows = new ArrayList<Row>();
+                buffer.put(tableName, rows);
+            }
+            rows.add(mutation);
+            bufferedSize += size;
+            if (bufferedSize >= 2 * writeBufferSize) {
+                flushNow = true;
+            } else if (bufferedSize >= writeBufferSize) {
+                flushSoon = true;
+            }
+        }
+        if (flushNow) {
+            doFlush();
+        } else if (flushSoon) {
+            flusher.execute(new Runnable() {
+                @Override
+                public void run() {
+                    backgroundFlush();
+                }
+            });
+        }
+    }
+
+    private void backgroundFlush() {
+        try {
+            doFlush();
+        } catch (IOException ex) {
+            logger.warn("background flush failed", ex);
+            failure = ex;
+        } catch (RuntimeException ex) {
+            logger.warn("background flush failed", ex);
+            failure = new IOException(ex);
+        }
+    }
+
+    private void doFlush() throws IOException {
+        flushLock.lock();
+        try {
+            Map<String, List<Row>> rows;
+            synchronized (bufferLock) {
+                if (buffer.isEmpty()) {
+                    return;
+                }
+                rows = buffer;
+                buffer = new LinkedHashMap<String, List<Row>>();
+                bufferedSize = 0L;
+            }
+            try {
+                Iterator<Map.Entry<String, List<Row>>> it = rows.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<String, List<Row>> entry = it.next();
+                    send(entry.getKey(), entry.getValue());
+                    it.remove();
+                }
+            } finally {
+                if (!rows.isEmpty()) {
+                    requeue(rows);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Puts the given unsent mutations back in the buffer, before the ones
+     * buffered since they were taken out of it.
+     */
+    private void requeue(Map<String, List<Row>> rows) {
+        synchronized (bufferLock) {
+            Map<String, List<Row>> merged = new LinkedHashMap<String, List<Row>>();
+            for (Map.Entry<String, List<Row>> entry : rows.entrySet()) {
+                List<Row> unsent = new ArrayList<Row>(entry.getValue());
+                for (Row row : unsent) {
+                    bufferedSize += sizeOf(row);
+                }
+                merged.put(entry.getKey(), unsent);
+            }
+            for (Map.Entry<String, List<Row>> entry : buffer.entrySet()) {
+                List<Row> unsent = merged.get(entry.getKey());
+                if (unsent == null) {
+                    merged.put(entry.getKey(), entry.getValue());
+                } else {
+                    unsent.addAll(entry.getValue());
+                }
+            }
+            buffer = merged;
+        }
+    }
+
+    private static long sizeOf(Row mutation) {
+        if (mutation instanceof Put) {
+            return ((Put) mutation).heapSize();
+        }
+        return DELETE_SIZE + mutation.getRow().length;
+    }
+
+    /**
+     * Sends the given mutations as batches of consecutive mutations of the
+     * same kind, since HBase doesn't order the actions of a single batch.
+     * Sent mutations are removed from {@code rows}, so that only the unsent
+     * ones remain if this method fails.
+     */
+    private void send(String tableName, List<Row> rows) throws IOException {
+        long start = System.nanoTime();
+        HTableInterface table = pool.getTable(tableName);
+        try {
+            while (!rows.isEmpty()) {
+                Class<?> kind = rows.get(0).getClass();
+                int to = 1;
+                while (to < rows.size() && rows.get(to).getClass() == kind) {
+                    to++;
+                }
+                List<Row> batch = rows.subList(0, to);
+                table.batch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            table.close();
+            latencies.get(Operation.FLUSH).recordSince(start);
+        }
+    }
+
+    private void scanRanges(String tableName, ScanOptions options,
+                            Queue<byte[][]> ranges, RowListener listener, ScanStats stats,
+                            AtomicBoolean aborted) throws IOException {
+        byte[][] range;
+        while (!aborted.get() && (range = ranges.poll()) != null) {
+            HTableInterface table = getTable(tableName);
+            try {
+                ResultScanner scanner = table.getScanner(
+                        options.toScan(range[0], range[1]));
+                try {
+                    Result row;
+                    while (!aborted.get() && (row = scanner.next()) != null) {
+                        stats.record(row);
+                        listener.onRow(row);
+                    }
+                } finally {
+                    scanner.close();
+                }
+            } catch (IOException ex) {
+                aborted.set(true);
+                throw ex;
+            } catch (RuntimeException ex) {
+                aborted.set(true);
+                throw ex;
+            } finally {
+                table.close();
+            }
+        }
+    }
+
+    private static void awaitScan(FutureTask<Void> task) throws IOException {
+        try {
+            task.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw Throwables.propagate(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private void rethrowFailure() throws IOException {
+        IOException ex = failure;
+        if (ex != null) {
+            failure = null;
+            throw ex;
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Client closed");
+        }
+    }
+}
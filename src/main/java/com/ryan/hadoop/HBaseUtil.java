@@ -21,9 +21,35 @@ public class HBaseUtil {
 
     private static Configuration conf = null;
 
+    private static HBaseClient client = null;
+
     static {
         conf = HBaseConfiguration.create();
         conf.set("hbase.zookeeper.quorum", "Master.Hadoop,Slave1.Hadoop,Slave2.Hadoop");
+        client = new HBaseClient(conf);
+    }
+
+    private static final RowListener PRINTER = new RowListener() {
+        @Override
+        public void onRow(Result res) {
+            synchronized (System.out) {
+                for (KeyValue kv : res.raw()) {
+                    System.out.println("family: " + Bytes.toString(kv.getFamily()));
+                    System.out.println("qualifier: " + Bytes.toString(kv.getQualifier()));
+                    System.out.println("value: " + Bytes.toString(kv.getValue()));
+                    System.out.println("timestamp: " + kv.getTimestamp());
+                }
+            }
+        }
+    };
+
+    /**
+     * get the shared client (pooled table handles, buffered writes)
+     *
+     * @return
+     */
+    public static HBaseClient getClient() {
+        return client;
     }
 
     /**
@@ -57,21 +83,23 @@ public class HBaseUtil {
      * @throws IOException
      */
     public static Result getResultByRowKey(String tableName, String rowKey) throws IOException {
-        // 客户端可以通过HTable对象与服务端进行CRUD操作
-        HTable hTable = new HTable(conf, tableName);
-
-        Get get = new Get(Bytes.toBytes(rowKey));
-        Result result = hTable.get(get);
+        HTableInterface hTable = client.getTable(tableName);
+        try {
+            Get get = new Get(Bytes.toBytes(rowKey));
+            Result result = hTable.get(get);
         
-        if (null != result.list()) {
-            for (KeyValue kv : result.list()) {
-                System.out.println("family: " + Bytes.toString(kv.getFamily()));
-                System.out.println("qualifier: " + Bytes.toString(kv.getQualifier()));
-                System.out.println("value: " + Bytes.toString(kv.getValue()));
-                System.out.println("timestamp: " + kv.getTimestamp());
+            if (null != result.list()) {
+                for (KeyValue kv : result.list()) {
+                    System.out.println("family: " + Bytes.toString(kv.getFamily()));
+                    System.out.println("qualifier: " + Bytes.toString(kv.getQualifier()));
+                    System.out.println("value: " + Bytes.toString(kv.getValue()));
+                    System.out.println("timestamp: " + kv.getTimestamp());
+                }
             }
+            return result;
+        } finally {
+            hTable.close();
         }
-        return result;
     }
 
     /**
@@ -84,23 +112,25 @@ public class HBaseUtil {
      * @throws IOException
      */
     public static Result getResultByFamily(String tableName, String rowKey, String family) throws IOException {
-        // 客户端可以通过HTable对象与服务端进行CRUD操作
-        HTable hTable = new HTable(conf, tableName);
-
-        Get get = new Get(Bytes.toBytes(rowKey));
-        get.addFamily(Bytes.toBytes(family));
+        HTableInterface hTable = client.getTable(tableName);
+        try {
+            Get get = new Get(Bytes.toBytes(rowKey));
+            get.addFamily(Bytes.toBytes(family));
 
-        Result result = hTable.get(get);
-        if (null != result.list()) {
-            for (KeyValue kv : result.list()) {
-                System.out.println("family: " + Bytes.toString(kv.getFamily()));
-                System.out.println("qualifier: " + Bytes.toString(kv.getQualifier()));
-                System.out.println("value: " + Bytes.toString(kv.getValue()));
-                System.out.println("timestamp: " + kv.getTimestamp());
+            Result result = hTable.get(get);
+            if (null != result.list()) {
+                for (KeyValue kv : result.list()) {
+                    System.out.println("family: " + Bytes.toString(kv.getFamily()));
+                    System.out.println("qualifier: " + Bytes.toString(kv.getQualifier()));
+                    System.out.println("value: " + Bytes.toString(kv.getValue()));
+                    System.out.println("timestamp: " + kv.getTimestamp());
+                }
+                return result;
             }
-            return result;
+            return null;
+        } finally {
+            hTable.close();
         }
-        return null;
     }
 
     /**
@@ -114,24 +144,26 @@ public class HBaseUtil {
      * @throws IOException
      */
     public static Result getResultByQualifier(String tableName, String rowKey, String family, String qualifier) throws IOException {
-        // 客户端可以通过HTable对象与服务端进行CRUD操作
-        HTable hTable = new HTable(conf, tableName);
-
-        Get get = new Get(Bytes.toBytes(rowKey));
-        get.addColumn(Bytes.toBytes(family), Bytes.toBytes(qualifier));
+        HTableInterface hTable = client.getTable(tableName);
+        try {
+            Get get = new Get(Bytes.toBytes(rowKey));
+            get.addColumn(Bytes.toBytes(family), Bytes.toBytes(qualifier));
 
-        Result result = hTable.get(get);
+            Result result = hTable.get(get);
 
-        if (null != result.list()) {
-            for (KeyValue kv : result.list()) {
-                System.out.println("family: " + Bytes.toString(kv.getFamily()));
-                System.out.println("qualifier: " + Bytes.toString(kv.getQualifier()));
-                System.out.println("value: " + Bytes.toString(kv.getValue()));
-                System.out.println("timestamp: " + kv.getTimestamp());
+            if (null != result.list()) {
+                for (KeyValue kv : result.list()) {
+                    System.out.println("family: " + Bytes.toString(kv.getFamily()));
+                    System.out.println("qualifier: " + Bytes.toString(kv.getQualifier()));
+                    System.out.println("value: " + Bytes.toString(kv.getValue()));
+                    System.out.println("timestamp: " + kv.getTimestamp());
+                }
+                return result;
             }
-            return result;
+            return null;
+        } finally {
+            hTable.close();
         }
-        return null;
     }
 
     /**
@@ -170,22 +202,25 @@ public class HBaseUtil {
      * @throws IOException
      */
     public static Result getResultByVersion(String tableName, String rowKey, String family, String qualifier) throws IOException {
-        // 客户端可以通过HTable对象与服务端进行CRUD操作
-        HTable hTable = new HTable(conf, tableName);
-        Get get = new Get(Bytes.toBytes(rowKey));
-        get.addColumn(Bytes.toBytes(family), Bytes.toBytes(qualifier));
-        get.setMaxVersions(5);
-        Result result = hTable.get(get);
-
-        if (null != result) {
-            for (KeyValue kv : result.list()) {
-                System.out.println("family: " + Bytes.toString(kv.getFamily()));
-                System.out.println("qualifier: " + Bytes.toString(kv.getQualifier()));
-                System.out.println("value: " + Bytes.toString(kv.getValue()));
-                System.out.println("timestamp: " + kv.getTimestamp());
+        HTableInterface hTable = client.getTable(tableName);
+        try {
+            Get get = new Get(Bytes.toBytes(rowKey));
+            get.addColumn(Bytes.toBytes(family), Bytes.toBytes(qualifier));
+            get.setMaxVersions(5);
+            Result result = hTable.get(get);
+
+            if (null != result) {
+                for (KeyValue kv : result.list()) {
+                    System.out.println("family: " + Bytes.toString(kv.getFamily()));
+                    System.out.println("qualifier: " + Bytes.toString(kv.getQualifier()));
+                    System.out.println("value: " + Bytes.toString(kv.getValue()));
+                    System.out.println("timestamp: " + kv.getTimestamp());
+                }
             }
+            return result;
+        } finally {
+            hTable.close();
         }
-        return result;
     }
 
     /**
@@ -199,14 +234,16 @@ public class HBaseUtil {
      * @throws IOException
      */
     public static void put(String tableName, String rowKey, String family, String qualifier, String value) throws IOException {
-        // 客户端可以通过HTable对象与服务端进行CRUD操作
-        HTable hTable = new HTable(conf, tableName);
-
-        Put put = new Put(Bytes.toBytes(rowKey));
-        put.add(Bytes.toBytes(family), Bytes.toBytes(qualifier), Bytes.toBytes(value));
-        hTable.put(put);
+        HTableInterface hTable = client.getTable(tableName);
+        try {
+            Put put = new Put(Bytes.toBytes(rowKey));
+            put.add(Bytes.toBytes(family), Bytes.toBytes(qualifier), Bytes.toBytes(value));
+            hTable.put(put);
 
-        logger.info("===put data success.===");
+            logger.info("===put data success.===");
+        } finally {
+            hTable.close();
+        }
     }
 
     /**
@@ -221,26 +258,28 @@ public class HBaseUtil {
      * @throws IOException
      */
     public static void batchPut(String tableName, String rowKey, String family, String[] qualifier, String[] value) throws IOException {
-        // 客户端可以通过HTable对象与服务端进行CRUD操作
-        HTable hTable = new HTable(conf, tableName);
-
-        Put put = new Put(Bytes.toBytes(rowKey));
+        HTableInterface hTable = client.getTable(tableName);
+        try {
+            Put put = new Put(Bytes.toBytes(rowKey));
 
-        // 维护列族的信息
-        HColumnDescriptor[] hColumnDescriptors = hTable.getTableDescriptor().getColumnFamilies();
+            // 维护列族的信息
+            HColumnDescriptor[] hColumnDescriptors = hTable.getTableDescriptor().getColumnFamilies();
 
-        for (int i = 0; i < hColumnDescriptors.length; i++) {
-            String familyName = hColumnDescriptors[i].getNameAsString();
-            if (familyName.equals(family)) {
-                for (int j = 0; j < qualifier.length; j++) {
-                    put.add(Bytes.toBytes(family), Bytes.toBytes(qualifier[j]), Bytes.toBytes(value[j]));
+            for (int i = 0; i < hColumnDescriptors.length; i++) {
+                String familyName = hColumnDescriptors[i].getNameAsString();
+                if (familyName.equals(family)) {
+                    for (int j = 0; j < qualifier.length; j++) {
+                        put.add(Bytes.toBytes(family), Bytes.toBytes(qualifier[j]), Bytes.toBytes(value[j]));
+                    }
                 }
             }
-        }
 
-        hTable.put(put);
+            hTable.put(put);
 
-        logger.info("===put data success(batch mode)===");
+            logger.info("===put data success(batch mode)===");
+        } finally {
+            hTable.close();
+        }
     }
 
     /**
@@ -253,15 +292,17 @@ public class HBaseUtil {
      * @throws IOException
      */
     public static void delete(String tableName, String rowKey, String family, String qualifier) throws IOException {
-        // 客户端可以通过HTable对象与服务端进行CRUD操作
-        HTable hTable = new HTable(conf, Bytes.toBytes(tableName));
-
-        Delete delete = new Delete(Bytes.toBytes(rowKey));
+        HTableInterface hTable = client.getTable(tableName);
+        try {
+            Delete delete = new Delete(Bytes.toBytes(rowKey));
 
-        delete.deleteColumns(Bytes.toBytes(family), Bytes.toBytes(qualifier));
-        hTable.delete(delete);
+            delete.deleteColumns(Bytes.toBytes(family), Bytes.toBytes(qualifier));
+            hTable.delete(delete);
 
-        logger.info(family + ":" + qualifier + "is deleted!");
+            logger.info(family + ":" + qualifier + "is deleted!");
+        } finally {
+            hTable.close();
+        }
     }
 
     /**
@@ -272,12 +313,15 @@ public class HBaseUtil {
      * @throws IOException
      */
     public static void deleteAll(String tableName, String rowKey) throws IOException {
-        // 客户端可以通过HTable对象与服务端进行CRUD操作
-        HTable hTable = new HTable(conf, Bytes.toBytes(tableName));
-        Delete deleteAll = new Delete(Bytes.toBytes(rowKey));
-        hTable.delete(deleteAll);
+        HTableInterface hTable = client.getTable(tableName);
+        try {
+            Delete deleteAll = new Delete(Bytes.toBytes(rowKey));
+            hTable.delete(deleteAll);
 
-        logger.info("all qualifiers are deleted.");
+            logger.info("all qualifiers are deleted.");
+        } finally {
+            hTable.close();
+        }
     }
 
     /**
@@ -301,24 +345,7 @@ public class HBaseUtil {
      * @throws IOException
      */
     public static void scan(String tableName) throws IOException {
-        Scan scan = new Scan();
-        ResultScanner rs = null;
-        // 客户端可以通过HTable对象与服务端进行CRUD操作
-        HTable hTable = new HTable(conf, tableName);
-
-        try {
-            rs = hTable.getScanner(scan);
-            for (Result res : rs) {
-                for (KeyValue kv : res.list()) {
-                    System.out.println("family: " + Bytes.toString(kv.getFamily()));
-                    System.out.println("qualifier: " + Bytes.toString(kv.getQualifier()));
-                    System.out.println("value: " + Bytes.toString(kv.getValue()));
-                    System.out.println("timestamp: " + kv.getTimestamp());
-                }
-            }
-        } finally {
-            rs.close();
-        }
+        client.scan(tableName, new ScanOptions(), PRINTER);
     }
 
     /**
@@ -330,26 +357,25 @@ public class HBaseUtil {
      * @throws IOException
      */
     public static void rangeScan(String tableName, String startRow, String stopRow) throws IOException {
-        Scan scan = new Scan();
-        scan.setStartRow(Bytes.toBytes(startRow));
-        scan.setStopRow(Bytes.toBytes(stopRow));
-        ResultScanner rs = null;
-        // 客户端可以通过HTable对象与服务端进行CRUD操作
-        HTable hTable = new HTable(conf, tableName);
+        ScanOptions options = new ScanOptions()
+                .range(Bytes.toBytes(startRow), Bytes.toBytes(stopRow));
+        client.scan(tableName, options, PRINTER);
+    }
 
-        try {
-            rs = hTable.getScanner(scan);
-            for (Result res : rs) {
-                for (KeyValue kv : res.list()) {
-                    System.out.println("family: " + Bytes.toString(kv.getFamily()));
-                    System.out.println("qualifier: " + Bytes.toString(kv.getQualifier()));
-                    System.out.println("value: " + Bytes.toString(kv.getValue()));
-                    System.out.println("timestamp: " + kv.getTimestamp());
-                }
-            }
-        } finally {
-            rs.close();
-        }
+    /**
+     * scan table with the given options (caching, batch, projection, filter,
+     * parallel region scans)
+     *
+     * @param tableName
+     * @param options
+     * @param listener
+     * @return the scan's statistics (rows/sec, bytes/sec)
+     * @throws IOException
+     */
+    public static ScanStats scan(String tableName, ScanOptions options, RowListener listener) throws IOException {
+        ScanStats stats = client.scan(tableName, options, listener);
+        logger.info(tableName + " scanned: " + stats);
+        return stats;
     }
 
     public static void main(String[] args) throws Exception {
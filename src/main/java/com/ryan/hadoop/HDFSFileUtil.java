@@ -3,6 +3,7 @@ package com.ryan.hadoop;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.*;
@@ -19,6 +20,10 @@ public class HDFSFileUtil {
 
     private static final String KV_FILE_PATH = "/usr/local/hadoop/kv_file.txt";
 
+    private static final int LIST_THREADS = 16;
+
+    private static final int LIST_QUEUE_CAPACITY = 1024;
+
     private static long fileCount = 0L;
 
     private static FileSystem fs = null;
@@ -61,31 +66,37 @@ public class HDFSFileUtil {
      * @param path
      */
     private static void showFiles(FileSystem fs, Path path) {
-        // TODO Auto-generated method stub
         if (null == fs || null == path) {
             return;
         }
-        // get file lists
+        HdfsClient client = new HdfsClient(fs, LIST_THREADS, LIST_QUEUE_CAPACITY);
         try {
-            FileStatus[] files = fs.listStatus(path);
-            FSDataOutputStream fsout = null;
-            fsout = fs.create(new Path(KV_FILE_PATH));
-            // show files(include file & directory)
-            for (int i = 0; i < files.length; i++) {
-                if (files[i].isDir()) {
-                    showFiles(fs, files[i].getPath());
-                } else {
-                    String filePath = files[i].getPath().toString();
-                    fsout.write((filePath + "\n").getBytes());
-                    fileCount++;
-                }
+            final FSDataOutputStream fsout = fs.create(new Path(KV_FILE_PATH));
+            final AtomicLong files = new AtomicLong();
+            try {
+                // list directories in parallel, write file paths as they come
+                client.list(path, new FileStatusListener() {
+                    @Override
+                    public void onFileStatus(FileStatus status) throws IOException {
+                        if (!status.isDir()) {
+                            byte[] line = (status.getPath().toString() + "\n").getBytes();
+                            synchronized (fsout) {
+                                fsout.write(line);
+                            }
+                            files.incrementAndGet();
+                        }
+                    }
+                });
+            } finally {
+                fsout.close();
             }
-            fsout.close();
+            fileCount += files.get();
             logger.info("generate kv file, Done!");
             logger.info("the number of file:" + fileCount);
         } catch (IOException e) {
-            // TODO Auto-generated catch block
             e.printStackTrace();
+        } finally {
+            client.close();
         }
     }
 
@@ -98,7 +109,9 @@ public class HDFSFileUtil {
      */
     public static void createHDFSFile(Path path, byte[] bytes) {
         try {
-            fs = FileSystem.get(URI.create("hdfs://Master.Hadoop:9000"), conf);
+            if (null == fs) {
+                fs = FileSystem.get(URI.create("hdfs://Master.Hadoop:9000"), conf);
+            }
             FSDataOutputStream fsout = fs.create(path);
             ByteArrayInputStream bin = new ByteArrayInputStream(bytes);
 
@@ -0,0 +1,350 @@
+package com.ryan.hadoop;
+
+import com.ryan.util.Parameters;
+import com.ryan.util.Throwables;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Instance-based client of a Hadoop {@code FileSystem}, reusing the same
+ * file system handle for all its operations. Directory trees are listed and
+ * uploaded by a bounded pool of worker threads fed by a bounded work queue:
+ * when the queue is full, the submitting thread does the work itself, which
+ * bounds the memory used by arbitrarily large trees. The file system itself
+ * is shared (see {@link FileSystem#get(Configuration)}) and is not closed by
+ * {@link #close()}. Instances of this class are thread-safe.
+ *
+ * @author Ryan Tao
+ */
+public class HdfsClient implements Closeable {
+    private static final int DEFAULT_THREADS = 16;
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final FileSystem fs;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Creates a new {@code HdfsClient} on the default file system of the
+     * given configuration, with 16 worker threads.
+     *
+     * @param conf the Hadoop configuration.
+     * @throws NullPointerException if {@code conf} is {@code null}.
+     * @throws IOException          if the file system can't be obtained.
+     */
+    public HdfsClient(Configuration conf) throws IOException {
+        this(FileSystem.get(Parameters.checkNotNull(conf)), DEFAULT_THREADS,
+                DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a new {@code HdfsClient}.
+     *
+     * @param fs            the file system.
+     * @param threads       the number of worker threads.
+     * @param queueCapacity the maximum number of pending tasks (directories
+     *                      to list or files to upload).
+     * @throws NullPointerException     if {@code fs} is {@code null}.
+     * @throws IllegalArgumentException if {@code threads} or
+     *                                  {@code queueCapacity} is not positive.
+     */
+    public HdfsClient(FileSystem fs, int threads, int queueCapacity) {
+        Parameters.checkCondition(threads > 0 && queueCapacity > 0);
+        this.fs = Parameters.checkNotNull(fs);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L,
+                TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queueCapacity),
+                new WorkerFactory(), new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the file system used by this client.
+     *
+     * @return the file system used by this client.
+     */
+    public FileSystem getFileSystem() {
+        return fs;
+    }
+
+    /**
+     * Recursively lists the given path, passing every file and directory
+     * found under it (the path itself excluded, unless it is a file) to the
+     * given listener. Directories are listed concurrently. The first error
+     * aborts the listing.
+     *
+     * @param path     the path to list.
+     * @param listener the listener receiving the entries.
+     * @return the number of entries passed to the listener.
+     * @throws NullPointerException  if one of the arguments is {@code null}.
+     * @throws FileNotFoundException if {@code path} doesn't exist.
+     * @throws IOException           if an I/O error occurs.
+     */
+    public long list(Path path, final FileStatusListener listener)
+            throws IOException {
+        Parameters.checkNotNull(listener);
+        FileStatus root = fs.getFileStatus(Parameters.checkNotNull(path));
+        if (!root.isDir()) {
+            listener.onFileStatus(root);
+            return 1L;
+        }
+        AtomicLong count = new AtomicLong();
+        Tasks tasks = new Tasks();
+        tasks.execute(listDir(root.getPath(), listener, count, tasks));
+        tasks.await();
+        return count.get();
+    }
+
+    /**
+     * Uploads the given local file or directory tree with the file system's
+     * default buffer size, replication and block size. See
+     * {@link #upload(File, Path, int, short, long)}.
+     *
+     * @param source the local file or directory.
+     * @param target the destination path.
+     * @return the number of bytes uploaded.
+     * @throws NullPointerException  if one of the arguments is {@code null}.
+     * @throws FileNotFoundException if {@code source} doesn't exist.
+     * @throws IOException           if an I/O error occurs.
+     */
+    public long upload(File source, Path target) throws IOException {
+        return upload(source, target, fs.getConf().getInt(
+                "io.file.buffer.size", DEFAULT_BUFFER_SIZE),
+                fs.getDefaultReplication(target),
+                fs.getDefaultBlockSize(target));
+    }
+
+    /**
+     * Uploads the given local file or directory tree. If {@code source} is
+     * a directory, {@code target} is the directory its content is copied
+     * into, and files are written concurrently. Existing files are
+     * overwritten. The first error aborts the upload.
+     *
+     * @param source      the local file or directory.
+     * @param target      the destination path.
+     * @param bufferSize  the size of the write buffer, in bytes.
+     * @param replication the replication factor of the written files.
+     * @param blockSize   the block size of the written files, in bytes.
+     * @return the number of bytes uploaded.
+     * @throws NullPointerException     if one of the arguments is
+     *                                  {@code null}.
+     * @throws IllegalArgumentException if one of the numeric arguments is
+     *                                  not positive.
+     * @throws FileNotFoundException    if {@code source} doesn't exist.
+     * @throws IOException              if an I/O error occurs.
+     */
+    public long upload(File source, Path target, int bufferSize,
+                       short replication, long blockSize) throws IOException {
+        Parameters.checkNotNull(target);
+        Parameters.checkCondition(bufferSize > 0 && replication > 0);
+        Parameters.checkCondition(blockSize > 0);
+        if (!source.exists()) {
+            throw new FileNotFoundException(source.toString());
+        }
+        if (!source.isDirectory()) {
+            return copy(source, target, bufferSize, replication, blockSize);
+        }
+        AtomicLong bytes = new AtomicLong();
+        Tasks tasks = new Tasks();
+        try {
+            mkdirs(target);
+            uploadDir(source, target, bufferSize, replication, blockSize,
+                    bytes, tasks);
+        } catch (IOException ex) {
+            tasks.fail(ex);
+        } catch (RuntimeException ex) {
+            tasks.fail(ex);
+        }
+        tasks.await();
+        return bytes.get();
+    }
+
+    /**
+     * Stops the worker threads once the pending tasks are done. The file
+     * system is not closed.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private Task listDir(final Path dir, final FileStatusListener listener,
+                         final AtomicLong count, final Tasks tasks) {
+        return new Task() {
+            @Override
+            public void run() throws IOException {
+                FileStatus[] children = fs.listStatus(dir);
+                if (children == null) {
+                    return;
+                }
+                for (FileStatus child : children) {
+                    count.incrementAndGet();
+                    listener.onFileStatus(child);
+                    if (child.isDir()) {
+                        tasks.execute(listDir(child.getPath(), listener, count,
+                                tasks));
+                    }
+                }
+            }
+        };
+    }
+
+    private void uploadDir(File dir, Path target, final int bufferSize,
+                           final short replication, final long blockSize,
+                           final AtomicLong bytes, Tasks tasks) throws IOException {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            throw new IOException("Can't list " + dir);
+        }
+        for (File child : children) {
+            if (tasks.isAborted()) {
+                return;
+            }
+            final File src = child;
+            final Path dst = new Path(target, child.getName());
+            if (child.isDirectory()) {
+                mkdirs(dst);
+                uploadDir(src, dst, bufferSize, replication, blockSize, bytes,
+                        tasks);
+            } else {
+                tasks.execute(new Task() {
+                    @Override
+                    public void run() throws IOException {
+                        bytes.addAndGet(copy(src, dst, bufferSize, replication,
+                                blockSize));
+                    }
+                });
+            }
+        }
+    }
+
+    private void mkdirs(Path dir) throws IOException {
+        if (!fs.mkdirs(dir)) {
+            throw new IOException("Can't create " + dir);
+        }
+    }
+
+    private long copy(File src, Path dst, int bufferSize, short replication,
+                      long blockSize) throws IOException {
+        InputStream in = new FileInputStream(src);
+        try {
+            FSDataOutputStream out = fs.create(dst, true, bufferSize,
+                    replication, blockSize);
+            IOUtils.copyBytes(in, out, bufferSize, true);
+            return src.length();
+        } finally {
+            IOUtils.closeStream(in);
+        }
+    }
+
+    /**
+     * A unit of I/O work.
+     */
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    /**
+     * A group of tasks run on the worker threads (or inline, when the work
+     * queue is full) that can be waited for. The first error aborts the
+     * group: pending tasks are skipped, and the error is rethrown by
+     * {@link #await()}.
+     */
+    private final class Tasks {
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile Throwable failure;
+
+        void execute(final Task task) {
+            pending.incrementAndGet();
+            Runnable runnable = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (failure == null) {
+                            task.run();
+                        }
+                    } catch (Throwable ex) {
+                        fail(ex);
+                    } finally {
+                        if (pending.decrementAndGet() == 0) {
+                            notifyDone();
+                        }
+                    }
+                }
+            };
+            try {
+                executor.execute(runnable);
+            } catch (RejectedExecutionException ex) {
+                runnable.run();
+            }
+        }
+
+        boolean isAborted() {
+            return failure != null;
+        }
+
+        synchronized void notifyDone() {
+            notifyAll();
+        }
+
+        synchronized void fail(Throwable ex) {
+            if (failure == null) {
+                failure = ex;
+            }
+        }
+
+        void await() throws IOException {
+            try {
+                synchronized (this) {
+                    while (pending.get() > 0) {
+                        wait();
+                    }
+                }
+            } catch (InterruptedException ex) {
+                fail(ex);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            Throwable ex = failure;
+            if (ex instanceof IOException) {
+                throw (IOException) ex;
+            }
+            if (ex != null) {
+                throw Throwables.propagate(ex);
+            }
+        }
+    }
+
+    private static final class WorkerFactory implements ThreadFactory {
+        private static final AtomicInteger POOL = new AtomicInteger();
+
+        private final int pool = POOL.incrementAndGet();
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "hdfs-client-" + pool + "-"
+                    + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.ryan.hadoop;
+
+import org.apache.hadoop.hbase.client.Result;
+
+import java.io.IOException;
+
+/**
+ * Receives the rows produced by {@link HBaseClient#scan(String, ScanOptions,
+ * RowListener)}. When the scan runs on more than one region concurrently,
+ * this listener is called from several threads at once and must therefore be
+ * thread-safe; rows are only ordered within a region.
+ *
+ * @author Ryan Tao
+ */
+public interface RowListener {
+    /**
+     * Called for each scanned row (or part of a row, if the scan's batch
+     * size is smaller than the number of columns of the row).
+     *
+     * @param row the scanned row.
+     * @throws IOException to abort the scan.
+     */
+    void onRow(Result row) throws IOException;
+}
@@ -0,0 +1,251 @@
+package com.ryan.hadoop;
+
+import com.ryan.util.Parameters;
+import com.ryan.util.XObjects;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Options of a scan: key range, scanner caching, batch size, column
+ * projection, filter and number of regions scanned concurrently. By default,
+ * the whole table is scanned, sequentially, with a scanner caching of 100
+ * rows. Instances of this class are not thread-safe.
+ *
+ * @author Ryan Tao
+ */
+public final class ScanOptions {
+    private static final int DEFAULT_CACHING = 100;
+
+    private byte[] startRow;
+    private byte[] stopRow;
+    private int caching;
+    private int batch;
+    private boolean cacheBlocks;
+    private final List<byte[]> families;
+    private final List<byte[][]> columns;
+    private Filter filter;
+    private int parallelism;
+
+    /**
+     * Creates a new {@code ScanOptions} with the default settings.
+     */
+    public ScanOptions() {
+        this.startRow = HConstants.EMPTY_START_ROW;
+        this.stopRow = HConstants.EMPTY_END_ROW;
+        this.caching = DEFAULT_CACHING;
+        this.batch = -1;
+        this.cacheBlocks = true;
+        this.families = new ArrayList<byte[]>();
+        this.columns = new ArrayList<byte[][]>();
+        this.parallelism = 1;
+    }
+
+    /**
+     * Restricts the scan to the given key range.
+     *
+     * @param startRow the first row (inclusive), an empty array to start at
+     *                 the beginning of the table.
+     * @param stopRow  the last row (exclusive), an empty array to stop at the
+     *                 end of the table.
+     * @return this object.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    public ScanOptions range(byte[] startRow, byte[] stopRow) {
+        this.startRow = Parameters.checkNotNull(startRow).clone();
+        this.stopRow = Parameters.checkNotNull(stopRow).clone();
+        return this;
+    }
+
+    /**
+     * Sets the number of rows fetched from the region servers per RPC.
+     *
+     * @param caching the scanner caching.
+     * @return this object.
+     * @throws IllegalArgumentException if {@code caching} is not positive.
+     */
+    public ScanOptions caching(int caching) {
+        Parameters.checkCondition(caching > 0);
+        this.caching = caching;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of columns returned per {@code Result}; wide
+     * rows are split into several results.
+     *
+     * @param batch the batch size.
+     * @return this object.
+     * @throws IllegalArgumentException if {@code batch} is not positive.
+     */
+    public ScanOptions batch(int batch) {
+        Parameters.checkCondition(batch > 0);
+        this.batch = batch;
+        return this;
+    }
+
+    /**
+     * Sets whether the scanned blocks should be kept in the region servers'
+     * block cache (full-table scans should usually not).
+     *
+     * @param cacheBlocks whether to cache the scanned blocks.
+     * @return this object.
+     */
+    public ScanOptions cacheBlocks(boolean cacheBlocks) {
+        this.cacheBlocks = cacheBlocks;
+        return this;
+    }
+
+    /**
+     * Adds all the columns of the given family to the projection.
+     *
+     * @param family the family name.
+     * @return this object.
+     * @throws NullPointerException if {@code family} is {@code null}.
+     */
+    public ScanOptions family(String family) {
+        families.add(Bytes.toBytes(Parameters.checkNotNull(family)));
+        return this;
+    }
+
+    /**
+     * Adds the given column to the projection.
+     *
+     * @param family    the family name.
+     * @param qualifier the column qualifier.
+     * @return this object.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    public ScanOptions column(String family, String qualifier) {
+        columns.add(new byte[][]{
+                Bytes.toBytes(Parameters.checkNotNull(family)),
+                Bytes.toBytes(Parameters.checkNotNull(qualifier))});
+        return this;
+    }
+
+    /**
+     * Sets the server-side filter.
+     *
+     * @param filter the filter, {@code null} for none.
+     * @return this object.
+     */
+    public ScanOptions filter(Filter filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of regions scanned concurrently.
+     *
+     * @param parallelism the number of concurrent region scans.
+     * @return this object.
+     * @throws IllegalArgumentException if {@code parallelism} is not
+     *                                  positive.
+     */
+    public ScanOptions parallelism(int parallelism) {
+        Parameters.checkCondition(parallelism > 0);
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Returns the first row of the scanned range (inclusive).
+     *
+     * @return the start row.
+     */
+    public byte[] getStartRow() {
+        return startRow.clone();
+    }
+
+    /**
+     * Returns the last row of the scanned range (exclusive).
+     *
+     * @return the stop row.
+     */
+    public byte[] getStopRow() {
+        return stopRow.clone();
+    }
+
+    /**
+     * Returns the maximum number of regions scanned concurrently.
+     *
+     * @return the number of concurrent region scans.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public String toString() {
+        return XObjects.toStringBuilder("ScanOptions")
+                .append("startRow", Bytes.toStringBinary(startRow))
+                .append("stopRow", Bytes.toStringBinary(stopRow))
+                .append("caching", caching)
+                .append("batch", batch)
+                .append("cacheBlocks", cacheBlocks)
+                .append("families", families.size())
+                .append("columns", columns.size())
+                .append("filter", filter)
+                .append("parallelism", parallelism)
+                .toString();
+    }
+
+    /**
+     * Builds the HBase scan of the given sub-range.
+     */
+    Scan toScan(byte[] start, byte[] stop) {
+        Scan scan = new Scan(start, stop);
+        scan.setCaching(caching);
+        if (batch > 0) {
+            scan.setBatch(batch);
+        }
+        scan.setCacheBlocks(cacheBlocks);
+        for (byte[] family : families) {
+            scan.addFamily(family);
+        }
+        for (byte[][] column : columns) {
+            scan.addColumn(column[0], column[1]);
+        }
+        if (filter != null) {
+            scan.setFilter(filter);
+        }
+        return scan;
+    }
+
+    /**
+     * Returns the intersections of the scanned range with the given regions
+     * (as returned by {@code HTable.getStartEndKeys()}).
+     */
+    List<byte[][]> split(byte[][] starts, byte[][] ends) {
+        List<byte[][]> ranges = new ArrayList<byte[][]>(starts.length);
+        for (int i = 0; i < starts.length; i++) {
+            byte[] start = max(startRow, starts[i]);
+            byte[] stop = min(stopRow, ends[i]);
+            if (stop.length == 0 || Bytes.compareTo(start, stop) < 0) {
+                ranges.add(new byte[][]{start, stop});
+            }
+        }
+        if (ranges.isEmpty()) {
+            ranges.add(new byte[][]{startRow, stopRow});
+        }
+        return ranges;
+    }
+
+    private static byte[] max(byte[] start1, byte[] start2) {
+        return Bytes.compareTo(start1, start2) >= 0 ? start1 : start2;
+    }
+
+    private static byte[] min(byte[] stop1, byte[] stop2) {
+        if (stop1.length == 0) {
+            return stop2;
+        }
+        if (stop2.length == 0) {
+            return stop1;
+        }
+        return Bytes.compareTo(stop1, stop2) <= 0 ? stop1 : stop2;
+    }
+}
@@ -0,0 +1,116 @@
+package com.ryan.hadoop;
+
+import com.ryan.util.XObjects;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput statistics of a scan: number of rows, number of bytes (of the
+ * returned key-values) and elapsed time. Instances of this class are
+ * thread-safe; while the scan is in progress the elapsed time is the time
+ * since it started.
+ *
+ * @author Ryan Tao
+ */
+public final class ScanStats {
+    private final AtomicLong rows;
+    private final AtomicLong bytes;
+    private final long start;
+    private volatile long end;
+
+    ScanStats() {
+        this.rows = new AtomicLong();
+        this.bytes = new AtomicLong();
+        this.start = System.nanoTime();
+        this.end = -1L;
+    }
+
+    void record(Result row) {
+        long size = 0;
+        KeyValue[] kvs = row.raw();
+        if (kvs != null) {
+            for (KeyValue kv : kvs) {
+                size += kv.getLength();
+            }
+        }
+        rows.incrementAndGet();
+        bytes.addAndGet(size);
+    }
+
+    void finish() {
+        if (end < 0) {
+            end = System.nanoTime();
+        }
+    }
+
+    /**
+     * Returns the number of scanned rows.
+     *
+     * @return the number of scanned rows.
+     */
+    public long getRows() {
+        return rows.get();
+    }
+
+    /**
+     * Returns the number of scanned bytes.
+     *
+     * @return the number of scanned bytes.
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Returns the duration of the scan.
+     *
+     * @param unit the desired time unit.
+     * @return the duration of the scan.
+     * @throws NullPointerException if {@code unit} is {@code null}.
+     */
+    public long getElapsed(TimeUnit unit) {
+        return unit.convert(elapsedNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the scan's throughput, in rows per second.
+     *
+     * @return the number of rows scanned per second.
+     */
+    public double getRowsPerSecond() {
+        return perSecond(rows.get());
+    }
+
+    /**
+     * Returns the scan's throughput, in bytes per second.
+     *
+     * @return the number of bytes scanned per second.
+     */
+    public double getBytesPerSecond() {
+        return perSecond(bytes.get());
+    }
+
+    @Override
+    public String toString() {
+        return XObjects.toStringBuilder("ScanStats")
+                .append("rows", getRows())
+                .append("bytes", getBytes())
+                .append("elapsedMs", getElapsed(TimeUnit.MILLISECONDS))
+                .append("rowsPerSecond", (long) getRowsPerSecond())
+                .append("bytesPerSecond", (long) getBytesPerSecond())
+                .toString();
+    }
+
+    private long elapsedNanos() {
+        long e = end;
+        return (e < 0 ? System.nanoTime() : e) - start;
+    }
+
+    private double perSecond(long n) {
+        long nanos = elapsedNanos();
+        return nanos <= 0 ? 0.0 : n * 1e9 / nanos;
+    }
+}
@@ -0,0 +1,121 @@
+package com.ryan.hadoop;
+
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily consumed scan returned by {@link HBaseClient#scanner(String,
+ * ScanOptions)}. Rows are fetched from the region servers as they are
+ * consumed ({@code caching} rows per RPC). Closing this scanner gives the
+ * underlying table handle back to the pool. Instances of this class are not
+ * thread-safe.
+ *
+ * @author Ryan Tao
+ */
+public final class TableScanner implements ResultScanner {
+    private final HTableInterface table;
+    private final ResultScanner scanner;
+    private final ScanStats stats;
+    private final Runnable onClose;
+    private boolean closed;
+
+    TableScanner(HTableInterface table, ResultScanner scanner,
+                 Runnable onClose) {
+        this.table = table;
+        this.scanner = scanner;
+        this.stats = new ScanStats();
+        this.onClose = onClose;
+    }
+
+    @Override
+    public Result next() throws IOException {
+        Result row = scanner.next();
+        if (row == null) {
+            stats.finish();
+        } else {
+            stats.record(row);
+        }
+        return row;
+    }
+
+    @Override
+    public Result[] next(int nbRows) throws IOException {
+        Result[] rows = scanner.next(nbRows);
+        for (Result row : rows) {
+            stats.record(row);
+        }
+        if (rows.length < nbRows) {
+            stats.finish();
+        }
+        return rows;
+    }
+
+    @Override
+    public Iterator<Result> iterator() {
+        return new Iterator<Result>() {
+            private Result next;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !done) {
+                    try {
+                        next = TableScanner.this.next();
+                    } catch (IOException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                    done = next == null;
+                }
+                return next != null;
+            }
+
+            @Override
+            public Result next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Result row = next;
+                next = null;
+                return row;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Returns the statistics of the rows consumed so far.
+     *
+     * @return this scan's statistics.
+     */
+    public ScanStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        stats.finish();
+        try {
+            scanner.close();
+        } finally {
+            try {
+                table.close();
+            } catch (IOException ex) {
+                // ignored: the handle is only given back to the pool.
+            }
+            onClose.run();
+        }
+    }
+}
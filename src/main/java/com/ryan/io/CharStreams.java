@@ -22,6 +22,11 @@ import java.util.List;
  * @author Osman KOCAK
  */
 public final class CharStreams {
+    private static final int MIN_BUFFER_SIZE = 4 << 10;
+    private static final int MAX_BUFFER_SIZE = 64 << 10;
+    private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>();
+    private static final CopyStats.Counters COUNTERS = new CopyStats.Counters();
+
     /**
      * Concatenates the given {@code Reader}s into a single one. The given
      * streams will be read sequentially. Closing the concatenated stream
@@ -58,21 +63,51 @@ public final class CharStreams {
 
     /**
      * Copies the content of the given {@code Reader} into the given
-     * {@code Writer}.
+     * {@code Writer}. The copy buffer is taken from a per-thread cache and
+     * sized from the observed read sizes, between 4 K and 64 K chars.
      *
      * @param in  the {@code Reader} to read from.
      * @param out the {@code Reader} to write on.
+     * @return the number of copied chars.
      * @throws NullPointerException if one of the arguments is {@code null}.
      * @throws IOException          if an I/O error occurs during the process.
      */
-    public static void copy(Reader in, Writer out) throws IOException {
-        char[] buf = new char[4096];
-        int len = in.read(buf);
-        while (len >= 0) {
-            out.write(buf, 0, len);
-            len = in.read(buf);
+    public static long copy(Reader in, Writer out) throws IOException {
+        long start = System.nanoTime();
+        long count = 0;
+        char[] buf = borrowBuffer();
+        try {
+            int len = in.read(buf);
+            while (len >= 0) {
+                out.write(buf, 0, len);
+                count += len;
+                if (len == buf.length && len < MAX_BUFFER_SIZE) {
+                    buf = new char[Math.min(buf.length << 1, MAX_BUFFER_SIZE)];
+                }
+                len = in.read(buf);
+            }
+        } finally {
+            BUFFER.set(buf);
         }
         out.flush();
+        COUNTERS.record(count, 0, System.nanoTime() - start);
+        return count;
+    }
+
+    /**
+     * Returns a snapshot of the cumulative counters of the {@code copy}
+     * methods of this class, for all threads.
+     *
+     * @return the current copy counters.
+     */
+    public static CopyStats copyStats() {
+        return COUNTERS.snapshot();
+    }
+
+    private static char[] borrowBuffer() {
+        char[] buf = BUFFER.get();
+        BUFFER.set(null);
+        return buf == null ? new char[MIN_BUFFER_SIZE] : buf;
     }
 
     /**
@@ -81,11 +116,12 @@ public final class CharStreams {
      *
      * @param in  the {@code InputStream} to read from.
      * @param out the {@code Reader} to write on.
+     * @return the number of copied chars.
      * @throws NullPointerException if one of the arguments is {@code null}.
      * @throws IOException          if an I/O error occurs during the process.
      */
-    public static void copy(InputStream in, Writer out) throws IOException {
-        copy(new InputStreamReader(in, Charsets.DEFAULT), out);
+    public static long copy(InputStream in, Writer out) throws IOException {
+        return copy(new InputStreamReader(in, Charsets.DEFAULT), out);
     }
 
     /**
@@ -95,12 +131,13 @@ public final class CharStreams {
      * @param in      the {@code InputStream} to read from.
      * @param out     the {@code Reader} to write on.
      * @param charset the charset to use.
+     * @return the number of copied chars.
      * @throws NullPointerException if one of the arguments is {@code null}.
      * @throws IOException          if an I/O error occurs during the process.
      */
-    public static void copy(InputStream in, Writer out, Charset charset)
+    public static long copy(InputStream in, Writer out, Charset charset)
             throws IOException {
-        copy(new InputStreamReader(in, charset), out);
+        return copy(new InputStreamReader(in, charset), out);
     }
 
     /**
@@ -109,11 +146,12 @@ public final class CharStreams {
      *
      * @param in  the {@code Reader} to read from.
      * @param out the {@code OutputStream} to write on.
+     * @return the number of copied chars.
      * @throws NullPointerException if one of the arguments is {@code null}.
      * @throws IOException          if an I/O error occurs during the process.
      */
-    public static void copy(Reader in, OutputStream out) throws IOException {
-        copy(in, new OutputStreamWriter(out, Charsets.DEFAULT));
+    public static long copy(Reader in, OutputStream out) throws IOException {
+        return copy(in, new OutputStreamWriter(out, Charsets.DEFAULT));
     }
 
     /**
@@ -123,12 +161,13 @@ public final class CharStreams {
      * @param in      the {@code Reader} to read from.
      * @param out     the {@code OutputStream} to write on.
      * @param charset the charset to use.
+     * @return the number of copied chars.
      * @throws NullPointerException if one of the arguments is {@code null}.
      * @throws IOException          if an I/O error occurs during the process.
      */
-    public static void copy(Reader in, OutputStream out, Charset charset)
+    public static long copy(Reader in, OutputStream out, Charset charset)
             throws IOException {
-        copy(in, new OutputStreamWriter(out, charset));
+        return copy(in, new OutputStreamWriter(out, charset));
     }
 
     /**
@@ -222,6 +261,20 @@ public final class CharStreams {
         return read(new InputStreamReader(in, charset));
     }
 
+    /**
+     * Returns an iterator lazily reading the lines of the given
+     * {@code Reader}, which is closed once fully read or when the iterator
+     * is closed. Unlike {@link #readLines(Reader)}, the lines aren't
+     * materialized.
+     *
+     * @param in the stream to read.
+     * @return an iterator over the stream's lines.
+     * @throws NullPointerException if {@code in} is {@code null}.
+     */
+    public static LineIterator lines(Reader in) {
+        return new LineIterator(in);
+    }
+
     /**
      * Reads all the lines from the given source {@code Reader}. Note that
      * the returned {@code List} is immutable.
@@ -0,0 +1,23 @@
+package com.ryan.io;
+
+import java.io.File;
+
+/**
+ * Receives the progress of a parallel tree copy, one file at a time, in
+ * completion order. Calls are made from the thread that started the copy,
+ * so implementations don't need to be thread-safe; the throughput can be
+ * derived from the reported sizes and the elapsed time.
+ *
+ * @author Ryan Tao
+ * @see XFiles#cp(File, File, int, CopyListener)
+ */
+public interface CopyListener {
+    /**
+     * Called when the given regular file has been copied.
+     *
+     * @param src   the copied file.
+     * @param dst   the created copy.
+     * @param bytes the number of copied bytes.
+     */
+    void onCopy(File src, File dst, long bytes);
+}
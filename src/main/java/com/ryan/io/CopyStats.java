@@ -0,0 +1,191 @@
+package com.ryan.io;
+
+import com.ryan.util.XObjects;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Snapshot of the cumulative counters of the stream copy methods, see
+ * {@link ByteStreams#copyStats()} and {@link CharStreams#copyStats()}. The
+ * throughput over a period is obtained by subtracting the snapshot taken at
+ * its start from the one taken at its end.
+ *
+ * @author Ryan Tao
+ */
+public final class CopyStats {
+    private final long copies;
+    private final long copied;
+    private final long transferred;
+    private final long nanos;
+
+    CopyStats(long copies, long copied, long transferred, long nanos) {
+        this.copies = copies;
+        this.copied = copied;
+        this.transferred = transferred;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Returns the number of completed copies.
+     *
+     * @return the number of completed copies.
+     */
+    public long copies() {
+        return copies;
+    }
+
+    /**
+     * Returns the number of copied units (bytes or chars).
+     *
+     * @return the number of copied units.
+     */
+    public long copied() {
+        return copied;
+    }
+
+    /**
+     * Returns the number of bytes that have been moved through channel
+     * transfers rather than through a buffer. Always 0 for char copies.
+     *
+     * @return the number of transferred bytes.
+     */
+    public long transferred() {
+        return transferred;
+    }
+
+    /**
+     * Returns the total time spent in the completed copies, in nanoseconds.
+     *
+     * @return the time spent copying, in nanoseconds.
+     */
+    public long nanos() {
+        return nanos;
+    }
+
+    /**
+     * Returns the average throughput of the completed copies, in units per
+     * second, or 0 if no time has been spent copying.
+     *
+     * @return the average copy throughput.
+     */
+    public double throughput() {
+        return nanos == 0 ? 0.0 : copied * 1e9 / nanos;
+    }
+
+    /**
+     * Returns the difference between this snapshot and the given earlier
+     * one, that is, the activity that happened in between.
+     *
+     * @param earlier an earlier snapshot.
+     * @return the activity between the two snapshots.
+     * @throws NullPointerException if {@code earlier} is {@code null}.
+     */
+    public CopyStats minus(CopyStats earlier) {
+        return new CopyStats(copies - earlier.copies,
+                copied - earlier.copied,
+                transferred - earlier.transferred,
+                nanos - earlier.nanos);
+    }
+
+    @Override
+    public String toString() {
+        return XObjects.toStringBuilder("CopyStats")
+                .append("copies", copies)
+                .append("copied", copied)
+                .append("transferred", transferred)
+                .append("nanos", nanos)
+                .toString();
+    }
+
+    /**
+     * Cumulative copy counters, striped over a fixed number of cells so
+     * that concurrent copies rarely contend. A thread records its copies in
+     * the cell picked by its probe, and moves on to another cell when it
+     * finds that one contended. Snapshots taken while copies are recorded
+     * may be slightly inconsistent.
+     */
+    static final class Counters {
+        private static final int STRIPES = Integer.highestOneBit(Math.min(64,
+                Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        private static final ThreadLocal<int[]> PROBE = new ThreadLocal<int[]>() {
+            @Override
+            protected int[] initialValue() {
+                int seed = (int) Thread.currentThread().getId() * 0x9E3779B9;
+                return new int[]{seed == 0 ? 1 : seed};
+            }
+        };
+
+        private final Cell[] cells;
+
+        Counters() {
+            cells = new Cell[STRIPES];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = new Cell();
+            }
+        }
+
+        void record(long copied, long transferred, long nanos) {
+            int[] probe = PROBE.get();
+            Cell cell = cells[probe[0] & (cells.length - 1)];
+            while (!cell.tryRecord()) {
+                int h = probe[0];
+                h ^= h << 13;
+                h ^= h >>> 17;
+                h ^= h << 5;
+                probe[0] = h;
+                cell = cells[h & (cells.length - 1)];
+            }
+            cell.add(copied, transferred, nanos);
+        }
+
+        CopyStats snapshot() {
+            long copies = 0;
+            long copied = 0;
+            long transferred = 0;
+            long nanos = 0;
+            for (Cell cell : cells) {
+                copies += cell.copies;
+                copied += cell.copied;
+                transferred += cell.transferred;
+                nanos += cell.nanos;
+            }
+            return new CopyStats(copies, copied, transferred, nanos);
+        }
+    }
+
+    /**
+     * Counter cell, padded so that two cells never share a cache line.
+     */
+    @SuppressWarnings("unused")
+    private static final class Cell {
+        private static final AtomicLongFieldUpdater<Cell> COPIES =
+                AtomicLongFieldUpdater.newUpdater(Cell.class, "copies");
+        private static final AtomicLongFieldUpdater<Cell> COPIED =
+                AtomicLongFieldUpdater.newUpdater(Cell.class, "copied");
+        private static final AtomicLongFieldUpdater<Cell> TRANSFERRED =
+                AtomicLongFieldUpdater.newUpdater(Cell.class, "transferred");
+        private static final AtomicLongFieldUpdater<Cell> NANOS =
+                AtomicLongFieldUpdater.newUpdater(Cell.class, "nanos");
+
+        private long p0, p1, p2, p3, p4, p5, p6;
+        private volatile long copies;
+        private volatile long copied;
+        private volatile long transferred;
+        private volatile long nanos;
+        private long q0, q1, q2, q3, q4, q5, q6;
+
+        /* Counts a copy, unless the cell is contended. */
+        boolean tryRecord() {
+            long v = copies;
+            return COPIES.compareAndSet(this, v, v + 1);
+        }
+
+        void add(long copied, long transferred, long nanos) {
+            COPIED.addAndGet(this, copied);
+            if (transferred > 0) {
+                TRANSFERRED.addAndGet(this, transferred);
+            }
+            NANOS.addAndGet(this, nanos);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.ryan.io;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Receives the results of a batch file digest computation, in completion
+ * order.
+ *
+ * @author Ryan Tao
+ * @see XFiles#digestAll
+ */
+public interface DigestListener {
+    /**
+     * Called when the digest of the given file has been computed.
+     *
+     * @param f      the digested file.
+     * @param digest the file's digest.
+     */
+    void onDigest(File f, byte[] digest);
+
+    /**
+     * Called when the digest of the given file could not be computed.
+     *
+     * @param f     the file that could not be digested.
+     * @param cause the error that occurred.
+     */
+    void onFailure(File f, IOException cause);
+}
@@ -0,0 +1,20 @@
+package com.ryan.io;
+
+/**
+ * Processes the lines of a text file, see
+ * {@link TextFiles#forEachLineParallel(java.io.File, LineHandler, int)}.
+ * Implementations are called from several threads at once and must be
+ * thread-safe.
+ *
+ * @author Ryan Tao
+ */
+public interface LineHandler {
+    /**
+     * Called for each line, without its terminator. When buffer reuse is
+     * enabled, {@code line} is only valid until this method returns and
+     * must be copied (e.g. through {@code toString()}) to be kept.
+     *
+     * @param line the line.
+     */
+    void onLine(CharSequence line);
+}
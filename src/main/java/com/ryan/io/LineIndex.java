@@ -0,0 +1,326 @@
+package com.ryan.io;
+
+import com.ryan.charset.Charsets;
+import com.ryan.util.LongArrayList;
+import com.ryan.util.Parameters;
+import com.ryan.util.Throwables;
+import com.ryan.util.XObjects;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Index of the lines of a text file, giving random access to any line by
+ * its number. Lines are delimited as by {@link java.io.BufferedReader#readLine()},
+ * that is, by {@code '\n'}, {@code '\r'} or {@code "\r\n"}. The index is
+ * built by scanning memory-mapped segments of the file, optionally in
+ * parallel; only the charsets encoding line terminators on single ASCII
+ * bytes (UTF-8, the ISO-8859 family, ...) are supported. The index reflects
+ * the file's content at the time it was built. {@code LineIndex}es keep the
+ * file open until they are closed. This class is thread-safe.
+ *
+ * @author Ryan Tao
+ * @see TextFiles
+ */
+public final class LineIndex implements Closeable {
+    private static final long SEGMENT_SIZE = 64L << 20;
+
+    /**
+     * Builds the line index of the given {@code File} using the system's
+     * default charset.
+     *
+     * @param f the file to index.
+     * @return the file's line index.
+     * @throws NullPointerException     if {@code f} is {@code null}.
+     * @throws IllegalArgumentException if the default charset isn't
+     *                                  supported.
+     * @throws IOException              if {@code f} does not exist, or if it is a
+     *                                  directory rather than a regular file, or if it can't be read.
+     * @throws SecurityException        if a security manager exists and denies
+     *                                  read access to {@code f}.
+     */
+    public static LineIndex build(File f) throws IOException {
+        return build(f, Charsets.DEFAULT);
+    }
+
+    /**
+     * Builds the line index of the given {@code File} using the specified
+     * charset.
+     *
+     * @param f       the file to index.
+     * @param charset the file's charset.
+     * @return the file's line index.
+     * @throws NullPointerException     if one of the arguments is {@code null}.
+     * @throws IllegalArgumentException if {@code charset} isn't supported.
+     * @throws IOException              if {@code f} does not exist, or if it is a
+     *                                  directory rather than a regular file, or if it can't be read.
+     * @throws SecurityException        if a security manager exists and denies
+     *                                  read access to {@code f}.
+     */
+    public static LineIndex build(File f, Charset charset) throws IOException {
+        return build(f, charset, 1);
+    }
+
+    /**
+     * Builds the line index of the given {@code File} using the specified
+     * charset, scanning up to {@code threads} segments of the file in
+     * parallel.
+     *
+     * @param f       the file to index.
+     * @param charset the file's charset.
+     * @param threads the maximum number of segments to scan in parallel.
+     * @return the file's line index.
+     * @throws NullPointerException     if one of the arguments is {@code null}.
+     * @throws IllegalArgumentException if {@code charset} isn't supported or
+     *                                  if {@code threads} is not positive.
+     * @throws InterruptedIOException   if the calling thread is interrupted
+     *                                  while waiting for the scans.
+     * @throws IOException              if {@code f} does not exist, or if it is a
+     *                                  directory rather than a regular file, or if it can't be read.
+     * @throws SecurityException        if a security manager exists and denies
+     *                                  read access to {@code f}.
+     */
+    public static LineIndex build(File f, Charset charset, int threads)
+            throws IOException {
+        Parameters.checkCondition(threads > 0);
+        Parameters.checkCondition(TextFiles.hasAsciiLineBreaks(charset));
+        FileInputStream in = new FileInputStream(f);
+        try {
+            FileChannel channel = in.getChannel();
+            long length = channel.size();
+            LongArrayList starts = new LongArrayList();
+            if (length > 0) {
+                starts.add(0);
+                for (LongArrayList segment : scan(channel, length, threads)) {
+                    starts.addAll(segment);
+                }
+                if (starts.get(starts.size() - 1) == length) {
+                    starts.removeAt(starts.size() - 1);
+                }
+            }
+            return new LineIndex(in, charset, length, starts.trimToSize());
+        } catch (IOException ex) {
+            IO.close(in);
+            throw ex;
+        } catch (RuntimeException ex) {
+            IO.close(in);
+            throw ex;
+        }
+    }
+
+    private static List<LongArrayList> scan(final FileChannel channel,
+                                            final long length, int threads) throws IOException {
+        int segments = (int) ((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        List<LongArrayList> results = new ArrayList<LongArrayList>(segments);
+        if (threads == 1 || segments == 1) {
+            for (int i = 0; i < segments; i++) {
+                results.add(scan(channel, i * SEGMENT_SIZE,
+                        Math.min((i + 1) * SEGMENT_SIZE, length), length));
+            }
+            return results;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(threads, segments));
+        try {
+            List<Future<LongArrayList>> futures =
+                    new ArrayList<Future<LongArrayList>>(segments);
+            for (int i = 0; i < segments; i++) {
+                final long from = i * SEGMENT_SIZE;
+                final long to = Math.min(from + SEGMENT_SIZE, length);
+                futures.add(executor.submit(new Callable<LongArrayList>() {
+                    @Override
+                    public LongArrayList call() throws IOException {
+                        return scan(channel, from, to, length);
+                    }
+                }));
+            }
+            for (Future<LongArrayList> future : futures) {
+                results.add(await(future));
+            }
+            return results;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /*
+     * Returns the offsets of the lines starting after a terminator located
+     * in [from, to). The byte following the segment is mapped too, to tell
+     * a lone '\r' from a "\r\n" pair split across two segments.
+     */
+    private static LongArrayList scan(FileChannel channel, long from, long to,
+                                      long length) throws IOException {
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY,
+                from, Math.min(to + 1, length) - from);
+        LongArrayList starts = new LongArrayList();
+        int n = (int) (to - from);
+        for (int i = 0; i < n; i++) {
+            byte b = map.get(i);
+            if (b == '\n') {
+                starts.add(from + i + 1);
+            } else if (b == '\r'
+                    && (i + 1 == map.limit() || map.get(i + 1) != '\n')) {
+                starts.add(from + i + 1);
+            }
+        }
+        return starts;
+    }
+
+    private static <T> T await(Future<T> future)
+            throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw Throwables.propagate(ex.getCause());
+        }
+    }
+
+    private final FileInputStream in;
+    private final FileChannel channel;
+    private final Charset charset;
+    private final long length;
+    private final LongArrayList starts;
+
+    private LineIndex(FileInputStream in, Charset charset, long length,
+                      LongArrayList starts) {
+        this.in = in;
+        this.channel = in.getChannel();
+        this.charset = charset;
+        this.length = length;
+        this.starts = starts;
+    }
+
+    /**
+     * Returns the number of lines of the indexed file.
+     *
+     * @return the number of lines.
+     */
+    public int size() {
+        return starts.size();
+    }
+
+    /**
+     * Returns the length of the indexed file, in bytes, at the time it was
+     * indexed.
+     *
+     * @return the file's length.
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Returns the offset, in bytes, at which the given line starts.
+     *
+     * @param k the line number, starting from 0.
+     * @return the offset of the line.
+     * @throws IndexOutOfBoundsException if {@code k} is negative or if it
+     *                                   isn't lower than {@code size()}.
+     */
+    public long offset(int k) {
+        return starts.get(k);
+    }
+
+    /**
+     * Returns the given line, without its terminator.
+     *
+     * @param k the line number, starting from 0.
+     * @return the requested line.
+     * @throws IndexOutOfBoundsException if {@code k} is negative or if it
+     *                                   isn't lower than {@code size()}.
+     * @throws IOException               if the file can't be read.
+     */
+    public String line(int k) throws IOException {
+        return lines(k, k + 1).get(0);
+    }
+
+    /**
+     * Returns the lines from {@code from} (inclusive) to {@code to}
+     * (exclusive), without their terminators. The lines are read at once.
+     *
+     * @param from the number of the first line, starting from 0.
+     * @param to   the number following the one of the last line.
+     * @return the requested lines.
+     * @throws IndexOutOfBoundsException if {@code from} is negative, if
+     *                                   {@code to} is greater than {@code size()} or if
+     *                                   {@code from > to}.
+     * @throws IOException               if the file can't be read.
+     */
+    public List<String> lines(int from, int to) throws IOException {
+        if (from < 0 || to > starts.size() || from > to) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (from == to) {
+            return Collections.emptyList();
+        }
+        long base = starts.get(from);
+        byte[] data = read(base, end(to - 1) - base);
+        List<String> lines = new ArrayList<String>(to - from);
+        for (int k = from; k < to; k++) {
+            int off = (int) (starts.get(k) - base);
+            int len = (int) (end(k) - base) - off;
+            if (len > 0 && data[off + len - 1] == '\n') {
+                len--;
+            }
+            if (len > 0 && data[off + len - 1] == '\r') {
+                len--;
+            }
+            lines.add(new String(data, off, len, charset));
+        }
+        return Collections.unmodifiableList(lines);
+    }
+
+    /**
+     * Closes the indexed file.
+     */
+    @Override
+    public void close() {
+        IO.close(in);
+    }
+
+    @Override
+    public String toString() {
+        return XObjects.toStringBuilder("LineIndex")
+                .append("lines", starts.size())
+                .append("length", length)
+                .append("charset", charset)
+                .toString();
+    }
+
+    private long end(int k) {
+        return k + 1 < starts.size() ? starts.get(k + 1) : length;
+    }
+
+    private byte[] read(long pos, long len) throws IOException {
+        Parameters.checkCondition(len <= Integer.MAX_VALUE - 8);
+        ByteBuffer buf = ByteBuffer.allocate((int) len);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, pos + buf.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        return buf.array();
+    }
+}
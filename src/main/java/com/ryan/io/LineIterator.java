@@ -0,0 +1,79 @@
+package com.ryan.io;
+
+import com.ryan.util.Throwables;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.Reader;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily reads the lines of a character stream, one at a time, so that
+ * arbitrarily large inputs can be processed in constant memory. Lines are
+ * delimited as by {@link BufferedReader#readLine()}. The underlying stream
+ * is closed once fully read, or when {@link #close()} is called. I/O errors
+ * are rethrown wrapped in a {@code RuntimeException}. Not thread-safe.
+ *
+ * @author Ryan Tao
+ * @see TextFiles#lines(java.io.File)
+ * @see CharStreams#lines(Reader)
+ */
+public final class LineIterator implements Iterator<String>, Closeable {
+    private final BufferedReader reader;
+    private String next;
+    private boolean closed;
+
+    /**
+     * Creates a new {@code LineIterator} reading the given stream.
+     *
+     * @param in the stream to read.
+     * @throws NullPointerException if {@code in} is {@code null}.
+     */
+    public LineIterator(Reader in) {
+        this.reader = in instanceof BufferedReader
+                ? (BufferedReader) in : new BufferedReader(in);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !closed) {
+            try {
+                next = reader.readLine();
+            } catch (IOException ex) {
+                close();
+                throw Throwables.propagate(ex);
+            }
+            if (next == null) {
+                close();
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String line = next;
+        next = null;
+        return line;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Closes the underlying stream. The iteration ends, unless a line has
+     * already been read ahead by {@link #hasNext()}.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        IO.close(reader);
+    }
+}
@@ -0,0 +1,611 @@
+package com.ryan.io;
+
+import com.ryan.charset.Charsets;
+import com.ryan.util.Parameters;
+import com.ryan.util.XObjects;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows a growing text file, as {@code tail -f} does, delivering its new
+ * lines to a {@link TailListener} by batches. The file is tracked by its
+ * key (its inode on Unix systems) and by the position reached in it: when
+ * the file is rotated, that is, replaced by a new file of the same name, the
+ * rest of the old file is read before the new one is followed from its
+ * start; when the file is truncated, it is followed again from its start.
+ * New data is read incrementally into a single reused buffer, and lines
+ * terminated by {@code '\n'} or {@code "\r\n"} are delivered once their
+ * terminator has been written, by batches of at most {@code batchSize}
+ * lines, a partial batch being delivered once its oldest line has waited
+ * for {@code maxDelay}. Only the charsets encoding line terminators on
+ * single ASCII bytes (UTF-8, the ISO-8859 family, ...) are supported.
+ * <p>
+ * {@link #follow()} waits for changes using a {@link WatchService} on the
+ * file's directory, and polls the file every {@code pollInterval} anyway,
+ * which is the only way changes are noticed where no {@code WatchService}
+ * is available. {@link #poll()} reads the new data once, without waiting,
+ * for callers having their own scheduling.
+ * <p>
+ * If a checkpoint file is given, the key of the followed file and the
+ * position following the last delivered line are saved in it, atomically,
+ * every {@code checkpointInterval} and when the follower is closed; a new
+ * follower then resumes from this position if the file hasn't been
+ * rotated meanwhile. Delivery is thus at-least-once: the lines delivered
+ * after the last saved checkpoint are delivered again after a restart, and
+ * a batch whose delivery fails (the listener throws an exception, which is
+ * rethrown by {@link #poll()} or {@link #follow()}) is delivered again, with
+ * the lines read since, by the next attempt.
+ * {@code TailFollower}s are created through a {@link Builder}, and are
+ * thread-safe; the listener is called from the thread that runs
+ * {@link #follow()} or {@link #poll()}.
+ *
+ * @author Ryan Tao
+ * @see TailListener
+ */
+public final class TailFollower implements Closeable {
+    private static final int BUFFER_SIZE = 64 << 10;
+
+    /**
+     * Builder of {@link TailFollower}s.
+     */
+    public static final class Builder {
+        private final File file;
+        private final TailListener listener;
+        private Charset charset = Charsets.DEFAULT;
+        private int batchSize = 1024;
+        private long maxDelay = TimeUnit.MILLISECONDS.toNanos(200);
+        private long pollInterval = TimeUnit.SECONDS.toNanos(1);
+        private File checkpoint;
+        private long checkpointInterval = TimeUnit.SECONDS.toNanos(1);
+        private boolean startAtEnd;
+        private boolean watch = true;
+
+        /**
+         * Creates a new {@code Builder}.
+         *
+         * @param file     the file to follow.
+         * @param listener the listener to deliver the lines to.
+         * @throws NullPointerException if one of the arguments is {@code null}.
+         */
+        public Builder(File file, TailListener listener) {
+            this.file = Parameters.checkNotNull(file);
+            this.listener = Parameters.checkNotNull(listener);
+        }
+
+        /**
+         * Sets the file's charset, the system's default one by default.
+         *
+         * @param charset the file's charset.
+         * @return this object.
+         * @throws NullPointerException     if {@code charset} is {@code null}.
+         * @throws IllegalArgumentException if {@code charset} isn't supported.
+         */
+        public Builder charset(Charset charset) {
+            Parameters.checkCondition(TextFiles.hasAsciiLineBreaks(charset));
+            this.charset = charset;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of lines per batch, 1024 by default.
+         *
+         * @param batchSize the maximum size of the batches.
+         * @return this object.
+         * @throws IllegalArgumentException if {@code batchSize} is not
+         *                                  positive.
+         */
+        public Builder batchSize(int batchSize) {
+            Parameters.checkCondition(batchSize > 0);
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets how long a line may wait for its batch to fill up before
+         * the batch is delivered anyway, 200 milliseconds by default.
+         *
+         * @param delay the maximum delay, 0 to deliver the lines as soon as
+         *              they are read.
+         * @param unit  the delay's unit.
+         * @return this object.
+         * @throws NullPointerException     if {@code unit} is {@code null}.
+         * @throws IllegalArgumentException if {@code delay} is negative.
+         */
+        public Builder maxDelay(long delay, TimeUnit unit) {
+            Parameters.checkCondition(delay >= 0);
+            this.maxDelay = unit.toNanos(delay);
+            return this;
+        }
+
+        /**
+         * Sets the interval at which {@link TailFollower#follow()} polls
+         * the file when it isn't notified of any change, 1 second by
+         * default.
+         *
+         * @param interval the polling interval.
+         * @param unit     the interval's unit.
+         * @return this object.
+         * @throws NullPointerException     if {@code unit} is {@code null}.
+         * @throws IllegalArgumentException if {@code interval} is not
+         *                                  positive.
+         */
+        public Builder pollInterval(long interval, TimeUnit unit) {
+            Parameters.checkCondition(interval > 0);
+            this.pollInterval = unit.toNanos(interval);
+            return this;
+        }
+
+        /**
+         * Sets the file in which the position reached is saved, and from
+         * which it is restored. There is no checkpoint file by default.
+         *
+         * @param checkpoint the checkpoint file.
+         * @return this object.
+         * @throws NullPointerException if {@code checkpoint} is {@code null}.
+         */
+        public Builder checkpoint(File checkpoint) {
+            this.checkpoint = Parameters.checkNotNull(checkpoint);
+            return this;
+        }
+
+        /**
+         * Sets the minimum interval between two checkpoints, 1 second by
+         * default.
+         *
+         * @param interval the checkpoint interval, 0 to save a checkpoint
+         *                 on each poll.
+         * @param unit     the interval's unit.
+         * @return this object.
+         * @throws NullPointerException     if {@code unit} is {@code null}.
+         * @throws IllegalArgumentException if {@code interval} is negative.
+         */
+        public Builder checkpointInterval(long interval, TimeUnit unit) {
+            Parameters.checkCondition(interval >= 0);
+            this.checkpointInterval = unit.toNanos(interval);
+            return this;
+        }
+
+        /**
+         * Sets whether, in the absence of a usable checkpoint, the file is
+         * followed from its current end rather than from its start. Files
+         * are followed from their start by default. Files replacing a
+         * rotated one are always followed from their start.
+         *
+         * @param startAtEnd whether to skip the file's current content.
+         * @return this object.
+         */
+        public Builder startAtEnd(boolean startAtEnd) {
+            this.startAtEnd = startAtEnd;
+            return this;
+        }
+
+        /**
+         * Sets whether {@link TailFollower#follow()} uses a
+         * {@link WatchService}, or only polls the file. A {@code WatchService}
+         * is used by default, when available.
+         *
+         * @param watch whether to watch the file's directory.
+         * @return this object.
+         */
+        public Builder watch(boolean watch) {
+            this.watch = watch;
+            return this;
+        }
+
+        /**
+         * Creates a new {@code TailFollower} from this builder's settings,
+         * restoring the position saved in the checkpoint file, if any. The
+         * followed file doesn't need to exist yet.
+         *
+         * @return the created {@code TailFollower}.
+         * @throws IOException if the checkpoint file exists but can't be
+         *                     read.
+         */
+        public TailFollower build() throws IOException {
+            return new TailFollower(this);
+        }
+    }
+
+    private final Path path;
+    private final TailListener listener;
+    private final Charset charset;
+    private final int batchSize;
+    private final long maxDelay;
+    private final long pollInterval;
+    private final Path checkpoint;
+    private final long checkpointInterval;
+    private final boolean startAtEnd;
+    private final boolean watch;
+
+    private String restoredKey;
+    private long restoredPosition;
+
+    private FileChannel channel;
+    private Object key;
+    private long readPosition;
+    private long pendingPosition;
+    private long deliveredPosition;
+    private byte[] buf;
+    private ByteBuffer window;
+    private int buffered;
+    private int scanned;
+    private List<String> pending;
+    private long pendingSince;
+    private Object savedKey;
+    private long savedPosition = -1;
+    private long savedAt;
+    private volatile WatchService watcher;
+    private volatile boolean closed;
+
+    private TailFollower(Builder builder) throws IOException {
+        this.path = builder.file.toPath();
+        this.listener = builder.listener;
+        this.charset = builder.charset;
+        this.batchSize = builder.batchSize;
+        this.maxDelay = builder.maxDelay;
+        this.pollInterval = builder.pollInterval;
+        this.checkpoint = builder.checkpoint == null
+                ? null : builder.checkpoint.toPath();
+        this.checkpointInterval = builder.checkpointInterval;
+        this.startAtEnd = builder.startAtEnd;
+        this.watch = builder.watch;
+        this.buf = new byte[BUFFER_SIZE];
+        this.window = ByteBuffer.wrap(buf);
+        this.pending = new ArrayList<String>(Math.min(batchSize, 1024));
+        this.savedAt = System.nanoTime();
+        restore();
+    }
+
+    /**
+     * Follows the file until this follower is closed, delivering its new
+     * lines as they are written. This method blocks the calling thread.
+     *
+     * @throws InterruptedIOException if the calling thread is interrupted.
+     * @throws IOException            if the file can't be read, or if the
+     *                                checkpoint can't be saved.
+     */
+    public void follow() throws IOException {
+        if (watch) {
+            watcher = newWatcher();
+        }
+        try {
+            while (!closed) {
+                if (poll() > 0) {
+                    continue;
+                }
+                await(nextTimeout());
+            }
+        } finally {
+            IO.close(watcher);
+        }
+    }
+
+    /**
+     * Reads the data written to the file since the last call, without
+     * waiting, and delivers the full batches as well as the partial one
+     * whose oldest line has waited long enough. Handles the rotation and
+     * the truncation of the file, and saves a checkpoint if one is due.
+     *
+     * @return the number of lines read, 0 if this follower is closed.
+     * @throws IOException if the file can't be read, or if the checkpoint
+     *                     can't be saved.
+     */
+    public synchronized int poll() throws IOException {
+        if (closed) {
+            return 0;
+        }
+        int count = 0;
+        BasicFileAttributes attrs = attributes();
+        Object current = attrs == null ? null : keyOf(attrs);
+        if (channel == null) {
+            if (current == null) {
+                return 0;
+            }
+            open(current, initialPosition(current, attrs.size()));
+        } else if (current != null && !current.equals(key)) {
+            count += read(true);
+            flush();
+            closeChannel();
+            open(current, 0);
+        } else if (channel.size() < readPosition) {
+            flush();
+            reset(0);
+        }
+        count += read(false);
+        if (!pending.isEmpty() && System.nanoTime() - pendingSince >= maxDelay) {
+            flush();
+        }
+        if (checkpoint != null
+                && System.nanoTime() - savedAt >= checkpointInterval) {
+            save();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the position following the last delivered line in the
+     * currently followed file, that is, the position that the next
+     * checkpoint will record.
+     *
+     * @return the position reached in the file.
+     */
+    public synchronized long position() {
+        return deliveredPosition;
+    }
+
+    /**
+     * Stops following the file. The lines already read are delivered, the
+     * checkpoint is saved, and {@link #follow()} returns.
+     *
+     * @throws IOException if the checkpoint can't be saved.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        IO.close(watcher);
+        synchronized (this) {
+            try {
+                flush();
+                if (checkpoint != null) {
+                    save();
+                }
+            } finally {
+                closeChannel();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return XObjects.toStringBuilder("TailFollower")
+                .append("file", path)
+                .append("position", position())
+                .append("batchSize", batchSize)
+                .append("checkpoint", checkpoint)
+                .toString();
+    }
+
+    /*
+     * Reads the channel up to its current end, queueing the complete lines.
+     * At the end of a rotated file, the trailing unterminated line is
+     * queued too, since nothing will ever be appended to it.
+     */
+    private int read(boolean last) throws IOException {
+        int count = scan();
+        while (true) {
+            if (buffered == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+                window = ByteBuffer.wrap(buf);
+            }
+            window.limit(buf.length).position(buffered);
+            int n = channel.read(window, readPosition);
+            if (n <= 0) {
+                break;
+            }
+            readPosition += n;
+            buffered += n;
+            count += scan();
+        }
+        if (last && buffered > 0) {
+            int len = buffered;
+            buffered = 0;
+            scanned = 0;
+            count++;
+            queue(0, len, readPosition);
+        }
+        return count;
+    }
+
+    /*
+     * Queues the complete lines of the buffer and moves the partial line
+     * that follows them to its start. The buffer is left consistent even
+     * if a flush fails midway: the lines that couldn't be queued yet stay
+     * in it, and are scanned again by the next read.
+     */
+    private int scan() {
+        int count = 0;
+        int start = 0;
+        boolean complete = false;
+        long base = readPosition - buffered;
+        try {
+            for (int i = scanned; i < buffered; i++) {
+                if (buf[i] == '\n') {
+                    int from = start;
+                    start = i + 1;
+                    count++;
+                    queue(from, i, base + start);
+                }
+            }
+            complete = true;
+        } finally {
+            buffered -= start;
+            System.arraycopy(buf, start, buf, 0, buffered);
+            scanned = complete ? buffered : 0;
+        }
+        return count;
+    }
+
+    private void queue(int from, int to, long next) {
+        if (to > from && buf[to - 1] == '\r') {
+            to--;
+        }
+        if (pending.isEmpty()) {
+            pendingSince = System.nanoTime();
+        }
+        pending.add(new String(buf, from, to - from, charset));
+        pendingPosition = next;
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /*
+     * Delivers the pending lines. They are only dropped, and the delivered
+     * position moved past them, once the listener has returned normally:
+     * if it throws, they are delivered again by the next flush.
+     */
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        listener.onLines(new ArrayList<String>(pending));
+        pending.clear();
+        deliveredPosition = pendingPosition;
+    }
+
+    private void open(Object current, long position) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        key = current;
+        reset(position);
+    }
+
+    private void reset(long position) {
+        readPosition = position;
+        pendingPosition = position;
+        deliveredPosition = position;
+        buffered = 0;
+        scanned = 0;
+    }
+
+    private void closeChannel() {
+        IO.close(channel);
+        channel = null;
+    }
+
+    private long initialPosition(Object current, long size) {
+        String restored = restoredKey;
+        restoredKey = null;
+        if (restored != null && restored.equals(current.toString())) {
+            return restoredPosition <= size ? restoredPosition : 0;
+        }
+        return startAtEnd ? size : 0;
+    }
+
+    private BasicFileAttributes attributes() throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    private static Object keyOf(BasicFileAttributes attrs) {
+        Object key = attrs.fileKey();
+        return key != null ? key : attrs.creationTime();
+    }
+
+    private void restore() throws IOException {
+        if (checkpoint == null || !Files.exists(checkpoint)) {
+            return;
+        }
+        List<String> lines = Files.readAllLines(checkpoint, Charsets.UTF_8);
+        if (lines.size() >= 2) {
+            try {
+                restoredPosition = Long.parseLong(lines.get(1));
+                restoredKey = lines.get(0);
+            } catch (NumberFormatException ex) {
+                throw new IOException("Invalid checkpoint: " + checkpoint);
+            }
+        }
+    }
+
+    /*
+     * Writes the checkpoint to a temporary file, which is then renamed, so
+     * that a crash never leaves a partial checkpoint behind.
+     */
+    private void save() throws IOException {
+        savedAt = System.nanoTime();
+        if (key == null || (key.equals(savedKey)
+                && deliveredPosition == savedPosition)) {
+            return;
+        }
+        Path tmp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        String data = key + "\n" + deliveredPosition + "\n";
+        Files.write(tmp, data.getBytes(Charsets.UTF_8));
+        try {
+            Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING);
+        }
+        savedKey = key;
+        savedPosition = deliveredPosition;
+    }
+
+    private synchronized long nextTimeout() {
+        if (pending.isEmpty()) {
+            return pollInterval;
+        }
+        long left = pendingSince + maxDelay - System.nanoTime();
+        return Math.max(0, Math.min(left, pollInterval));
+    }
+
+    private WatchService newWatcher() {
+        WatchService service = null;
+        try {
+            Path dir = path.toAbsolutePath().getParent();
+            service = FileSystems.getDefault().newWatchService();
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            return service;
+        } catch (IOException ex) {
+            IO.close(service);
+            return null;
+        } catch (UnsupportedOperationException ex) {
+            IO.close(service);
+            return null;
+        }
+    }
+
+    /*
+     * Waits for a change in the file's directory, or for the timeout. The
+     * events themselves are ignored: the file is polled after any of them.
+     */
+    private void await(long timeout) throws IOException {
+        if (timeout == 0 || closed) {
+            return;
+        }
+        try {
+            WatchService service = watcher;
+            if (service == null) {
+                TimeUnit.NANOSECONDS.sleep(timeout);
+                return;
+            }
+            WatchKey change = service.poll(timeout, TimeUnit.NANOSECONDS);
+            if (change != null) {
+                change.pollEvents();
+                change.reset();
+            }
+        } catch (ClosedWatchServiceException ex) {
+            return;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+}
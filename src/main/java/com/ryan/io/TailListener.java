@@ -0,0 +1,19 @@
+package com.ryan.io;
+
+import java.util.List;
+
+/**
+ * Receives the lines appended to a file followed by a {@link TailFollower},
+ * by batches, in file order.
+ *
+ * @author Ryan Tao
+ */
+public interface TailListener {
+    /**
+     * Called with each batch of new lines, without their terminators. The
+     * given list belongs to the listener.
+     *
+     * @param lines the new lines, never empty.
+     */
+    void onLines(List<String> lines);
+}
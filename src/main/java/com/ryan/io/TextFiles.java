@@ -2,22 +2,37 @@ package com.ryan.io;
 
 import com.ryan.charset.Charsets;
 import com.ryan.util.Parameters;
+import com.ryan.util.Throwables;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Text files utilities.
@@ -26,6 +41,10 @@ import java.util.List;
  * @see XFiles
  */
 public final class TextFiles {
+    private static final int TAIL_BLOCK_SIZE = 64 << 10;
+    private static final int LINE_BUFFER_SIZE = 64 << 10;
+    private static final long LINE_CHUNK_SIZE = 8L << 20;
+
     /**
      * Returns the first (up to 10) lines of the given {@code File} using
      * the system's default charset. Named after the Unix command of the
@@ -167,7 +186,11 @@ public final class TextFiles {
 
     /**
      * Returns the last (up to n) lines of the given {@code File} using the
-     * specified charset. Named after the Unix command of the same name.
+     * specified charset. Named after the Unix command of the same name. If
+     * the charset encodes line terminators on single ASCII bytes (UTF-8, the
+     * ISO-8859 family, ...), the file is scanned backwards from its end and
+     * only the needed suffix is decoded, so the cost doesn't depend on the
+     * file's size.
      *
      * @param f       the {@code File} to read.
      * @param n       the maximum number of lines to read.
@@ -183,24 +206,101 @@ public final class TextFiles {
     public static List<String> tail(File f, int n, Charset charset)
             throws IOException {
         Parameters.checkCondition(n >= 0);
+        Parameters.checkNotNull(charset);
         if (n == 0) {
             return Collections.emptyList();
         }
-        List<String> lines = new LinkedList<String>();
-        BufferedReader reader = newReader(f, charset);
+        if (!hasAsciiLineBreaks(charset)) {
+            return tailForward(f, n, charset);
+        }
+        FileInputStream in = new FileInputStream(f);
         try {
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            long start = findLineStart(channel, size, n);
+            channel.position(start);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    ByteStreams.limit(in, size - start), charset));
+            List<String> lines = new ArrayList<String>(n);
             String line = reader.readLine();
             while (line != null) {
                 lines.add(line);
-                if (lines.size() > n) {
-                    lines.remove(0);
+                line = reader.readLine();
+            }
+            return Collections.unmodifiableList(lines);
+        } finally {
+            IO.close(in);
+        }
+    }
+
+    /*
+     * Returns the offset of the first of the last n lines of the file, that
+     * is the offset following the n-th line terminator found when scanning
+     * backwards from the end, ignoring a terminator that ends the file.
+     */
+    private static long findLineStart(FileChannel channel, long size, int n)
+            throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(
+                (int) Math.min(TAIL_BLOCK_SIZE, Math.max(size, 1)));
+        long end = size;
+        int next = -1;
+        int count = 0;
+        boolean first = true;
+        while (end > 0) {
+            long pos = Math.max(0, end - buf.capacity());
+            buf.clear().limit((int) (end - pos));
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, pos + buf.position()) < 0) {
+                    throw new EOFException();
+                }
+            }
+            for (int i = (int) (end - pos) - 1; i >= 0; i--) {
+                int b = buf.get(i);
+                boolean terminator = b == '\n' || (b == '\r' && next != '\n');
+                if (terminator && !first && ++count == n) {
+                    return pos + i + 1;
+                }
+                next = b;
+                first = false;
+            }
+            end = pos;
+        }
+        return 0;
+    }
+
+    private static List<String> tailForward(File f, int n, Charset charset)
+            throws IOException {
+        Deque<String> lines = new ArrayDeque<String>(n);
+        BufferedReader reader = newReader(f, charset);
+        try {
+            String line = reader.readLine();
+            while (line != null) {
+                if (lines.size() == n) {
+                    lines.removeFirst();
                 }
+                lines.addLast(line);
                 line = reader.readLine();
             }
         } finally {
             IO.close(reader);
         }
-        return Collections.unmodifiableList(lines);
+        return Collections.unmodifiableList(new ArrayList<String>(lines));
+    }
+
+    /*
+     * Whether '\n' and '\r' are encoded as the single bytes 0x0A and 0x0D,
+     * which then can't be part of any other character's encoding in the
+     * ASCII-compatible charsets we care about.
+     */
+    static boolean hasAsciiLineBreaks(Charset charset) {
+        if (!charset.canEncode()) {
+            return false;
+        }
+        byte[] lf = "\n".getBytes(charset);
+        byte[] cr = "\r".getBytes(charset);
+        byte[] a = "a".getBytes(charset);
+        return lf.length == 1 && lf[0] == '\n' && cr.length == 1 && cr[0] == '\r'
+                && a.length == 1 && a[0] == 'a';
     }
 
     /**
@@ -363,6 +463,289 @@ public final class TextFiles {
         }
     }
 
+    /**
+     * Returns an iterator lazily reading the lines of the given
+     * {@code File} using the system's default charset. Unlike
+     * {@link #readLines(File)}, the lines aren't materialized. The file is
+     * closed once fully read or when the iterator is closed.
+     *
+     * @param f the file to read.
+     * @return an iterator over the file's lines.
+     * @throws NullPointerException  if {@code f} is {@code null}.
+     * @throws FileNotFoundException if {@code f} doesn't exist, or if it is
+     *                               a directory rather than a regular file, or if it can't be opened
+     *                               for reading.
+     * @throws SecurityException     if a security manager exists and denies
+     *                               read access to {@code f}.
+     */
+    public static LineIterator lines(File f) throws FileNotFoundException {
+        return lines(f, Charsets.DEFAULT);
+    }
+
+    /**
+     * Returns an iterator lazily reading the lines of the given
+     * {@code File} using the specified charset. Unlike
+     * {@link #readLines(File, Charset)}, the lines aren't materialized. The
+     * file is closed once fully read or when the iterator is closed.
+     *
+     * @param f       the file to read.
+     * @param charset the charset to use.
+     * @return an iterator over the file's lines.
+     * @throws NullPointerException  if one of the arguments is {@code null}.
+     * @throws FileNotFoundException if {@code f} doesn't exist, or if it is
+     *                               a directory rather than a regular file, or if it can't be opened
+     *                               for reading.
+     * @throws SecurityException     if a security manager exists and denies
+     *                               read access to {@code f}.
+     */
+    public static LineIterator lines(File f, Charset charset)
+            throws FileNotFoundException {
+        return new LineIterator(newReader(f, charset));
+    }
+
+    /**
+     * Hands each line of the given {@code File}, decoded using the
+     * system's default charset, to the given handler, processing up to
+     * {@code threads} chunks of the file in parallel. Lines are handed out
+     * as {@code String}s, in no particular order.
+     *
+     * @param f       the file to read.
+     * @param handler the handler to call for each line.
+     * @param threads the maximum number of chunks to process in parallel.
+     * @throws NullPointerException     if one of the arguments is {@code null}.
+     * @throws IllegalArgumentException if {@code threads} is not positive.
+     * @throws InterruptedIOException   if the calling thread is interrupted
+     *                                  while waiting for the chunks.
+     * @throws IOException              if {@code f} does not exist, or if it is a
+     *                                  directory rather than a regular file, or if it can't be read.
+     * @throws SecurityException        if a security manager exists and denies
+     *                                  read access to {@code f}.
+     */
+    public static void forEachLineParallel(File f, LineHandler handler,
+                                           int threads) throws IOException {
+        forEachLineParallel(f, Charsets.DEFAULT, threads, false, handler);
+    }
+
+    /**
+     * Hands each line of the given {@code File}, decoded using the
+     * specified charset, to the given handler, in no particular order. The
+     * file is split into byte ranges aligned on line boundaries, which are
+     * decoded and processed by up to {@code threads} threads. If
+     * {@code reuseBuffers} is {@code true}, lines are handed out as views
+     * over a per-thread buffer, only valid during the call, so that no
+     * {@code String} is allocated per line. Charsets that don't encode line
+     * terminators on single ASCII bytes (UTF-16, ...) can't be split, and
+     * are processed sequentially. The processing stops at the first
+     * failure, which is rethrown; this method returns once all lines have
+     * been handled.
+     *
+     * @param f            the file to read.
+     * @param charset      the charset to use.
+     * @param threads      the maximum number of chunks to process in parallel.
+     * @param reuseBuffers whether to hand out reused {@code CharSequence}s.
+     * @param handler      the handler to call for each line.
+     * @throws NullPointerException     if one of the arguments is {@code null}.
+     * @throws IllegalArgumentException if {@code threads} is not positive.
+     * @throws InterruptedIOException   if the calling thread is interrupted
+     *                                  while waiting for the chunks.
+     * @throws IOException              if {@code f} does not exist, or if it is a
+     *                                  directory rather than a regular file, or if it can't be read.
+     * @throws SecurityException        if a security manager exists and denies
+     *                                  read access to {@code f}.
+     */
+    public static void forEachLineParallel(File f, final Charset charset,
+                                           int threads, final boolean reuseBuffers, final LineHandler handler)
+            throws IOException {
+        Parameters.checkCondition(threads > 0);
+        Parameters.checkNotNull(handler);
+        if (!hasAsciiLineBreaks(charset)) {
+            BufferedReader reader = newReader(f, charset);
+            try {
+                String line = reader.readLine();
+                while (line != null) {
+                    handler.onLine(line);
+                    line = reader.readLine();
+                }
+            } finally {
+                IO.close(reader);
+            }
+            return;
+        }
+        FileInputStream in = new FileInputStream(f);
+        try {
+            final FileChannel channel = in.getChannel();
+            final long length = channel.size();
+            int chunks = (int) Math.max(1,
+                    (length + LINE_CHUNK_SIZE - 1) / LINE_CHUNK_SIZE);
+            if (threads == 1 || chunks == 1) {
+                new LineChunk(channel, length, charset, reuseBuffers)
+                        .process(0, length, handler);
+                return;
+            }
+            processChunks(channel, length, charset, Math.min(threads, chunks),
+                    chunks, reuseBuffers, handler);
+        } finally {
+            IO.close(in);
+        }
+    }
+
+    private static void processChunks(final FileChannel channel,
+                                      final long length, final Charset charset, int threads, int chunks,
+                                      final boolean reuseBuffers, final LineHandler handler)
+            throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                final long from = i * LINE_CHUNK_SIZE;
+                final long to = Math.min(from + LINE_CHUNK_SIZE, length);
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        new LineChunk(channel, length, charset, reuseBuffers)
+                                .process(from, to, handler);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw Throwables.propagate(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /*
+     * Reads the lines starting in a given byte range through a sliding
+     * window over the file. A line starts at 0 and after each terminator,
+     * so that every line is processed by exactly one range.
+     */
+    private static final class LineChunk {
+        private final FileChannel channel;
+        private final long length;
+        private final Charset charset;
+        private final CharsetDecoder decoder;
+        private byte[] buf;
+        private ByteBuffer bytes;
+        private long bufPos;
+        private int bufLen;
+        private CharBuffer chars;
+
+        LineChunk(FileChannel channel, long length, Charset charset,
+                  boolean reuseBuffers) {
+            this.channel = channel;
+            this.length = length;
+            this.charset = charset;
+            this.decoder = reuseBuffers ? charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE) : null;
+            this.buf = new byte[LINE_BUFFER_SIZE];
+            this.bytes = ByteBuffer.wrap(buf);
+        }
+
+        void process(long from, long to, LineHandler handler)
+                throws IOException {
+            long pos = from;
+            while (pos > 0 && pos < length && !isLineStart(pos)) {
+                pos++;
+            }
+            while (pos < to && pos < length) {
+                pos = processLine(pos, handler);
+            }
+        }
+
+        private boolean isLineStart(long pos) throws IOException {
+            int prev = byteAt(pos - 1, pos - 1);
+            return prev == '\n' || (prev == '\r' && byteAt(pos - 1, pos) != '\n');
+        }
+
+        private long processLine(long pos, LineHandler handler)
+                throws IOException {
+            long end = pos;
+            while (load(pos, end)) {
+                int i = (int) (end - bufPos);
+                while (i < bufLen && buf[i] != '\n' && buf[i] != '\r') {
+                    i++;
+                }
+                end = bufPos + i;
+                if (i < bufLen) {
+                    break;
+                }
+            }
+            handler.onLine(decode((int) (pos - bufPos), (int) (end - pos)));
+            if (end >= length) {
+                return length;
+            }
+            if (byteAt(end, end) == '\r' && byteAt(end, end + 1) == '\n') {
+                return end + 2;
+            }
+            return end + 1;
+        }
+
+        private CharSequence decode(int off, int len) {
+            if (decoder == null) {
+                return new String(buf, off, len, charset);
+            }
+            int capacity = (int) Math.ceil(len * (double) decoder.maxCharsPerByte());
+            if (chars == null || chars.capacity() < capacity) {
+                chars = CharBuffer.allocate(Math.max(capacity, 256));
+            }
+            bytes.limit(off + len).position(off);
+            chars.clear();
+            decoder.reset();
+            decoder.decode(bytes, chars, true);
+            decoder.flush(chars);
+            chars.flip();
+            return chars;
+        }
+
+        private int byteAt(long keep, long pos) throws IOException {
+            return load(keep, pos) ? buf[(int) (pos - bufPos)] : -1;
+        }
+
+        /*
+         * Makes sure the window holds the bytes from keep to pos, both
+         * inclusive, and returns false if pos is past the end of the file.
+         */
+        private boolean load(long keep, long pos) throws IOException {
+            if (pos >= length) {
+                return false;
+            }
+            if (keep >= bufPos && pos < bufPos + bufLen) {
+                return true;
+            }
+            if (keep >= bufPos && keep <= bufPos + bufLen) {
+                int shift = (int) (keep - bufPos);
+                System.arraycopy(buf, shift, buf, 0, bufLen - shift);
+                bufLen -= shift;
+            } else {
+                bufLen = 0;
+            }
+            bufPos = keep;
+            if (pos - bufPos >= buf.length) {
+                buf = Arrays.copyOf(buf, (int) Math.max(2L * buf.length, pos - bufPos + 1));
+                bytes = ByteBuffer.wrap(buf);
+            }
+            bytes.limit((int) Math.min(buf.length, length - bufPos)).position(bufLen);
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, bufPos + bytes.position()) < 0) {
+                    throw new EOFException();
+                }
+            }
+            bufLen = bytes.position();
+            return true;
+        }
+    }
+
     private TextFiles() {
         /* ... */
     }
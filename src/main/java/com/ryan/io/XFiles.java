@@ -17,7 +17,11 @@
 package com.ryan.io;
 
 import com.ryan.collection.ImmutableSet;
+import com.ryan.security.Algorithm;
+import com.ryan.security.Digest;
+import com.ryan.security.Digests;
 import com.ryan.util.Parameters;
+import com.ryan.util.Throwables;
 import com.ryan.util.XArrays;
 
 import static com.ryan.io.WriteOption.*;
@@ -30,11 +34,23 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * {@link File}s utilities.
@@ -43,6 +59,8 @@ import java.util.Set;
  * @see TextFiles
  */
 public final class XFiles {
+    private static final int DIGEST_BLOCK_SIZE = 1 << 20;
+
     /**
      * Copies the contents of {@code src} to {@code dst}. If {@code dst}
      * doesn't exist, it will be created. If it already exists, it can be
@@ -91,16 +109,93 @@ public final class XFiles {
         if (dst.isDirectory()) {
             cp(src, new File(dst, src.getName()));
         } else {
-            InputStream in = null;
-            OutputStream out = null;
-            try {
-                in = newInputStream(src);
-                out = newOutputStream(dst);
-                ByteStreams.copy(in, out);
-            } finally {
-                IO.close(in);
-                IO.close(out);
+            transfer(src, dst);
+        }
+    }
+
+    /*
+     * ByteStreams.copy moves the bytes through FileChannel.transferTo, and
+     * finishes with a buffered loop whatever a short transfer left behind.
+     */
+    private static long transfer(File src, File dst) throws IOException {
+        FileInputStream in = null;
+        FileOutputStream out = null;
+        try {
+            in = new FileInputStream(src);
+            out = new FileOutputStream(dst);
+            return ByteStreams.copy(in, out);
+        } finally {
+            IO.close(in);
+            IO.close(out);
+        }
+    }
+
+    /**
+     * Copies the contents of {@code src} to {@code dst}, as
+     * {@link #cp(File, File)} does, but copying up to {@code threads}
+     * regular files in parallel. Directories are created by the calling
+     * thread, which walks the tree ahead of the copies, keeping a bounded
+     * number of copies pending.
+     *
+     * @param src     the source {@code File}.
+     * @param dst     the target {@code File}.
+     * @param threads the maximum number of files to copy in parallel.
+     * @throws NullPointerException     if one of the arguments is {@code null}.
+     * @throws IllegalArgumentException if {@code threads} is not positive or
+     *                                  if {@code src} is a directory and {@code dst} is a regular file.
+     * @throws IOException              if {@code src} doesn't exist or if {@code src} is
+     *                                  neither a regular file nor a directory or if an I/O error occurs
+     *                                  during the process.
+     * @throws SecurityException        if a security manager exists and denies
+     *                                  read access to {@code src} or write access to {@code dst}.
+     */
+    public static void cp(File src, File dst, int threads) throws IOException {
+        cp(src, dst, threads, new CopyListener() {
+            @Override
+            public void onCopy(File src, File dst, long bytes) {
+                /* Ignored... */
             }
+        });
+    }
+
+    /**
+     * Copies the contents of {@code src} to {@code dst}, as
+     * {@link #cp(File, File)} does, but copying up to {@code threads}
+     * regular files in parallel. Directories are created by the calling
+     * thread, which walks the tree ahead of the copies, keeping a bounded
+     * number of copies pending. Each copied file is reported to the given
+     * listener, on the calling thread. The copy stops at the first failure;
+     * this method returns once all files have been copied.
+     *
+     * @param src      the source {@code File}.
+     * @param dst      the target {@code File}.
+     * @param threads  the maximum number of files to copy in parallel.
+     * @param listener the listener to notify of the progress.
+     * @throws NullPointerException     if one of the arguments is {@code null}.
+     * @throws IllegalArgumentException if {@code threads} is not positive or
+     *                                  if {@code src} is a directory and {@code dst} is a regular file.
+     * @throws InterruptedIOException   if the calling thread is interrupted
+     *                                  while waiting for the copies.
+     * @throws IOException              if {@code src} doesn't exist or if {@code src} is
+     *                                  neither a regular file nor a directory or if an I/O error occurs
+     *                                  during the process.
+     * @throws SecurityException        if a security manager exists and denies
+     *                                  read access to {@code src} or write access to {@code dst}.
+     */
+    public static void cp(File src, File dst, int threads, CopyListener listener)
+            throws IOException {
+        Parameters.checkCondition(threads > 0);
+        Parameters.checkNotNull(listener);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            TreeCopy copy = new TreeCopy(executor, 2 * threads, listener);
+            copy.copy(src, dst);
+            copy.finish();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            executor.shutdownNow();
         }
     }
 
@@ -118,7 +213,7 @@ public final class XFiles {
      *                              access to {@code src}.
      */
     public static void cp(File src, OutputStream dst) throws IOException {
-        InputStream in = newInputStream(src);
+        InputStream in = new FileInputStream(src);
         try {
             ByteStreams.copy(in, dst);
         } finally {
@@ -140,7 +235,7 @@ public final class XFiles {
      *                              access to {@code dst}.
      */
     public static void cp(InputStream src, File dst) throws IOException {
-        OutputStream out = newOutputStream(dst);
+        OutputStream out = new FileOutputStream(dst);
         try {
             ByteStreams.copy(src, out);
         } finally {
@@ -313,19 +408,25 @@ public final class XFiles {
      * @param f the file to read.
      * @param n the maximum number of bytes to read.
      * @return the last bytes of the given {@code File}.
-     * @throws NullPointerException if {@code f} is {@code null}.
-     * @throws IOException          if {@code f} does not exist, or if it is a
-     *                              directory rather than a regular file, or if it can't be read.
-     * @throws SecurityException    if a security manager exists and denies
-     *                              read access to {@code f}.
+     * @throws NullPointerException     if {@code f} is {@code null}.
+     * @throws IllegalArgumentException if {@code n} is negative.
+     * @throws IOException              if {@code f} does not exist, or if it is a
+     *                                  directory rather than a regular file, or if it can't be read.
+     * @throws SecurityException        if a security manager exists and denies
+     *                                  read access to {@code f}.
      */
     public static byte[] tail(File f, int n) throws IOException {
         Parameters.checkCondition(n >= 0);
         RandomAccessFile file = new RandomAccessFile(f, "r");
-        file.seek(file.length() - n);
-        byte[] data = new byte[n];
-        file.read(data);
-        return data;
+        try {
+            long length = file.length();
+            byte[] data = new byte[(int) Math.min(n, length)];
+            file.seek(length - data.length);
+            file.readFully(data);
+            return data;
+        } finally {
+            IO.close(file);
+        }
     }
 
     /**
@@ -504,6 +605,242 @@ public final class XFiles {
         }
     }
 
+    /**
+     * Computes the digest of the given {@code File}'s content using the
+     * given algorithm. The file is read with positional reads, by large
+     * blocks.
+     *
+     * @param f         the file to digest.
+     * @param algorithm the digest algorithm.
+     * @return the file's digest.
+     * @throws NullPointerException     if one of the arguments is {@code null}.
+     * @throws IllegalArgumentException if the digest algorithm is unknown.
+     * @throws IOException              if {@code f} does not exist, or if it is a
+     *                                  directory rather than a regular file, or if it can't be read.
+     * @throws SecurityException        if a security manager exists and denies
+     *                                  read access to {@code f}.
+     */
+    public static byte[] digest(File f, Algorithm<Digest> algorithm)
+            throws IOException {
+        return digest(f, Digests.newDigest(algorithm));
+    }
+
+    /**
+     * Computes the digest of the given {@code File}'s content using the
+     * given {@code Digest} engine, which is reset once done (see
+     * {@link Digest#digest()}). The file is read with positional reads, by
+     * large blocks reused from one read to the next.
+     *
+     * @param f      the file to digest.
+     * @param digest the digest engine to use.
+     * @return the file's digest.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     * @throws IOException          if {@code f} does not exist, or if it is a
+     *                              directory rather than a regular file, or if it can't be read.
+     * @throws SecurityException    if a security manager exists and denies
+     *                              read access to {@code f}.
+     */
+    public static byte[] digest(File f, Digest digest) throws IOException {
+        Parameters.checkNotNull(digest);
+        FileInputStream in = new FileInputStream(f);
+        try {
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            byte[] block = new byte[(int) Math.min(DIGEST_BLOCK_SIZE, Math.max(size, 1))];
+            ByteBuffer buf = ByteBuffer.wrap(block);
+            long pos = 0;
+            int n;
+            while ((n = channel.read(buf, pos)) >= 0) {
+                digest.update(block, 0, n);
+                pos += n;
+                buf.clear();
+            }
+            return digest.digest();
+        } finally {
+            IO.close(in);
+        }
+    }
+
+    /**
+     * Computes the digests of the given {@code File}s using the given
+     * algorithm, hashing up to {@code threads} files in parallel. Results
+     * are delivered to the given listener as soon as they are available (in
+     * completion order), on the calling thread; this method returns once all
+     * files have been processed. At most {@code 2 * threads} files are
+     * queued for hashing at any time. A failure to digest a file is reported to
+     * the listener and doesn't prevent the other files from being processed.
+     *
+     * @param files     the files to digest.
+     * @param algorithm the digest algorithm.
+     * @param threads   the maximum number of files to digest in parallel.
+     * @param listener  the listener to notify of the results.
+     * @throws NullPointerException     if one of the arguments is {@code null}
+     *                                  or if {@code files} contains a {@code null} reference.
+     * @throws IllegalArgumentException if {@code threads} is not positive
+     *                                  or if the digest algorithm is unknown.
+     * @throws InterruptedIOException   if the calling thread is interrupted
+     *                                  while waiting for the results.
+     * @see #digest(File, Algorithm)
+     */
+    public static void digestAll(Collection<? extends File> files,
+                                 final Algorithm<Digest> algorithm, int threads,
+                                 DigestListener listener) throws InterruptedIOException {
+        Parameters.checkCondition(threads > 0);
+        Parameters.checkNotNull(listener);
+        Digests.newDigest(algorithm);
+        List<File> pending = new ArrayList<File>(files.size());
+        for (File f : files) {
+            pending.add(Parameters.checkNotNull(f));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(threads, pending.size())));
+        try {
+            CompletionService<FileDigest> results =
+                    new ExecutorCompletionService<FileDigest>(executor);
+            int maxPending = 2 * threads;
+            int completed = 0;
+            for (int i = 0; i < pending.size(); i++) {
+                if (i - completed >= maxPending) {
+                    notify(listener, await(results.take()));
+                    completed++;
+                }
+                final File f = pending.get(i);
+                results.submit(new Callable<FileDigest>() {
+                    @Override
+                    public FileDigest call() {
+                        try {
+                            return new FileDigest(f, digest(f, algorithm), null);
+                        } catch (IOException ex) {
+                            return new FileDigest(f, null, ex);
+                        }
+                    }
+                });
+            }
+            for (; completed < pending.size(); completed++) {
+                notify(listener, await(results.take()));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void notify(DigestListener listener, FileDigest result) {
+        if (result.error == null) {
+            listener.onDigest(result.file, result.digest);
+        } else {
+            listener.onFailure(result.file, result.error);
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            throw Throwables.propagate(ex.getCause());
+        }
+    }
+
+    private static final class TreeCopy {
+        private final CompletionService<CopiedFile> results;
+        private final int maxPending;
+        private final CopyListener listener;
+        private int pending;
+
+        TreeCopy(ExecutorService executor, int maxPending,
+                 CopyListener listener) {
+            this.results = new ExecutorCompletionService<CopiedFile>(executor);
+            this.maxPending = maxPending;
+            this.listener = listener;
+        }
+
+        void copy(File src, File dst) throws IOException, InterruptedException {
+            if (!src.exists()) {
+                throw new FileNotFoundException(src + " doesn't exist");
+            }
+            Parameters.checkCondition((!dst.exists() || dst.isDirectory())
+                    || (src.isFile() && dst.isFile()));
+            if (dst.isDirectory()) {
+                copy(src, new File(dst, src.getName()));
+            } else if (src.isDirectory()) {
+                mkdir(dst);
+                File[] files = src.listFiles();
+                if (files == null) {
+                    throw new IOException("Failed to list " + src);
+                }
+                for (File f : files) {
+                    copy(f, new File(dst, f.getName()));
+                }
+            } else if (src.isFile()) {
+                submit(src, dst);
+            } else {
+                throw new IOException(
+                        src + " is neither a directory nor a regular file");
+            }
+        }
+
+        void finish() throws IOException, InterruptedException {
+            while (pending > 0) {
+                complete();
+            }
+        }
+
+        private void submit(final File src, final File dst)
+                throws IOException, InterruptedException {
+            if (pending >= maxPending) {
+                complete();
+            }
+            results.submit(new Callable<CopiedFile>() {
+                @Override
+                public CopiedFile call() {
+                    try {
+                        return new CopiedFile(src, dst, transfer(src, dst), null);
+                    } catch (IOException ex) {
+                        return new CopiedFile(src, dst, -1, ex);
+                    }
+                }
+            });
+            pending++;
+        }
+
+        private void complete() throws IOException, InterruptedException {
+            CopiedFile result = await(results.take());
+            pending--;
+            if (result.error != null) {
+                throw result.error;
+            }
+            listener.onCopy(result.src, result.dst, result.bytes);
+        }
+    }
+
+    private static final class CopiedFile {
+        final File src;
+        final File dst;
+        final long bytes;
+        final IOException error;
+
+        CopiedFile(File src, File dst, long bytes, IOException error) {
+            this.src = src;
+            this.dst = dst;
+            this.bytes = bytes;
+            this.error = error;
+        }
+    }
+
+    private static final class FileDigest {
+        final File file;
+        final byte[] digest;
+        final IOException error;
+
+        FileDigest(File file, byte[] digest, IOException error) {
+            this.file = file;
+            this.digest = digest;
+            this.error = error;
+        }
+    }
+
     private XFiles() {
         /* ... */
     }
@@ -0,0 +1,17 @@
+package com.ryan.io.chunk;
+
+/**
+ * Receives the chunks produced by a {@link Chunker}, in stream order.
+ *
+ * @author Ryan Tao
+ */
+public interface ChunkListener {
+    /**
+     * Called for each chunk of the input.
+     *
+     * @param offset      the chunk's offset in the input, in bytes.
+     * @param length      the chunk's length, in bytes.
+     * @param fingerprint the digest of the chunk's content.
+     */
+    void onChunk(long offset, int length, byte[] fingerprint);
+}
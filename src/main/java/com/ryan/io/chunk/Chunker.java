@@ -0,0 +1,393 @@
+package com.ryan.io.chunk;
+
+import com.ryan.security.Algorithm;
+import com.ryan.security.Digest;
+import com.ryan.security.Digests;
+import com.ryan.util.Parameters;
+import com.ryan.util.Throwables;
+import com.ryan.util.XObjects;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Content-defined chunker, based on the FastCDC algorithm (Gear rolling hash
+ * with normalized chunking). Chunk boundaries only depend on the content, so
+ * that an insertion or a deletion in the input only affects the chunks around
+ * the modification, which makes it suitable for deduplication.
+ * <p>
+ * The input is read by large blocks, chunks are fingerprinted directly from
+ * these blocks (no per-chunk copy) and reported, in order, to a
+ * {@link ChunkListener}. When an {@code Executor} is given, the chunks of a
+ * block are fingerprinted in parallel while the next block is being read and
+ * cut. Instances of this class are immutable.
+ *
+ * @author Ryan Tao
+ */
+public final class Chunker {
+    private static final int BLOCK_SIZE = 4 << 20;
+    private static final int TASK_SIZE = 1 << 20;
+    private static final long[] GEAR = gear();
+
+    private static long[] gear() {
+        long[] gear = new long[256];
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < gear.length; i++) {
+            long z = (seed += 0x9E3779B97F4A7C15L);
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            gear[i] = z ^ (z >>> 31);
+        }
+        return gear;
+    }
+
+    private static long mask(int bits) {
+        return bits <= 0 ? 0L : -1L << (64 - bits);
+    }
+
+    /**
+     * Returns a {@code Chunker} with the given average chunk size, a minimum
+     * chunk size of a quarter of it and a maximum chunk size of 8 times it.
+     *
+     * @param avgSize the average chunk size, in bytes.
+     * @return the created {@code Chunker}.
+     * @throws IllegalArgumentException if {@code avgSize} is lower than 64
+     *                                  or greater than 2^27.
+     */
+    public static Chunker withAverageSize(int avgSize) {
+        Parameters.checkCondition(avgSize >= 64 && avgSize <= (1 << 27));
+        return new Chunker(avgSize / 4, avgSize, avgSize * 8);
+    }
+
+    private final int minSize;
+    private final int avgSize;
+    private final int maxSize;
+    private final long maskS;
+    private final long maskL;
+
+    /**
+     * Creates a new {@code Chunker}.
+     *
+     * @param minSize the minimum chunk size, in bytes.
+     * @param avgSize the (targeted) average chunk size, in bytes.
+     * @param maxSize the maximum chunk size, in bytes.
+     * @throws IllegalArgumentException if {@code minSize} is not positive,
+     *                                  if {@code avgSize} is lower than 64, or if the sizes aren't such
+     *                                  that {@code minSize <= avgSize <= maxSize <= 2^30}.
+     */
+    public Chunker(int minSize, int avgSize, int maxSize) {
+        Parameters.checkCondition(minSize > 0 && avgSize >= 64);
+        Parameters.checkCondition(minSize <= avgSize && avgSize <= maxSize);
+        Parameters.checkCondition(maxSize <= (1 << 30));
+        int bits = 31 - Integer.numberOfLeadingZeros(avgSize);
+        this.minSize = minSize;
+        this.avgSize = avgSize;
+        this.maxSize = maxSize;
+        this.maskS = mask(bits + 2);
+        this.maskL = mask(bits - 2);
+    }
+
+    /**
+     * Returns the minimum chunk size, in bytes. Only the last chunk of an
+     * input may be smaller.
+     *
+     * @return the minimum chunk size.
+     */
+    public int getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * Returns the targeted average chunk size, in bytes.
+     *
+     * @return the average chunk size.
+     */
+    public int getAverageSize() {
+        return avgSize;
+    }
+
+    /**
+     * Returns the maximum chunk size, in bytes.
+     *
+     * @return the maximum chunk size.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Splits the content of the given stream into chunks, fingerprinted
+     * using the given algorithm on the calling thread. The stream is read
+     * until its end but is not closed.
+     *
+     * @param in        the stream to read from.
+     * @param algorithm the fingerprinting digest algorithm.
+     * @param listener  the listener to notify of each chunk.
+     * @return the number of bytes read.
+     * @throws NullPointerException     if one of the arguments is {@code null}.
+     * @throws IllegalArgumentException if the digest algorithm is unknown.
+     * @throws IOException              if an I/O error occurs during the process.
+     */
+    public long chunk(InputStream in, Algorithm<Digest> algorithm,
+                      ChunkListener listener) throws IOException {
+        return chunk(in, algorithm, null, listener);
+    }
+
+    /**
+     * Splits the content of the given stream into chunks, fingerprinted in
+     * parallel using the given algorithm on the given {@code Executor}.
+     * Chunks are still reported in stream order, on the calling thread. The
+     * stream is read until its end but is not closed.
+     *
+     * @param in        the stream to read from.
+     * @param algorithm the fingerprinting digest algorithm.
+     * @param executor  the executor on which to fingerprint chunks, may be
+     *                  {@code null} to fingerprint them on the calling thread.
+     * @param listener  the listener to notify of each chunk.
+     * @return the number of bytes read.
+     * @throws NullPointerException     if {@code in}, {@code algorithm} or
+     *                                  {@code listener} is {@code null}.
+     * @throws IllegalArgumentException if the digest algorithm is unknown.
+     * @throws IOException              if an I/O error occurs during the process.
+     */
+    public long chunk(final InputStream in, Algorithm<Digest> algorithm,
+                      Executor executor, ChunkListener listener) throws IOException {
+        Parameters.checkNotNull(in);
+        return run(new Source() {
+            @Override
+            public int read(byte[] buf, int off, int len) throws IOException {
+                return in.read(buf, off, len);
+            }
+        }, algorithm, executor, listener);
+    }
+
+    /**
+     * Splits the content of the given channel (typically a
+     * {@code FileChannel}) into chunks, fingerprinted using the given
+     * algorithm on the calling thread. The channel is read until its end but
+     * is not closed.
+     *
+     * @param in        the channel to read from.
+     * @param algorithm the fingerprinting digest algorithm.
+     * @param listener  the listener to notify of each chunk.
+     * @return the number of bytes read.
+     * @throws NullPointerException     if one of the arguments is {@code null}.
+     * @throws IllegalArgumentException if the digest algorithm is unknown.
+     * @throws IOException              if an I/O error occurs during the process.
+     */
+    public long chunk(ReadableByteChannel in, Algorithm<Digest> algorithm,
+                      ChunkListener listener) throws IOException {
+        return chunk(in, algorithm, null, listener);
+    }
+
+    /**
+     * Splits the content of the given channel (typically a
+     * {@code FileChannel}) into chunks, fingerprinted in parallel using the
+     * given algorithm on the given {@code Executor}. Chunks are still
+     * reported in stream order, on the calling thread. The channel is read
+     * until its end but is not closed.
+     *
+     * @param in        the channel to read from.
+     * @param algorithm the fingerprinting digest algorithm.
+     * @param executor  the executor on which to fingerprint chunks, may be
+     *                  {@code null} to fingerprint them on the calling thread.
+     * @param listener  the listener to notify of each chunk.
+     * @return the number of bytes read.
+     * @throws NullPointerException     if {@code in}, {@code algorithm} or
+     *                                  {@code listener} is {@code null}.
+     * @throws IllegalArgumentException if the digest algorithm is unknown.
+     * @throws IOException              if an I/O error occurs during the process.
+     */
+    public long chunk(final ReadableByteChannel in, Algorithm<Digest> algorithm,
+                      Executor executor, ChunkListener listener) throws IOException {
+        Parameters.checkNotNull(in);
+        return run(new Source() {
+            @Override
+            public int read(byte[] buf, int off, int len) throws IOException {
+                return in.read(ByteBuffer.wrap(buf, off, len));
+            }
+        }, algorithm, executor, listener);
+    }
+
+    @Override
+    public String toString() {
+        return XObjects.toStringBuilder("Chunker").append("minSize", minSize)
+                .append("avgSize", avgSize).append("maxSize", maxSize)
+                .toString();
+    }
+
+    /**
+     * Returns the length of the chunk starting at {@code off}, given that
+     * {@code len} bytes are available from there. The end of the available
+     * data is considered to be a chunk boundary.
+     */
+    int cut(byte[] buf, int off, int len) {
+        if (len <= minSize) {
+            return len;
+        }
+        int n = Math.min(len, maxSize);
+        int normal = Math.min(avgSize, n);
+        long fp = 0L;
+        int i = minSize;
+        for (; i < normal; i++) {
+            fp = (fp << 1) + GEAR[buf[off + i] & 0xFF];
+            if ((fp & maskS) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < n; i++) {
+            fp = (fp << 1) + GEAR[buf[off + i] & 0xFF];
+            if ((fp & maskL) == 0) {
+                return i + 1;
+            }
+        }
+        return n;
+    }
+
+    private long run(Source in, Algorithm<Digest> algorithm, Executor executor,
+                     ChunkListener listener) throws IOException {
+        Digests.newDigest(algorithm);
+        Parameters.checkNotNull(listener);
+        int blockSize = Math.max(BLOCK_SIZE, 2 * maxSize);
+        Block[] blocks = {new Block(blockSize), new Block(blockSize)};
+        Block current = blocks[0];
+        Block previous = null;
+        long offset = 0L;
+        int carry = 0;
+        boolean eof = false;
+        while (!eof) {
+            int end = carry;
+            while (end < blockSize) {
+                int n = in.read(current.data, end, blockSize - end);
+                if (n < 0) {
+                    eof = true;
+                    break;
+                }
+                end += n;
+            }
+            current.clear(offset);
+            int pos = 0;
+            while (end - pos >= maxSize || (eof && pos < end)) {
+                int len = cut(current.data, pos, end - pos);
+                current.add(pos, len);
+                pos += len;
+            }
+            offset += pos;
+            current.fingerprint(algorithm, executor);
+            if (previous != null) {
+                previous.deliver(listener);
+            }
+            Block next = current == blocks[0] ? blocks[1] : blocks[0];
+            carry = end - pos;
+            System.arraycopy(current.data, pos, next.data, 0, carry);
+            previous = current;
+            current = next;
+        }
+        previous.deliver(listener);
+        return offset;
+    }
+
+    private interface Source {
+        int read(byte[] buf, int off, int len) throws IOException;
+    }
+
+    /**
+     * A block of input data together with the chunks cut in it.
+     */
+    private static final class Block {
+        final byte[] data;
+        long base;
+        int count;
+        int[] offsets;
+        int[] lengths;
+        byte[][] fingerprints;
+        final List<FutureTask<Void>> tasks;
+
+        Block(int size) {
+            this.data = new byte[size];
+            this.offsets = new int[64];
+            this.lengths = new int[64];
+            this.fingerprints = new byte[64][];
+            this.tasks = new ArrayList<FutureTask<Void>>();
+        }
+
+        void clear(long base) {
+            this.base = base;
+            this.count = 0;
+            this.tasks.clear();
+        }
+
+        void add(int off, int len) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+                fingerprints = Arrays.copyOf(fingerprints, count * 2);
+            }
+            offsets[count] = off;
+            lengths[count] = len;
+            count++;
+        }
+
+        void fingerprint(final Algorithm<Digest> algorithm, Executor executor) {
+            if (executor == null) {
+                fingerprint(Digests.newDigest(algorithm), 0, count);
+                return;
+            }
+            int from = 0;
+            while (from < count) {
+                int to = from;
+                int size = 0;
+                while (to < count && size < TASK_SIZE) {
+                    size += lengths[to++];
+                }
+                final int start = from;
+                final int stop = to;
+                FutureTask<Void> task = new FutureTask<Void>(new Runnable() {
+                    @Override
+                    public void run() {
+                        fingerprint(Digests.newDigest(algorithm), start, stop);
+                    }
+                }, null);
+                tasks.add(task);
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException ex) {
+                    task.run();
+                }
+                from = to;
+            }
+        }
+
+        void fingerprint(Digest digest, int from, int to) {
+            for (int i = from; i < to; i++) {
+                fingerprints[i] = digest.digest(data, offsets[i], lengths[i]);
+            }
+        }
+
+        void deliver(ChunkListener listener) {
+            try {
+                for (FutureTask<Void> task : tasks) {
+                    task.get();
+                }
+            } catch (ExecutionException ex) {
+                throw Throwables.propagate(ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw Throwables.propagate(ex);
+            }
+            for (int i = 0; i < count; i++) {
+                listener.onChunk(base + offsets[i], lengths[i], fingerprints[i]);
+                fingerprints[i] = null;
+            }
+        }
+    }
+}
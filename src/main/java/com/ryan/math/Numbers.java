@@ -1,8 +1,10 @@
 package com.ryan.math;
 
 import com.ryan.util.Parameters;
+import com.ryan.util.XArrays;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
 
 /**
  * Extra math utilities.
@@ -10,6 +12,8 @@ import java.math.BigDecimal;
  * @author Osman KOCAK
  */
 public final class Numbers {
+    private static final long MAX_EXACT_DOUBLE_INTEGER = 1L << 53;
+
     /**
      * Returns the maximum of the given values.
      *
@@ -19,12 +23,7 @@ public final class Numbers {
      * @throws IllegalArgumentException if {@code values} is empty.
      */
     public static long max(long... values) {
-        Parameters.checkCondition(values.length > 0);
-        long max = values[0];
-        for (int i = 1; i < values.length; i++) {
-            max = Math.max(max, values[i]);
-        }
-        return max;
+        return XArrays.max(values);
     }
 
     /**
@@ -36,12 +35,7 @@ public final class Numbers {
      * @throws IllegalArgumentException if {@code values} is empty.
      */
     public static int max(int... values) {
-        Parameters.checkCondition(values.length > 0);
-        int max = values[0];
-        for (int i = 1; i < values.length; i++) {
-            max = Math.max(max, values[i]);
-        }
-        return max;
+        return XArrays.max(values);
     }
 
     /**
@@ -54,12 +48,7 @@ public final class Numbers {
      * @throws IllegalArgumentException if {@code values} is empty.
      */
     public static float max(float... values) {
-        Parameters.checkCondition(values.length > 0);
-        float max = values[0];
-        for (int i = 1; i < values.length; i++) {
-            max = Math.max(max, values[i]);
-        }
-        return max;
+        return XArrays.max(values);
     }
 
     /**
@@ -72,12 +61,7 @@ public final class Numbers {
      * @throws IllegalArgumentException if {@code values} is empty.
      */
     public static double max(double... values) {
-        Parameters.checkCondition(values.length > 0);
-        double max = values[0];
-        for (int i = 1; i < values.length; i++) {
-            max = Math.max(max, values[i]);
-        }
-        return max;
+        return XArrays.max(values);
     }
 
     /**
@@ -89,12 +73,7 @@ public final class Numbers {
      * @throws IllegalArgumentException if {@code values} is empty.
      */
     public static long min(long... values) {
-        Parameters.checkCondition(values.length > 0);
-        long min = values[0];
-        for (int i = 1; i < values.length; i++) {
-            min = Math.min(min, values[i]);
-        }
-        return min;
+        return XArrays.min(values);
     }
 
     /**
@@ -106,12 +85,7 @@ public final class Numbers {
      * @throws IllegalArgumentException if {@code values} is empty.
      */
     public static int min(int... values) {
-        Parameters.checkCondition(values.length > 0);
-        int min = values[0];
-        for (int i = 1; i < values.length; i++) {
-            min = Math.min(min, values[i]);
-        }
-        return min;
+        return XArrays.min(values);
     }
 
     /**
@@ -124,12 +98,7 @@ public final class Numbers {
      * @throws IllegalArgumentException if {@code values} is empty.
      */
     public static float min(float... values) {
-        Parameters.checkCondition(values.length > 0);
-        float min = values[0];
-        for (int i = 1; i < values.length; i++) {
-            min = Math.min(min, values[i]);
-        }
-        return min;
+        return XArrays.min(values);
     }
 
     /**
@@ -142,12 +111,7 @@ public final class Numbers {
      * @throws IllegalArgumentException if {@code values} is empty.
      */
     public static double min(double... values) {
-        Parameters.checkCondition(values.length > 0);
-        double min = values[0];
-        for (int i = 1; i < values.length; i++) {
-            min = Math.min(min, values[i]);
-        }
-        return min;
+        return XArrays.min(values);
     }
 
     /**
@@ -161,11 +125,7 @@ public final class Numbers {
      */
     public static double mean(int... values) {
         Parameters.checkCondition(values.length > 0);
-        long sum = 0L;
-        for (int value : values) {
-            sum += value;
-        }
-        return (double) sum / values.length;
+        return (double) XArrays.sum(values) / values.length;
     }
 
     /**
@@ -179,16 +139,23 @@ public final class Numbers {
      */
     public static double mean(long... values) {
         Parameters.checkCondition(values.length > 0);
-        BigDecimal sum = BigDecimal.ZERO;
+        long bound = MAX_EXACT_DOUBLE_INTEGER / values.length;
+        long[] minMax = XArrays.minMax(values);
+        if (minMax[0] >= -bound && minMax[1] <= bound) {
+            return (double) XArrays.sum(values) / values.length;
+        }
+        BigDecimal exact = BigDecimal.ZERO;
         for (long value : values) {
-            sum = sum.add(BigDecimal.valueOf(value));
+            exact = exact.add(BigDecimal.valueOf(value));
         }
-        return sum.divide(BigDecimal.valueOf(values.length)).doubleValue();
+        return divide(exact, values.length);
     }
 
     /**
      * Returns the arithmetic mean of the given values. This method is not
-     * subject to overflow.
+     * subject to overflow. The values are added up exactly; when they are
+     * all integers whose sum is exactly representable as a {@code double},
+     * it is computed without {@code BigDecimal}s.
      *
      * @param values the values.
      * @return the arithmetic mean of the given values.
@@ -199,16 +166,23 @@ public final class Numbers {
      */
     public static double mean(double... values) {
         Parameters.checkCondition(values.length > 0);
-        BigDecimal sum = BigDecimal.ZERO;
+        long bound = MAX_EXACT_DOUBLE_INTEGER / values.length;
+        long sum = 0L;
         for (double value : values) {
-            sum = sum.add(BigDecimal.valueOf(value));
+            long integer = (long) value;
+            if (integer != value || integer < -bound || integer > bound) {
+                return exactMean(values);
+            }
+            sum += integer;
         }
-        return sum.divide(BigDecimal.valueOf(values.length)).doubleValue();
+        return (double) sum / values.length;
     }
 
     /**
      * Returns the arithmetic mean of the given values. This method is not
-     * subject to overflow.
+     * subject to overflow. The values are added up exactly; when they are
+     * all integers whose sum is exactly representable as a {@code double},
+     * it is computed without {@code BigDecimal}s.
      *
      * @param values the values.
      * @return the arithmetic mean of the given values.
@@ -219,11 +193,32 @@ public final class Numbers {
      */
     public static double mean(float... values) {
         Parameters.checkCondition(values.length > 0);
+        long bound = MAX_EXACT_DOUBLE_INTEGER / values.length;
+        long sum = 0L;
+        for (float value : values) {
+            long integer = (long) value;
+            if (integer != value || integer < -bound || integer > bound) {
+                return exactMean(values);
+            }
+            sum += integer;
+        }
+        return (double) sum / values.length;
+    }
+
+    private static double exactMean(double[] values) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (double value : values) {
+            sum = sum.add(BigDecimal.valueOf(value));
+        }
+        return divide(sum, values.length);
+    }
+
+    private static double exactMean(float[] values) {
         BigDecimal sum = BigDecimal.ZERO;
         for (float value : values) {
             sum = sum.add(BigDecimal.valueOf(value));
         }
-        return sum.divide(BigDecimal.valueOf(values.length)).doubleValue();
+        return divide(sum, values.length);
     }
 
     /**
@@ -715,6 +710,11 @@ public final class Numbers {
         throw new ArithmeticException(a + " can't be cast to int");
     }
 
+    private static double divide(BigDecimal sum, int n) {
+        return sum.divide(BigDecimal.valueOf(n), MathContext.DECIMAL128)
+                .doubleValue();
+    }
+
     private Numbers() {
         /* ... */
     }
@@ -57,6 +57,36 @@ public final class Algorithm<T> {
      */
     public static final Algorithm<Digest> KECCAK512 = new Algorithm<Digest>("Keccak-512");
 
+    /**
+     * The SHA3-224 digest algorithm.
+     */
+    public static final Algorithm<Digest> SHA3_224 = new Algorithm<Digest>("SHA3-224");
+
+    /**
+     * The SHA3-256 digest algorithm.
+     */
+    public static final Algorithm<Digest> SHA3_256 = new Algorithm<Digest>("SHA3-256");
+
+    /**
+     * The SHA3-384 digest algorithm.
+     */
+    public static final Algorithm<Digest> SHA3_384 = new Algorithm<Digest>("SHA3-384");
+
+    /**
+     * The SHA3-512 digest algorithm.
+     */
+    public static final Algorithm<Digest> SHA3_512 = new Algorithm<Digest>("SHA3-512");
+
+    /**
+     * The SHAKE128 extendable-output function, with a 256-bit output.
+     */
+    public static final Algorithm<Digest> SHAKE128 = new Algorithm<Digest>("SHAKE128");
+
+    /**
+     * The SHAKE256 extendable-output function, with a 512-bit output.
+     */
+    public static final Algorithm<Digest> SHAKE256 = new Algorithm<Digest>("SHAKE256");
+
     /**
      * The HMAC-MD2 MAC algorithm.
      */
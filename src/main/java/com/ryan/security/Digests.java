@@ -4,6 +4,7 @@ import com.ryan.util.CannotHappenException;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Executor;
 
 /**
  * Somme commonly used digest algorithms. None of the {@link Digest} instances
@@ -12,6 +13,19 @@ import java.security.NoSuchAlgorithmException;
  * @author Osman KOCAK
  */
 public final class Digests {
+    /**
+     * Returns a new {@code Digest} instance implementing the given
+     * algorithm.
+     *
+     * @param algorithm the digest algorithm.
+     * @return a new {@code Digest} instance.
+     * @throws NullPointerException     if {@code algorithm} is {@code null}.
+     * @throws IllegalArgumentException if the given algorithm is unknown.
+     */
+    public static Digest newDigest(Algorithm<Digest> algorithm) {
+        return Factory.newDigest(algorithm);
+    }
+
     /**
      * Returns a new MD2 {@code Digest} instance.
      *
@@ -72,7 +86,7 @@ public final class Digests {
      * @return a new Keccak-224 {@code Digest} instance.
      */
     public static Digest keccak224() {
-        return new Keccak(28);
+        return Keccak.keccak(28);
     }
 
     /**
@@ -81,7 +95,7 @@ public final class Digests {
      * @return a new Keccak-256 {@code Digest} instance.
      */
     public static Digest keccak256() {
-        return new Keccak(32);
+        return Keccak.keccak(32);
     }
 
     /**
@@ -90,7 +104,7 @@ public final class Digests {
      * @return a new Keccak-384 {@code Digest} instance.
      */
     public static Digest keccak384() {
-        return new Keccak(48);
+        return Keccak.keccak(48);
     }
 
     /**
@@ -99,7 +113,136 @@ public final class Digests {
      * @return a new Keccak-512 {@code Digest} instance.
      */
     public static Digest keccak512() {
-        return new Keccak(64);
+        return Keccak.keccak(64);
+    }
+
+    /**
+     * Returns a new SHA3-224 {@code Digest} instance (FIPS 202).
+     *
+     * @return a new SHA3-224 {@code Digest} instance.
+     */
+    public static Digest sha3_224() {
+        return Keccak.sha3(28);
+    }
+
+    /**
+     * Returns a new SHA3-256 {@code Digest} instance (FIPS 202).
+     *
+     * @return a new SHA3-256 {@code Digest} instance.
+     */
+    public static Digest sha3_256() {
+        return Keccak.sha3(32);
+    }
+
+    /**
+     * Returns a new SHA3-384 {@code Digest} instance (FIPS 202).
+     *
+     * @return a new SHA3-384 {@code Digest} instance.
+     */
+    public static Digest sha3_384() {
+        return Keccak.sha3(48);
+    }
+
+    /**
+     * Returns a new SHA3-512 {@code Digest} instance (FIPS 202).
+     *
+     * @return a new SHA3-512 {@code Digest} instance.
+     */
+    public static Digest sha3_512() {
+        return Keccak.sha3(64);
+    }
+
+    /**
+     * Returns a new SHAKE128 {@code Digest} instance (FIPS 202) producing
+     * 32 bytes of output.
+     *
+     * @return a new SHAKE128 {@code Digest} instance.
+     */
+    public static Digest shake128() {
+        return shake128(32);
+    }
+
+    /**
+     * Returns a new SHAKE128 {@code Digest} instance (FIPS 202) producing
+     * {@code length} bytes of output. SHAKE128 is an extendable-output
+     * function: its output may be as long as desired.
+     *
+     * @param length the desired output length, in bytes.
+     * @return a new SHAKE128 {@code Digest} instance.
+     * @throws IllegalArgumentException if {@code length} is not positive.
+     */
+    public static Digest shake128(int length) {
+        return Keccak.shake(128, length);
+    }
+
+    /**
+     * Returns a new SHAKE256 {@code Digest} instance (FIPS 202) producing
+     * 64 bytes of output.
+     *
+     * @return a new SHAKE256 {@code Digest} instance.
+     */
+    public static Digest shake256() {
+        return shake256(64);
+    }
+
+    /**
+     * Returns a new SHAKE256 {@code Digest} instance (FIPS 202) producing
+     * {@code length} bytes of output. SHAKE256 is an extendable-output
+     * function: its output may be as long as desired.
+     *
+     * @param length the desired output length, in bytes.
+     * @return a new SHAKE256 {@code Digest} instance.
+     * @throws IllegalArgumentException if {@code length} is not positive.
+     */
+    public static Digest shake256(int length) {
+        return Keccak.shake(256, length);
+    }
+
+    /**
+     * Returns a new {@code Digest} computing a Merkle tree hash over the
+     * given algorithm: the input is split into {@code chunkSize}-byte chunks
+     * which are hashed concurrently on the given {@code Executor}, and the
+     * result is the root of the binary tree built over the chunk hashes
+     * ({@code H(0x00 || chunk)} for leaves, {@code H(0x01 || left || right)}
+     * for nodes). The result only depends on the input, the algorithm and
+     * the chunk size. Up to 16 chunks are buffered while waiting to be
+     * hashed.
+     *
+     * @param algorithm the underlying digest algorithm.
+     * @param chunkSize the chunk size, in bytes.
+     * @param executor  the executor on which to hash chunks.
+     * @return a new tree hashing {@code Digest} instance.
+     * @throws NullPointerException     if {@code algorithm} or
+     *                                  {@code executor} is {@code null}.
+     * @throws IllegalArgumentException if {@code chunkSize} is not
+     *                                  positive or if the digest algorithm is unknown.
+     */
+    public static Digest parallel(Algorithm<Digest> algorithm, int chunkSize,
+                                  Executor executor) {
+        return parallel(algorithm, chunkSize, 16, executor);
+    }
+
+    /**
+     * Returns a new {@code Digest} computing a Merkle tree hash over the
+     * given algorithm, buffering at most {@code readAhead} chunks while they
+     * are waiting to be hashed (when this limit is reached, {@code update}
+     * hashes the oldest pending chunk itself or waits for it).
+     *
+     * @param algorithm the underlying digest algorithm.
+     * @param chunkSize the chunk size, in bytes.
+     * @param readAhead the maximum number of buffered chunks.
+     * @param executor  the executor on which to hash chunks.
+     * @return a new tree hashing {@code Digest} instance.
+     * @throws NullPointerException     if {@code algorithm} or
+     *                                  {@code executor} is {@code null}.
+     * @throws IllegalArgumentException if {@code chunkSize} or
+     *                                  {@code readAhead} is not positive or if the digest algorithm is
+     *                                  unknown.
+     * @see #parallel(Algorithm, int, Executor)
+     */
+    public static Digest parallel(Algorithm<Digest> algorithm, int chunkSize,
+                                  int readAhead, Executor executor) {
+        return new TreeDigest(algorithm, chunkSize, readAhead, executor);
     }
 
     private static final class BuiltInDigest extends AbstractDigest {
@@ -40,6 +40,18 @@ final class Factory {
             digest = Digests.keccak384();
         } else if (algorithm == Algorithm.KECCAK512) {
             digest = Digests.keccak512();
+        } else if (algorithm == Algorithm.SHA3_224) {
+            digest = Digests.sha3_224();
+        } else if (algorithm == Algorithm.SHA3_256) {
+            digest = Digests.sha3_256();
+        } else if (algorithm == Algorithm.SHA3_384) {
+            digest = Digests.sha3_384();
+        } else if (algorithm == Algorithm.SHA3_512) {
+            digest = Digests.sha3_512();
+        } else if (algorithm == Algorithm.SHAKE128) {
+            digest = Digests.shake128();
+        } else if (algorithm == Algorithm.SHAKE256) {
+            digest = Digests.shake256();
         } else {
             throw new IllegalArgumentException("Unknown algorithm");
         }
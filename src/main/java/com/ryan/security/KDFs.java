@@ -1,5 +1,9 @@
 package com.ryan.security;
 
+import com.ryan.util.Parameters;
+
+import java.util.concurrent.Executor;
+
 /**
  * Somme commonly used key derivation function algorithms.
  *
@@ -78,6 +82,28 @@ public final class KDFs {
         return new SCrypt(r, n, p, dkLen);
     }
 
+    /**
+     * Creates and returns a new immutable {@code KDF} instance implementing
+     * the SCrypt algorithm (RFC 7914), whose {@code p} independent lanes are
+     * computed concurrently on the given {@code Executor}. The derived keys
+     * are identical to the ones returned by {@link #scrypt(int, int, int, int)}.
+     *
+     * @param r        the block size parameter.
+     * @param n        the CPU/Memory cost parameter.
+     * @param p        the parallelization parameter.
+     * @param dkLen    the desired length for derived keys, in bytes.
+     * @param executor the executor on which to run the lanes.
+     * @return the created {@code KDF} instance.
+     * @throws NullPointerException     if {@code executor} is {@code null}.
+     * @throws IllegalArgumentException if {@code r, dkLen} or {@code p} is
+     *                                  negative, or if {@code n} is not greater than 1 or if it is not
+     *                                  a power of 2 or if it is not less than 2 ^ (128 * r / 8), or if
+     *                                  {@code p} is greater than ((2 ^ 32 - 1) * 32) / (128 * r).
+     */
+    public static KDF scrypt(int r, int n, int p, int dkLen, Executor executor) {
+        return new SCrypt(r, n, p, dkLen, Parameters.checkNotNull(executor));
+    }
+
     private KDFs() {
         /* ... */
     }
@@ -3,10 +3,11 @@ package com.ryan.security;
 import com.ryan.util.LittleEndian;
 import com.ryan.util.Parameters;
 
-import java.util.Arrays;
-
 /**
- * The Keccak digest algorithm. Instances of this class are not thread safe.
+ * The Keccak sponge, used for the original Keccak digests as well as for the
+ * FIPS-202 SHA-3 digests and SHAKE extendable-output functions (XOFs), which
+ * only differ from Keccak by their domain separation padding. Instances of
+ * this class are not thread safe.
  *
  * @author Osman KOCAK
  */
@@ -21,35 +22,70 @@ final class Keccak extends AbstractDigest {
             0x000000000000800aL, 0x800000008000000aL, 0x8000000080008081L,
             0x8000000000008080L, 0x0000000080000001L, 0x8000000080008008L
     };
-    private static final int[] R = new int[]{
-            0, 1, 62, 28, 27, 36, 44, 6, 55, 20, 3, 10, 43,
-            25, 39, 41, 45, 15, 21, 8, 18, 2, 61, 56, 14
-    };
+    private static final byte KECCAK_PADDING = (byte) 0x01;
+    private static final byte SHA3_PADDING = (byte) 0x06;
+    private static final byte SHAKE_PADDING = (byte) 0x1F;
 
-    private final long[] A;
-    private final long[] B;
-    private final long[] C;
-    private final long[] D;
-    private final int blockLen;
-    private final byte[] buffer;
-    private int bufferLen;
+    /**
+     * Creates a new ready to use Keccak {@code Digest}.
+     *
+     * @param length the digest length (in bytes).
+     * @return the created {@code Digest}.
+     * @throws IllegalArgumentException if {@code length} is not one of 28,
+     *                                  32, 48 or 64.
+     */
+    static Keccak keccak(int length) {
+        checkLength(length);
+        return new Keccak("Keccak-" + length * 8, length, 2 * length,
+                KECCAK_PADDING);
+    }
 
     /**
-     * Creates a new ready to use {@code Keccak}.
+     * Creates a new ready to use SHA-3 {@code Digest}.
      *
      * @param length the digest length (in bytes).
+     * @return the created {@code Digest}.
      * @throws IllegalArgumentException if {@code length} is not one of 28,
      *                                  32, 48 or 64.
      */
-    Keccak(int length) {
-        super("Keccak-" + length * 8, length);
+    static Keccak sha3(int length) {
+        checkLength(length);
+        return new Keccak("SHA3-" + length * 8, length, 2 * length,
+                SHA3_PADDING);
+    }
+
+    /**
+     * Creates a new ready to use SHAKE {@code Digest}.
+     *
+     * @param strength the security strength (in bits), either 128 or 256.
+     * @param length   the desired output length (in bytes).
+     * @return the created {@code Digest}.
+     * @throws IllegalArgumentException if {@code strength} is neither 128
+     *                                  nor 256, or if {@code length} is not positive.
+     */
+    static Keccak shake(int strength, int length) {
+        Parameters.checkCondition(strength == 128 || strength == 256);
+        Parameters.checkCondition(length > 0);
+        return new Keccak("SHAKE" + strength, length, strength / 4,
+                SHAKE_PADDING);
+    }
+
+    private static void checkLength(int length) {
         Parameters.checkCondition(length == 28 || length == 32
                 || length == 48 || length == 64);
+    }
+
+    private final long[] A;
+    private final int blockLen;
+    private final byte padding;
+    private final byte[] buffer;
+    private int bufferLen;
+
+    private Keccak(String name, int length, int capacity, byte padding) {
+        super(name, length);
         this.A = new long[25];
-        this.B = new long[25];
-        this.C = new long[5];
-        this.D = new long[5];
-        this.blockLen = 200 - 2 * length;
+        this.blockLen = 200 - capacity;
+        this.padding = padding;
         this.buffer = new byte[blockLen];
         this.bufferLen = 0;
     }
@@ -67,99 +103,177 @@ final class Keccak extends AbstractDigest {
     public Digest update(byte input) {
         buffer[bufferLen] = input;
         if (++bufferLen == blockLen) {
-            processBuffer();
+            absorb(buffer, 0);
+            bufferLen = 0;
         }
         return this;
     }
 
     @Override
     public Digest update(byte[] input, int off, int len) {
-        while (len > 0) {
+        if (off < 0 || len < 0 || off + len > input.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (bufferLen > 0) {
             int cpLen = Math.min(blockLen - bufferLen, len);
             System.arraycopy(input, off, buffer, bufferLen, cpLen);
             bufferLen += cpLen;
             off += cpLen;
             len -= cpLen;
-            if (bufferLen == blockLen) {
-                processBuffer();
+            if (bufferLen < blockLen) {
+                return this;
             }
+            absorb(buffer, 0);
+            bufferLen = 0;
+        }
+        while (len >= blockLen) {
+            absorb(input, off);
+            off += blockLen;
+            len -= blockLen;
         }
+        System.arraycopy(input, off, buffer, 0, len);
+        bufferLen = len;
         return this;
     }
 
     @Override
     public byte[] digest() {
-        addPadding();
-        processBuffer();
-        byte[] tmp = new byte[length() * 8];
-        for (int i = 0; i < length(); i += 8) {
-            LittleEndian.encode(A[i >>> 3], tmp, i);
+        for (int i = bufferLen; i < blockLen; i++) {
+            buffer[i] = 0;
         }
-        reset();
-        return Arrays.copyOf(tmp, length());
-    }
-
-    private void addPadding() {
-        if (bufferLen + 1 == buffer.length) {
-            buffer[bufferLen] = (byte) 0x81;
-        } else {
-            buffer[bufferLen] = (byte) 0x01;
-            for (int i = bufferLen + 1; i < buffer.length - 1; i++) {
-                buffer[i] = 0;
+        buffer[bufferLen] ^= padding;
+        buffer[blockLen - 1] ^= (byte) 0x80;
+        absorb(buffer, 0);
+        byte[] out = new byte[length()];
+        byte[] lane = new byte[8];
+        int off = 0;
+        while (true) {
+            for (int i = 0; i < blockLen && off < out.length; i += 8) {
+                int n = Math.min(8, out.length - off);
+                if (n == 8) {
+                    LittleEndian.encode(A[i >>> 3], out, off);
+                } else {
+                    LittleEndian.encode(A[i >>> 3], lane, 0);
+                    System.arraycopy(lane, 0, out, off, n);
+                }
+                off += n;
+            }
+            if (off == out.length) {
+                break;
             }
-            buffer[buffer.length - 1] = (byte) 0x80;
+            keccakf();
         }
+        reset();
+        return out;
     }
 
-    private void processBuffer() {
-        for (int i = 0; i < buffer.length; i += 8) {
-            A[i >>> 3] ^= LittleEndian.decodeLong(buffer, i);
+    /**
+     * XORs the {@code blockLen} bytes of {@code in} starting at {@code off}
+     * into the state, as little-endian lanes, then permutes the state.
+     */
+    private void absorb(byte[] in, int off) {
+        for (int i = 0; i < blockLen; i += 8) {
+            A[i >>> 3] ^= LittleEndian.decodeLong(in, off + i);
         }
         keccakf();
-        bufferLen = 0;
     }
 
+    /**
+     * The keccak-f[1600] permutation, fully unrolled on 25 local lanes.
+     */
     private void keccakf() {
+        long a0 = A[0], a1 = A[1], a2 = A[2], a3 = A[3], a4 = A[4];
+        long a5 = A[5], a6 = A[6], a7 = A[7], a8 = A[8], a9 = A[9];
+        long a10 = A[10], a11 = A[11], a12 = A[12], a13 = A[13], a14 = A[14];
+        long a15 = A[15], a16 = A[16], a17 = A[17], a18 = A[18], a19 = A[19];
+        long a20 = A[20], a21 = A[21], a22 = A[22], a23 = A[23], a24 = A[24];
         for (int n = 0; n < 24; n++) {
-            round(n);
+            long c0 = a0 ^ a5 ^ a10 ^ a15 ^ a20;
+            long c1 = a1 ^ a6 ^ a11 ^ a16 ^ a21;
+            long c2 = a2 ^ a7 ^ a12 ^ a17 ^ a22;
+            long c3 = a3 ^ a8 ^ a13 ^ a18 ^ a23;
+            long c4 = a4 ^ a9 ^ a14 ^ a19 ^ a24;
+            long d0 = c4 ^ Long.rotateLeft(c1, 1);
+            long d1 = c0 ^ Long.rotateLeft(c2, 1);
+            long d2 = c1 ^ Long.rotateLeft(c3, 1);
+            long d3 = c2 ^ Long.rotateLeft(c4, 1);
+            long d4 = c3 ^ Long.rotateLeft(c0, 1);
+            long b0 = a0 ^ d0;
+            long b1 = Long.rotateLeft(a6 ^ d1, 44);
+            long b2 = Long.rotateLeft(a12 ^ d2, 43);
+            long b3 = Long.rotateLeft(a18 ^ d3, 21);
+            long b4 = Long.rotateLeft(a24 ^ d4, 14);
+            long b5 = Long.rotateLeft(a3 ^ d3, 28);
+            long b6 = Long.rotateLeft(a9 ^ d4, 20);
+            long b7 = Long.rotateLeft(a10 ^ d0, 3);
+            long b8 = Long.rotateLeft(a16 ^ d1, 45);
+            long b9 = Long.rotateLeft(a22 ^ d2, 61);
+            long b10 = Long.rotateLeft(a1 ^ d1, 1);
+            long b11 = Long.rotateLeft(a7 ^ d2, 6);
+            long b12 = Long.rotateLeft(a13 ^ d3, 25);
+            long b13 = Long.rotateLeft(a19 ^ d4, 8);
+            long b14 = Long.rotateLeft(a20 ^ d0, 18);
+            long b15 = Long.rotateLeft(a4 ^ d4, 27);
+            long b16 = Long.rotateLeft(a5 ^ d0, 36);
+            long b17 = Long.rotateLeft(a11 ^ d1, 10);
+            long b18 = Long.rotateLeft(a17 ^ d2, 15);
+            long b19 = Long.rotateLeft(a23 ^ d3, 56);
+            long b20 = Long.rotateLeft(a2 ^ d2, 62);
+            long b21 = Long.rotateLeft(a8 ^ d3, 55);
+            long b22 = Long.rotateLeft(a14 ^ d4, 39);
+            long b23 = Long.rotateLeft(a15 ^ d0, 41);
+            long b24 = Long.rotateLeft(a21 ^ d1, 2);
+            a0 = b0 ^ (~b1 & b2);
+            a1 = b1 ^ (~b2 & b3);
+            a2 = b2 ^ (~b3 & b4);
+            a3 = b3 ^ (~b4 & b0);
+            a4 = b4 ^ (~b0 & b1);
+            a5 = b5 ^ (~b6 & b7);
+            a6 = b6 ^ (~b7 & b8);
+            a7 = b7 ^ (~b8 & b9);
+            a8 = b8 ^ (~b9 & b5);
+            a9 = b9 ^ (~b5 & b6);
+            a10 = b10 ^ (~b11 & b12);
+            a11 = b11 ^ (~b12 & b13);
+            a12 = b12 ^ (~b13 & b14);
+            a13 = b13 ^ (~b14 & b10);
+            a14 = b14 ^ (~b10 & b11);
+            a15 = b15 ^ (~b16 & b17);
+            a16 = b16 ^ (~b17 & b18);
+            a17 = b17 ^ (~b18 & b19);
+            a18 = b18 ^ (~b19 & b15);
+            a19 = b19 ^ (~b15 & b16);
+            a20 = b20 ^ (~b21 & b22);
+            a21 = b21 ^ (~b22 & b23);
+            a22 = b22 ^ (~b23 & b24);
+            a23 = b23 ^ (~b24 & b20);
+            a24 = b24 ^ (~b20 & b21);
+            a0 ^= RC[n];
         }
-    }
-
-    private void round(int n) {
-        for (int x = 0; x < 5; x++) {
-            C[x] = A[index(x, 0)] ^ A[index(x, 1)] ^ A[index(x, 2)]
-                    ^ A[index(x, 3)] ^ A[index(x, 4)];
-        }
-        for (int x = 0; x < 5; x++) {
-            D[x] = C[index(x - 1)] ^ rot(C[index(x + 1)], 1);
-            for (int y = 0; y < 5; y++) {
-                A[index(x, y)] ^= D[x];
-            }
-        }
-        for (int x = 0; x < 5; x++) {
-            for (int y = 0; y < 5; y++) {
-                int i = index(x, y);
-                B[index(y, x * 2 + 3 * y)] = rot(A[i], R[i]);
-            }
-        }
-        for (int x = 0; x < 5; x++) {
-            for (int y = 0; y < 5; y++) {
-                int i = index(x, y);
-                A[i] = B[i] ^ (~B[index(x + 1, y)] & B[index(x + 2, y)]);
-            }
-        }
-        A[0] ^= RC[n];
-    }
-
-    private long rot(long w, int r) {
-        return Long.rotateLeft(w, r);
-    }
-
-    private int index(int x) {
-        return x < 0 ? index(x + 5) : x % 5;
-    }
-
-    private int index(int x, int y) {
-        return index(x) + 5 * index(y);
+        A[0] = a0;
+        A[1] = a1;
+        A[2] = a2;
+        A[3] = a3;
+        A[4] = a4;
+        A[5] = a5;
+        A[6] = a6;
+        A[7] = a7;
+        A[8] = a8;
+        A[9] = a9;
+        A[10] = a10;
+        A[11] = a11;
+        A[12] = a12;
+        A[13] = a13;
+        A[14] = a14;
+        A[15] = a15;
+        A[16] = a16;
+        A[17] = a17;
+        A[18] = a18;
+        A[19] = a19;
+        A[20] = a20;
+        A[21] = a21;
+        A[22] = a22;
+        A[23] = a23;
+        A[24] = a24;
     }
 }
@@ -0,0 +1,319 @@
+package com.ryan.security;
+
+import com.ryan.util.Parameters;
+import com.ryan.util.XObjects;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous front-end to {@link Passwords#hash(String)} and
+ * {@link Passwords#verify(String, byte[])}. Hashing and verification are run on
+ * a bounded pool of worker threads, with a bounded queue of pending requests
+ * and a memory budget: each request reserves the working memory its SCrypt
+ * parameters need before being queued, and waits at most the configured
+ * admission timeout for that memory to become available. Requests that can't
+ * be admitted (memory budget exhausted or queue full) are rejected with a
+ * {@link RejectedExecutionException}, so that callers are slowed down (or shed
+ * load) instead of exhausting the heap. The memory of a request is given
+ * back when its hashing actually ends: cancelling a running request doesn't
+ * interrupt SCrypt, and its memory stays reserved until it completes. Note
+ * that the budget only covers admitted requests: each worker thread also
+ * keeps the (zeroed) SCrypt scratch memory of its last request between
+ * requests, softly referenced, that is up to the memory of one hashing
+ * request per worker thread more. Instances of this class are
+ * thread-safe.
+ *
+ * @author Ryan Tao
+ */
+public final class PasswordHasherService {
+    private static final int KB = 1024;
+
+    private final ThreadPoolExecutor executor;
+    private final Semaphore memory;
+    private final int memoryBudget;
+    private final long admissionTimeout;
+    private final AtomicLong submitted;
+    private final AtomicLong rejected;
+    private final AtomicLong completed;
+    private final AtomicLong totalLatency;
+    private final AtomicLong maxLatency;
+
+    /**
+     * Creates a new {@code PasswordHasherService}.
+     *
+     * @param threads          the number of worker threads.
+     * @param queueCapacity    the maximum number of pending requests.
+     * @param memoryBudget     the maximum amount of memory (in bytes) that
+     *                         admitted requests may use altogether.
+     * @param admissionTimeout how long to wait for memory to become
+     *                         available before rejecting a request.
+     * @param unit             the time unit of {@code admissionTimeout}.
+     * @throws NullPointerException     if {@code unit} is {@code null}.
+     * @throws IllegalArgumentException if {@code threads} or
+     *                                  {@code queueCapacity} is not positive, if {@code admissionTimeout}
+     *                                  is negative or if {@code memoryBudget} is smaller than the memory
+     *                                  needed by a single hashing request.
+     */
+    public PasswordHasherService(int threads, int queueCapacity,
+                                 long memoryBudget, long admissionTimeout, TimeUnit unit) {
+        Parameters.checkCondition(threads > 0 && queueCapacity > 0);
+        Parameters.checkCondition(admissionTimeout >= 0);
+        Parameters.checkCondition(memoryBudget >= Passwords.hashMemory());
+        this.memoryBudget = (int) Math.min(memoryBudget / KB, Integer.MAX_VALUE);
+        this.memory = new Semaphore(this.memoryBudget, true);
+        this.admissionTimeout = unit.toNanos(admissionTimeout);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity),
+                new WorkerFactory(), new ThreadPoolExecutor.AbortPolicy());
+        this.submitted = new AtomicLong();
+        this.rejected = new AtomicLong();
+        this.completed = new AtomicLong();
+        this.totalLatency = new AtomicLong();
+        this.maxLatency = new AtomicLong();
+    }
+
+    /**
+     * Asynchronously hashes the given password.
+     *
+     * @param password the password to hash.
+     * @return the pending hashed password.
+     * @throws NullPointerException       if {@code password} is {@code null}.
+     * @throws RejectedExecutionException if the request can't be admitted.
+     * @see Passwords#hash(String)
+     */
+    public Future<byte[]> hash(final String password) {
+        Parameters.checkNotNull(password);
+        return submit(Passwords.hashMemory(), new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                return Passwords.hash(password);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously verifies that the given password matches the hashed
+     * one.
+     *
+     * @param password the password to verify.
+     * @param hash     the hashed password.
+     * @return the pending verification result.
+     * @throws NullPointerException       if one of the arguments is
+     *                                    {@code null}.
+     * @throws RejectedExecutionException if the request can't be admitted.
+     * @see Passwords#verify(String, byte[])
+     */
+    public Future<Boolean> verify(final String password, final byte[] hash) {
+        Parameters.checkNotNull(password);
+        return submit(Passwords.verifyMemory(hash), new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return Passwords.verify(password, hash);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of requests waiting for a worker thread.
+     *
+     * @return the number of pending requests.
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of requests currently being processed.
+     *
+     * @return the number of running requests.
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Returns the amount of memory (in bytes) currently reserved by admitted
+     * requests.
+     *
+     * @return the amount of memory in use.
+     */
+    public long getMemoryInUse() {
+        return (long) (memoryBudget - memory.availablePermits()) * KB;
+    }
+
+    /**
+     * Returns the number of requests admitted so far.
+     *
+     * @return the number of admitted requests.
+     */
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    /**
+     * Returns the number of requests rejected so far.
+     *
+     * @return the number of rejected requests.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns the number of requests completed so far (successfully or
+     * not).
+     *
+     * @return the number of completed requests.
+     */
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * Returns the average latency of completed requests, measured from
+     * admission to completion.
+     *
+     * @param unit the desired time unit.
+     * @return the average latency, in the given unit.
+     * @throws NullPointerException if {@code unit} is {@code null}.
+     */
+    public long getAverageLatency(TimeUnit unit) {
+        long count = completed.get();
+        return count == 0 ? 0L : unit.convert(totalLatency.get() / count,
+                TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the highest latency observed so far, measured from admission
+     * to completion.
+     *
+     * @param unit the desired time unit.
+     * @return the maximum latency, in the given unit.
+     * @throws NullPointerException if {@code unit} is {@code null}.
+     */
+    public long getMaxLatency(TimeUnit unit) {
+        return unit.convert(maxLatency.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Initiates an orderly shutdown: already admitted requests are
+     * processed, new ones are rejected.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Blocks until all admitted requests have completed after a shutdown
+     * request, or the timeout occurs, or the current thread is interrupted,
+     * whichever happens first.
+     *
+     * @param timeout the maximum time to wait.
+     * @param unit    the time unit of the timeout argument.
+     * @return {@code true} if this service terminated and {@code false} if
+     * the timeout elapsed before termination.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return XObjects.toStringBuilder("PasswordHasherService")
+                .append("queueDepth", getQueueDepth())
+                .append("active", getActiveCount())
+                .append("memoryInUse", getMemoryInUse())
+                .append("submitted", getSubmittedCount())
+                .append("rejected", getRejectedCount())
+                .append("completed", getCompletedCount())
+                .toString();
+    }
+
+    private <V> Future<V> submit(long bytes, final Callable<V> task) {
+        final int permits = (int) Math.min((bytes + KB - 1) / KB, memoryBudget);
+        if (!acquire(permits)) {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Memory budget exhausted");
+        }
+        final long start = System.nanoTime();
+        final AtomicBoolean claimed = new AtomicBoolean();
+        FutureTask<V> future = new FutureTask<V>(new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                try {
+                    return task.call();
+                } finally {
+                    memory.release(permits);
+                }
+            }
+        }) {
+            @Override
+            protected void done() {
+                if (claimed.compareAndSet(false, true)) {
+                    memory.release(permits);
+                }
+                record(System.nanoTime() - start);
+            }
+        };
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException ex) {
+            memory.release(permits);
+            rejected.incrementAndGet();
+            throw ex;
+        }
+        submitted.incrementAndGet();
+        return future;
+    }
+
+    private boolean acquire(int permits) {
+        try {
+            return memory.tryAcquire(permits, admissionTimeout,
+                    TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void record(long latency) {
+        completed.incrementAndGet();
+        totalLatency.addAndGet(latency);
+        long max = maxLatency.get();
+        while (latency > max && !maxLatency.compareAndSet(max, latency)) {
+            max = maxLatency.get();
+        }
+    }
+
+    private static final class WorkerFactory implements ThreadFactory {
+        private static final AtomicInteger POOL = new AtomicInteger();
+
+        private final int pool = POOL.incrementAndGet();
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "password-hasher-" + pool + "-"
+                    + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
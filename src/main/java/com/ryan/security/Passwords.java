@@ -62,14 +62,10 @@ public final class Passwords {
      */
     public static boolean verify(String password, byte[] hash) {
         byte[] h = Arrays.copyOf(hash, HASH_LENGTH + SALT_LENGTH + 3);
-        int n = 1 << (h[HASH_LENGTH + SALT_LENGTH] & 0xFF);
-        int r = h[HASH_LENGTH + SALT_LENGTH + 1] & 0xFF;
-        int p = h[HASH_LENGTH + SALT_LENGTH + 2] & 0xFF;
-        if (n > N || n < N_MIN || r > R || r < R_MIN || p > P || p < P_MIN) {
-            n = N;
-            r = R;
-            p = P;
-        }
+        int[] params = parameters(h);
+        int n = params[0];
+        int r = params[1];
+        int p = params[2];
         byte[] salt = new byte[SALT_LENGTH];
         System.arraycopy(h, HASH_LENGTH, salt, 0, SALT_LENGTH);
         byte[] expected = hash(password, salt, r, n, p);
@@ -80,6 +76,44 @@ public final class Passwords {
         return result == 0;
     }
 
+    /**
+     * Returns the approximate amount of working memory (in bytes) needed by
+     * {@link #hash(String)}.
+     *
+     * @return the memory needed to hash a password.
+     */
+    static long hashMemory() {
+        return memory(R, N, P);
+    }
+
+    /**
+     * Returns the approximate amount of working memory (in bytes) needed by
+     * {@link #verify(String, byte[])} to verify a password against the given
+     * hash.
+     *
+     * @param hash the hashed password.
+     * @return the memory needed to verify a password against {@code hash}.
+     * @throws NullPointerException if {@code hash} is {@code null}.
+     */
+    static long verifyMemory(byte[] hash) {
+        int[] params = parameters(Arrays.copyOf(hash, HASH_LENGTH + SALT_LENGTH + 3));
+        return memory(params[1], params[0], params[2]);
+    }
+
+    private static long memory(int r, int n, int p) {
+        return 128L * r * (n + p);
+    }
+
+    private static int[] parameters(byte[] h) {
+        int n = 1 << (h[HASH_LENGTH + SALT_LENGTH] & 0xFF);
+        int r = h[HASH_LENGTH + SALT_LENGTH + 1] & 0xFF;
+        int p = h[HASH_LENGTH + SALT_LENGTH + 2] & 0xFF;
+        if (n > N || n < N_MIN || r > R || r < R_MIN || p > P || p < P_MIN) {
+            return new int[]{N, R, P};
+        }
+        return new int[]{n, r, p};
+    }
+
     private static byte[] hash(String password, byte[] salt, int r, int n, int p) {
         KDF scrypt = KDFs.scrypt(r, n, p, HASH_LENGTH);
         ByteBuffer buf = new ByteBuffer(HASH_LENGTH + SALT_LENGTH + 3);
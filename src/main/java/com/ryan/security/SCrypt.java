@@ -1,23 +1,45 @@
 package com.ryan.security;
 
-import com.ryan.util.ByteBuffer;
 import com.ryan.util.LittleEndian;
 import com.ryan.util.Parameters;
+import com.ryan.util.Throwables;
 import com.ryan.util.XObjects;
 
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * SCrypt Key Derivation Function (RFC 7914). Instances of this class are
  * immutable.
+ * <p>
+ * ROMix and BlockMix work in place on {@code int} words: the V array is laid
+ * out as a single flat {@code int[]} and Salsa20/8 never round-trips through
+ * bytes. The scratch memory is kept in a per-thread context and reused by
+ * subsequent derivations performed on the same thread (it is only softly
+ * referenced, so the garbage collector may reclaim it under memory pressure);
+ * it is zeroed after each use, as it holds secret-derived state.
+ * <p>
+ * When an {@code Executor} is supplied, the {@code p} independent ROMix lanes
+ * are run concurrently on it (the calling thread runs one of them itself).
+ * The derived keys are identical to the ones produced sequentially.
  *
  * @author Osman KOCAK
  */
 final class SCrypt implements KDF {
+    private static final ThreadLocal<SoftReference<Scratch>> SCRATCH =
+            new ThreadLocal<SoftReference<Scratch>>();
+
     private final int r;
     private final int n;
     private final int p;
     private final int dkLen;
+    private final Executor executor;
 
     /**
      * Creates a new {@code SCrypt} instance.
@@ -29,29 +51,56 @@ final class SCrypt implements KDF {
      * @throws IllegalArgumentException if {@code r, dkLen} or {@code p} is
      *                                  negative, or if {@code n} is not greater than 1 or if it is not
      *                                  a power of 2 or if it is not less than 2 ^ (128 * r / 8), or if
-     *                                  {@code p} is greater than ((2 ^ 32 - 1) * 32) / (128 * r).
+     *                                  {@code p} is greater than ((2 ^ 32 - 1) * 32) / (128 * r), or
+     *                                  if {@code 128 * r * n} exceeds the maximum array size.
      */
     SCrypt(int r, int n, int p, int dkLen) {
+        this(r, n, p, dkLen, null);
+    }
+
+    /**
+     * Creates a new {@code SCrypt} instance running its lanes on the given
+     * {@code Executor}.
+     *
+     * @param r        the block size parameter.
+     * @param n        the CPU/Memory cost parameter.
+     * @param p        the parallelization parameter.
+     * @param dkLen    the desired length for derived keys, in bytes.
+     * @param executor the executor on which to run the lanes, may be
+     *                 {@code null} in which case lanes are run sequentially.
+     * @throws IllegalArgumentException if {@code r, dkLen} or {@code p} is
+     *                                  negative, or if {@code n} is not greater than 1 or if it is not
+     *                                  a power of 2 or if it is not less than 2 ^ (128 * r / 8), or if
+     *                                  {@code p} is greater than ((2 ^ 32 - 1) * 32) / (128 * r), or
+     *                                  if {@code 128 * r * n} exceeds the maximum array size.
+     */
+    SCrypt(int r, int n, int p, int dkLen, Executor executor) {
         Parameters.checkCondition(r > 0 && p > 0 && dkLen > 0);
         Parameters.checkCondition(n > 1 && (n & (n - 1)) == 0);
         Parameters.checkCondition(r == 1 ? n < (1 << 16) : true);
         Parameters.checkCondition((long) p * r < (1 << 30));
+        Parameters.checkCondition((long) n * r < (1 << 26));
         this.r = r;
         this.n = n;
         this.p = p;
         this.dkLen = dkLen;
+        this.executor = executor;
     }
 
     @Override
     public byte[] deriveKey(byte[] secret, byte[] salt) {
         KDF pbkdf2 = KDFs.pbkdf2(Algorithm.HMAC_SHA256, 1, p * 128 * r);
         byte[] b = pbkdf2.deriveKey(secret, salt);
-        ByteBuffer buffer = new ByteBuffer(p * 128 * r);
-        for (int i = 0; i < p; i++) {
-            buffer.append(roMix(slice(b, i * 128 * r, 128 * r)));
+        if (executor == null || p == 1) {
+            Scratch scratch = scratch(r, n);
+            for (int i = 0; i < p; i++) {
+                roMix(b, i * 128 * r, scratch);
+            }
+        } else {
+            roMixParallel(b);
         }
         pbkdf2 = KDFs.pbkdf2(Algorithm.HMAC_SHA256, 1, dkLen);
-        return pbkdf2.deriveKey(secret, buffer.toByteArray());
+        return pbkdf2.deriveKey(secret, b);
     }
 
     @Override
@@ -61,98 +110,196 @@ final class SCrypt implements KDF {
                 .toString();
     }
 
-    private byte[] roMix(byte[] x) {
-        int len = x.length;
-        ByteBuffer v = new ByteBuffer(n * len);
-        for (int i = 0; i < n; i++) {
-            v.append(x);
-            x = blockMix(x);
+    /**
+     * Runs the {@code p} lanes concurrently, lanes 1 to p - 1 on the
+     * executor and lane 0 on the calling thread. Lanes work on disjoint
+     * ranges of {@code b}, the completion of each task publishes its result.
+     */
+    private void roMixParallel(final byte[] b) {
+        List<FutureTask<Void>> lanes = new ArrayList<FutureTask<Void>>(p - 1);
+        for (int i = 1; i < p; i++) {
+            final int off = i * 128 * r;
+            FutureTask<Void> lane = new FutureTask<Void>(new Runnable() {
+                @Override
+                public void run() {
+                    roMix(b, off, scratch(r, n));
+                }
+            }, null);
+            lanes.add(lane);
+            try {
+                executor.execute(lane);
+            } catch (RejectedExecutionException ex) {
+                lane.run();
+            }
         }
-        int offset = (2 * r - 1) * 64;
-        for (int i = 0; i < n; i++) {
-            int j = LittleEndian.decodeInt(x, offset) & (n - 1);
-            x = blockMix(xor(x, v.toByteArray(j * len, len)));
+        roMix(b, 0, scratch(r, n));
+        try {
+            for (FutureTask<Void> lane : lanes) {
+                lane.get();
+            }
+        } catch (ExecutionException ex) {
+            throw Throwables.propagate(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate(ex);
         }
-        return x;
     }
 
-    private byte[] blockMix(byte[] in) {
-        byte[] x = slice(in, (2 * r - 1) * 64, 64);
-        ByteBuffer buffer = new ByteBuffer(128 * r);
-        for (int i = 0; i < 2 * r; i++) {
-            x = salsa20(xor(x, slice(in, i * 64, 64)), 8);
-            buffer.append(x);
-        }
-        byte[] y = buffer.toByteArray();
-        byte[] b = new byte[in.length];
-        for (int i = 0; i < r; i++) {
-            System.arraycopy(y, (i * 2) * 64, b, i * 64, 64);
+    /**
+     * Returns the calling thread's scratch context, (re)allocating it if it
+     * has been reclaimed or if it is too small for the given parameters.
+     */
+    private static Scratch scratch(int r, int n) {
+        SoftReference<Scratch> ref = SCRATCH.get();
+        Scratch scratch = ref == null ? null : ref.get();
+        if (scratch == null || !scratch.fits(r, n)) {
+            scratch = new Scratch(r, n);
+            SCRATCH.set(new SoftReference<Scratch>(scratch));
         }
-        for (int i = 0; i < r; i++) {
-            System.arraycopy(y, (i * 2 + 1) * 64, b, (i + r) * 64, 64);
+        return scratch;
+    }
+
+    /**
+     * Applies ROMix to the {@code 128 * r} bytes of {@code b} starting at
+     * {@code off}, writing the result back in place. The scratch memory,
+     * which holds secret-derived state, is zeroed before returning.
+     */
+    private void roMix(byte[] b, int off, Scratch scratch) {
+        try {
+            roMix(b, off, scratch.v, scratch.x, scratch.y, scratch.t);
+        } finally {
+            scratch.clear(r, n);
         }
-        return b;
     }
 
-    private byte[] salsa20(byte[] buf, int rounds) {
-        int[] in = new int[16];
-        for (int i = 0; i < 16; i++) {
-            in[i] = LittleEndian.decodeInt(buf, i * 4);
+    private void roMix(byte[] b, int off, int[] v, int[] x, int[] y, int[] t) {
+        int words = 32 * r;
+        for (int k = 0; k < words; k++) {
+            x[k] = LittleEndian.decodeInt(b, off + k * 4);
+        }
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(x, 0, v, i * words, words);
+            blockMix(x, y, t);
+            int[] tmp = x;
+            x = y;
+            y = tmp;
+        }
+        int last = (2 * r - 1) * 16;
+        for (int i = 0; i < n; i++) {
+            int j = (x[last] & (n - 1)) * words;
+            for (int k = 0; k < words; k++) {
+                x[k] ^= v[j + k];
+            }
+            blockMix(x, y, t);
+            int[] tmp = x;
+            x = y;
+            y = tmp;
         }
-        int[] x = Arrays.copyOf(in, in.length);
-        for (int i = rounds; i > 0; i -= 2) {
-            x[4] ^= Integer.rotateLeft(x[0] + x[12], 7);
-            x[8] ^= Integer.rotateLeft(x[4] + x[0], 9);
-            x[12] ^= Integer.rotateLeft(x[8] + x[4], 13);
-            x[0] ^= Integer.rotateLeft(x[12] + x[8], 18);
-            x[9] ^= Integer.rotateLeft(x[5] + x[1], 7);
-            x[13] ^= Integer.rotateLeft(x[9] + x[5], 9);
-            x[1] ^= Integer.rotateLeft(x[13] + x[9], 13);
-            x[5] ^= Integer.rotateLeft(x[1] + x[13], 18);
-            x[14] ^= Integer.rotateLeft(x[10] + x[6], 7);
-            x[2] ^= Integer.rotateLeft(x[14] + x[10], 9);
-            x[6] ^= Integer.rotateLeft(x[2] + x[14], 13);
-            x[10] ^= Integer.rotateLeft(x[6] + x[2], 18);
-            x[3] ^= Integer.rotateLeft(x[15] + x[11], 7);
-            x[7] ^= Integer.rotateLeft(x[3] + x[15], 9);
-            x[11] ^= Integer.rotateLeft(x[7] + x[3], 13);
-            x[15] ^= Integer.rotateLeft(x[11] + x[7], 18);
-            x[1] ^= Integer.rotateLeft(x[0] + x[3], 7);
-            x[2] ^= Integer.rotateLeft(x[1] + x[0], 9);
-            x[3] ^= Integer.rotateLeft(x[2] + x[1], 13);
-            x[0] ^= Integer.rotateLeft(x[3] + x[2], 18);
-            x[6] ^= Integer.rotateLeft(x[5] + x[4], 7);
-            x[7] ^= Integer.rotateLeft(x[6] + x[5], 9);
-            x[4] ^= Integer.rotateLeft(x[7] + x[6], 13);
-            x[5] ^= Integer.rotateLeft(x[4] + x[7], 18);
-            x[11] ^= Integer.rotateLeft(x[10] + x[9], 7);
-            x[8] ^= Integer.rotateLeft(x[11] + x[10], 9);
-            x[9] ^= Integer.rotateLeft(x[8] + x[11], 13);
-            x[10] ^= Integer.rotateLeft(x[9] + x[8], 18);
-            x[12] ^= Integer.rotateLeft(x[15] + x[14], 7);
-            x[13] ^= Integer.rotateLeft(x[12] + x[15], 9);
-            x[14] ^= Integer.rotateLeft(x[13] + x[12], 13);
-            x[15] ^= Integer.rotateLeft(x[14] + x[13], 18);
+        for (int k = 0; k < words; k++) {
+            LittleEndian.encode(x[k], b, off + k * 4);
         }
-        byte[] out = new byte[64];
-        for (int i = 0; i < 16; i++) {
-            LittleEndian.encode(x[i] + in[i], out, i * 4);
+    }
+
+    /**
+     * Applies BlockMix to {@code in}, writing the result into {@code out}.
+     */
+    private void blockMix(int[] in, int[] out, int[] t) {
+        System.arraycopy(in, (2 * r - 1) * 16, t, 0, 16);
+        for (int i = 0; i < 2 * r; i++) {
+            int off = i * 16;
+            for (int k = 0; k < 16; k++) {
+                t[k] ^= in[off + k];
+            }
+            salsa20x8(t);
+            System.arraycopy(t, 0, out, ((i >>> 1) + (i & 1) * r) * 16, 16);
         }
-        return out;
     }
 
-    private byte[] slice(byte[] src, int off, int len) {
-        byte[] slice = new byte[len];
-        System.arraycopy(src, off, slice, 0, len);
-        return slice;
+    /**
+     * Applies the Salsa20/8 core to the given 16 words, in place.
+     */
+    private static void salsa20x8(int[] b) {
+        int x0 = b[0], x1 = b[1], x2 = b[2], x3 = b[3];
+        int x4 = b[4], x5 = b[5], x6 = b[6], x7 = b[7];
+        int x8 = b[8], x9 = b[9], x10 = b[10], x11 = b[11];
+        int x12 = b[12], x13 = b[13], x14 = b[14], x15 = b[15];
+        for (int i = 8; i > 0; i -= 2) {
+            x4 ^= Integer.rotateLeft(x0 + x12, 7);
+            x8 ^= Integer.rotateLeft(x4 + x0, 9);
+            x12 ^= Integer.rotateLeft(x8 + x4, 13);
+            x0 ^= Integer.rotateLeft(x12 + x8, 18);
+            x9 ^= Integer.rotateLeft(x5 + x1, 7);
+            x13 ^= Integer.rotateLeft(x9 + x5, 9);
+            x1 ^= Integer.rotateLeft(x13 + x9, 13);
+            x5 ^= Integer.rotateLeft(x1 + x13, 18);
+            x14 ^= Integer.rotateLeft(x10 + x6, 7);
+            x2 ^= Integer.rotateLeft(x14 + x10, 9);
+            x6 ^= Integer.rotateLeft(x2 + x14, 13);
+            x10 ^= Integer.rotateLeft(x6 + x2, 18);
+            x3 ^= Integer.rotateLeft(x15 + x11, 7);
+            x7 ^= Integer.rotateLeft(x3 + x15, 9);
+            x11 ^= Integer.rotateLeft(x7 + x3, 13);
+            x15 ^= Integer.rotateLeft(x11 + x7, 18);
+            x1 ^= Integer.rotateLeft(x0 + x3, 7);
+            x2 ^= Integer.rotateLeft(x1 + x0, 9);
+            x3 ^= Integer.rotateLeft(x2 + x1, 13);
+            x0 ^= Integer.rotateLeft(x3 + x2, 18);
+            x6 ^= Integer.rotateLeft(x5 + x4, 7);
+            x7 ^= Integer.rotateLeft(x6 + x5, 9);
+            x4 ^= Integer.rotateLeft(x7 + x6, 13);
+            x5 ^= Integer.rotateLeft(x4 + x7, 18);
+            x11 ^= Integer.rotateLeft(x10 + x9, 7);
+            x8 ^= Integer.rotateLeft(x11 + x10, 9);
+            x9 ^= Integer.rotateLeft(x8 + x11, 13);
+            x10 ^= Integer.rotateLeft(x9 + x8, 18);
+            x12 ^= Integer.rotateLeft(x15 + x14, 7);
+            x13 ^= Integer.rotateLeft(x12 + x15, 9);
+            x14 ^= Integer.rotateLeft(x13 + x12, 13);
+            x15 ^= Integer.rotateLeft(x14 + x13, 18);
+        }
+        b[0] += x0;
+        b[1] += x1;
+        b[2] += x2;
+        b[3] += x3;
+        b[4] += x4;
+        b[5] += x5;
+        b[6] += x6;
+        b[7] += x7;
+        b[8] += x8;
+        b[9] += x9;
+        b[10] += x10;
+        b[11] += x11;
+        b[12] += x12;
+        b[13] += x13;
+        b[14] += x14;
+        b[15] += x15;
     }
 
-    private byte[] xor(byte[] x, byte[] y) {
-        int len = x.length;
-        byte[] z = new byte[len];
-        for (int k = 0; k < len; k++) {
-            z[k] = (byte) (x[k] ^ y[k]);
+    /**
+     * Per-thread ROMix working memory.
+     */
+    private static final class Scratch {
+        final int[] v;
+        final int[] x;
+        final int[] y;
+        final int[] t;
+
+        Scratch(int r, int n) {
+            this.v = new int[32 * r * n];
+            this.x = new int[32 * r];
+            this.y = new int[32 * r];
+            this.t = new int[16];
+        }
+
+        boolean fits(int r, int n) {
+            return x.length >= 32 * r && v.length >= 32 * r * n;
+        }
+
+        void clear(int r, int n) {
+            Arrays.fill(v, 0, 32 * r * n, 0);
+            Arrays.fill(x, 0);
+            Arrays.fill(y, 0);
+            Arrays.fill(t, 0);
         }
-        return z;
     }
 }
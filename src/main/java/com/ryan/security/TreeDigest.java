@@ -0,0 +1,219 @@
+package com.ryan.security;
+
+import com.ryan.util.Parameters;
+import com.ryan.util.Throwables;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Merkle tree hashing mode over an underlying digest algorithm. The input is
+ * split into fixed-size chunks which are hashed concurrently; the digest is the
+ * root of the binary hash tree built over the chunk hashes:
+ * <pre>
+ * leaf = H(0x00 || chunk)
+ * node = H(0x01 || left || right)
+ * </pre>
+ * A node without a right sibling is promoted as is to the next level. The
+ * result only depends on the input, the algorithm and the chunk size, not on
+ * the number of threads used to compute it. At most {@code readAhead} chunks
+ * are buffered at any time, their buffers being allocated on demand. When
+ * they are all waiting to be hashed, {@code update} hashes the oldest one on
+ * the calling thread if the executor hasn't started it yet, and otherwise
+ * waits for it; {@code digest} does the same with every pending chunk. Tasks
+ * that the executor drops without running them thus never block the digest.
+ * Instances of this class are not thread safe.
+ *
+ * @author Ryan Tao
+ */
+final class TreeDigest extends AbstractDigest {
+    private static final byte LEAF = 0x00;
+    private static final byte NODE = 0x01;
+
+    private final Algorithm<Digest> algorithm;
+    private final int chunkSize;
+    private final int readAhead;
+    private final Executor executor;
+    private final BlockingQueue<byte[]> buffers;
+    private final List<FutureTask<byte[]>> leaves;
+    private int allocated;
+    private int oldest;
+    private byte[] chunk;
+    private int chunkLen;
+
+    /**
+     * Creates a new {@code TreeDigest}.
+     *
+     * @param algorithm the underlying digest algorithm.
+     * @param chunkSize the chunk size, in bytes.
+     * @param readAhead the maximum number of buffered chunks.
+     * @param executor  the executor used to hash chunks.
+     * @throws NullPointerException     if {@code algorithm} or
+     *                                  {@code executor} is {@code null}.
+     * @throws IllegalArgumentException if {@code chunkSize} or
+     *                                  {@code readAhead} is not positive, or if the digest algorithm is
+     *                                  unknown.
+     */
+    TreeDigest(Algorithm<Digest> algorithm, int chunkSize, int readAhead,
+               Executor executor) {
+        super("Tree(" + algorithm + ")", Factory.newDigest(algorithm).length());
+        Parameters.checkCondition(chunkSize > 0 && readAhead > 0);
+        this.algorithm = algorithm;
+        this.chunkSize = chunkSize;
+        this.readAhead = readAhead;
+        this.executor = Parameters.checkNotNull(executor);
+        this.buffers = new ArrayBlockingQueue<byte[]>(readAhead);
+        this.leaves = new ArrayList<FutureTask<byte[]>>();
+    }
+
+    @Override
+    public Digest reset() {
+        for (FutureTask<byte[]> leaf : leaves) {
+            await(leaf, true);
+        }
+        leaves.clear();
+        oldest = 0;
+        if (chunk != null) {
+            buffers.add(chunk);
+            chunk = null;
+        }
+        chunkLen = 0;
+        return this;
+    }
+
+    @Override
+    public Digest update(byte input) {
+        if (chunk == null) {
+            chunk = take();
+        }
+        chunk[chunkLen++] = input;
+        if (chunkLen == chunkSize) {
+            submit();
+        }
+        return this;
+    }
+
+    @Override
+    public Digest update(byte[] input, int off, int len) {
+        if (off < 0 || len < 0 || off + len > input.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            if (chunk == null) {
+                chunk = take();
+            }
+            int cpLen = Math.min(chunkSize - chunkLen, len);
+            System.arraycopy(input, off, chunk, chunkLen, cpLen);
+            chunkLen += cpLen;
+            off += cpLen;
+            len -= cpLen;
+            if (chunkLen == chunkSize) {
+                submit();
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public byte[] digest() {
+        if (chunk != null || leaves.isEmpty()) {
+            if (chunk == null) {
+                chunk = take();
+            }
+            submit();
+        }
+        List<byte[]> level = new ArrayList<byte[]>(leaves.size());
+        try {
+            for (FutureTask<byte[]> leaf : leaves) {
+                level.add(await(leaf, false));
+            }
+        } finally {
+            reset();
+        }
+        Digest digest = Factory.newDigest(algorithm);
+        while (level.size() > 1) {
+            List<byte[]> next = new ArrayList<byte[]>((level.size() + 1) / 2);
+            for (int i = 0; i < level.size(); i += 2) {
+                if (i + 1 < level.size()) {
+                    digest.update(NODE).update(level.get(i));
+                    next.add(digest.digest(level.get(i + 1)));
+                } else {
+                    next.add(level.get(i));
+                }
+            }
+            level = next;
+        }
+        return level.get(0);
+    }
+
+    /*
+     * Returns a free chunk buffer, allocating it if less than readAhead ones
+     * exist. Otherwise, all the buffers belong to pending leaves, starting
+     * from the oldest unfinished one: these are hashed (or waited for) in
+     * order until one of them gives its buffer back. Failures are reported
+     * by digest().
+     */
+    private byte[] take() {
+        byte[] buf = buffers.poll();
+        if (buf == null && allocated < readAhead) {
+            allocated++;
+            return new byte[chunkSize];
+        }
+        while (buf == null) {
+            await(leaves.get(oldest++), true);
+            buf = buffers.poll();
+        }
+        return buf;
+    }
+
+    private void submit() {
+        final byte[] data = chunk;
+        final int len = chunkLen;
+        chunk = null;
+        chunkLen = 0;
+        FutureTask<byte[]> leaf = new FutureTask<byte[]>(new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                try {
+                    Digest digest = Factory.newDigest(algorithm);
+                    return digest.update(LEAF).digest(data, 0, len);
+                } finally {
+                    buffers.add(data);
+                }
+            }
+        });
+        leaves.add(leaf);
+        try {
+            executor.execute(leaf);
+        } catch (RejectedExecutionException ex) {
+            leaf.run();
+        }
+    }
+
+    /*
+     * Waits for the given leaf, hashing it on the calling thread first if
+     * the executor hasn't started it (FutureTask.run() does nothing if the
+     * task is already running or done).
+     */
+    private static byte[] await(FutureTask<byte[]> leaf, boolean quietly) {
+        leaf.run();
+        try {
+            return leaf.get();
+        } catch (ExecutionException ex) {
+            if (quietly) {
+                return null;
+            }
+            throw Throwables.propagate(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate(ex);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.ryan.time;
+
+import com.ryan.util.Parameters;
+import com.ryan.util.XObjects;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram with logarithmic (power of 2 nanoseconds) buckets.
+ * Recording is lock-free and allocation-free; percentiles are approximated by
+ * the upper bound of the bucket they fall in (hence within a factor of 2 of
+ * the actual value). Instances of this class are thread-safe.
+ *
+ * @author Ryan Tao
+ */
+public final class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets;
+    private final AtomicLong count;
+    private final AtomicLong total;
+    private final AtomicLong max;
+
+    /**
+     * Creates a new empty {@code LatencyHistogram}.
+     */
+    public LatencyHistogram() {
+        this.buckets = new AtomicLongArray(BUCKETS);
+        this.count = new AtomicLong();
+        this.total = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Records the given latency.
+     *
+     * @param duration the latency to record.
+     * @param unit     the time unit of {@code duration}.
+     * @throws NullPointerException if {@code unit} is {@code null}.
+     */
+    public void record(long duration, TimeUnit unit) {
+        recordNanos(unit.toNanos(duration));
+    }
+
+    /**
+     * Records the time elapsed since the given {@link System#nanoTime()}
+     * reading.
+     *
+     * @param startNanos the start time, as returned by {@code nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    private void recordNanos(long nanos) {
+        long n = Math.max(0L, nanos);
+        buckets.incrementAndGet(n == 0 ? 0 : 63 - Long.numberOfLeadingZeros(n));
+        count.incrementAndGet();
+        total.addAndGet(n);
+        long m = max.get();
+        while (n > m && !max.compareAndSet(m, n)) {
+            m = max.get();
+        }
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return the number of recorded latencies.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the mean of the recorded latencies.
+     *
+     * @param unit the desired time unit.
+     * @return the mean latency, {@code 0} if nothing has been recorded.
+     * @throws NullPointerException if {@code unit} is {@code null}.
+     */
+    public long getMean(TimeUnit unit) {
+        long c = count.get();
+        return c == 0 ? 0L : unit.convert(total.get() / c, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the highest recorded latency.
+     *
+     * @param unit the desired time unit.
+     * @return the maximum latency, {@code 0} if nothing has been recorded.
+     * @throws NullPointerException if {@code unit} is {@code null}.
+     */
+    public long getMax(TimeUnit unit) {
+        return unit.convert(max.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns an upper bound of the given percentile of the recorded
+     * latencies.
+     *
+     * @param percentile the percentile, between 0 and 100.
+     * @param unit       the desired time unit.
+     * @return the approximated percentile, {@code 0} if nothing has been
+     * recorded.
+     * @throws NullPointerException     if {@code unit} is {@code null}.
+     * @throws IllegalArgumentException if {@code percentile} is not in
+     *                                  the [0, 100] range.
+     */
+    public long getPercentile(double percentile, TimeUnit unit) {
+        Parameters.checkCondition(percentile >= 0 && percentile <= 100);
+        long[] snapshot = new long[BUCKETS];
+        long c = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            c += snapshot[i];
+        }
+        long rank = (long) Math.ceil(percentile / 100 * c);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank && snapshot[i] > 0) {
+                long bound = i >= 62 ? Long.MAX_VALUE : (2L << i) - 1L;
+                return unit.convert(Math.min(bound, max.get()), TimeUnit.NANOSECONDS);
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Clears this histogram.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0L);
+        }
+        count.set(0L);
+        total.set(0L);
+        max.set(0L);
+    }
+
+    @Override
+    public String toString() {
+        TimeUnit us = TimeUnit.MICROSECONDS;
+        return XObjects.toStringBuilder("LatencyHistogram")
+                .append("count", getCount())
+                .append("meanUs", getMean(us))
+                .append("p50Us", getPercentile(50, us))
+                .append("p99Us", getPercentile(99, us))
+                .append("maxUs", getMax(us))
+                .toString();
+    }
+}
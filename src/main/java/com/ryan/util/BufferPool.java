@@ -0,0 +1,111 @@
+package com.ryan.util;
+
+/**
+ * Pool of fixed-size NIO buffers, either heap or direct (off-heap) ones.
+ * Released buffers are kept, up to the pool's capacity, and handed out again
+ * by {@link #acquire()}, so that steady-state usage doesn't allocate. This
+ * class is thread-safe.
+ *
+ * @author Ryan Tao
+ * @see ChunkedByteBuffer
+ */
+public final class BufferPool {
+    private final int bufferSize;
+    private final boolean direct;
+    private final java.nio.ByteBuffer[] pool;
+    private int pooled;
+
+    /**
+     * Creates a new {@code BufferPool}.
+     *
+     * @param bufferSize the size of the pooled buffers.
+     * @param capacity   the maximum number of buffers to keep.
+     * @param direct     whether to allocate direct buffers.
+     * @throws IllegalArgumentException if {@code bufferSize} is not
+     *                                  positive or if {@code capacity} is negative.
+     */
+    public BufferPool(int bufferSize, int capacity, boolean direct) {
+        Parameters.checkCondition(bufferSize > 0);
+        Parameters.checkCondition(capacity >= 0);
+        this.bufferSize = bufferSize;
+        this.direct = direct;
+        this.pool = new java.nio.ByteBuffer[capacity];
+    }
+
+    /**
+     * Returns a cleared buffer, either a pooled one or a newly allocated
+     * one if the pool is empty.
+     *
+     * @return a buffer of {@link #bufferSize()} bytes.
+     */
+    public java.nio.ByteBuffer acquire() {
+        synchronized (pool) {
+            if (pooled > 0) {
+                java.nio.ByteBuffer buf = pool[--pooled];
+                pool[pooled] = null;
+                buf.clear();
+                return buf;
+            }
+        }
+        return direct ? java.nio.ByteBuffer.allocateDirect(bufferSize)
+                : java.nio.ByteBuffer.allocate(bufferSize);
+    }
+
+    /**
+     * Gives the given buffer back to this pool. The buffer must not be used
+     * anymore by the caller. If the pool is full, the buffer is dropped.
+     *
+     * @param buf the buffer to release.
+     * @throws NullPointerException     if {@code buf} is {@code null}.
+     * @throws IllegalArgumentException if {@code buf} hasn't the size and
+     *                                  the kind of the buffers of this pool, or if it's read-only.
+     */
+    public void release(java.nio.ByteBuffer buf) {
+        Parameters.checkCondition(buf.capacity() == bufferSize
+                && buf.isDirect() == direct && !buf.isReadOnly());
+        synchronized (pool) {
+            if (pooled < pool.length) {
+                pool[pooled++] = buf;
+            }
+        }
+    }
+
+    /**
+     * Returns the size of the buffers of this pool.
+     *
+     * @return the size of the buffers, in bytes.
+     */
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns whether this pool allocates direct buffers.
+     *
+     * @return whether the buffers of this pool are direct.
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Returns the number of buffers currently kept by this pool.
+     *
+     * @return the number of pooled buffers.
+     */
+    public int pooled() {
+        synchronized (pool) {
+            return pooled;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return XObjects.toStringBuilder("BufferPool")
+                .append("bufferSize", bufferSize)
+                .append("direct", direct)
+                .append("capacity", pool.length)
+                .append("pooled", pooled())
+                .toString();
+    }
+}
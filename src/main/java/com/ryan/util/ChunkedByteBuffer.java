@@ -0,0 +1,320 @@
+package com.ryan.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A buffer that stores a sequence of bytes in fixed-size chunks taken from a
+ * {@link BufferPool}, on the heap or in direct (off-heap) memory. Unlike
+ * {@link ByteBuffer}, growing never copies the data: a new chunk is simply
+ * appended. The content can be written to a channel without any
+ * intermediate array, through {@link #writeTo(WritableByteChannel)} or the
+ * {@link #asReadOnlyNioBuffers()} views. {@link #clear()} (or
+ * {@link #close()}) gives the chunks back to the pool. Not thread-safe.
+ *
+ * @author Ryan Tao
+ * @see BufferPool
+ */
+public final class ChunkedByteBuffer implements Closeable {
+    private static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private final BufferPool pool;
+    private final int chunkSize;
+    private final List<java.nio.ByteBuffer> chunks;
+    private long size;
+
+    /**
+     * Creates a new {@code ChunkedByteBuffer} using 8 KB heap chunks, which
+     * aren't recycled.
+     */
+    public ChunkedByteBuffer() {
+        this(new BufferPool(DEFAULT_CHUNK_SIZE, 0, false));
+    }
+
+    /**
+     * Creates a new {@code ChunkedByteBuffer} taking its chunks from the
+     * given pool.
+     *
+     * @param pool the pool to use.
+     * @throws NullPointerException if {@code pool} is {@code null}.
+     */
+    public ChunkedByteBuffer(BufferPool pool) {
+        this.pool = Parameters.checkNotNull(pool);
+        this.chunkSize = pool.bufferSize();
+        this.chunks = new ArrayList<java.nio.ByteBuffer>();
+    }
+
+    /**
+     * Writes the given byte to this buffer.
+     *
+     * @param b the byte to write.
+     * @return this object.
+     */
+    public ChunkedByteBuffer append(byte b) {
+        writableChunk().put(b);
+        size++;
+        return this;
+    }
+
+    /**
+     * Writes the given bytes to this buffer.
+     *
+     * @param bytes the bytes to write.
+     * @return this object.
+     * @throws NullPointerException if {@code bytes} is {@code null}.
+     */
+    public ChunkedByteBuffer append(byte... bytes) {
+        return append(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes the given data to this buffer.
+     *
+     * @param bytes the data to write.
+     * @param off   the offset.
+     * @param len   the number of bytes to write.
+     * @return this object.
+     * @throws NullPointerException      if {@code bytes} is {@code null}.
+     * @throws IndexOutOfBoundsException if {@code off} or {@code len} is
+     *                                   negative or if {@code off + len} is greater than the length of
+     *                                   the {@code bytes} array.
+     */
+    public ChunkedByteBuffer append(byte[] bytes, int off, int len) {
+        if (off < 0 || len < 0 || off > bytes.length - len) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            java.nio.ByteBuffer chunk = writableChunk();
+            int n = Math.min(len, chunk.remaining());
+            chunk.put(bytes, off, n);
+            off += n;
+            len -= n;
+            size += n;
+        }
+        return this;
+    }
+
+    /**
+     * Writes the remaining bytes of the given NIO buffer to this buffer.
+     * The position of {@code src} is advanced accordingly.
+     *
+     * @param src the data to write.
+     * @return this object.
+     * @throws NullPointerException if {@code src} is {@code null}.
+     */
+    public ChunkedByteBuffer append(java.nio.ByteBuffer src) {
+        int limit = src.limit();
+        try {
+            while (src.hasRemaining()) {
+                java.nio.ByteBuffer chunk = writableChunk();
+                int n = Math.min(src.remaining(), chunk.remaining());
+                src.limit(src.position() + n);
+                chunk.put(src);
+                src.limit(limit);
+                size += n;
+            }
+        } finally {
+            src.limit(limit);
+        }
+        return this;
+    }
+
+    /**
+     * Reads the given channel until its end, appending all the read bytes
+     * to this buffer. Bytes are read directly into the chunks.
+     *
+     * @param in the channel to read.
+     * @return the number of read bytes.
+     * @throws NullPointerException if {@code in} is {@code null}.
+     * @throws IOException          if {@code in} can't be read.
+     */
+    public long readFrom(ReadableByteChannel in) throws IOException {
+        long total = 0;
+        while (true) {
+            java.nio.ByteBuffer chunk = writableChunk();
+            int n = in.read(chunk);
+            if (n < 0) {
+                return total;
+            }
+            size += n;
+            total += n;
+        }
+    }
+
+    /**
+     * Returns the byte at the given position.
+     *
+     * @param index the position of the byte.
+     * @return the byte at {@code index}.
+     * @throws IndexOutOfBoundsException if {@code index} is negative or if
+     *                                   it isn't lower than {@code size()}.
+     */
+    public byte get(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        return chunks.get((int) (index / chunkSize)).get((int) (index % chunkSize));
+    }
+
+    /**
+     * Returns the number of bytes contained in this buffer.
+     *
+     * @return the number of bytes contained in this buffer.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the content of this buffer.
+     *
+     * @return the content of this buffer.
+     * @throws IllegalStateException if this buffer is too big to fit in an
+     *                               array.
+     */
+    public byte[] toByteArray() {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException();
+        }
+        byte[] data = new byte[(int) size];
+        int off = 0;
+        for (java.nio.ByteBuffer chunk : chunks) {
+            java.nio.ByteBuffer view = chunk.duplicate();
+            view.flip();
+            int n = view.remaining();
+            view.get(data, off, n);
+            off += n;
+        }
+        return data;
+    }
+
+    /**
+     * Returns read-only views of the chunks of this buffer, positioned on
+     * their content, in order. The views share their content with this
+     * buffer, and are only valid until the next call to {@link #clear()}.
+     *
+     * @return the chunks of this buffer.
+     */
+    public java.nio.ByteBuffer[] asReadOnlyNioBuffers() {
+        java.nio.ByteBuffer[] views = new java.nio.ByteBuffer[chunks.size()];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = chunks.get(i).asReadOnlyBuffer();
+            views[i].flip();
+        }
+        return views;
+    }
+
+    /**
+     * Writes the content of this buffer to the given channel, using a
+     * gathering write if the channel supports it. The channel must be in
+     * blocking mode.
+     *
+     * @param out the channel to write to.
+     * @return the number of written bytes.
+     * @throws NullPointerException if {@code out} is {@code null}.
+     * @throws IOException          if {@code out} can't be written.
+     */
+    public long writeTo(WritableByteChannel out) throws IOException {
+        java.nio.ByteBuffer[] views = asReadOnlyNioBuffers();
+        if (out instanceof GatheringByteChannel) {
+            GatheringByteChannel channel = (GatheringByteChannel) out;
+            long written = 0;
+            int i = 0;
+            while (written < size) {
+                while (!views[i].hasRemaining()) {
+                    i++;
+                }
+                written += channel.write(views, i, views.length - i);
+            }
+            return written;
+        }
+        for (java.nio.ByteBuffer view : views) {
+            while (view.hasRemaining()) {
+                out.write(view);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Writes the content of this buffer to the given stream. Heap chunks
+     * are written directly; direct chunks are copied through a small
+     * temporary array.
+     *
+     * @param out the stream to write to.
+     * @return the number of written bytes.
+     * @throws NullPointerException if {@code out} is {@code null}.
+     * @throws IOException          if {@code out} can't be written.
+     */
+    public long writeTo(OutputStream out) throws IOException {
+        byte[] tmp = null;
+        for (java.nio.ByteBuffer chunk : chunks) {
+            if (chunk.hasArray()) {
+                out.write(chunk.array(), chunk.arrayOffset(), chunk.position());
+                continue;
+            }
+            if (tmp == null) {
+                tmp = new byte[Math.min(chunkSize, DEFAULT_CHUNK_SIZE)];
+            }
+            java.nio.ByteBuffer view = chunk.duplicate();
+            view.flip();
+            while (view.hasRemaining()) {
+                int n = Math.min(tmp.length, view.remaining());
+                view.get(tmp, 0, n);
+                out.write(tmp, 0, n);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Clears this buffer, giving all its chunks back to its pool.
+     *
+     * @return this object.
+     */
+    public ChunkedByteBuffer clear() {
+        for (java.nio.ByteBuffer chunk : chunks) {
+            pool.release(chunk);
+        }
+        chunks.clear();
+        size = 0;
+        return this;
+    }
+
+    /**
+     * Clears this buffer, giving all its chunks back to its pool. This
+     * buffer can still be used afterwards.
+     */
+    @Override
+    public void close() {
+        clear();
+    }
+
+    @Override
+    public String toString() {
+        return XObjects.toStringBuilder("ChunkedByteBuffer")
+                .append("size", size)
+                .append("chunks", chunks.size())
+                .append("chunkSize", chunkSize)
+                .append("direct", pool.isDirect())
+                .toString();
+    }
+
+    private java.nio.ByteBuffer writableChunk() {
+        if (!chunks.isEmpty()) {
+            java.nio.ByteBuffer last = chunks.get(chunks.size() - 1);
+            if (last.hasRemaining()) {
+                return last;
+            }
+        }
+        java.nio.ByteBuffer chunk = pool.acquire();
+        chunks.add(chunk);
+        return chunk;
+    }
+}
@@ -0,0 +1,17 @@
+package com.ryan.util;
+
+/**
+ * A predicate on {@code double} values, which doesn't box them.
+ *
+ * @author Ryan Tao
+ * @see Predicate
+ */
+public interface DoublePredicate {
+    /**
+     * Applies this predicate to the given value.
+     *
+     * @param value the input value.
+     * @return the result of the predicate.
+     */
+    boolean apply(double value);
+}
@@ -0,0 +1,19 @@
+package com.ryan.util;
+
+/**
+ * A function, computing an output value from an input value.
+ *
+ * @param <F> the type of the function's input.
+ * @param <T> the type of the function's output.
+ * @author Ryan Tao
+ * @see Predicate
+ */
+public interface Function<F, T> {
+    /**
+     * Applies this function to the given input.
+     *
+     * @param input the input value.
+     * @return the output value.
+     */
+    T apply(F input);
+}
@@ -0,0 +1,26 @@
+package com.ryan.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * An iterator over a sequence of {@code int}s, which doesn't box them.
+ *
+ * @author Ryan Tao
+ * @see IntArrayList
+ */
+public interface IntIterator {
+    /**
+     * Returns whether the iteration has more elements.
+     *
+     * @return whether there are more elements.
+     */
+    boolean hasNext();
+
+    /**
+     * Returns the next element of the iteration.
+     *
+     * @return the next element.
+     * @throws NoSuchElementException if the iteration has no more elements.
+     */
+    int nextInt();
+}
@@ -0,0 +1,410 @@
+package com.ryan.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A growable array of {@code long}s. Unlike a {@code List<Long>}, the
+ * elements are stored unboxed in a single array, which grows by half of its
+ * size whenever it's full, so that appending runs in amortized constant
+ * time. Not thread-safe.
+ *
+ * @author Ryan Tao
+ * @see XArrays
+ */
+public final class LongArrayList implements Serializable {
+    private static final long serialVersionUID = -2460713542885367119L;
+    private static final int DEFAULT_CAPACITY = 10;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    private static final long[] EMPTY = {};
+
+    /**
+     * Creates a new {@code LongArrayList} containing the given elements.
+     *
+     * @param values the list's elements.
+     * @return the created list.
+     * @throws NullPointerException if {@code values} is {@code null}.
+     */
+    public static LongArrayList of(long... values) {
+        LongArrayList list = new LongArrayList(values.length);
+        list.addAll(values);
+        return list;
+    }
+
+    private long[] elements;
+    private int size;
+
+    /**
+     * Creates a new empty {@code LongArrayList}.
+     */
+    public LongArrayList() {
+        this.elements = EMPTY;
+    }
+
+    /**
+     * Creates a new empty {@code LongArrayList} having the given initial
+     * capacity.
+     *
+     * @param capacity the initial capacity.
+     * @throws IllegalArgumentException if {@code capacity} is negative.
+     */
+    public LongArrayList(int capacity) {
+        Parameters.checkCondition(capacity >= 0);
+        this.elements = capacity == 0 ? EMPTY : new long[capacity];
+    }
+
+    /**
+     * Appends the given element to the end of this list.
+     *
+     * @param e the element to append.
+     * @return this object.
+     */
+    public LongArrayList add(long e) {
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        elements[size++] = e;
+        return this;
+    }
+
+    /**
+     * Inserts the given element at the given position in this list,
+     * shifting the subsequent elements to the right.
+     *
+     * @param index the position at which to insert {@code e}.
+     * @param e     the element to insert.
+     * @return this object.
+     * @throws IndexOutOfBoundsException if {@code index} is negative or if
+     *                                   it is greater than {@code size()}.
+     */
+    public LongArrayList add(int index, long e) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = e;
+        size++;
+        return this;
+    }
+
+    /**
+     * Appends all the given elements to the end of this list.
+     *
+     * @param values the elements to append.
+     * @return this object.
+     * @throws NullPointerException if {@code values} is {@code null}.
+     */
+    public LongArrayList addAll(long... values) {
+        return addAll(values, 0, values.length);
+    }
+
+    /**
+     * Appends {@code len} elements of the given array, starting at
+     * {@code off}, to the end of this list.
+     *
+     * @param values the elements to append.
+     * @param off    the offset of the first element to append.
+     * @param len    the number of elements to append.
+     * @return this object.
+     * @throws NullPointerException      if {@code values} is {@code null}.
+     * @throws IndexOutOfBoundsException if {@code off} or {@code len} is
+     *                                   negative or if {@code off + len} is greater than the length of
+     *                                   the {@code values} array.
+     */
+    public LongArrayList addAll(long[] values, int off, int len) {
+        if (off < 0 || len < 0 || off > values.length - len) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureCapacity(size + len);
+        System.arraycopy(values, off, elements, size, len);
+        size += len;
+        return this;
+    }
+
+    /**
+     * Appends all the elements of the given list to the end of this list.
+     *
+     * @param list the elements to append.
+     * @return this object.
+     * @throws NullPointerException if {@code list} is {@code null}.
+     */
+    public LongArrayList addAll(LongArrayList list) {
+        return addAll(list.elements, 0, list.size);
+    }
+
+    /**
+     * Returns the element at the given position in this list.
+     *
+     * @param index the position of the element.
+     * @return the element at {@code index}.
+     * @throws IndexOutOfBoundsException if {@code index} is negative or if
+     *                                   it isn't lower than {@code size()}.
+     */
+    public long get(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    /**
+     * Replaces the element at the given position in this list.
+     *
+     * @param index the position of the element to replace.
+     * @param e     the new element.
+     * @return the replaced element.
+     * @throws IndexOutOfBoundsException if {@code index} is negative or if
+     *                                   it isn't lower than {@code size()}.
+     */
+    public long set(int index, long e) {
+        checkIndex(index);
+        long old = elements[index];
+        elements[index] = e;
+        return old;
+    }
+
+    /**
+     * Removes the element at the given position in this list, shifting the
+     * subsequent elements to the left.
+     *
+     * @param index the position of the element to remove.
+     * @return the removed element.
+     * @throws IndexOutOfBoundsException if {@code index} is negative or if
+     *                                   it isn't lower than {@code size()}.
+     */
+    public long removeAt(int index) {
+        checkIndex(index);
+        long old = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        return old;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the given element in
+     * this list, or {@code -1} if it isn't present.
+     *
+     * @param e the element to search for.
+     * @return the index of the first occurrence of {@code e}, or {@code -1}.
+     */
+    public int indexOf(long e) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i] == e) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last occurrence of the given element in this
+     * list, or {@code -1} if it isn't present.
+     *
+     * @param e the element to search for.
+     * @return the index of the last occurrence of {@code e}, or {@code -1}.
+     */
+    public int lastIndexOf(long e) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (elements[i] == e) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether this list contains the given element.
+     *
+     * @param e the element to search for.
+     * @return whether {@code e} is present.
+     */
+    public boolean contains(long e) {
+        return indexOf(e) >= 0;
+    }
+
+    /**
+     * Sorts this list, in place, into ascending numerical order.
+     *
+     * @return this object.
+     * @see Arrays#sort(long[], int, int)
+     */
+    public LongArrayList sort() {
+        Arrays.sort(elements, 0, size);
+        return this;
+    }
+
+    /**
+     * Reverses, in place, the order of the elements of this list.
+     *
+     * @return this object.
+     */
+    public LongArrayList reverse() {
+        XArrays.reverse(elements, 0, size);
+        return this;
+    }
+
+    /**
+     * Searches the given element in this list, which must be sorted, using
+     * the binary search algorithm.
+     *
+     * @param key the element to search for.
+     * @return the index of {@code key} if present, {@code (-(insertion
+     * point) - 1)} otherwise.
+     * @see Arrays#binarySearch(long[], int, int, long)
+     */
+    public int binarySearch(long key) {
+        return Arrays.binarySearch(elements, 0, size, key);
+    }
+
+    /**
+     * Returns the number of elements in this list.
+     *
+     * @return the number of elements in this list.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether this list is empty.
+     *
+     * @return whether this list is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the elements of this list. Its capacity is unchanged.
+     *
+     * @return this object.
+     */
+    public LongArrayList clear() {
+        size = 0;
+        return this;
+    }
+
+    /**
+     * Makes sure this list can hold at least the given number of elements
+     * without growing.
+     *
+     * @param capacity the minimum capacity.
+     * @return this object.
+     */
+    public LongArrayList ensureCapacity(int capacity) {
+        if (capacity > elements.length) {
+            grow(capacity);
+        }
+        return this;
+    }
+
+    /**
+     * Shrinks the capacity of this list to its size.
+     *
+     * @return this object.
+     */
+    public LongArrayList trimToSize() {
+        if (size < elements.length) {
+            elements = size == 0 ? EMPTY : Arrays.copyOf(elements, size);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the elements of this list, in a newly allocated array.
+     *
+     * @return the elements of this list.
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * Returns an iterator over the elements of this list. The iterator
+     * doesn't detect concurrent modifications.
+     *
+     * @return an iterator over the elements of this list.
+     */
+    public LongIterator iterator() {
+        return new Itr();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof LongArrayList)) {
+            return false;
+        }
+        LongArrayList list = (LongArrayList) o;
+        if (size != list.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (elements[i] != list.elements[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + (int) (elements[i] ^ (elements[i] >>> 32));
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(size * 4 + 2).append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(elements[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    private void grow(int capacity) {
+        if (capacity < 0 || capacity > MAX_CAPACITY) {
+            throw new OutOfMemoryError();
+        }
+        int length = elements.length;
+        int grown = length + (length >> 1);
+        if (grown < 0 || grown > MAX_CAPACITY) {
+            grown = MAX_CAPACITY;
+        }
+        elements = Arrays.copyOf(elements,
+                Math.max(Math.max(grown, capacity), DEFAULT_CAPACITY));
+    }
+
+    private final class Itr implements LongIterator {
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public long nextLong() {
+            if (index >= size) {
+                throw new NoSuchElementException();
+            }
+            return elements[index++];
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.ryan.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * An iterator over a sequence of {@code long}s, which doesn't box them.
+ *
+ * @author Ryan Tao
+ * @see LongArrayList
+ */
+public interface LongIterator {
+    /**
+     * Returns whether the iteration has more elements.
+     *
+     * @return whether there are more elements.
+     */
+    boolean hasNext();
+
+    /**
+     * Returns the next element of the iteration.
+     *
+     * @return the next element.
+     * @throws NoSuchElementException if the iteration has no more elements.
+     */
+    long nextLong();
+}
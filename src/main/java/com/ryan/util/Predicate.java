@@ -0,0 +1,19 @@
+package com.ryan.util;
+
+/**
+ * A predicate, determining a {@code true} or {@code false} value for any
+ * input.
+ *
+ * @param <T> the type of the predicate's input.
+ * @author Ryan Tao
+ * @see Function
+ */
+public interface Predicate<T> {
+    /**
+     * Applies this predicate to the given input.
+     *
+     * @param input the input value.
+     * @return the result of the predicate.
+     */
+    boolean apply(T input);
+}
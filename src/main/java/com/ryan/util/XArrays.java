@@ -794,6 +794,88 @@ public final class XArrays {
         return copy;
     }
 
+    /**
+     * Reverses, in place, the order of the elements of the given array
+     * between {@code fromIndex} (inclusive) and {@code toIndex} (exclusive).
+     *
+     * @param a         the array to reverse.
+     * @param fromIndex the index of the first element to reverse.
+     * @param toIndex   the index after the last element to reverse.
+     * @throws NullPointerException      if {@code a} is {@code null}.
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative, if
+     *                                   {@code toIndex} is greater than {@code a.length} or if
+     *                                   {@code fromIndex > toIndex}.
+     */
+    public static void reverse(long[] a, int fromIndex, int toIndex) {
+        checkRange(a.length, fromIndex, toIndex);
+        for (int i = fromIndex, j = toIndex - 1; i < j; i++, j--) {
+            swap(a, i, j);
+        }
+    }
+
+    /**
+     * Reverses, in place, the order of the elements of the given array
+     * between {@code fromIndex} (inclusive) and {@code toIndex} (exclusive).
+     *
+     * @param a         the array to reverse.
+     * @param fromIndex the index of the first element to reverse.
+     * @param toIndex   the index after the last element to reverse.
+     * @throws NullPointerException      if {@code a} is {@code null}.
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative, if
+     *                                   {@code toIndex} is greater than {@code a.length} or if
+     *                                   {@code fromIndex > toIndex}.
+     */
+    public static void reverse(int[] a, int fromIndex, int toIndex) {
+        checkRange(a.length, fromIndex, toIndex);
+        for (int i = fromIndex, j = toIndex - 1; i < j; i++, j--) {
+            swap(a, i, j);
+        }
+    }
+
+    /**
+     * Reverses, in place, the order of the elements of the given array
+     * between {@code fromIndex} (inclusive) and {@code toIndex} (exclusive).
+     *
+     * @param a         the array to reverse.
+     * @param fromIndex the index of the first element to reverse.
+     * @param toIndex   the index after the last element to reverse.
+     * @throws NullPointerException      if {@code a} is {@code null}.
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative, if
+     *                                   {@code toIndex} is greater than {@code a.length} or if
+     *                                   {@code fromIndex > toIndex}.
+     */
+    public static void reverse(byte[] a, int fromIndex, int toIndex) {
+        checkRange(a.length, fromIndex, toIndex);
+        for (int i = fromIndex, j = toIndex - 1; i < j; i++, j--) {
+            swap(a, i, j);
+        }
+    }
+
+    /**
+     * Reverses, in place, the order of the elements of the given array
+     * between {@code fromIndex} (inclusive) and {@code toIndex} (exclusive).
+     *
+     * @param a         the array to reverse.
+     * @param fromIndex the index of the first element to reverse.
+     * @param toIndex   the index after the last element to reverse.
+     * @throws NullPointerException      if {@code a} is {@code null}.
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative, if
+     *                                   {@code toIndex} is greater than {@code a.length} or if
+     *                                   {@code fromIndex > toIndex}.
+     */
+    public static void reverse(double[] a, int fromIndex, int toIndex) {
+        checkRange(a.length, fromIndex, toIndex);
+        for (int i = fromIndex, j = toIndex - 1; i < j; i++, j--) {
+            swap(a, i, j);
+        }
+    }
+
+    private static void checkRange(int length, int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > length || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
     /**
      * Returns a new array containing the same elements as the given one,
      * but rotated by the given distance. The element at index {@code i} in
@@ -1944,6 +2026,956 @@ public final class XArrays {
         return Arrays.deepToString(a);
     }
 
+    /**
+     * Returns the sum of the elements of the given array, or {@code 0} if
+     * it is empty.
+     * The sum wraps around on overflow.
+     *
+     * @param a the array whose elements to sum.
+     * @return the sum of the elements of {@code a}.
+     * @throws NullPointerException if {@code a} is {@code null}.
+     */
+    public static long sum(long... a) {
+        long s0 = 0L;
+        long s1 = 0L;
+        long s2 = 0L;
+        long s3 = 0L;
+        int n = a.length;
+        int i = 0;
+        for (; i < n - 3; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += a[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the minimum of the elements of the given array.
+     *
+     * @param a a non-empty array.
+     * @return the minimum of the elements of {@code a}.
+     * @throws NullPointerException     if {@code a} is {@code null}.
+     * @throws IllegalArgumentException if {@code a} is empty.
+     */
+    public static long min(long... a) {
+        Parameters.checkCondition(a.length > 0);
+        long m0 = a[0];
+        long m1 = m0;
+        long m2 = m0;
+        long m3 = m0;
+        int n = a.length;
+        int i = 1;
+        for (; i < n - 3; i += 4) {
+            m0 = Math.min(m0, a[i]);
+            m1 = Math.min(m1, a[i + 1]);
+            m2 = Math.min(m2, a[i + 2]);
+            m3 = Math.min(m3, a[i + 3]);
+        }
+        for (; i < n; i++) {
+            m0 = Math.min(m0, a[i]);
+        }
+        return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+    }
+
+    /**
+     * Returns the maximum of the elements of the given array.
+     *
+     * @param a a non-empty array.
+     * @return the maximum of the elements of {@code a}.
+     * @throws NullPointerException     if {@code a} is {@code null}.
+     * @throws IllegalArgumentException if {@code a} is empty.
+     */
+    public static long max(long... a) {
+        Parameters.checkCondition(a.length > 0);
+        long m0 = a[0];
+        long m1 = m0;
+        long m2 = m0;
+        long m3 = m0;
+        int n = a.length;
+        int i = 1;
+        for (; i < n - 3; i += 4) {
+            m0 = Math.max(m0, a[i]);
+            m1 = Math.max(m1, a[i + 1]);
+            m2 = Math.max(m2, a[i + 2]);
+            m3 = Math.max(m3, a[i + 3]);
+        }
+        for (; i < n; i++) {
+            m0 = Math.max(m0, a[i]);
+        }
+        return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+    }
+
+    /**
+     * Returns both the minimum and the maximum of the elements of the given
+     * array, computed in a single pass.
+     *
+     * @param a a non-empty array.
+     * @return a two-element array holding the minimum and the maximum of
+     * the elements of {@code a}, in that order.
+     * @throws NullPointerException     if {@code a} is {@code null}.
+     * @throws IllegalArgumentException if {@code a} is empty.
+     */
+    public static long[] minMax(long... a) {
+        Parameters.checkCondition(a.length > 0);
+        long min0 = a[0];
+        long max0 = min0;
+        long min1 = min0;
+        long max1 = min0;
+        int n = a.length;
+        int i = 1;
+        for (; i < n - 1; i += 2) {
+            min0 = Math.min(min0, a[i]);
+            max0 = Math.max(max0, a[i]);
+            min1 = Math.min(min1, a[i + 1]);
+            max1 = Math.max(max1, a[i + 1]);
+        }
+        if (i < n) {
+            min0 = Math.min(min0, a[i]);
+            max0 = Math.max(max0, a[i]);
+        }
+        return new long[] {Math.min(min0, min1), Math.max(max0, max1)};
+    }
+
+    /**
+     * Returns the index of the first occurrence of the given value in the
+     * given array, or {@code -1} if it isn't present.
+     *
+     * @param a     the array to search.
+     * @param value the value to search for.
+     * @return the index of the first occurrence of {@code value}, or
+     * {@code -1}.
+     * @throws NullPointerException if {@code a} is {@code null}.
+     */
+    public static int indexOf(long[] a, long value) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether the given array contains the given value.
+     *
+     * @param a     the array to search.
+     * @param value the value to search for.
+     * @return whether {@code a} contains {@code value}.
+     * @throws NullPointerException if {@code a} is {@code null}.
+     */
+    public static boolean contains(long[] a, long value) {
+        return indexOf(a, value) >= 0;
+    }
+
+    /**
+     * Returns the index of the first element that differs between the two
+     * given arrays, or {@code -1} if they are equal. If one array is a
+     * prefix of the other, the length of the shorter one is returned.
+     *
+     * @param a the first array.
+     * @param b the second array.
+     * @return the index of the first mismatch, or {@code -1}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    public static int mismatch(long[] a, long[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] != b[i]) {
+                return i;
+            }
+        }
+        return a.length == b.length ? -1 : n;
+    }
+
+    /**
+     * Returns the number of elements of the given array that satisfy the
+     * given predicate.
+     *
+     * @param a         the array whose elements to test.
+     * @param predicate the predicate to apply.
+     * @return the number of matching elements.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    public static int count(long[] a, LongPredicate predicate) {
+        Parameters.checkNotNull(predicate);
+        int count = 0;
+        for (long e : a) {
+            if (predicate.apply(e)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of the elements of the given array, or {@code 0} if
+     * it is empty.
+     *
+     * @param a the array whose elements to sum.
+     * @return the sum of the elements of {@code a}.
+     * @throws NullPointerException if {@code a} is {@code null}.
+     */
+    public static long sum(int... a) {
+        long s0 = 0L;
+        long s1 = 0L;
+        long s2 = 0L;
+        long s3 = 0L;
+        int n = a.length;
+        int i = 0;
+        for (; i < n - 3; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += a[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the minimum of the elements of the given array.
+     *
+     * @param a a non-empty array.
+     * @return the minimum of the elements of {@code a}.
+     * @throws NullPointerException     if {@code a} is {@code null}.
+     * @throws IllegalArgumentException if {@code a} is empty.
+     */
+    public static int min(int... a) {
+        Parameters.checkCondition(a.length > 0);
+        int m0 = a[0];
+        int m1 = m0;
+        int m2 = m0;
+        int m3 = m0;
+        int n = a.length;
+        int i = 1;
+        for (; i < n - 3; i += 4) {
+            m0 = Math.min(m0, a[i]);
+            m1 = Math.min(m1, a[i + 1]);
+            m2 = Math.min(m2, a[i + 2]);
+            m3 = Math.min(m3, a[i + 3]);
+        }
+        for (; i < n; i++) {
+            m0 = Math.min(m0, a[i]);
+        }
+        return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+    }
+
+    /**
+     * Returns the maximum of the elements of the given array.
+     *
+     * @param a a non-empty array.
+     * @return the maximum of the elements of {@code a}.
+     * @throws NullPointerException     if {@code a} is {@code null}.
+     * @throws IllegalArgumentException if {@code a} is empty.
+     */
+    public static int max(int... a) {
+        Parameters.checkCondition(a.length > 0);
+        int m0 = a[0];
+        int m1 = m0;
+        int m2 = m0;
+        int m3 = m0;
+        int n = a.length;
+        int i = 1;
+        for (; i < n - 3; i += 4) {
+            m0 = Math.max(m0, a[i]);
+            m1 = Math.max(m1, a[i + 1]);
+            m2 = Math.max(m2, a[i + 2]);
+            m3 = Math.max(m3, a[i + 3]);
+        }
+        for (; i < n; i++) {
+            m0 = Math.max(m0, a[i]);
+        }
+        return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+    }
+
+    /**
+     * Returns both the minimum and the maximum of the elements of the given
+     * array, computed in a single pass.
+     *
+     * @param a a non-empty array.
+     * @return a two-element array holding the minimum and the maximum of
+     * the elements of {@code a}, in that order.
+     * @throws NullPointerException     if {@code a} is {@code null}.
+     * @throws IllegalArgumentException if {@code a} is empty.
+     */
+    public static int[] minMax(int... a) {
+        Parameters.checkCondition(a.length > 0);
+        int min0 = a[0];
+        int max0 = min0;
+        int min1 = min0;
+        int max1 = min0;
+        int n = a.length;
+        int i = 1;
+        for (; i < n - 1; i += 2) {
+            min0 = Math.min(min0, a[i]);
+            max0 = Math.max(max0, a[i]);
+            min1 = Math.min(min1, a[i + 1]);
+            max1 = Math.max(max1, a[i + 1]);
+        }
+        if (i < n) {
+            min0 = Math.min(min0, a[i]);
+            max0 = Math.max(max0, a[i]);
+        }
+        return new int[] {Math.min(min0, min1), Math.max(max0, max1)};
+    }
+
+    /**
+     * Returns the index of the first occurrence of the given value in the
+     * given array, or {@code -1} if it isn't present.
+     *
+     * @param a     the array to search.
+     * @param value the value to search for.
+     * @return the index of the first occurrence of {@code value}, or
+     * {@code -1}.
+     * @throws NullPointerException if {@code a} is {@code null}.
+     */
+    public static int indexOf(int[] a, int value) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether the given array contains the given value.
+     *
+     * @param a     the array to search.
+     * @param value the value to search for.
+     * @return whether {@code a} contains {@code value}.
+     * @throws NullPointerException if {@code a} is {@code null}.
+     */
+    public static boolean contains(int[] a, int value) {
+        return indexOf(a, value) >= 0;
+    }
+
+    /**
+     * Returns the index of the first element that differs between the two
+     * given arrays, or {@code -1} if they are equal. If one array is a
+     * prefix of the other, the length of the shorter one is returned.
+     *
+     * @param a the first array.
+     * @param b the second array.
+     * @return the index of the first mismatch, or {@code -1}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    public static int mismatch(int[] a, int[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] != b[i]) {
+                return i;
+            }
+        }
+        return a.length == b.length ? -1 : n;
+    }
+
+    /**
+     * Returns the number of elements of the given array that satisfy the
+     * given predicate.
+     *
+     * @param a         the array whose elements to test.
+     * @param predicate the predicate to apply.
+     * @return the number of matching elements.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    public static int count(int[] a, IntPredicate predicate) {
+        Parameters.checkNotNull(predicate);
+        int count = 0;
+        for (int e : a) {
+            if (predicate.apply(e)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of the elements of the given array, or {@code 0} if
+     * it is empty.
+     *
+     * @param a the array whose elements to sum.
+     * @return the sum of the elements of {@code a}.
+     * @throws NullPointerException if {@code a} is {@code null}.
+     */
+    public static long sum(byte... a) {
+        long s0 = 0L;
+        long s1 = 0L;
+        long s2 = 0L;
+        long s3 = 0L;
+        int n = a.length;
+        int i = 0;
+        for (; i < n - 3; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += a[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the minimum of the elements of the given array.
+     *
+     * @param a a non-empty array.
+     * @return the minimum of the elements of {@code a}.
+     * @throws NullPointerException     if {@code a} is {@code null}.
+     * @throws IllegalArgumentException if {@code a} is empty.
+     */
+    public static byte min(byte... a) {
+        Parameters.checkCondition(a.length > 0);
+        byte m0 = a[0];
+        byte m1 = m0;
+        byte m2 = m0;
+        byte m3 = m0;
+        int n = a.length;
+        int i = 1;
+        for (; i < n - 3; i += 4) {
+            m0 = (byte) Math.min(m0, a[i]);
+            m1 = (byte) Math.min(m1, a[i + 1]);
+            m2 = (byte) Math.min(m2, a[i + 2]);
+            m3 = (byte) Math.min(m3, a[i + 3]);
+        }
+        for (; i < n; i++) {
+            m0 = (byte) Math.min(m0, a[i]);
+        }
+        return (byte) Math.min((byte) Math.min(m0, m1), (byte) Math.min(m2, m3));
+    }
+
+    /**
+     * Returns the maximum of the elements of the given array.
+     *
+     * @param a a non-empty array.
+     * @return the maximum of the elements of {@code a}.
+     * @throws NullPointerException     if {@code a} is {@code null}.
+     * @throws IllegalArgumentException if {@code a} is empty.
+     */
+    public static byte max(byte... a) {
+        Parameters.checkCondition(a.length > 0);
+        byte m0 = a[0];
+        byte m1 = m0;
+        byte m2 = m0;
+        byte m3 = m0;
+        int n = a.length;
+        int i = 1;
+        for (; i < n - 3; i += 4) {
+            m0 = (byte) Math.max(m0, a[i]);
+            m1 = (byte) Math.max(m1, a[i + 1]);
+            m2 = (byte) Math.max(m2, a[i + 2]);
+            m3 = (byte) Math.max(m3, a[i + 3]);
+        }
+        for (; i < n; i++) {
+            m0 = (byte) Math.max(m0, a[i]);
+        }
+        return (byte) Math.max((byte) Math.max(m0, m1), (byte) Math.max(m2, m3));
+    }
+
+    /**
+     * Returns both the minimum and the maximum of the elements of the given
+     * array, computed in a single pass.
+     *
+     * @param a a non-empty array.
+     * @return a two-element array holding the minimum and the maximum of
+     * the elements of {@code a}, in that order.
+     * @throws NullPointerException     if {@code a} is {@code null}.
+     * @throws IllegalArgumentException if {@code a} is empty.
+     */
+    public static byte[] minMax(byte... a) {
+        Parameters.checkCondition(a.length > 0);
+        byte min0 = a[0];
+        byte max0 = min0;
+        byte min1 = min0;
+        byte max1 = min0;
+        int n = a.length;
+        int i = 1;
+        for (; i < n - 1; i += 2) {
+            min0 = (byte) Math.min(min0, a[i]);
+            max0 = (byte) Math.max(max0, a[i]);
+            min1 = (byte) Math.min(min1, a[i + 1]);
+            max1 = (byte) Math.max(max1, a[i + 1]);
+        }
+        if (i < n) {
+            min0 = (byte) Math.min(min0, a[i]);
+            max0 = (byte) Math.max(max0, a[i]);
+        }
+        return new byte[] {(byte) Math.min(min0, min1), (byte) Math.max(max0, max1)};
+    }
+
+    /**
+     * Returns the index of the first occurrence of the given value in the
+     * given array, or {@code -1} if it isn't present.
+     *
+     * @param a     the array to search.
+     * @param value the value to search for.
+     * @return the index of the first occurrence of {@code value}, or
+     * {@code -1}.
+     * @throws NullPointerException if {@code a} is {@code null}.
+     */
+    public static int indexOf(byte[] a, byte value) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether the given array contains the given value.
+     *
+     * @param a     the array to search.
+     * @param value the value to search for.
+     * @return whether {@code a} contains {@code value}.
+     * @throws NullPointerException if {@code a} is {@code null}.
+     */
+    public static boolean contains(byte[] a, byte value) {
+        return indexOf(a, value) >= 0;
+    }
+
+    /**
+     * Returns the index of the first element that differs between the two
+     * given arrays, or {@code -1} if they are equal. If one array is a
+     * prefix of the other, the length of the shorter one is returned.
+     *
+     * @param a the first array.
+     * @param b the second array.
+     * @return the index of the first mismatch, or {@code -1}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    public static int mismatch(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] != b[i]) {
+                return i;
+            }
+        }
+        return a.length == b.length ? -1 : n;
+    }
+
+    /**
+     * Returns the number of elements of the given array that satisfy the
+     * given predicate.
+     *
+     * @param a         the array whose elements to test.
+     * @param predicate the predicate to apply.
+     * @return the number of matching elements.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    public static int count(byte[] a, IntPredicate predicate) {
+        Parameters.checkNotNull(predicate);
+        int count = 0;
+        for (byte e : a) {
+            if (predicate.apply(e)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of the elements of the given array, or {@code 0} if
+     * it is empty.
+     * The values are summed in an unspecified order, so the result may
+     * slightly differ from the one of a sequential summation.
+     *
+     * @param a the array whose elements to sum.
+     * @return the sum of the elements of {@code a}.
+     * @throws NullPointerException if {@code a} is {@code null}.
+     */
+    public static double sum(float... a) {
+        double s0 = 0.0;
+        double s1 = 0.0;
+        double s2 = 0.0;
+        double s3 = 0.0;
+        int n = a.length;
+        int i = 0;
+        for (; i < n - 3; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += a[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the minimum of the elements of the given array, using the same
+     * comparison rules as {@link Math#min(float, float)}.
+     *
+     * @param a a non-empty array.
+     * @return the minimum of the elements of {@code a}.
+     * @throws NullPointerException     if {@code a} is {@code null}.
+     * @throws IllegalArgumentException if {@code a} is empty.
+     */
+    public static float min(float... a) {
+        Parameters.checkCondition(a.length > 0);
+        float m0 = a[0];
+        float m1 = m0;
+        float m2 = m0;
+        float m3 = m0;
+        int n = a.length;
+        int i = 1;
+        for (; i < n - 3; i += 4) {
+            m0 = Math.min(m0, a[i]);
+            m1 = Math.min(m1, a[i + 1]);
+            m2 = Math.min(m2, a[i + 2]);
+            m3 = Math.min(m3, a[i + 3]);
+        }
+        for (; i < n; i++) {
+            m0 = Math.min(m0, a[i]);
+        }
+        return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+    }
+
+    /**
+     * Returns the maximum of the elements of the given array, using the same
+     * comparison rules as {@link Math#max(float, float)}.
+     *
+     * @param a a non-empty array.
+     * @return the maximum of the elements of {@code a}.
+     * @throws NullPointerException     if {@code a} is {@code null}.
+     * @throws IllegalArgumentException if {@code a} is empty.
+     */
+    public static float max(float... a) {
+        Parameters.checkCondition(a.length > 0);
+        float m0 = a[0];
+        float m1 = m0;
+        float m2 = m0;
+        float m3 = m0;
+        int n = a.length;
+        int i = 1;
+        for (; i < n - 3; i += 4) {
+            m0 = Math.max(m0, a[i]);
+            m1 = Math.max(m1, a[i + 1]);
+            m2 = Math.max(m2, a[i + 2]);
+            m3 = Math.max(m3, a[i + 3]);
+        }
+        for (; i < n; i++) {
+            m0 = Math.max(m0, a[i]);
+        }
+        return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+    }
+
+    /**
+     * Returns both the minimum and the maximum of the elements of the given
+     * array, computed in a single pass, using the same comparison rules as
+     * {@link Math#min(float, float)} and {@link Math#max(float, float)}.
+     *
+     * @param a a non-empty array.
+     * @return a two-element array holding the minimum and the maximum of
+     * the elements of {@code a}, in that order.
+     * @throws NullPointerException     if {@code a} is {@code null}.
+     * @throws IllegalArgumentException if {@code a} is empty.
+     */
+    public static float[] minMax(float... a) {
+        Parameters.checkCondition(a.length > 0);
+        float min0 = a[0];
+        float max0 = min0;
+        float min1 = min0;
+        float max1 = min0;
+        int n = a.length;
+        int i = 1;
+        for (; i < n - 1; i += 2) {
+            min0 = Math.min(min0, a[i]);
+            max0 = Math.max(max0, a[i]);
+            min1 = Math.min(min1, a[i + 1]);
+            max1 = Math.max(max1, a[i + 1]);
+        }
+        if (i < n) {
+            min0 = Math.min(min0, a[i]);
+            max0 = Math.max(max0, a[i]);
+        }
+        return new float[] {Math.min(min0, min1), Math.max(max0, max1)};
+    }
+
+    /**
+     * Returns the index of the first occurrence of the given value in the
+     * given array, or {@code -1} if it isn't present.
+     * Values are compared as by {@link Float#equals(Object)}, so that
+     * {@code NaN} can be searched for.
+     *
+     * @param a     the array to search.
+     * @param value the value to search for.
+     * @return the index of the first occurrence of {@code value}, or
+     * {@code -1}.
+     * @throws NullPointerException if {@code a} is {@code null}.
+     */
+    public static int indexOf(float[] a, float value) {
+        int bits = Float.floatToIntBits(value);
+        for (int i = 0; i < a.length; i++) {
+            if (Float.floatToIntBits(a[i]) == bits) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether the given array contains the given value.
+     * Values are compared as by {@link Float#equals(Object)}, so that
+     * {@code NaN} can be searched for.
+     *
+     * @param a     the array to search.
+     * @param value the value to search for.
+     * @return whether {@code a} contains {@code value}.
+     * @throws NullPointerException if {@code a} is {@code null}.
+     */
+    public static boolean contains(float[] a, float value) {
+        return indexOf(a, value) >= 0;
+    }
+
+    /**
+     * Returns the index of the first element that differs between the two
+     * given arrays, or {@code -1} if they are equal. If one array is a
+     * prefix of the other, the length of the shorter one is returned.
+     * Values are compared as by {@link Float#equals(Object)}, so that
+     * {@code NaN} can be searched for.
+     *
+     * @param a the first array.
+     * @param b the second array.
+     * @return the index of the first mismatch, or {@code -1}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    public static int mismatch(float[] a, float[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (Float.floatToIntBits(a[i]) != Float.floatToIntBits(b[i])) {
+                return i;
+            }
+        }
+        return a.length == b.length ? -1 : n;
+    }
+
+    /**
+     * Returns the number of elements of the given array that satisfy the
+     * given predicate.
+     *
+     * @param a         the array whose elements to test.
+     * @param predicate the predicate to apply.
+     * @return the number of matching elements.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    public static int count(float[] a, DoublePredicate predicate) {
+        Parameters.checkNotNull(predicate);
+        int count = 0;
+        for (float e : a) {
+            if (predicate.apply(e)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of the elements of the given array, or {@code 0} if
+     * it is empty.
+     * The values are summed in an unspecified order, so the result may
+     * slightly differ from the one of a sequential summation.
+     *
+     * @param a the array whose elements to sum.
+     * @return the sum of the elements of {@code a}.
+     * @throws NullPointerException if {@code a} is {@code null}.
+     */
+    public static double sum(double... a) {
+        double s0 = 0.0;
+        double s1 = 0.0;
+        double s2 = 0.0;
+        double s3 = 0.0;
+        int n = a.length;
+        int i = 0;
+        for (; i < n - 3; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += a[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the minimum of the elements of the given array, using the same
+     * comparison rules as {@link Math#min(double, double)}.
+     *
+     * @param a a non-empty array.
+     * @return the minimum of the elements of {@code a}.
+     * @throws NullPointerException     if {@code a} is {@code null}.
+     * @throws IllegalArgumentException if {@code a} is empty.
+     */
+    public static double min(double... a) {
+        Parameters.checkCondition(a.length > 0);
+        double m0 = a[0];
+        double m1 = m0;
+        double m2 = m0;
+        double m3 = m0;
+        int n = a.length;
+        int i = 1;
+        for (; i < n - 3; i += 4) {
+            m0 = Math.min(m0, a[i]);
+            m1 = Math.min(m1, a[i + 1]);
+            m2 = Math.min(m2, a[i + 2]);
+            m3 = Math.min(m3, a[i + 3]);
+        }
+        for (; i < n; i++) {
+            m0 = Math.min(m0, a[i]);
+        }
+        return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+    }
+
+    /**
+     * Returns the maximum of the elements of the given array, using the same
+     * comparison rules as {@link Math#max(double, double)}.
+     *
+     * @param a a non-empty array.
+     * @return the maximum of the elements of {@code a}.
+     * @throws NullPointerException     if {@code a} is {@code null}.
+     * @throws IllegalArgumentException if {@code a} is empty.
+     */
+    public static double max(double... a) {
+        Parameters.checkCondition(a.length > 0);
+        double m0 = a[0];
+        double m1 = m0;
+        double m2 = m0;
+        double m3 = m0;
+        int n = a.length;
+        int i = 1;
+        for (; i < n - 3; i += 4) {
+            m0 = Math.max(m0, a[i]);
+            m1 = Math.max(m1, a[i + 1]);
+            m2 = Math.max(m2, a[i + 2]);
+            m3 = Math.max(m3, a[i + 3]);
+        }
+        for (; i < n; i++) {
+            m0 = Math.max(m0, a[i]);
+        }
+        return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+    }
+
+    /**
+     * Returns both the minimum and the maximum of the elements of the given
+     * array, computed in a single pass, using the same comparison rules as
+     * {@link Math#min(double, double)} and {@link Math#max(double, double)}.
+     *
+     * @param a a non-empty array.
+     * @return a two-element array holding the minimum and the maximum of
+     * the elements of {@code a}, in that order.
+     * @throws NullPointerException     if {@code a} is {@code null}.
+     * @throws IllegalArgumentException if {@code a} is empty.
+     */
+    public static double[] minMax(double... a) {
+        Parameters.checkCondition(a.length > 0);
+        double min0 = a[0];
+        double max0 = min0;
+        double min1 = min0;
+        double max1 = min0;
+        int n = a.length;
+        int i = 1;
+        for (; i < n - 1; i += 2) {
+            min0 = Math.min(min0, a[i]);
+            max0 = Math.max(max0, a[i]);
+            min1 = Math.min(min1, a[i + 1]);
+            max1 = Math.max(max1, a[i + 1]);
+        }
+        if (i < n) {
+            min0 = Math.min(min0, a[i]);
+            max0 = Math.max(max0, a[i]);
+        }
+        return new double[] {Math.min(min0, min1), Math.max(max0, max1)};
+    }
+
+    /**
+     * Returns the index of the first occurrence of the given value in the
+     * given array, or {@code -1} if it isn't present.
+     * Values are compared as by {@link Double#equals(Object)}, so that
+     * {@code NaN} can be searched for.
+     *
+     * @param a     the array to search.
+     * @param value the value to search for.
+     * @return the index of the first occurrence of {@code value}, or
+     * {@code -1}.
+     * @throws NullPointerException if {@code a} is {@code null}.
+     */
+    public static int indexOf(double[] a, double value) {
+        long bits = Double.doubleToLongBits(value);
+        for (int i = 0; i < a.length; i++) {
+            if (Double.doubleToLongBits(a[i]) == bits) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether the given array contains the given value.
+     * Values are compared as by {@link Double#equals(Object)}, so that
+     * {@code NaN} can be searched for.
+     *
+     * @param a     the array to search.
+     * @param value the value to search for.
+     * @return whether {@code a} contains {@code value}.
+     * @throws NullPointerException if {@code a} is {@code null}.
+     */
+    public static boolean contains(double[] a, double value) {
+        return indexOf(a, value) >= 0;
+    }
+
+    /**
+     * Returns the index of the first element that differs between the two
+     * given arrays, or {@code -1} if they are equal. If one array is a
+     * prefix of the other, the length of the shorter one is returned.
+     * Values are compared as by {@link Double#equals(Object)}, so that
+     * {@code NaN} can be searched for.
+     *
+     * @param a the first array.
+     * @param b the second array.
+     * @return the index of the first mismatch, or {@code -1}.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    public static int mismatch(double[] a, double[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (Double.doubleToLongBits(a[i]) != Double.doubleToLongBits(b[i])) {
+                return i;
+            }
+        }
+        return a.length == b.length ? -1 : n;
+    }
+
+    /**
+     * Returns the number of elements of the given array that satisfy the
+     * given predicate.
+     *
+     * @param a         the array whose elements to test.
+     * @param predicate the predicate to apply.
+     * @return the number of matching elements.
+     * @throws NullPointerException if one of the arguments is {@code null}.
+     */
+    public static int count(double[] a, DoublePredicate predicate) {
+        Parameters.checkNotNull(predicate);
+        int count = 0;
+        for (double e : a) {
+            if (predicate.apply(e)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     private static <T> T[] newArray(Class<?> componentType, int len) {
         return (T[]) Array.newInstance(componentType, len);
     }
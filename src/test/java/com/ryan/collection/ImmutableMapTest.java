@@ -0,0 +1,206 @@
+package com.ryan.collection;
+
+import com.ryan.collection.TestObjects.Key;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks {@code ImmutableMap} against {@code LinkedHashMap}, across the
+ * singleton, small (linearly scanned) and indexed size classes.
+ *
+ * @author Ryan Tao
+ */
+public final class ImmutableMapTest {
+    private static final int[] SIZES = {0, 1, 2, 5, 8, 9, 16, 17, 100, 1000};
+
+    @Test
+    public void testEmpty() {
+        Map<String, String> map = ImmutableMap.of();
+        assertTrue(map.isEmpty());
+        assertNull(map.get("a"));
+        assertEquals(Collections.emptyMap(), map);
+        assertSame(map, new ImmutableMap.Builder<String, String>().build());
+    }
+
+    @Test
+    public void testSizeClasses() throws Exception {
+        Random random = new Random(42L);
+        for (int size : SIZES) {
+            Map<Key, Integer> expected =
+                    new LinkedHashMap<Key, Integer>();
+            ImmutableMap.Builder<Key, Integer> builder =
+                    new ImmutableMap.Builder<Key, Integer>();
+            for (int i = 0; i < size; i++) {
+                Key key = new Key(i, random.nextInt(8));
+                Integer value = random.nextInt(4) == 0 ? null : i;
+                expected.put(key, value);
+                builder.put(key, value);
+            }
+            assertMapEquals(expected, builder.build());
+        }
+    }
+
+    @Test
+    public void testNullKey() throws Exception {
+        for (int size : SIZES) {
+            Map<String, String> expected =
+                    new LinkedHashMap<String, String>();
+            ImmutableMap.Builder<String, String> builder =
+                    new ImmutableMap.Builder<String, String>();
+            for (int i = 0; i < size; i++) {
+                String key = i == size / 2 ? null : "k" + i;
+                expected.put(key, "v" + i);
+                builder.put(key, "v" + i);
+            }
+            Map<String, String> map = builder.build();
+            assertMapEquals(expected, map);
+            assertEquals(size > 0, map.containsKey(null));
+        }
+    }
+
+    @Test
+    public void testDuplicateKeys() throws Exception {
+        for (int size : SIZES) {
+            Map<Key, String> expected =
+                    new LinkedHashMap<Key, String>();
+            ImmutableMap.Builder<Key, String> builder =
+                    new ImmutableMap.Builder<Key, String>();
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < size; i++) {
+                    Key key = new Key(i, i % 3);
+                    expected.put(key, round + ":" + i);
+                    builder.put(key, round + ":" + i);
+                }
+            }
+            assertMapEquals(expected, builder.build());
+        }
+        Map<String, Integer> map = ImmutableMap.of("a", 1, "b", 2, "a", 3);
+        assertEquals(2, map.size());
+        assertEquals(Integer.valueOf(3), map.get("a"));
+        assertEquals("a", map.keySet().iterator().next());
+    }
+
+    @Test
+    public void testFactories() throws Exception {
+        Map<String, Integer> expected = new LinkedHashMap<String, Integer>();
+        expected.put("a", 1);
+        assertMapEquals(expected, ImmutableMap.of("a", 1));
+        expected.put("b", 2);
+        assertMapEquals(expected, ImmutableMap.of("a", 1, "b", 2));
+        expected.put("c", 3);
+        assertMapEquals(expected, ImmutableMap.of("a", 1, "b", 2, "c", 3));
+        expected.put("d", 4);
+        assertMapEquals(expected,
+                ImmutableMap.of("a", 1, "b", 2, "c", 3, "d", 4));
+        Map<String, Integer> copy = ImmutableMap.copyOf(expected);
+        assertMapEquals(expected, copy);
+        assertSame(copy, ImmutableMap.copyOf(copy));
+    }
+
+    @Test
+    public void testImmutable() {
+        for (int size : SIZES) {
+            ImmutableMap.Builder<Integer, Integer> builder =
+                    new ImmutableMap.Builder<Integer, Integer>();
+            for (int i = 0; i < size; i++) {
+                builder.put(i, i);
+            }
+            Map<Integer, Integer> map = builder.build();
+            try {
+                map.put(-1, -1);
+                fail();
+            } catch (UnsupportedOperationException expected) {
+            }
+            try {
+                map.clear();
+                fail();
+            } catch (UnsupportedOperationException expected) {
+            }
+            if (size > 0) {
+                try {
+                    map.remove(0);
+                    fail();
+                } catch (UnsupportedOperationException expected) {
+                }
+                Iterator<Map.Entry<Integer, Integer>> i =
+                        map.entrySet().iterator();
+                try {
+                    i.next().setValue(1);
+                    fail();
+                } catch (UnsupportedOperationException expected) {
+                }
+                try {
+                    i.remove();
+                    fail();
+                } catch (UnsupportedOperationException expected) {
+                }
+            }
+        }
+    }
+
+    private static <K, V> void assertMapEquals(Map<K, V> expected,
+            Map<K, V> actual) throws IOException, ClassNotFoundException {
+        assertContents(expected, actual);
+        Map<K, V> copy = TestObjects.roundTrip(actual);
+        assertContents(expected, copy);
+        assertEquals(actual, copy);
+    }
+
+    private static <K, V> void assertContents(Map<K, V> expected,
+            Map<K, V> actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(new ArrayList<K>(expected.keySet()),
+                new ArrayList<K>(actual.keySet()));
+        assertEquals(new ArrayList<V>(expected.values()),
+                new ArrayList<V>(actual.values()));
+        assertEquals(new ArrayList<Map.Entry<K, V>>(expected.entrySet()),
+                new ArrayList<Map.Entry<K, V>>(actual.entrySet()));
+        assertEquals(expected.keySet(), actual.keySet());
+        assertEquals(expected.entrySet(), actual.entrySet());
+        assertEquals(expected.keySet().hashCode(), actual.keySet().hashCode());
+        assertEquals(expected.entrySet().hashCode(),
+                actual.entrySet().hashCode());
+        for (Map.Entry<K, V> entry : expected.entrySet()) {
+            assertTrue(actual.containsKey(entry.getKey()));
+            assertTrue(actual.containsValue(entry.getValue()));
+            assertEquals(entry.getValue(), actual.get(entry.getKey()));
+            assertTrue(actual.keySet().contains(entry.getKey()));
+            assertTrue(actual.values().contains(entry.getValue()));
+            assertTrue(actual.entrySet().contains(entry));
+        }
+        assertFalse(actual.containsKey(new Key(-1, 0)));
+        assertFalse(actual.containsKey("missing"));
+        assertNull(actual.get(new Key(-1, 0)));
+        assertFalse(actual.entrySet().contains("missing"));
+        Iterator<K> i = actual.keySet().iterator();
+        for (int n = 0; n < expected.size(); n++) {
+            i.next();
+        }
+        assertFalse(i.hasNext());
+        try {
+            i.next();
+            fail();
+        } catch (NoSuchElementException ignored) {
+        }
+    }
+}
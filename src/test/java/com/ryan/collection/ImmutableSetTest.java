@@ -0,0 +1,178 @@
+package com.ryan.collection;
+
+import com.ryan.collection.TestObjects.Key;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks {@code ImmutableSet} against {@code LinkedHashSet}, across the
+ * singleton, small (linearly scanned) and indexed size classes.
+ *
+ * @author Ryan Tao
+ */
+public final class ImmutableSetTest {
+    private static final int[] SIZES = {0, 1, 2, 5, 8, 9, 16, 17, 100, 1000};
+
+    @Test
+    public void testEmpty() throws Exception {
+        Set<String> set = ImmutableSet.of();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains("a"));
+        assertSetEquals(new LinkedHashSet<String>(), set);
+        assertEquals(Collections.emptySet(), set);
+    }
+
+    @Test
+    public void testSizeClasses() throws Exception {
+        Random random = new Random(42L);
+        for (int size : SIZES) {
+            Set<Key> expected = new LinkedHashSet<Key>();
+            ImmutableSet.Builder<Key> builder = new ImmutableSet.Builder<Key>();
+            for (int i = 0; i < size; i++) {
+                Key key = new Key(i, random.nextInt(8));
+                expected.add(key);
+                builder.add(key);
+            }
+            assertSetEquals(expected, builder.build());
+        }
+    }
+
+    @Test
+    public void testNullElement() throws Exception {
+        for (int size : SIZES) {
+            Set<String> expected = new LinkedHashSet<String>();
+            ImmutableSet.Builder<String> builder =
+                    new ImmutableSet.Builder<String>();
+            for (int i = 0; i < size; i++) {
+                String element = i == size / 2 ? null : "e" + i;
+                expected.add(element);
+                builder.add(element);
+            }
+            Set<String> set = builder.build();
+            assertSetEquals(expected, set);
+            assertEquals(size > 0, set.contains(null));
+        }
+    }
+
+    @Test
+    public void testDuplicateElements() throws Exception {
+        for (int size : SIZES) {
+            Set<Key> expected = new LinkedHashSet<Key>();
+            ImmutableSet.Builder<Key> builder = new ImmutableSet.Builder<Key>();
+            for (int round = 0; round < 3; round++) {
+                for (int i = size - 1; i >= 0; i -= round + 1) {
+                    Key key = new Key(i, i % 3);
+                    expected.add(key);
+                    builder.add(key);
+                }
+            }
+            assertSetEquals(expected, builder.build());
+        }
+        assertEquals(Arrays.asList("b", "a", "c"), new ArrayList<String>(
+                ImmutableSet.of("b", "a", "b", "c", "a")));
+    }
+
+    @Test
+    public void testFactories() throws Exception {
+        Set<String> expected = new LinkedHashSet<String>(
+                Arrays.asList("x", "y", "z"));
+        assertSetEquals(expected, ImmutableSet.of("x", "y", "z"));
+        assertSetEquals(expected, ImmutableSet.copyOf(
+                new String[]{"x", "y", "z"}));
+        assertSetEquals(expected, ImmutableSet.copyOf(expected.iterator()));
+        assertSetEquals(expected, ImmutableSet.copyOf((Iterable<String>)
+                Arrays.asList("x", "y", "z")));
+        Set<String> copy = ImmutableSet.copyOf(expected);
+        assertSetEquals(expected, copy);
+        assertSame(copy, ImmutableSet.copyOf(copy));
+    }
+
+    @Test
+    public void testImmutable() {
+        for (int size : SIZES) {
+            ImmutableSet.Builder<Integer> builder =
+                    new ImmutableSet.Builder<Integer>();
+            for (int i = 0; i < size; i++) {
+                builder.add(i);
+            }
+            Set<Integer> set = builder.build();
+            try {
+                set.add(-1);
+                fail();
+            } catch (UnsupportedOperationException expected) {
+            }
+            try {
+                set.clear();
+                fail();
+            } catch (UnsupportedOperationException expected) {
+            }
+            if (size > 0) {
+                try {
+                    set.remove(0);
+                    fail();
+                } catch (UnsupportedOperationException expected) {
+                }
+                Iterator<Integer> i = set.iterator();
+                i.next();
+                try {
+                    i.remove();
+                    fail();
+                } catch (UnsupportedOperationException expected) {
+                }
+            }
+        }
+    }
+
+    private static <E> void assertSetEquals(Set<E> expected, Set<E> actual)
+            throws IOException, ClassNotFoundException {
+        assertContents(expected, actual);
+        Set<E> copy = TestObjects.roundTrip(actual);
+        assertContents(expected, copy);
+        assertEquals(actual, copy);
+    }
+
+    private static <E> void assertContents(Set<E> expected, Set<E> actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(new ArrayList<E>(expected), new ArrayList<E>(actual));
+        assertArrayEquals(expected.toArray(), actual.toArray());
+        assertArrayEquals(expected.toArray(new Object[0]),
+                actual.toArray(new Object[0]));
+        assertTrue(actual.containsAll(expected));
+        for (E element : expected) {
+            assertTrue(actual.contains(element));
+        }
+        assertFalse(actual.contains(new Key(-1, 0)));
+        assertFalse(actual.contains("missing"));
+        Iterator<E> i = actual.iterator();
+        for (int n = 0; n < expected.size(); n++) {
+            i.next();
+        }
+        assertFalse(i.hasNext());
+        try {
+            i.next();
+            fail();
+        } catch (NoSuchElementException ignored) {
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.ryan.collection;
+
+import com.ryan.collection.TestObjects.Key;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Randomized checks of {@code PersistentMap} against {@code HashMap}, with
+ * spread, partially colliding and fully colliding hash codes.
+ *
+ * @author Ryan Tao
+ */
+public final class PersistentMapTest {
+    private static final int KEYS = 3000;
+    private static final int OPERATIONS = 30000;
+
+    /* Hash codes that are spread, differ only in their top bits, or are
+     * shared by several keys. */
+    private static final int[] SPREAD = {0, 1, 2};
+
+    @Test
+    public void testRandomUpdates() throws Exception {
+        for (int spread : SPREAD) {
+            Random random = new Random(spread);
+            PersistentMap<Key, Integer> map = PersistentMap.empty();
+            Map<Key, Integer> expected = new HashMap<Key, Integer>();
+            List<PersistentMap<Key, Integer>> versions =
+                    new ArrayList<PersistentMap<Key, Integer>>();
+            List<Map<Key, Integer>> snapshots =
+                    new ArrayList<Map<Key, Integer>>();
+            for (int i = 0; i < OPERATIONS; i++) {
+                Key key = key(random.nextInt(KEYS), spread);
+                if (random.nextInt(3) == 0) {
+                    map = map.without(key);
+                    expected.remove(key);
+                } else {
+                    Integer value = random.nextInt(10) == 0
+                            ? null : random.nextInt(100);
+                    map = map.with(key, value);
+                    expected.put(key, value);
+                }
+                if (i % 1000 == 0) {
+                    assertMapEquals(expected, map, spread);
+                    versions.add(map);
+                    snapshots.add(new HashMap<Key, Integer>(expected));
+                }
+            }
+            assertMapEquals(expected, map, spread);
+            assertMapEquals(expected, TestObjects.roundTrip(map), spread);
+            for (Key key : new ArrayList<Key>(expected.keySet())) {
+                map = map.without(key);
+                expected.remove(key);
+                if (expected.size() % 100 == 0) {
+                    assertMapEquals(expected, map, spread);
+                }
+            }
+            assertMapEquals(expected, map, spread);
+            assertSame(PersistentMap.empty(), map);
+            for (int i = 0; i < versions.size(); i++) {
+                assertMapEquals(snapshots.get(i), versions.get(i), spread);
+            }
+        }
+    }
+
+    @Test
+    public void testTransient() throws Exception {
+        for (int spread : SPREAD) {
+            Random random = new Random(spread);
+            PersistentMap<Key, Integer> map = PersistentMap.empty();
+            Map<Key, Integer> expected = new HashMap<Key, Integer>();
+            List<PersistentMap<Key, Integer>> versions =
+                    new ArrayList<PersistentMap<Key, Integer>>();
+            List<Map<Key, Integer>> snapshots =
+                    new ArrayList<Map<Key, Integer>>();
+            PersistentMap.Transient<Key, Integer> t = map.asTransient();
+            for (int i = 0; i < OPERATIONS; i++) {
+                Key key = key(random.nextInt(KEYS), spread);
+                if (random.nextInt(3) == 0) {
+                    t.remove(key);
+                    expected.remove(key);
+                } else {
+                    Integer value = random.nextInt(100);
+                    t.put(key, value);
+                    expected.put(key, value);
+                }
+                assertEquals(expected.size(), t.size());
+                assertEquals(expected.get(key), t.get(key));
+                if (i % 1000 == 0) {
+                    map = t.persistent();
+                    assertMapEquals(expected, map, spread);
+                    versions.add(map);
+                    snapshots.add(new HashMap<Key, Integer>(expected));
+                    t = map.asTransient();
+                }
+            }
+            for (Key key : new ArrayList<Key>(expected.keySet())) {
+                t.remove(key);
+                expected.remove(key);
+            }
+            assertEquals(0, t.size());
+            map = t.persistent();
+            assertMapEquals(expected, map, spread);
+            for (int i = 0; i < versions.size(); i++) {
+                assertMapEquals(snapshots.get(i), versions.get(i), spread);
+            }
+        }
+    }
+
+    @Test
+    public void testNullKey() {
+        PersistentMap<String, String> map = PersistentMap.empty();
+        map = map.with(null, "a").with("b", null);
+        assertEquals(2, map.size());
+        assertTrue(map.containsKey(null));
+        assertEquals("a", map.get(null));
+        assertTrue(map.containsKey("b"));
+        assertNull(map.get("b"));
+        assertSame(map, map.with(null, "a"));
+        assertSame(map, map.without("c"));
+        map = map.without(null);
+        assertFalse(map.containsKey(null));
+        assertEquals(Collections.singletonMap("b", null), map);
+    }
+
+    @Test
+    public void testCopyOf() {
+        Map<String, Integer> expected = new HashMap<String, Integer>();
+        for (int i = 0; i < 100; i++) {
+            expected.put("k" + i, i);
+        }
+        PersistentMap<String, Integer> map = PersistentMap.copyOf(expected);
+        assertEquals(expected, map);
+        assertSame(map, PersistentMap.copyOf(map));
+    }
+
+    @Test
+    public void testImmutable() {
+        PersistentMap<String, String> map =
+                PersistentMap.<String, String>empty().with("a", "b");
+        try {
+            map.put("c", "d");
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+        try {
+            map.remove("a");
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+        try {
+            map.clear();
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+        PersistentMap.Transient<String, String> t = map.asTransient();
+        t.persistent();
+        try {
+            t.put("c", "d");
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    private static Key key(int id, int spread) {
+        switch (spread) {
+            case 0:
+                return new Key(id, id * 0x9E3779B9);
+            case 1:
+                return new Key(id, Integer.reverse(id));
+            default:
+                return new Key(id, id % 256);
+        }
+    }
+
+    private static void assertMapEquals(Map<Key, Integer> expected,
+            Map<Key, Integer> actual, int spread) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        Set<Key> seen = new HashSet<Key>();
+        for (Map.Entry<Key, Integer> entry : actual.entrySet()) {
+            assertTrue(seen.add(entry.getKey()));
+            assertTrue(expected.containsKey(entry.getKey()));
+            assertEquals(expected.get(entry.getKey()), entry.getValue());
+        }
+        assertEquals(expected.size(), seen.size());
+        for (int id = 0; id < KEYS; id += 7) {
+            Key key = key(id, spread);
+            assertEquals(expected.containsKey(key), actual.containsKey(key));
+            assertEquals(expected.get(key), actual.get(key));
+        }
+    }
+}
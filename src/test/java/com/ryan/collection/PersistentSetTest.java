@@ -0,0 +1,120 @@
+package com.ryan.collection;
+
+import com.ryan.collection.TestObjects.Key;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Randomized checks of {@code PersistentSet} against {@code HashSet}.
+ *
+ * @author Ryan Tao
+ */
+public final class PersistentSetTest {
+    private static final int KEYS = 2000;
+
+    @Test
+    public void testRandomUpdates() throws Exception {
+        Random random = new Random(42L);
+        PersistentSet<Key> set = PersistentSet.empty();
+        Set<Key> expected = new HashSet<Key>();
+        List<PersistentSet<Key>> versions = new ArrayList<PersistentSet<Key>>();
+        List<Set<Key>> snapshots = new ArrayList<Set<Key>>();
+        for (int i = 0; i < 20000; i++) {
+            Key key = key(random.nextInt(KEYS));
+            boolean changed;
+            PersistentSet<Key> next;
+            if (random.nextInt(3) == 0) {
+                next = set.without(key);
+                changed = expected.remove(key);
+            } else {
+                next = set.with(key);
+                changed = expected.add(key);
+            }
+            assertEquals(changed, next != set);
+            set = next;
+            if (i % 1000 == 0) {
+                assertSetEquals(expected, set);
+                versions.add(set);
+                snapshots.add(new HashSet<Key>(expected));
+            }
+        }
+        assertSetEquals(expected, set);
+        assertSetEquals(expected, TestObjects.roundTrip(set));
+        for (Key key : new ArrayList<Key>(expected)) {
+            set = set.without(key);
+            expected.remove(key);
+        }
+        assertSame(PersistentSet.empty(), set);
+        for (int i = 0; i < versions.size(); i++) {
+            assertSetEquals(snapshots.get(i), versions.get(i));
+        }
+    }
+
+    @Test
+    public void testTransient() {
+        Random random = new Random(42L);
+        Set<Key> expected = new HashSet<Key>();
+        PersistentSet.Transient<Key> t = PersistentSet.<Key>empty()
+                .asTransient();
+        for (int i = 0; i < 20000; i++) {
+            Key key = key(random.nextInt(KEYS));
+            if (random.nextInt(3) == 0) {
+                t.remove(key);
+                expected.remove(key);
+            } else {
+                t.add(key);
+                expected.add(key);
+            }
+            assertEquals(expected.size(), t.size());
+            assertEquals(expected.contains(key), t.contains(key));
+        }
+        PersistentSet<Key> set = t.persistent();
+        assertSetEquals(expected, set);
+        try {
+            t.add(key(0));
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
+    @Test
+    public void testFactories() {
+        Set<String> expected = new HashSet<String>(
+                Arrays.asList("a", null, "c"));
+        assertEquals(expected, PersistentSet.of("a", null, "c", "a"));
+        PersistentSet<String> set = PersistentSet.copyOf(expected);
+        assertEquals(expected, set);
+        assertSame(set, PersistentSet.copyOf(set));
+        try {
+            set.add("d");
+            fail();
+        } catch (UnsupportedOperationException ignored) {
+        }
+    }
+
+    private static Key key(int id) {
+        return new Key(id, id % 512);
+    }
+
+    private static void assertSetEquals(Set<Key> expected, Set<Key> actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        assertEquals(expected, new HashSet<Key>(actual));
+        for (int id = 0; id < KEYS; id += 7) {
+            Key key = key(id);
+            assertEquals(expected.contains(key), actual.contains(key));
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.ryan.collection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Randomized checks of {@code PersistentVector} against {@code ArrayList},
+ * growing and shrinking across several levels of the tree.
+ *
+ * @author Ryan Tao
+ */
+public final class PersistentVectorTest {
+    private static final int MAX_SIZE = 40000;
+
+    @Test
+    public void testGrowAndDrain() throws Exception {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        List<Integer> expected = new ArrayList<Integer>();
+        List<PersistentVector<Integer>> versions =
+                new ArrayList<PersistentVector<Integer>>();
+        for (int i = 0; i < MAX_SIZE; i++) {
+            vector = vector.plus(i % 5 == 0 ? null : i);
+            expected.add(i % 5 == 0 ? null : i);
+            if (isBoundary(vector.size())) {
+                assertListEquals(expected, vector);
+                versions.add(vector);
+            }
+        }
+        assertListEquals(expected, TestObjects.roundTrip(vector));
+        while (!expected.isEmpty()) {
+            vector = vector.withoutLast();
+            expected.remove(expected.size() - 1);
+            if (isBoundary(vector.size())) {
+                assertListEquals(expected, vector);
+            }
+        }
+        assertSame(PersistentVector.empty(), vector);
+        for (PersistentVector<Integer> version : versions) {
+            assertListEquals(prefix(version.size()), version);
+        }
+        try {
+            vector.withoutLast();
+            fail();
+        } catch (NoSuchElementException ignored) {
+        }
+    }
+
+    @Test
+    public void testRandomUpdates() throws Exception {
+        Random random = new Random(42L);
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        List<Integer> expected = new ArrayList<Integer>();
+        List<PersistentVector<Integer>> versions =
+                new ArrayList<PersistentVector<Integer>>();
+        List<List<Integer>> snapshots = new ArrayList<List<Integer>>();
+        for (int i = 0; i < 100000; i++) {
+            int op = random.nextInt(10);
+            if (op < 5 || expected.isEmpty()) {
+                vector = vector.plus(i);
+                expected.add(i);
+            } else if (op < 8) {
+                int index = random.nextInt(expected.size() + 1);
+                vector = vector.with(index, -i);
+                if (index == expected.size()) {
+                    expected.add(-i);
+                } else {
+                    expected.set(index, -i);
+                }
+            } else {
+                vector = vector.withoutLast();
+                expected.remove(expected.size() - 1);
+            }
+            if (i % 5000 == 0) {
+                assertListEquals(expected, vector);
+                versions.add(vector);
+                snapshots.add(new ArrayList<Integer>(expected));
+            }
+        }
+        assertListEquals(expected, vector);
+        for (int i = 0; i < versions.size(); i++) {
+            assertListEquals(snapshots.get(i), versions.get(i));
+        }
+    }
+
+    @Test
+    public void testTransient() throws Exception {
+        Random random = new Random(42L);
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        List<Integer> expected = new ArrayList<Integer>();
+        List<PersistentVector<Integer>> versions =
+                new ArrayList<PersistentVector<Integer>>();
+        List<List<Integer>> snapshots = new ArrayList<List<Integer>>();
+        PersistentVector.Transient<Integer> t = vector.asTransient();
+        for (int i = 0; i < 100000; i++) {
+            int op = random.nextInt(10);
+            if (op < 5 || expected.isEmpty()) {
+                t.add(i);
+                expected.add(i);
+            } else if (op < 8) {
+                int index = random.nextInt(expected.size() + 1);
+                t.set(index, -i);
+                if (index == expected.size()) {
+                    expected.add(-i);
+                } else {
+                    expected.set(index, -i);
+                }
+            } else {
+                t.removeLast();
+                expected.remove(expected.size() - 1);
+            }
+            assertEquals(expected.size(), t.size());
+            if (i % 5000 == 0) {
+                vector = t.persistent();
+                assertListEquals(expected, vector);
+                versions.add(vector);
+                snapshots.add(new ArrayList<Integer>(expected));
+                t = vector.asTransient();
+            }
+        }
+        for (int i = 0; i < expected.size(); i += 97) {
+            assertEquals(expected.get(i), t.get(i));
+        }
+        while (!expected.isEmpty()) {
+            t.removeLast();
+            expected.remove(expected.size() - 1);
+        }
+        assertSame(PersistentVector.empty(), t.persistent());
+        for (int i = 0; i < versions.size(); i++) {
+            assertListEquals(snapshots.get(i), versions.get(i));
+        }
+        try {
+            t.add(0);
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
+    @Test
+    public void testFactories() {
+        assertEquals(Arrays.asList("a", null, "c"),
+                PersistentVector.of("a", null, "c"));
+        List<Integer> expected = prefix(1000);
+        assertEquals(expected, PersistentVector.copyOf(expected));
+        assertEquals(Collections.emptyList(), PersistentVector.of());
+    }
+
+    @Test
+    public void testIndexOutOfBounds() {
+        PersistentVector<Integer> vector = PersistentVector.copyOf(prefix(40));
+        for (int index : new int[]{-1, 40}) {
+            try {
+                vector.get(index);
+                fail();
+            } catch (IndexOutOfBoundsException ignored) {
+            }
+        }
+        try {
+            vector.with(41, 0);
+            fail();
+        } catch (IndexOutOfBoundsException ignored) {
+        }
+    }
+
+    /* Sizes around the tail and tree level boundaries. */
+    private static boolean isBoundary(int size) {
+        int width = size < 2048 ? 32 : 1024;
+        int r = size % width;
+        return r <= 1 || r == width - 1;
+    }
+
+    private static List<Integer> prefix(int size) {
+        List<Integer> list = new ArrayList<Integer>();
+        for (int i = 0; i < size; i++) {
+            list.add(i % 5 == 0 ? null : i);
+        }
+        return list;
+    }
+
+    private static void assertListEquals(List<Integer> expected,
+            List<Integer> actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        for (int i = 0; i < expected.size(); i += 31) {
+            assertEquals(expected.get(i), actual.get(i));
+        }
+        Iterator<Integer> i = actual.iterator();
+        for (Integer e : expected) {
+            assertEquals(e, i.next());
+        }
+        assertFalse(i.hasNext());
+    }
+}
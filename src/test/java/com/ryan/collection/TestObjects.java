@@ -0,0 +1,64 @@
+package com.ryan.collection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * Helpers shared by the collection tests.
+ *
+ * @author Ryan Tao
+ */
+final class TestObjects {
+    /**
+     * Returns a copy of the given object, obtained through serialization.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T roundTrip(T object)
+            throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(object);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()));
+        return (T) in.readObject();
+    }
+
+    /**
+     * Key with a chosen hash code, to force collisions.
+     */
+    static final class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int id;
+        private final int hash;
+
+        Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return "Key" + id;
+        }
+    }
+
+    private TestObjects() {
+        /* ... */
+    }
+}
@@ -0,0 +1,146 @@
+package com.ryan.hadoop;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.HTableInterfaceFactory;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Row;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the write buffer of {@link HBaseClient} against in-memory fake
+ * tables.
+ *
+ * @author Ryan Tao
+ */
+public final class HBaseClientTest {
+    private FakeTables tables;
+    private HBaseClient client;
+
+    @Before
+    public void setUp() {
+        tables = new FakeTables();
+        client = new HBaseClient(new Configuration(), tables, 4, 1L << 30,
+                1, TimeUnit.HOURS);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        tables.failing.clear();
+        client.close();
+    }
+
+    @Test
+    public void testFlushPreservesOrder() throws IOException {
+        client.put("t", put("r1"));
+        client.put("t", put("r2"));
+        client.delete("t", new Delete(Bytes.toBytes("r1")));
+        client.put("t", put("r3"));
+        assertTrue(client.getBufferedSize() > 0);
+        client.flush();
+        assertEquals(0, client.getBufferedSize());
+        assertEquals(Arrays.asList("t:put:r1", "t:put:r2", "t:delete:r1",
+                "t:put:r3"), tables.sent);
+        assertEquals(3, tables.batches.size());
+    }
+
+    @Test
+    public void testFailedFlushKeepsUnsentRows() throws IOException {
+        client.put("a", put("a1"));
+        client.put("b", put("b1"));
+        client.delete("b", new Delete(Bytes.toBytes("b1")));
+        client.put("c", put("c1"));
+        tables.failing.add("b");
+        try {
+            client.flush();
+            fail();
+        } catch (IOException expected) {
+            /* The failure of table b is reported... */
+        }
+        assertEquals(Arrays.asList("a:put:a1"), tables.sent);
+        assertTrue(client.getBufferedSize() > 0);
+
+        client.put("b", put("b2"));
+        client.put("d", put("d1"));
+        tables.failing.clear();
+        client.flush();
+        assertEquals(0, client.getBufferedSize());
+        assertEquals(Arrays.asList("a:put:a1", "b:put:b1", "b:delete:b1",
+                "b:put:b2", "c:put:c1", "d:put:d1"), tables.sent);
+    }
+
+    private static Put put(String row) {
+        Put put = new Put(Bytes.toBytes(row));
+        put.add(Bytes.toBytes("f"), Bytes.toBytes("q"), Bytes.toBytes(row));
+        return put;
+    }
+
+    /**
+     * Creates tables recording the mutations they receive, and failing
+     * their batches while their name is in {@code failing}.
+     */
+    private static final class FakeTables implements HTableInterfaceFactory {
+        final List<String> sent = new CopyOnWriteArrayList<String>();
+        final List<List<String>> batches = new CopyOnWriteArrayList<List<String>>();
+        final Set<String> failing = Collections.newSetFromMap(
+                new ConcurrentHashMap<String, Boolean>());
+
+        @Override
+        public HTableInterface createHTableInterface(Configuration config,
+                                                     final byte[] tableName) {
+            final String name = Bytes.toString(tableName);
+            InvocationHandler handler = new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args)
+                        throws IOException {
+                    if (method.getName().equals("getTableName")) {
+                        return tableName;
+                    }
+                    if (method.getName().equals("batch") && args.length == 1) {
+                        if (failing.contains(name)) {
+                            throw new IOException("Table " + name + " is down");
+                        }
+                        List<String> batch = new ArrayList<String>();
+                        for (Object row : (List<?>) args[0]) {
+                            batch.add(name + ":" + (row instanceof Put ? "put" : "delete")
+                                    + ":" + Bytes.toString(((Row) row).getRow()));
+                        }
+                        batches.add(batch);
+                        sent.addAll(batch);
+                        return new Object[batch.size()];
+                    }
+                    return null;
+                }
+            };
+            return (HTableInterface) Proxy.newProxyInstance(
+                    HTableInterface.class.getClassLoader(),
+                    new Class<?>[]{HTableInterface.class}, handler);
+        }
+
+        @Override
+        public void releaseHTableInterface(HTableInterface table) {
+            /* Nothing to release... */
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.ryan.hadoop;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the parallel listing and upload of {@link HdfsClient} against the
+ * local file system. The tiny work queue forces the submitting threads to
+ * run some of the tasks themselves.
+ *
+ * @author Ryan Tao
+ */
+public final class HdfsClientTest {
+    private static final int DIRS = 6;
+    private static final int FILES = 8;
+
+    private FileSystem fs;
+    private HdfsClient client;
+    private File local;
+    private Path remote;
+
+    @Before
+    public void setUp() throws IOException {
+        fs = FileSystem.getLocal(new Configuration());
+        client = new HdfsClient(fs, 4, 1);
+        local = Files.createTempDirectory("hdfs-client-src").toFile();
+        remote = new Path(Files.createTempDirectory("hdfs-client-dst").toUri());
+        for (int d = 0; d < DIRS; d++) {
+            File dir = new File(local, "d" + d + "/sub");
+            dir.mkdirs();
+            for (int f = 0; f < FILES; f++) {
+                write(new File(dir, "f" + f), content(d, f));
+            }
+        }
+        write(new File(local, "top"), content(-1, 0));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+        fs.delete(new Path(local.toURI()), true);
+        fs.delete(remote, true);
+    }
+
+    @Test
+    public void testUploadAndList() throws IOException {
+        Path target = new Path(remote, "tree");
+        long bytes = client.upload(local, target);
+        long expected = content(-1, 0).length;
+        for (int d = 0; d < DIRS; d++) {
+            for (int f = 0; f < FILES; f++) {
+                expected += content(d, f).length;
+                assertArrayEquals(content(d, f), read(new Path(target,
+                        "d" + d + "/sub/f" + f)));
+            }
+        }
+        assertEquals(expected, bytes);
+        assertArrayEquals(content(-1, 0), read(new Path(target, "top")));
+
+        final Set<String> names = Collections.newSetFromMap(
+                new ConcurrentHashMap<String, Boolean>());
+        long count = client.list(target, new FileStatusListener() {
+            @Override
+            public void onFileStatus(FileStatus status) {
+                names.add(status.getPath().getName());
+            }
+        });
+        assertEquals(1 + DIRS * (2 + FILES), count);
+        for (String name : Arrays.asList("top", "d0", "sub", "f0")) {
+            assertTrue(names.contains(name));
+        }
+    }
+
+    @Test
+    public void testListFile() throws IOException {
+        client.upload(local, remote);
+        final String[] name = new String[1];
+        long count = client.list(new Path(remote, "top"), new FileStatusListener() {
+            @Override
+            public void onFileStatus(FileStatus status) {
+                name[0] = status.getPath().getName();
+            }
+        });
+        assertEquals(1, count);
+        assertEquals("top", name[0]);
+    }
+
+    @Test
+    public void testListenerAbortsListing() throws IOException {
+        client.upload(local, remote);
+        try {
+            client.list(remote, new FileStatusListener() {
+                @Override
+                public void onFileStatus(FileStatus status) throws IOException {
+                    throw new IOException("abort");
+                }
+            });
+            fail();
+        } catch (IOException ex) {
+            assertEquals("abort", ex.getMessage());
+        }
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void testUploadMissingSource() throws IOException {
+        client.upload(new File(local, "missing"), remote);
+    }
+
+    private byte[] read(Path path) throws IOException {
+        byte[] data = new byte[(int) fs.getFileStatus(path).getLen()];
+        DataInputStream in = fs.open(path);
+        try {
+            in.readFully(data);
+        } finally {
+            in.close();
+        }
+        return data;
+    }
+
+    private static byte[] content(int dir, int file) {
+        byte[] data = new byte[(dir + 2) * 1000 + file];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31 + dir * 7 + file);
+        }
+        return data;
+    }
+
+    private static void write(File f, byte[] data) throws IOException {
+        FileOutputStream out = new FileOutputStream(f);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.ryan.math;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that {@code Numbers.mean} returns the exact mean of its arguments,
+ * rounded once.
+ *
+ * @author Ryan Tao
+ */
+public final class NumbersTest {
+    @Test
+    public void testMeanOfDecimals() {
+        assertEquals(0.2, Numbers.mean(0.1, 0.2, 0.3), 0.0);
+    }
+
+    @Test
+    public void testMeanWithCancellations() {
+        assertEquals(0.5, Numbers.mean(1e16, 1.0, -1e16, 1.0), 0.0);
+        assertEquals(2.596722461363214E-11, Numbers.mean(
+                8.760032532847511E13, 1.9972378629572427E-10,
+                7.929049279308865E-12, 2.7911596340855337E-15,
+                1.42456165395219E14, 1.2569162497258339E14,
+                8.217017438988684E-14, -3.557481156962775E14), 0.0);
+    }
+
+    @Test
+    public void testMeanOfIntegers() {
+        assertEquals(2.0, Numbers.mean(1.0, 2.0, 3.0), 0.0);
+        assertEquals(-0.5, Numbers.mean(-1.0, 0.0), 0.0);
+        assertEquals(1.0 / 3, Numbers.mean(1.0, 0.0, 0.0), 0.0);
+        assertEquals(1.5f, Numbers.mean(1f, 2f), 0.0);
+        assertEquals(9007199254740993.0 / 2, Numbers.mean(
+                9007199254740992.0, 1.0), 0.0);
+    }
+
+    @Test
+    public void testMeanDoesNotOverflow() {
+        assertEquals(Double.MAX_VALUE, Numbers.mean(
+                Double.MAX_VALUE, Double.MAX_VALUE), 0.0);
+        assertEquals(Float.MAX_VALUE, Numbers.mean(
+                Float.MAX_VALUE, Float.MAX_VALUE), 0.0);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testMeanOfNaN() {
+        Numbers.mean(1.0, Double.NaN);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMeanOfNothing() {
+        Numbers.mean(new double[0]);
+    }
+}
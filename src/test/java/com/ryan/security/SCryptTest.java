@@ -0,0 +1,87 @@
+package com.ryan.security;
+
+import com.ryan.charset.Charsets;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Checks the SCrypt KDF against the RFC 7914 test vectors, both sequentially
+ * and with the lanes run on an {@code Executor}.
+ *
+ * @author Ryan Tao
+ */
+public final class SCryptTest {
+    private static ExecutorService executor;
+
+    @BeforeClass
+    public static void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testEmptyPassword() {
+        byte[] expected = decode("77d6576238657b203b19ca42c18a0497"
+                + "f16b4844e3074ae8dfdffa3fede21442"
+                + "fcd0069ded0948f8326a753a0fc81f17"
+                + "e8d3e0fb2e0d3628cf35e20c38d18906");
+        assertDerives(expected, 1, 16, 1, "", "");
+    }
+
+    @Test
+    public void testParallelLanes() {
+        byte[] expected = decode("fdbabe1c9d3472007856e7190d01e9fe"
+                + "7c6ad7cbc8237830e77376634b373162"
+                + "2eaf30d92e22a3886ff109279d9830da"
+                + "c727afb94a83ee6d8360cbdfa2cc0640");
+        assertDerives(expected, 8, 1024, 16, "password", "NaCl");
+    }
+
+    @Test
+    public void testHighCost() {
+        byte[] expected = decode("7023bdcb3afd7348461c06cd81fd38eb"
+                + "fda8fbba904f8e3ea9b543f6545da1f2"
+                + "d5432955613f0fcf62d49705242a9af9"
+                + "e61e85dc0d651e40dfcf017b45575887");
+        assertDerives(expected, 8, 16384, 1, "pleaseletmein",
+                "SodiumChloride");
+    }
+
+    @Test
+    public void testSequentialAndParallelAgree() {
+        byte[] secret = "secret".getBytes(Charsets.UTF_8);
+        byte[] salt = "salt".getBytes(Charsets.UTF_8);
+        for (int p = 2; p <= 5; p++) {
+            assertArrayEquals(KDFs.scrypt(2, 64, p, 32).deriveKey(secret, salt),
+                    KDFs.scrypt(2, 64, p, 32, executor).deriveKey(secret, salt));
+        }
+    }
+
+    private static void assertDerives(byte[] expected, int r, int n, int p,
+                                      String password, String salt) {
+        byte[] secret = password.getBytes(Charsets.UTF_8);
+        byte[] s = salt.getBytes(Charsets.UTF_8);
+        assertArrayEquals(expected, KDFs.scrypt(r, n, p, expected.length)
+                .deriveKey(secret, s));
+        assertArrayEquals(expected, KDFs.scrypt(r, n, p, expected.length,
+                executor).deriveKey(secret, s));
+    }
+
+    private static byte[] decode(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}